@@ -23,4 +23,18 @@ public @interface Cache {
 
     CacheType type() default CacheType.FULL;
 
+    /**
+     * 元素 key (仅 BATCH 模式生效)，以返回集合中的元素为根对象的 springEl 表达式，如 {@code id}
+     * <p>
+     * BATCH 模式下 key 需解析为 id 集合，每个 id 对应的元素单独缓存，未命中的 id 会替换原集合参数后回源
+     */
+    String elementKey() default "";
+
+    /**
+     * 是否提前异步刷新 (仅 FULL 模式生效)
+     * <p>
+     * 命中的缓存存活超过 timeout * {@code ext.cache.refresh-ahead-ratio} 后，在虚拟线程中异步重新加载，调用方直接返回旧值
+     */
+    boolean refreshAhead() default false;
+
 }
\ No newline at end of file
@@ -2,11 +2,13 @@ package ext.library.cache.config;
 
 import ext.library.cache.config.properties.CacheProperties;
 import ext.library.cache.core.CacheAspect;
+import ext.library.cache.listener.CacheInvalidationListener;
 import ext.library.cache.strategy.CacheStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 
@@ -29,8 +31,14 @@ public class CacheAutoConfig {
     }
 
     @Bean
-    public CacheAspect cacheAspect(CacheStrategy cacheStrategy) {
+    public CacheAspect cacheAspect(CacheStrategy cacheStrategy, CacheProperties cacheProperties) {
         log.info("[💾] 缓存模块载入成功");
-        return new CacheAspect(cacheStrategy);
+        return new CacheAspect(cacheStrategy, cacheProperties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = CacheProperties.PREFIX, name = "invalidation.enabled", havingValue = "true", matchIfMissing = true)
+    public CacheInvalidationListener cacheInvalidationListener(CacheStrategy cacheStrategy, CacheProperties cacheProperties) {
+        return new CacheInvalidationListener(cacheStrategy, cacheProperties);
     }
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import ext.library.cache.enums.CacheStorage;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * 缓存属性
@@ -26,6 +28,41 @@ public class CacheProperties {
     /** 缓存存储方式 */
     private CacheStorage cacheStorage = CacheStorage.L2;
 
+    /**
+     * 提前刷新阈值，缓存存活时间超过过期时间的该比例后触发异步刷新，见 {@code @Cache#refreshAhead}
+     */
+    private double refreshAheadRatio = 0.8D;
+
+    /**
+     * 是否开启分布式加载合并，开启后 Redis/L2 策略下同一 key 集群内同一时刻只有一个节点回源
+     */
+    private boolean distributedLoad = false;
+
+    /**
+     * 分布式加载锁的超时时间，等待超过该时间后本节点直接回源
+     */
+    private Duration distributedLoadTimeout = Duration.ofSeconds(3L);
+
+    /**
+     * 本节点等待同一 key 其他请求加载的最长时间，超过后直接回源，避免加载卡住时阻塞所有请求
+     */
+    private Duration loadWaitTimeout = Duration.ofSeconds(5L);
+
+    /**
+     * 二级缓存本地失效广播配置
+     */
+    private Invalidation invalidation = new Invalidation();
+
+    /**
+     * Caffeine 本地缓存默认配置
+     */
+    private CaffeineSpec caffeine = new CaffeineSpec();
+
+    /**
+     * 按 cacheName 单独配置的 Caffeine 本地缓存，未配置的 cacheName 使用 {@link #caffeine} 默认配置
+     */
+    private Map<String, CaffeineSpec> caffeineCaches = new LinkedHashMap<>();
+
     public String getKeyPrefix() {
         return keyPrefix;
     }
@@ -49,4 +86,174 @@ public class CacheProperties {
     public void setCacheStorage(CacheStorage cacheStorage) {
         this.cacheStorage = cacheStorage;
     }
-}
\ No newline at end of file
+
+    public double getRefreshAheadRatio() {
+        return refreshAheadRatio;
+    }
+
+    public void setRefreshAheadRatio(double refreshAheadRatio) {
+        this.refreshAheadRatio = refreshAheadRatio;
+    }
+
+    public boolean isDistributedLoad() {
+        return distributedLoad;
+    }
+
+    public void setDistributedLoad(boolean distributedLoad) {
+        this.distributedLoad = distributedLoad;
+    }
+
+    public Duration getDistributedLoadTimeout() {
+        return distributedLoadTimeout;
+    }
+
+    public void setDistributedLoadTimeout(Duration distributedLoadTimeout) {
+        this.distributedLoadTimeout = distributedLoadTimeout;
+    }
+
+    public Duration getLoadWaitTimeout() {
+        return loadWaitTimeout;
+    }
+
+    public void setLoadWaitTimeout(Duration loadWaitTimeout) {
+        this.loadWaitTimeout = loadWaitTimeout;
+    }
+
+    public Invalidation getInvalidation() {
+        return invalidation;
+    }
+
+    public void setInvalidation(Invalidation invalidation) {
+        this.invalidation = invalidation;
+    }
+
+    public CaffeineSpec getCaffeine() {
+        return caffeine;
+    }
+
+    public void setCaffeine(CaffeineSpec caffeine) {
+        this.caffeine = caffeine;
+    }
+
+    public Map<String, CaffeineSpec> getCaffeineCaches() {
+        return caffeineCaches;
+    }
+
+    public void setCaffeineCaches(Map<String, CaffeineSpec> caffeineCaches) {
+        this.caffeineCaches = caffeineCaches;
+    }
+
+    /**
+     * 获取指定 cacheName 的 Caffeine 配置
+     *
+     * @param cacheName 缓存名称
+     *
+     * @return {@link CaffeineSpec }
+     */
+    public CaffeineSpec getCaffeineSpec(String cacheName) {
+        return caffeineCaches.getOrDefault(cacheName, caffeine);
+    }
+
+    /**
+     * Caffeine 本地缓存配置
+     */
+    public static class CaffeineSpec {
+
+        /**
+         * 最大缓存条数
+         */
+        private long maximumSize = 1000L;
+
+        /**
+         * 最大权重 (字节)，配置后按权重淘汰，{@link #maximumSize} 不再生效
+         */
+        private Long maximumWeight;
+
+        /**
+         * 是否按估算的序列化大小计算权重，关闭时每个条目权重为 1
+         */
+        private boolean weighBySize = true;
+
+        /**
+         * 本地缓存最长存活时间，为空时使用写入时指定的过期时间
+         */
+        private Duration expireTime;
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Long getMaximumWeight() {
+            return maximumWeight;
+        }
+
+        public void setMaximumWeight(Long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+        }
+
+        public boolean isWeighBySize() {
+            return weighBySize;
+        }
+
+        public void setWeighBySize(boolean weighBySize) {
+            this.weighBySize = weighBySize;
+        }
+
+        public Duration getExpireTime() {
+            return expireTime;
+        }
+
+        public void setExpireTime(Duration expireTime) {
+            this.expireTime = expireTime;
+        }
+    }
+
+    /**
+     * 二级缓存本地失效广播配置
+     */
+    public static class Invalidation {
+
+        /**
+         * 是否开启，开启后二级缓存写入或删除时通知其他节点删除本地缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 广播通道
+         */
+        private String channel = "ext:cache:invalidation";
+
+        /**
+         * 合并窗口，窗口内的失效请求合并为一条消息发送
+         */
+        private Duration window = Duration.ofMillis(20L);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getChannel() {
+            return channel;
+        }
+
+        public void setChannel(String channel) {
+            this.channel = channel;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+    }
+}
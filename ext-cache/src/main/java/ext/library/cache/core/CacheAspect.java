@@ -1,10 +1,21 @@
 package ext.library.cache.core;
 
 import ext.library.cache.annotion.Cache;
+import ext.library.cache.config.properties.CacheProperties;
 import ext.library.cache.enums.CacheType;
 import ext.library.cache.strategy.CacheStrategy;
+import ext.library.cache.strategy.CaffeineStrategy;
 import ext.library.core.util.spel.SpelUtil;
+import ext.library.redis.script.LuaScript;
+import ext.library.redis.script.RedisScripts;
+import ext.library.redis.util.RedisUtil;
+import ext.library.tool.constant.Symbol;
+import ext.library.tool.core.Exceptions;
+import ext.library.tool.core.Threads;
+import ext.library.tool.core.VirtualThreadPools;
 import ext.library.tool.util.DateUtil;
+import ext.library.tool.util.IDUtil;
+import ext.library.tool.util.StringUtil;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -12,18 +23,48 @@ import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
 
 import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Aspect
 public class CacheAspect {
+    /**
+     * 释放分布式加载锁的 lua 脚本，仅持有者可释放
+     */
+    // language=redis
+    private static final LuaScript<Long> RELEASE_LUA_SCRIPT = RedisScripts.register("cache_load_release", "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end", Long.class);
+    /** 等待其他节点加载时，查询缓存的周期 */
+    private static final Duration LOAD_WAIT_INTERVAL = Duration.ofMillis(50L);
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private final CacheStrategy cacheStrategy;
 
-    public CacheAspect(CacheStrategy cacheStrategy) {this.cacheStrategy = cacheStrategy;}
+    private final CacheProperties cacheProperties;
+
+    /** 本地请求合并 */
+    private final SingleFlight singleFlight;
+
+    /** 正在提前刷新的 key */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    public CacheAspect(CacheStrategy cacheStrategy, CacheProperties cacheProperties) {
+        this.cacheStrategy = cacheStrategy;
+        this.cacheProperties = cacheProperties;
+        this.singleFlight = new SingleFlight(cacheProperties.getLoadWaitTimeout());
+    }
 
     @Pointcut("@annotation(ext.library.cache.annotion.Cache)")
     public void cacheAspect() {
@@ -37,6 +78,10 @@ public class CacheAspect {
         Object[] args = point.getArgs();
 
         Cache annotation = method.getAnnotation(Cache.class);
+        // 集合按元素存取
+        if (annotation.type() == CacheType.BATCH) {
+            return doBatch(point, method, args, annotation);
+        }
         String cacheName = annotation.cacheName();
         String key = SpelUtil.parseValueToString(point.getThis(), method, args, annotation.key());
 
@@ -51,16 +96,177 @@ public class CacheAspect {
             cacheStrategy.evict(cacheName, key);
             return point.proceed();
         }
+        Duration timeout = DateUtil.convert(annotation.timeout(), annotation.timeUnit());
         Object cache = cacheStrategy.get(cacheName, key, signature.getReturnType());
         if (Objects.nonNull(cache)) {
+            if (annotation.refreshAhead()) {
+                refreshAhead(point, cacheName, key, timeout);
+            }
             return cache;
         }
 
+        return singleFlight.execute(cacheName + Symbol.COLON + key, () -> load(point, cacheName, key, signature.getReturnType(), timeout));
+    }
+
+    /**
+     * 集合按元素存取，未命中的 id 替换原集合参数后回源，结果按 id 顺序返回
+     */
+    private Object doBatch(ProceedingJoinPoint point, Method method, Object[] args, Cache annotation) throws Throwable {
+        StandardEvaluationContext context = SpelUtil.getSpelContext(point.getThis(), method, args);
+        if (!(SpelUtil.parseValue(context, annotation.key()) instanceof Collection<?> ids) || StringUtil.isBlank(annotation.elementKey())) {
+            throw Exceptions.throwOut("[💾] BATCH 模式的 key 需解析为集合并指定 elementKey，method: {}", method);
+        }
+        Class<?> elementType = ResolvableType.forMethodReturnType(method).asCollection().resolveGeneric();
+        if (Objects.isNull(elementType)) {
+            throw Exceptions.throwOut("[💾] BATCH 模式的返回值需为集合，method: {}", method);
+        }
+        String cacheName = annotation.cacheName();
+        Duration timeout = DateUtil.convert(annotation.timeout(), annotation.timeUnit());
+
+        // key -> id
+        Map<String, Object> keys = new LinkedHashMap<>(ids.size());
+        ids.forEach(id -> keys.put(String.valueOf(id), id));
+        Map<String, Object> values = new HashMap<>(cacheStrategy.getAll(cacheName, keys.keySet(), elementType));
+        if (values.size() < keys.size()) {
+            List<Object> missIds = new ArrayList<>(keys.size() - values.size());
+            keys.forEach((key, id) -> {
+                if (!values.containsKey(key)) {
+                    missIds.add(id);
+                }
+            });
+            log.debug("[💾] get {} data from database", missIds.size());
+            if (point.proceed(replaceIds(args, ids, missIds)) instanceof Collection<?> elements) {
+                Map<String, Object> loaded = new LinkedHashMap<>(elements.size());
+                for (Object element : elements) {
+                    if (Objects.nonNull(element)) {
+                        loaded.put(SpelUtil.parseValueToString(new StandardEvaluationContext(element), annotation.elementKey()), element);
+                    }
+                }
+                cacheStrategy.putAll(cacheName, loaded, timeout);
+                values.putAll(loaded);
+            }
+        }
+
+        Collection<Object> result = Set.class.isAssignableFrom(method.getReturnType()) ? new LinkedHashSet<>(keys.size()) : new ArrayList<>(keys.size());
+        keys.keySet().forEach(key -> {
+            Object value = values.get(key);
+            if (Objects.nonNull(value)) {
+                result.add(value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 使用未命中的 id 替换 key 对应的集合参数，key 不是直接取自参数时按原参数回源
+     */
+    private static Object[] replaceIds(Object[] args, Collection<?> ids, List<Object> missIds) {
+        Object[] newArgs = args.clone();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] == ids) {
+                newArgs[i] = ids instanceof Set ? new LinkedHashSet<>(missIds) : missIds;
+                break;
+            }
+        }
+        return newArgs;
+    }
+
+    /**
+     * 回源加载，开启分布式加载合并时同一 key 集群内只有一个节点回源
+     */
+    private Object load(ProceedingJoinPoint point, String cacheName, String key, Class<?> returnType, Duration timeout) throws Throwable {
+        if (!isDistributedLoad()) {
+            return proceedAndPut(point, cacheName, key, timeout);
+        }
+        String lockKey = cacheStrategy.genKey(cacheName, key) + ":loading";
+        String lockValue = IDUtil.getUUID();
+        Duration lockTimeout = cacheProperties.getDistributedLoadTimeout();
+        long deadline = System.nanoTime() + lockTimeout.toNanos();
+        do {
+            if (RedisUtil.setNxEx(lockKey, lockValue, lockTimeout)) {
+                try {
+                    // 获取锁期间其他节点可能已完成加载
+                    Object cache = cacheStrategy.get(cacheName, key, returnType);
+                    if (Objects.nonNull(cache)) {
+                        return cache;
+                    }
+                    return proceedAndPut(point, cacheName, key, timeout);
+                } finally {
+                    RELEASE_LUA_SCRIPT.execute(List.of(lockKey), lockValue);
+                }
+            }
+            Threads.sleep(LOAD_WAIT_INTERVAL);
+            Object cache = cacheStrategy.get(cacheName, key, returnType);
+            if (Objects.nonNull(cache)) {
+                log.debug("[💾] get data loaded by other node");
+                return cache;
+            }
+        } while (System.nanoTime() < deadline);
+        log.warn("[💾] 等待分布式加载超时，直接回源，cacheName: {}, key: {}", cacheName, key);
+        return proceedAndPut(point, cacheName, key, timeout);
+    }
+
+    private Object proceedAndPut(ProceedingJoinPoint point, String cacheName, String key, Duration timeout) throws Throwable {
         log.debug("[💾] get data from database");
         Object object = point.proceed();
         if (Objects.nonNull(object)) {
-            cacheStrategy.put(cacheName, key, object, DateUtil.convert(annotation.timeout(), TimeUnit.SECONDS));
+            cacheStrategy.put(cacheName, key, object, timeout);
         }
         return object;
     }
-}
\ No newline at end of file
+
+    /**
+     * 缓存存活超过阈值时，在虚拟线程中异步刷新
+     * <p>
+     * 剩余存活时间取自 Redis：L2 策略下本地副本按 Redis 的剩余存活时间回填，与 Redis 一致
+     */
+    private void refreshAhead(ProceedingJoinPoint point, String cacheName, String key, Duration timeout) {
+        Duration ttl = cacheStrategy.getTtl(cacheName, key);
+        if (Objects.isNull(ttl)) {
+            return;
+        }
+        long refreshAfter = (long) (timeout.toMillis() * cacheProperties.getRefreshAheadRatio());
+        if (timeout.toMillis() - ttl.toMillis() < refreshAfter) {
+            return;
+        }
+        // 刷新不加入未命中加载的请求合并，合并的请求拿到的始终是加载结果；同一 key 只有一个刷新
+        String flightKey = cacheName + Symbol.COLON + key;
+        if (singleFlight.isLoading(flightKey) || !refreshing.add(flightKey)) {
+            return;
+        }
+        VirtualThreadPools.execute("cache-refresh", () -> {
+            try {
+                refresh(point, cacheName, key, timeout);
+            } catch (Throwable e) {
+                // 刷新失败保留原缓存，过期后由请求回源
+                log.warn("[💾] 提前刷新缓存失败，cacheName: {}, key: {}", cacheName, key, e);
+            } finally {
+                refreshing.remove(flightKey);
+            }
+        });
+    }
+
+    /**
+     * 刷新缓存，开启分布式加载合并时未抢到锁的节点直接放弃本次刷新
+     */
+    private void refresh(ProceedingJoinPoint point, String cacheName, String key, Duration timeout) throws Throwable {
+        if (!isDistributedLoad()) {
+            proceedAndPut(point, cacheName, key, timeout);
+            return;
+        }
+        String lockKey = cacheStrategy.genKey(cacheName, key) + ":loading";
+        String lockValue = IDUtil.getUUID();
+        if (!RedisUtil.setNxEx(lockKey, lockValue, cacheProperties.getDistributedLoadTimeout())) {
+            return;
+        }
+        try {
+            proceedAndPut(point, cacheName, key, timeout);
+        } finally {
+            RELEASE_LUA_SCRIPT.execute(List.of(lockKey), lockValue);
+        }
+    }
+
+    private boolean isDistributedLoad() {
+        return cacheProperties.isDistributedLoad() && !(cacheStrategy instanceof CaffeineStrategy);
+    }
+}
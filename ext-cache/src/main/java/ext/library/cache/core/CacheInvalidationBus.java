@@ -0,0 +1,150 @@
+package ext.library.cache.core;
+
+import ext.library.cache.config.properties.CacheProperties;
+import ext.library.cache.strategy.CacheStrategy;
+import ext.library.json.util.JsonUtil;
+import ext.library.redis.util.RedisUtil;
+import ext.library.tool.core.Threads;
+import ext.library.tool.core.VirtualThreadPools;
+import ext.library.tool.util.IDUtil;
+import ext.library.tool.util.ObjectUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 本地缓存失效广播
+ * <p>
+ * 二级缓存写入或删除后，通过 Redis pub/sub 通知其他节点删除本地缓存。
+ * 同一时间窗口内的失效请求合并为一条消息发送，节点忽略自己发出的消息
+ *
+ * @since 2025.08.29
+ */
+public class CacheInvalidationBus {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /** 节点 id */
+    private final String nodeId = IDUtil.getUUID();
+
+    private final CacheProperties.Invalidation invalidation;
+
+    /** 本地缓存 */
+    private final CacheStrategy localStrategy;
+
+    private final Object lock = new Object();
+
+    /** 待发送的 key 失效，cacheName -> keys */
+    private Map<String, Set<String>> pendingKeys = new HashMap<>();
+
+    /** 待发送的 cacheName 失效 */
+    private Set<String> pendingClears = new HashSet<>();
+
+    /** 是否已安排发送 */
+    private boolean flushScheduled = false;
+
+    public CacheInvalidationBus(CacheProperties.Invalidation invalidation, CacheStrategy localStrategy) {
+        this.invalidation = invalidation;
+        this.localStrategy = localStrategy;
+    }
+
+    /**
+     * 广播 key 失效
+     *
+     * @param cacheName 缓存名称
+     * @param key       缓存 key
+     */
+    public void evict(String cacheName, String key) {
+        synchronized (lock) {
+            if (!pendingClears.contains(cacheName)) {
+                pendingKeys.computeIfAbsent(cacheName, k -> new HashSet<>()).add(key);
+            }
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * 广播 cacheName 失效
+     *
+     * @param cacheName 缓存名称
+     */
+    public void clear(String cacheName) {
+        synchronized (lock) {
+            pendingClears.add(cacheName);
+            pendingKeys.remove(cacheName);
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * 订阅失效消息
+     */
+    public void subscribe() {
+        RedisUtil.subscribe(invalidation.getChannel(), CacheInvalidation.class, this::onMessage);
+    }
+
+    /**
+     * 处理其他节点的失效消息
+     *
+     * @param message 失效消息
+     */
+    void onMessage(CacheInvalidation message) {
+        if (nodeId.equals(message.nodeId())) {
+            return;
+        }
+        if (ObjectUtil.isNotEmpty(message.clears())) {
+            message.clears().forEach(localStrategy::clear);
+        }
+        if (ObjectUtil.isNotEmpty(message.keys())) {
+            message.keys().forEach((cacheName, keys) -> keys.forEach(key -> localStrategy.evict(cacheName, key)));
+        }
+        log.debug("[💾] 收到节点 {} 的缓存失效消息，clears: {}, keys: {}", message.nodeId(), message.clears(), message.keys());
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        VirtualThreadPools.execute("cache-invalidation", () -> {
+            Threads.sleep(invalidation.getWindow());
+            flush();
+        });
+    }
+
+    private void flush() {
+        Map<String, Set<String>> keys;
+        Set<String> clears;
+        synchronized (lock) {
+            keys = pendingKeys;
+            clears = pendingClears;
+            pendingKeys = new HashMap<>();
+            pendingClears = new HashSet<>();
+            flushScheduled = false;
+        }
+        if (keys.isEmpty() && clears.isEmpty()) {
+            return;
+        }
+        try {
+            RedisUtil.publish(invalidation.getChannel(), JsonUtil.toJson(new CacheInvalidation(nodeId, keys, clears)));
+        } catch (Exception e) {
+            log.error("[💾] 缓存失效消息发送失败，clears: {}, keys: {}", clears, keys, e);
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 缓存失效消息
+     *
+     * @param nodeId 发送节点 id
+     * @param keys   失效的 key，cacheName -> keys
+     * @param clears 整体失效的 cacheName
+     */
+    public record CacheInvalidation(String nodeId, Map<String, Set<String>> keys, Set<String> clears) {}
+}
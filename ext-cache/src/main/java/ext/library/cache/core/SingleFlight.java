@@ -0,0 +1,84 @@
+package ext.library.cache.core;
+
+import ext.library.tool.holder.function.CheckedSupplier;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 请求合并 (单 JVM 内同一个 key 同一时刻只有一个加载者)
+ * <p>
+ * 并发到达的调用方共享首个调用方的加载结果，加载完成后立即移除，不做结果缓存；
+ * 等待超过 waitTimeout 时不再等待，直接执行自己的加载
+ *
+ * @since 2025.08.29
+ */
+public class SingleFlight {
+
+    /** 进行中的加载 */
+    private final Map<String, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+
+    /** 等待其他调用方加载的最长时间 */
+    private final Duration waitTimeout;
+
+    /**
+     * @param waitTimeout 等待其他调用方加载的最长时间
+     */
+    public SingleFlight(Duration waitTimeout) {
+        this.waitTimeout = waitTimeout;
+    }
+
+    /**
+     * 执行加载，同一 key 的并发调用只会执行一次 loader
+     *
+     * @param key    合并 key
+     * @param loader 加载逻辑
+     *
+     * @return {@link Object }
+     *
+     * @throws Throwable loader 抛出的异常
+     */
+    public Object execute(String key, CheckedSupplier<Object> loader) throws Throwable {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = flights.putIfAbsent(key, flight);
+        if (existing != null) {
+            return await(existing, loader);
+        }
+        try {
+            Object value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * 指定 key 是否正在加载
+     *
+     * @param key 合并 key
+     *
+     * @return boolean
+     */
+    public boolean isLoading(String key) {
+        return flights.containsKey(key);
+    }
+
+    private Object await(CompletableFuture<Object> flight, CheckedSupplier<Object> loader) throws Throwable {
+        try {
+            return flight.get(waitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            return loader.get();
+        }
+    }
+}
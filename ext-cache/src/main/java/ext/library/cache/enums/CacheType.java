@@ -3,5 +3,6 @@ package ext.library.cache.enums;
 public enum CacheType {
     FULL,   // 存取
     PUT,    // 只存
-    DELETE  // 删除
+    DELETE, // 删除
+    BATCH   // 集合按元素存取，key 为 id 集合，返回值为元素集合
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package ext.library.cache.listener;
+
+import ext.library.cache.config.properties.CacheProperties;
+import ext.library.cache.core.CacheInvalidationBus;
+import ext.library.cache.strategy.CacheStrategy;
+import ext.library.cache.strategy.L2Strategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+
+/**
+ * 本地缓存失效订阅监听器
+ */
+@Order(-1)
+public class CacheInvalidationListener implements ApplicationRunner {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final CacheStrategy cacheStrategy;
+
+    private final CacheProperties cacheProperties;
+
+    public CacheInvalidationListener(CacheStrategy cacheStrategy, CacheProperties cacheProperties) {
+        this.cacheStrategy = cacheStrategy;
+        this.cacheProperties = cacheProperties;
+    }
+
+    /**
+     * 在 Spring Boot 应用程序启动时，为二级缓存初始化本地缓存失效广播
+     *
+     * @param args 应用程序参数
+     *
+     * @throws Exception 初始化过程中可能抛出的异常
+     */
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!(cacheStrategy instanceof L2Strategy l2Strategy)) {
+            return;
+        }
+        CacheInvalidationBus invalidationBus = new CacheInvalidationBus(cacheProperties.getInvalidation(), l2Strategy.getCaffeineStrategy());
+        invalidationBus.subscribe();
+        l2Strategy.setInvalidationBus(invalidationBus);
+        log.info("[💾] 初始化本地缓存失效订阅监听器成功，nodeId: {}", invalidationBus.getNodeId());
+    }
+
+}
@@ -6,6 +6,10 @@ import ext.library.tool.constant.Symbol;
 import ext.library.tool.util.StringUtil;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * 缓存策略
@@ -56,6 +60,59 @@ public interface CacheStrategy {
      */
     void clear(String cacheName);
 
+    /**
+     * 批量获取缓存值
+     *
+     * @param cacheName 缓存名称
+     * @param keys      缓存 key 集合
+     * @param clazz     类型
+     *
+     * @return 命中的缓存，key -> 缓存值，未命中的 key 不在结果中
+     */
+    default <T> Map<String, T> getAll(String cacheName, Collection<String> keys, Class<T> clazz) {
+        Map<String, T> result = new LinkedHashMap<>(keys.size());
+        for (String key : keys) {
+            T value = get(cacheName, key, clazz);
+            if (Objects.nonNull(value)) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量保存缓存值
+     *
+     * @param cacheName  缓存名称
+     * @param values     key -> 缓存值
+     * @param expireTime 过期时间
+     */
+    default <T> void putAll(String cacheName, Map<String, T> values, Duration expireTime) {
+        values.forEach((key, value) -> put(cacheName, key, value, expireTime));
+    }
+
+    /**
+     * 批量删除缓存值
+     *
+     * @param cacheName 缓存名称
+     * @param keys      缓存 key 集合
+     */
+    default void evictAll(String cacheName, Collection<String> keys) {
+        keys.forEach(key -> evict(cacheName, key));
+    }
+
+    /**
+     * 获取缓存剩余存活时间
+     *
+     * @param cacheName 缓存名称
+     * @param key       缓存 key
+     *
+     * @return 剩余存活时间，缓存不存在或无法获取时返回 null
+     */
+    default Duration getTtl(String cacheName, String key) {
+        return null;
+    }
+
     /**
      * 生成 key
      *
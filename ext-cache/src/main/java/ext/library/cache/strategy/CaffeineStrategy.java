@@ -3,40 +3,79 @@ package ext.library.cache.strategy;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.Expiry;
+import ext.library.cache.config.properties.CacheProperties;
+import ext.library.core.util.SpringUtil;
+import ext.library.json.util.JsonUtil;
 import org.jspecify.annotations.NonNull;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 咖啡因策略
+ * <p>
+ * 每个 cacheName 对应一个独立的 Caffeine 实例，容量、权重与过期时间通过 {@link CacheProperties#getCaffeineCaches()} 单独配置
  *
  * @since 2025.08.29
  */
 public class CaffeineStrategy implements CacheStrategy {
-    private static final Cache<@NonNull String, @NonNull CaffeineEntry> CACHE = Caffeine.newBuilder().maximumSize(100).expireAfter(new Expiry<@NonNull String, @NonNull CaffeineEntry>() {
-        @Override
-        public long expireAfterCreate(@NonNull String s, @NonNull CaffeineEntry caffeineEntry, long l) {
-            return caffeineEntry.expireTime().toNanos();
-        }
+    /** cacheName -> Caffeine 实例 */
+    private final Map<String, Cache<@NonNull String, @NonNull CaffeineEntry>> caches = new ConcurrentHashMap<>();
 
-        @Override
-        public long expireAfterUpdate(@NonNull String s, @NonNull CaffeineEntry caffeineEntry, long l, long l1) {
-            return caffeineEntry.expireTime().toNanos();
-        }
+    /**
+     * 过期策略，按条目写入时指定的过期时间过期，不超过 cacheName 配置的最长存活时间
+     *
+     * @param maxExpireTime 最长存活时间，为空时不限制
+     *
+     * @return {@link Expiry }
+     */
+    private static Expiry<@NonNull String, @NonNull CaffeineEntry> expiry(Duration maxExpireTime) {
+        long maxNanos = Objects.isNull(maxExpireTime) ? Long.MAX_VALUE : maxExpireTime.toNanos();
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(@NonNull String s, @NonNull CaffeineEntry caffeineEntry, long l) {
+                return Math.min(caffeineEntry.expireTime().toNanos(), maxNanos);
+            }
 
-        @Override
-        public long expireAfterRead(@NonNull String s, @NonNull CaffeineEntry caffeineEntry, long l, long l1) {
-            if (caffeineEntry.accessFresh()) {
-                return caffeineEntry.expireTime().toNanos();
+            @Override
+            public long expireAfterUpdate(@NonNull String s, @NonNull CaffeineEntry caffeineEntry, long l, long l1) {
+                return Math.min(caffeineEntry.expireTime().toNanos(), maxNanos);
             }
-            return l1;
-        }
-    }).build();
+
+            @Override
+            public long expireAfterRead(@NonNull String s, @NonNull CaffeineEntry caffeineEntry, long l, long l1) {
+                if (caffeineEntry.accessFresh()) {
+                    return Math.min(caffeineEntry.expireTime().toNanos(), maxNanos);
+                }
+                return l1;
+            }
+        };
+    }
+
+    /**
+     * 估算缓存值序列化后的大小 (字节)
+     *
+     * @param value 缓存值
+     *
+     * @return int
+     */
+    private static int estimateSize(Object value) {
+        return switch (value) {
+            case null -> 0;
+            case byte[] bytes -> bytes.length;
+            case CharSequence chars -> chars.length();
+            case Number _, Boolean _, Character _ -> 16;
+            default -> JsonUtil.toJsonAsBytes(value).length;
+        };
+    }
 
     @Override
     public <T> T get(String cacheName, String key, Class<T> clazz) {
-        CaffeineEntry entry = CACHE.getIfPresent(genKey(cacheName, key));
+        CaffeineEntry entry = getCache(cacheName).getIfPresent(key);
         if (Objects.isNull(entry)) {
             return null;
         }
@@ -45,9 +84,22 @@ public class CaffeineStrategy implements CacheStrategy {
 
     @Override
     public <T> T put(String cacheName, String key, T value, Duration expireTime) {
-        String genKey = genKey(cacheName, key);
-        CaffeineEntry caffeineEntry = new CaffeineEntry(genKey, value, expireTime, true);
-        CACHE.put(genKey, caffeineEntry);
+        return put(cacheName, key, value, expireTime, true);
+    }
+
+    /**
+     * 保存缓存值
+     *
+     * @param key         缓存 key
+     * @param value       缓存值
+     * @param expireTime  过期时间
+     * @param accessFresh 读后是否刷新过期时间，作为 Redis 的副本时不刷新，避免比 Redis 中的数据存活更久
+     *
+     * @return {@link T }
+     */
+    public <T> T put(String cacheName, String key, T value, Duration expireTime, boolean accessFresh) {
+        CaffeineEntry caffeineEntry = new CaffeineEntry(key, value, expireTime, accessFresh, System.nanoTime());
+        getCache(cacheName).put(key, caffeineEntry);
         return value;
     }
 
@@ -57,24 +109,125 @@ public class CaffeineStrategy implements CacheStrategy {
         return value;
     }
 
+    @Override
+    public <T> Map<String, T> getAll(String cacheName, Collection<String> keys, Class<T> clazz) {
+        Map<String, CaffeineEntry> entries = getCache(cacheName).getAllPresent(keys);
+        Map<String, T> result = new LinkedHashMap<>(entries.size());
+        entries.forEach((key, entry) -> result.put(key, clazz.cast(entry.value())));
+        return result;
+    }
+
+    @Override
+    public <T> void putAll(String cacheName, Map<String, T> values, Duration expireTime) {
+        long writeNanos = System.nanoTime();
+        Map<String, CaffeineEntry> entries = new LinkedHashMap<>(values.size());
+        values.forEach((key, value) -> entries.put(key, new CaffeineEntry(key, value, expireTime, true, writeNanos)));
+        getCache(cacheName).putAll(entries);
+    }
+
+    /**
+     * 批量保存缓存值，每个 key 使用各自的过期时间，读后不刷新
+     *
+     * @param cacheName   缓存名称
+     * @param values      key -> 缓存值
+     * @param expireTimes key -> 过期时间，不在其中的 key 不保存
+     */
+    public <T> void putAll(String cacheName, Map<String, T> values, Map<String, Duration> expireTimes) {
+        long writeNanos = System.nanoTime();
+        Map<String, CaffeineEntry> entries = new LinkedHashMap<>(values.size());
+        values.forEach((key, value) -> {
+            Duration expireTime = expireTimes.get(key);
+            if (Objects.nonNull(expireTime)) {
+                entries.put(key, new CaffeineEntry(key, value, expireTime, false, writeNanos));
+            }
+        });
+        getCache(cacheName).putAll(entries);
+    }
+
+    @Override
+    public void evictAll(String cacheName, Collection<String> keys) {
+        Cache<@NonNull String, @NonNull CaffeineEntry> cache = caches.get(cacheName);
+        if (Objects.nonNull(cache)) {
+            cache.invalidateAll(keys);
+        }
+    }
+
+    /**
+     * 获取缓存剩余存活时间，按写入时指定的过期时间计算，不受读后刷新及本地最长存活时间影响
+     *
+     * @param cacheName 缓存名称
+     * @param key       缓存 key
+     *
+     * @return {@link Duration }
+     */
+    @Override
+    public Duration getTtl(String cacheName, String key) {
+        Cache<@NonNull String, @NonNull CaffeineEntry> cache = caches.get(cacheName);
+        if (Objects.isNull(cache)) {
+            return null;
+        }
+        CaffeineEntry entry = cache.policy().getIfPresentQuietly(key);
+        if (Objects.isNull(entry)) {
+            return null;
+        }
+        return entry.expireTime().minusNanos(System.nanoTime() - entry.writeNanos());
+    }
+
     @Override
     public void evict(String cacheName, String key) {
-        CACHE.invalidate(genKey(cacheName, key));
+        Cache<@NonNull String, @NonNull CaffeineEntry> cache = caches.get(cacheName);
+        if (Objects.nonNull(cache)) {
+            cache.invalidate(key);
+        }
     }
 
     /**
-     * 清理所有缓存
+     * 清理指定 cacheName 下的所有缓存
      *
      * @param cacheName 缓存名称
      */
     @Override
     public void clear(String cacheName) {
-        CACHE.invalidateAll();
+        Cache<@NonNull String, @NonNull CaffeineEntry> cache = caches.get(cacheName);
+        if (Objects.nonNull(cache)) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * 获取 cacheName 对应的 Caffeine 实例，不存在时按配置创建
+     *
+     * @param cacheName 缓存名称
+     *
+     * @return {@link Cache }
+     */
+    Cache<@NonNull String, @NonNull CaffeineEntry> getCache(String cacheName) {
+        return caches.computeIfAbsent(cacheName, name -> buildCache(getCaffeineSpec(name)));
+    }
+
+    private CacheProperties.CaffeineSpec getCaffeineSpec(String cacheName) {
+        return SpringUtil.getBean(CacheProperties.class).getCaffeineSpec(cacheName);
+    }
+
+    private Cache<@NonNull String, @NonNull CaffeineEntry> buildCache(CacheProperties.CaffeineSpec spec) {
+        Caffeine<@NonNull String, @NonNull CaffeineEntry> builder = Caffeine.newBuilder().expireAfter(expiry(spec.getExpireTime()));
+        if (Objects.isNull(spec.getMaximumWeight())) {
+            return builder.maximumSize(spec.getMaximumSize()).build();
+        }
+        builder.maximumWeight(spec.getMaximumWeight());
+        if (spec.isWeighBySize()) {
+            builder.weigher((String key, CaffeineEntry entry) -> key.length() + estimateSize(entry.value()));
+        } else {
+            builder.weigher((String key, CaffeineEntry entry) -> 1);
+        }
+        return builder.build();
     }
 
     record CaffeineEntry(String key, Object value,
                          // 过期时间
                          Duration expireTime,
                          // 读后是否刷新
-                         boolean accessFresh) {}
-}
\ No newline at end of file
+                         boolean accessFresh,
+                         // 写入时间 (System.nanoTime)
+                         long writeNanos) {}
+}
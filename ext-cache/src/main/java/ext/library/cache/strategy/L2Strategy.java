@@ -1,21 +1,32 @@
 package ext.library.cache.strategy;
 
-import ext.library.json.util.JsonUtil;
+import ext.library.cache.core.CacheInvalidationBus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 二级缓存 策略
+ * <p>
+ * Caffeine 中的数据是 Redis 的副本，存活时间不超过 Redis 中的剩余存活时间且读后不刷新：
+ * 其他节点的写入通过失效广播通知，Redis 中自然过期时本地副本同时过期
  *
  * @since 2025.08.29
  */
 public class L2Strategy implements CacheStrategy {
-    final CacheStrategy redisStrategy = new RedisStrategy();
-    final CacheStrategy caffeineStrategy = new CaffeineStrategy();
+    final RedisStrategy redisStrategy = new RedisStrategy();
+    final CaffeineStrategy caffeineStrategy = new CaffeineStrategy();
     private final Logger log = LoggerFactory.getLogger(getClass());
+    /** 本地缓存失效广播，未开启时为 null */
+    private volatile CacheInvalidationBus invalidationBus;
 
     @Override
     public <T> T get(String cacheName, String key, Class<T> clazz) {
@@ -26,11 +37,14 @@ public class L2Strategy implements CacheStrategy {
             return clazz.cast(caffeineCache);
         }
 
-        // 查询 Redis
+        // 查询 Redis，按剩余存活时间回填 Caffeine
         T redisCache = redisStrategy.get(cacheName, key, clazz);
         if (Objects.nonNull(redisCache)) {
             log.debug("[💾] get data from redis");
-            redisStrategy.put(cacheName, key, redisCache);
+            Duration ttl = redisStrategy.getTtl(cacheName, key);
+            if (Objects.nonNull(ttl)) {
+                caffeineStrategy.put(cacheName, key, redisCache, ttl, false);
+            }
             return redisCache;
         }
         return null;
@@ -38,27 +52,96 @@ public class L2Strategy implements CacheStrategy {
 
     @Override
     public <T> T put(String cacheName, String key, T value, Duration expireTime) {
-        redisStrategy.put(cacheName, key, JsonUtil.toJson(value), expireTime);
-        caffeineStrategy.put(cacheName, key, value, expireTime);
+        redisStrategy.put(cacheName, key, value, expireTime);
+        caffeineStrategy.put(cacheName, key, value, expireTime, false);
+        publishEvict(cacheName, key);
         return value;
     }
 
     @Override
     public <T> T put(String cacheName, String key, T value) {
-        redisStrategy.put(cacheName, key, JsonUtil.toJson(value));
-        caffeineStrategy.put(cacheName, key, value);
-        return value;
+        return put(cacheName, key, value, getDefaultExpireTime());
+    }
+
+    /**
+     * 批量获取缓存值，仅 Caffeine 未命中的 key 查询 Redis，并按剩余存活时间回填 Caffeine
+     */
+    @Override
+    public <T> Map<String, T> getAll(String cacheName, Collection<String> keys, Class<T> clazz) {
+        Map<String, T> caffeineCache = caffeineStrategy.getAll(cacheName, keys, clazz);
+        if (caffeineCache.size() == keys.size()) {
+            return caffeineCache;
+        }
+        List<String> missKeys = keys.stream().filter(key -> !caffeineCache.containsKey(key)).toList();
+        Map<String, T> redisCache = redisStrategy.getAll(cacheName, missKeys, clazz);
+        if (redisCache.isEmpty()) {
+            return caffeineCache;
+        }
+        log.debug("[💾] get {} data from redis", redisCache.size());
+        caffeineStrategy.putAll(cacheName, redisCache, redisStrategy.getTtls(cacheName, redisCache.keySet()));
+        Map<String, T> result = new LinkedHashMap<>(caffeineCache);
+        result.putAll(redisCache);
+        return result;
+    }
+
+    @Override
+    public <T> void putAll(String cacheName, Map<String, T> values, Duration expireTime) {
+        redisStrategy.putAll(cacheName, values, expireTime);
+        caffeineStrategy.putAll(cacheName, values, values.keySet().stream().collect(Collectors.toMap(Function.identity(), key -> expireTime)));
+        values.keySet().forEach(key -> publishEvict(cacheName, key));
+    }
+
+    @Override
+    public void evictAll(String cacheName, Collection<String> keys) {
+        redisStrategy.evictAll(cacheName, keys);
+        caffeineStrategy.evictAll(cacheName, keys);
+        keys.forEach(key -> publishEvict(cacheName, key));
+    }
+
+    /**
+     * 剩余存活时间，本地副本的过期时间取自 Redis，命中本地时无需查询 Redis
+     */
+    @Override
+    public Duration getTtl(String cacheName, String key) {
+        Duration ttl = caffeineStrategy.getTtl(cacheName, key);
+        if (Objects.nonNull(ttl)) {
+            return ttl;
+        }
+        return redisStrategy.getTtl(cacheName, key);
     }
 
     @Override
     public void evict(String cacheName, String key) {
         redisStrategy.evict(cacheName, key);
         caffeineStrategy.evict(cacheName, key);
+        publishEvict(cacheName, key);
     }
 
     @Override
     public void clear(String cacheName) {
         redisStrategy.clear(cacheName);
         caffeineStrategy.clear(cacheName);
+        CacheInvalidationBus bus = invalidationBus;
+        if (Objects.nonNull(bus)) {
+            bus.clear(cacheName);
+        }
+    }
+
+    /**
+     * 通知其他节点删除本地缓存
+     */
+    private void publishEvict(String cacheName, String key) {
+        CacheInvalidationBus bus = invalidationBus;
+        if (Objects.nonNull(bus)) {
+            bus.evict(cacheName, key);
+        }
+    }
+
+    public CacheStrategy getCaffeineStrategy() {
+        return caffeineStrategy;
+    }
+
+    public void setInvalidationBus(CacheInvalidationBus invalidationBus) {
+        this.invalidationBus = invalidationBus;
     }
-}
\ No newline at end of file
+}
@@ -1,24 +1,30 @@
 package ext.library.cache.strategy;
 
-import ext.library.json.util.JsonUtil;
 import ext.library.redis.util.RedisUtil;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Redis 策略
+ * <p>
+ * 缓存值通过 {@link ext.library.redis.serialize.ValueCodec} 编码后存储
  *
  * @since 2025.08.29
  */
 public class RedisStrategy implements CacheStrategy {
     @Override
     public <T> T get(String cacheName, String key, Class<T> clazz) {
-        return RedisUtil.get(genKey(cacheName, key), clazz);
+        return RedisUtil.getObj(genKey(cacheName, key), clazz);
     }
 
     @Override
     public <T> T put(String cacheName, String key, T value, Duration expireTime) {
-        RedisUtil.set(genKey(cacheName, key), JsonUtil.toJson(value), expireTime);
+        RedisUtil.setObj(genKey(cacheName, key), value, expireTime);
         return value;
     }
 
@@ -27,6 +33,63 @@ public class RedisStrategy implements CacheStrategy {
         return put(cacheName, key, value, getDefaultExpireTime());
     }
 
+    /**
+     * 批量获取缓存值，使用 MGET 一次往返完成
+     */
+    @Override
+    public <T> Map<String, T> getAll(String cacheName, Collection<String> keys, Class<T> clazz) {
+        Map<String, String> genKeys = new LinkedHashMap<>(keys.size());
+        keys.forEach(key -> genKeys.put(genKey(cacheName, key), key));
+        Map<String, T> values = RedisUtil.mGetObjToMap(genKeys.keySet(), clazz);
+        Map<String, T> result = new LinkedHashMap<>(values.size());
+        values.forEach((genKey, value) -> result.put(genKeys.get(genKey), value));
+        return result;
+    }
+
+    /**
+     * 批量保存缓存值，使用 pipeline 一次往返完成
+     */
+    @Override
+    public <T> void putAll(String cacheName, Map<String, T> values, Duration expireTime) {
+        Map<String, T> genValues = new LinkedHashMap<>(values.size());
+        values.forEach((key, value) -> genValues.put(genKey(cacheName, key), value));
+        RedisUtil.mSetObj(genValues, expireTime);
+    }
+
+    @Override
+    public void evictAll(String cacheName, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        RedisUtil.unlink(keys.stream().map(key -> genKey(cacheName, key)).toList());
+    }
+
+    @Override
+    public Duration getTtl(String cacheName, String key) {
+        return getTtls(cacheName, List.of(key)).get(key);
+    }
+
+    /**
+     * 批量获取剩余存活时间 (毫秒精度)，使用 pipeline 一次往返完成
+     *
+     * @param cacheName 缓存名称
+     * @param keys      缓存 key 集合
+     *
+     * @return key -> 剩余存活时间，不存在或未设置过期时间的 key 不在结果中
+     */
+    public Map<String, Duration> getTtls(String cacheName, Collection<String> keys) {
+        List<String> keyList = List.copyOf(keys);
+        List<Long> ttls = RedisUtil.pTtl(keyList.stream().map(key -> genKey(cacheName, key)).toList());
+        Map<String, Duration> result = new LinkedHashMap<>(keyList.size());
+        for (int i = 0; i < keyList.size(); i++) {
+            Long ttl = ttls.get(i);
+            if (Objects.nonNull(ttl) && ttl > 0) {
+                result.put(keyList.get(i), Duration.ofMillis(ttl));
+            }
+        }
+        return result;
+    }
+
     @Override
     public void evict(String cacheName, String key) {
         RedisUtil.del(genKey(cacheName, key));
@@ -34,6 +97,6 @@ public class RedisStrategy implements CacheStrategy {
 
     @Override
     public void clear(String cacheName) {
-        RedisUtil.patternUnlink(cacheName + ":*");
+        RedisUtil.patternUnlink(genKey(cacheName, "*"));
     }
 }
\ No newline at end of file
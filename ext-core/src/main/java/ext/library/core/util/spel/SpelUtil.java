@@ -77,6 +77,18 @@ public class SpelUtil {
         return PARSER.get().parseExpression(spelExpression).getValue(context, String.class);
     }
 
+    /**
+     * 解析 spel 表达式
+     *
+     * @param context        spel 上下文
+     * @param spelExpression spel 表达式
+     *
+     * @return Object 解析后的对象
+     */
+    public static Object parseValue(StandardEvaluationContext context, String spelExpression) {
+        return PARSER.get().parseExpression(spelExpression).getValue(context);
+    }
+
     /**
      * 解析 spel 表达式
      *
@@ -1,9 +1,12 @@
 package ext.library.monitor;
 
+import ext.library.monitor.jfr.JfrTelemetry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import oshi.SystemInfo;
 
@@ -11,6 +14,7 @@ import oshi.SystemInfo;
  * 系统监控限制配置
  */
 @AutoConfiguration
+@EnableConfigurationProperties(MonitorProperties.class)
 public class MonitorAutoConfig {
     private final Logger log = LoggerFactory.getLogger(getClass());
 
@@ -26,4 +30,33 @@ public class MonitorAutoConfig {
         return new OshiMonitor(new SystemInfo());
     }
 
-}
\ No newline at end of file
+    /**
+     * 后台采样，采样结果供 OshiMonitor 非阻塞读取
+     *
+     * @return OshiSampler 实例
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(value = MonitorProperties.PREFIX + ".sampler.enabled", havingValue = "true", matchIfMissing = true)
+    public OshiSampler oshiSampler(OshiMonitor oshiMonitor, MonitorProperties monitorProperties) {
+        MonitorProperties.SamplerProperties properties = monitorProperties.getSampler();
+        OshiSampler sampler = new OshiSampler(oshiMonitor, properties.getInterval(), properties.getHistorySize());
+        oshiMonitor.setSampler(sampler);
+        log.info("[📊] 系统监控后台采样已启动，间隔:{}", properties.getInterval());
+        return sampler;
+    }
+
+    /**
+     * 基于 JFR 事件流的 JVM 运行时监控
+     *
+     * @return JfrTelemetry 实例
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(value = MonitorProperties.PREFIX + ".jfr.enabled", havingValue = "true")
+    public JfrTelemetry jfrTelemetry(MonitorProperties monitorProperties) {
+        log.info("[📊] JFR 运行时监控已启动，统计窗口:{}", monitorProperties.getJfr().getWindow());
+        return new JfrTelemetry(monitorProperties.getJfr());
+    }
+
+}
@@ -0,0 +1,33 @@
+package ext.library.monitor;
+
+import ext.library.monitor.jfr.JfrMetricsBinder;
+import ext.library.monitor.jfr.JfrTelemetry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * 系统监控 Micrometer 指标配置，在 {@link MonitorAutoConfig} 之后装配
+ */
+@AutoConfiguration(after = MonitorAutoConfig.class)
+@ConditionalOnClass(MeterBinder.class)
+public class MonitorMetricsAutoConfig {
+
+    @Bean
+    @ConditionalOnBean(OshiSampler.class)
+    @ConditionalOnMissingBean
+    public OshiMetricsBinder oshiMetricsBinder(OshiSampler oshiSampler) {
+        return new OshiMetricsBinder(oshiSampler);
+    }
+
+    @Bean
+    @ConditionalOnBean(JfrTelemetry.class)
+    @ConditionalOnMissingBean
+    public JfrMetricsBinder jfrMetricsBinder(JfrTelemetry jfrTelemetry) {
+        return new JfrMetricsBinder(jfrTelemetry);
+    }
+
+}
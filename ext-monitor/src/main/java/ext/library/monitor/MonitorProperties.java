@@ -0,0 +1,150 @@
+package ext.library.monitor;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 系统监控配置项
+ */
+@ConfigurationProperties(MonitorProperties.PREFIX)
+public class MonitorProperties {
+
+    public static final String PREFIX = "ext.monitor";
+
+    /**
+     * 后台采样配置
+     */
+    private SamplerProperties sampler = new SamplerProperties();
+
+    /**
+     * JFR 运行时监控配置
+     */
+    private JfrProperties jfr = new JfrProperties();
+
+    public SamplerProperties getSampler() {
+        return sampler;
+    }
+
+    public void setSampler(SamplerProperties sampler) {
+        this.sampler = sampler;
+    }
+
+    public JfrProperties getJfr() {
+        return jfr;
+    }
+
+    public void setJfr(JfrProperties jfr) {
+        this.jfr = jfr;
+    }
+
+    public static class SamplerProperties {
+
+        /**
+         * 启用后台采样，关闭时每次调用同步采样 (cpu 600 毫秒，网络 3 秒)
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 采样间隔
+         */
+        private Duration interval = Duration.ofSeconds(5L);
+
+        /**
+         * 保留的采样数
+         */
+        private Integer historySize = 120;
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public Integer getHistorySize() {
+            return historySize;
+        }
+
+        public void setHistorySize(Integer historySize) {
+            this.historySize = historySize;
+        }
+    }
+
+    public static class JfrProperties {
+
+        /**
+         * 启用 JFR 运行时监控 (虚拟线程固定、GC 暂停、对象分配、锁竞争、线程挂起)
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 统计窗口
+         */
+        private Duration window = Duration.ofMinutes(1L);
+
+        /**
+         * 排行表返回的条数
+         */
+        private Integer topN = 10;
+
+        /**
+         * 虚拟线程固定、锁竞争、线程挂起事件的最小耗时，低于该值的事件不记录
+         */
+        private Duration threshold = Duration.ofMillis(20L);
+
+        /**
+         * 对象分配采样频率
+         */
+        private String allocationThrottle = "150/s";
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public Integer getTopN() {
+            return topN;
+        }
+
+        public void setTopN(Integer topN) {
+            this.topN = topN;
+        }
+
+        public Duration getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(Duration threshold) {
+            this.threshold = threshold;
+        }
+
+        public String getAllocationThrottle() {
+            return allocationThrottle;
+        }
+
+        public void setAllocationThrottle(String allocationThrottle) {
+            this.allocationThrottle = allocationThrottle;
+        }
+    }
+}
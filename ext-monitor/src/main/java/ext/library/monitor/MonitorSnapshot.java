@@ -0,0 +1,21 @@
+package ext.library.monitor;
+
+import java.util.List;
+
+/**
+ * 一次采样的监控信息
+ */
+public record MonitorSnapshot(
+        // 采样时间（毫秒）
+        long timestamp,
+        // cpu 信息，距上一次采样的使用率
+        CpuInfo cpu,
+        // 系统内存信息
+        MemoryInfo memory,
+        // JVM 信息
+        JvmInfo jvm,
+        // 磁盘信息
+        List<DiskInfo> disks,
+        // 网络带宽信息，距上一次采样的平均值
+        NetIoInfo netIo
+) {}
@@ -0,0 +1,43 @@
+package ext.library.monitor;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import jakarta.annotation.Nonnull;
+import java.util.Objects;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 将后台采样结果注册为 Micrometer 指标，读取最近一次采样，不触发采样
+ */
+public class OshiMetricsBinder implements MeterBinder {
+
+    private final OshiSampler sampler;
+
+    public OshiMetricsBinder(OshiSampler sampler) {
+        this.sampler = sampler;
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        gauge(registry, "oshi.cpu.usage", "cpu 使用率", s -> s.cpu().usePercent());
+        gauge(registry, "oshi.cpu.system", "cpu 系统使用率", s -> s.cpu().systemPercent());
+        gauge(registry, "oshi.cpu.user", "cpu 用户使用率", s -> s.cpu().userPercent());
+        gauge(registry, "oshi.cpu.wait", "cpu 等待率", s -> s.cpu().waitPercent());
+        gauge(registry, "oshi.memory.usage", "系统内存使用率", s -> s.memory().usePercent());
+        gauge(registry, "oshi.jvm.memory.usage", "JVM 内存使用率", s -> s.jvm().usePercent());
+        gauge(registry, "oshi.net.rx.packets", "每秒接收的数据包", s -> Double.parseDouble(s.netIo().rxpck()));
+        gauge(registry, "oshi.net.tx.packets", "每秒发送的数据包", s -> Double.parseDouble(s.netIo().txpck()));
+        gauge(registry, "oshi.net.rx.kilobytes", "每秒接收的 KB 数", s -> Double.parseDouble(s.netIo().rxbyt()));
+        gauge(registry, "oshi.net.tx.kilobytes", "每秒发送的 KB 数", s -> Double.parseDouble(s.netIo().txbyt()));
+        gauge(registry, "oshi.disk.usage", "磁盘最大使用率", s -> s.disks().stream().mapToDouble(DiskInfo::usePercent).max().orElse(0));
+    }
+
+    private void gauge(MeterRegistry registry, String name, String description, ToDoubleFunction<MonitorSnapshot> metric) {
+        Gauge.builder(name, sampler, current -> {
+            MonitorSnapshot snapshot = current.getLatest();
+            return Objects.isNull(snapshot) ? Double.NaN : metric.applyAsDouble(snapshot);
+        }).description(description).register(registry);
+    }
+}
@@ -13,25 +13,32 @@ import oshi.util.Util;
 
 import java.lang.management.ManagementFactory;
 import java.lang.management.RuntimeMXBean;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 基于 OShi 服务器信息收集监控
  */
 public class OshiMonitor {
 
+    /** 已解析的格式模板，只用于复制 */
+    private static final Map<String, DecimalFormat> DECIMAL_FORMATS = new ConcurrentHashMap<>();
+
     /**
      * 获取系统信息
      */
     SystemInfo systemInfo;
 
+    /** 后台采样器，未启用时为 null */
+    private volatile OshiSampler sampler;
+
     public OshiMonitor(SystemInfo systemInfo) {
         this.systemInfo = systemInfo;
     }
@@ -116,15 +123,31 @@ public class OshiMonitor {
     }
 
     /**
-     * 获取 cpu 信息
+     * 获取 cpu 信息，启用采样时返回最近一次采样结果，否则采样 600 毫秒
      *
      * @return {@link CpuInfo}
      */
     public CpuInfo getCpuInfo() {
+        MonitorSnapshot snapshot = latestSnapshot();
+        if (Objects.nonNull(snapshot)) {
+            return snapshot.cpu();
+        }
         CentralProcessor centralProcessor = getCentralProcessor();
         long[] prevTicks = centralProcessor.getSystemCpuLoadTicks();
         Util.sleep(600);
-        long[] ticks = centralProcessor.getSystemCpuLoadTicks();
+        return getCpuInfo(prevTicks, centralProcessor.getSystemCpuLoadTicks());
+    }
+
+    /**
+     * 根据两次 cpu 时钟计算 cpu 信息
+     *
+     * @param prevTicks 上一次的 cpu 时钟
+     * @param ticks     本次的 cpu 时钟
+     *
+     * @return {@link CpuInfo}
+     */
+    public CpuInfo getCpuInfo(long[] prevTicks, long[] ticks) {
+        CentralProcessor centralProcessor = getCentralProcessor();
         long nice = ticks[CentralProcessor.TickType.NICE.getIndex()] - prevTicks[CentralProcessor.TickType.NICE.getIndex()];
         long irq = ticks[CentralProcessor.TickType.IRQ.getIndex()] - prevTicks[CentralProcessor.TickType.IRQ.getIndex()];
         long softirq = ticks[CentralProcessor.TickType.SOFTIRQ.getIndex()] - prevTicks[CentralProcessor.TickType.SOFTIRQ.getIndex()];
@@ -134,6 +157,9 @@ public class OshiMonitor {
         long ioWait = ticks[CentralProcessor.TickType.IOWAIT.getIndex()] - prevTicks[CentralProcessor.TickType.IOWAIT.getIndex()];
         long idle = ticks[CentralProcessor.TickType.IDLE.getIndex()] - prevTicks[CentralProcessor.TickType.IDLE.getIndex()];
         long totalCpu = user + nice + sys + idle + ioWait + irq + softirq + steal;
+        if (totalCpu <= 0) {
+            return new CpuInfo(centralProcessor.getPhysicalProcessorCount(), centralProcessor.getLogicalProcessorCount(), 0, 0, 0, 0);
+        }
         return new CpuInfo(centralProcessor.getPhysicalProcessorCount(), centralProcessor.getLogicalProcessorCount(), formatDouble(sys * 1.0 / totalCpu), formatDouble(user * 1.0 / totalCpu), formatDouble(ioWait * 1.0 / totalCpu), formatDouble(1.0 - (idle * 1.0 / totalCpu)));
     }
 
@@ -186,73 +212,134 @@ public class OshiMonitor {
     }
 
     /**
-     * 获取网络带宽信息
+     * 获取网络带宽信息，启用采样时返回最近一次采样结果，否则采样 3 秒
      *
      * @return {@link NetIoInfo}
      */
     public NetIoInfo getNetIoInfo() {
-        long rxBytesBegin = 0;
-        long txBytesBegin = 0;
-        long rxPacketsBegin = 0;
-        long txPacketsBegin = 0;
-        long rxBytesEnd = 0;
-        long txBytesEnd = 0;
-        long rxPacketsEnd = 0;
-        long txPacketsEnd = 0;
-        HardwareAbstractionLayer hal = getHardwareAbstractionLayer();
-        List<NetworkIF> listBegin = hal.getNetworkIFs();
-        for (NetworkIF net : listBegin) {
-            rxBytesBegin += net.getBytesRecv();
-            txBytesBegin += net.getBytesSent();
-            rxPacketsBegin += net.getPacketsRecv();
-            txPacketsBegin += net.getPacketsSent();
+        MonitorSnapshot snapshot = latestSnapshot();
+        if (Objects.nonNull(snapshot)) {
+            return snapshot.netIo();
         }
-
+        long[] begin = getNetIoCounters();
         // 暂停 3 秒
         Util.sleep(3000);
+        return getNetIoInfo(begin, getNetIoCounters(), 3000L);
+    }
 
-        List<NetworkIF> listEnd = hal.getNetworkIFs();
-        for (NetworkIF net : listEnd) {
-            rxBytesEnd += net.getBytesRecv();
-            txBytesEnd += net.getBytesSent();
-            rxPacketsEnd += net.getPacketsRecv();
-            txPacketsEnd += net.getPacketsSent();
+    /**
+     * 获取所有网卡的累计收发计数
+     *
+     * @return 接收字节数、发送字节数、接收包数、发送包数
+     */
+    public long[] getNetIoCounters() {
+        long[] counters = new long[4];
+        for (NetworkIF net : getHardwareAbstractionLayer().getNetworkIFs()) {
+            counters[0] += net.getBytesRecv();
+            counters[1] += net.getBytesSent();
+            counters[2] += net.getPacketsRecv();
+            counters[3] += net.getPacketsSent();
         }
+        return counters;
+    }
 
-        long rxBytesAvg = (rxBytesEnd - rxBytesBegin) / 3 / 1024;
-        long txBytesAvg = (txBytesEnd - txBytesBegin) / 3 / 1024;
-        long rxPacketsAvg = (rxPacketsEnd - rxPacketsBegin) / 3 / 1024;
-        long txPacketsAvg = (txPacketsEnd - txPacketsBegin) / 3 / 1024;
+    /**
+     * 根据两次网卡计数计算网络带宽信息
+     *
+     * @param begin   开始时的计数，{@link #getNetIoCounters()}
+     * @param end     结束时的计数，{@link #getNetIoCounters()}
+     * @param elapsed 间隔毫秒
+     *
+     * @return {@link NetIoInfo}
+     */
+    public NetIoInfo getNetIoInfo(long[] begin, long[] end, long elapsed) {
+        long millis = Math.max(elapsed, 1L);
+        long rxBytesAvg = (end[0] - begin[0]) * 1000 / millis / 1024;
+        long txBytesAvg = (end[1] - begin[1]) * 1000 / millis / 1024;
+        long rxPacketsAvg = (end[2] - begin[2]) * 1000 / millis / 1024;
+        long txPacketsAvg = (end[3] - begin[3]) * 1000 / millis / 1024;
         return new NetIoInfo(Long.toString(rxPacketsAvg), Long.toString(txPacketsAvg), Long.toString(rxBytesAvg), Long.toString(txBytesAvg));
     }
 
+    /**
+     * 字节数转为带单位的字符串，最多保留两位小数，如 1.5MB
+     */
     public String formatByte(long byteNumber) {
         // 换算单位
         double format = 1024.0;
         double kbNumber = byteNumber / format;
         if (kbNumber < format) {
-            return decimalFormat("#.##KB", kbNumber);
+            return formatScaled(kbNumber) + "KB";
         }
         double mbNumber = kbNumber / format;
         if (mbNumber < format) {
-            return decimalFormat("#.##MB", mbNumber);
+            return formatScaled(mbNumber) + "MB";
         }
         double gbNumber = mbNumber / format;
         if (gbNumber < format) {
-            return decimalFormat("#.##GB", gbNumber);
+            return formatScaled(gbNumber) + "GB";
         }
-        return decimalFormat("#.##TB", gbNumber / format);
+        return formatScaled(gbNumber / format) + "TB";
     }
 
+    /**
+     * 按 pattern 格式化，解析后的 pattern 按模板缓存，每次调用复制一份 (DecimalFormat 非线程安全)
+     */
     public String decimalFormat(String pattern, double number) {
-        return new DecimalFormat(pattern).format(number);
+        DecimalFormat format = DECIMAL_FORMATS.computeIfAbsent(pattern, DecimalFormat::new);
+        return ((DecimalFormat) format.clone()).format(number);
     }
 
+    /**
+     * 保留两位小数，四舍五入
+     */
     public double formatDouble(double str) {
-        return new BigDecimal(str).setScale(2, RoundingMode.HALF_UP).doubleValue();
+        if (!Double.isFinite(str)) {
+            return 0;
+        }
+        return Math.round(str * 100) / 100.0;
+    }
+
+    /**
+     * 设置后台采样器，设置后 {@link #getCpuInfo()}、{@link #getNetIoInfo()} 不再阻塞
+     *
+     * @param sampler 采样器，为 null 时恢复同步采样
+     */
+    public void setSampler(OshiSampler sampler) {
+        this.sampler = sampler;
+    }
+
+    public OshiSampler getSampler() {
+        return sampler;
     }
 
     public SystemInfo getSystemInfo() {
         return systemInfo;
     }
+
+    /**
+     * 最多保留两位小数并去掉末尾的 0，与 #.## 格式一致，不创建 DecimalFormat
+     */
+    private static String formatScaled(double number) {
+        // 与 DecimalFormat 默认的 HALF_EVEN 舍入一致
+        long scaled = (long) Math.rint(Math.abs(number) * 100);
+        StringBuilder builder = new StringBuilder(12);
+        if (number < 0 && scaled != 0) {
+            builder.append('-');
+        }
+        builder.append(scaled / 100);
+        int fraction = (int) (scaled % 100);
+        if (fraction != 0) {
+            builder.append('.').append(fraction / 10);
+            if (fraction % 10 != 0) {
+                builder.append(fraction % 10);
+            }
+        }
+        return builder.toString();
+    }
+
+    private MonitorSnapshot latestSnapshot() {
+        OshiSampler current = sampler;
+        return Objects.isNull(current) ? null : current.getLatest();
+    }
 }
\ No newline at end of file
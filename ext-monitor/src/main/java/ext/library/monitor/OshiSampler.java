@@ -0,0 +1,138 @@
+package ext.library.monitor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 系统监控后台采样
+ * <p>
+ * 在定时虚拟线程上按固定间隔采样 cpu、内存、JVM、磁盘、网络信息，cpu 使用率与网络带宽按相邻两次采样的差值计算，
+ * 不再在调用线程上休眠。最近的采样保存在环形缓冲区中，读取最新值为 O(1)，并可按时间窗口读取历史
+ */
+public class OshiSampler implements AutoCloseable {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final OshiMonitor monitor;
+
+    private final AtomicReferenceArray<MonitorSnapshot> ring;
+
+    private final ScheduledExecutorService executor;
+
+    /** 已写入的采样数，仅采样线程写 */
+    private volatile long count = 0;
+
+    private volatile MonitorSnapshot latest;
+
+    private long[] prevTicks;
+
+    private long[] prevNet;
+
+    private long prevAt;
+
+    /**
+     * @param monitor     系统监控
+     * @param interval    采样间隔
+     * @param historySize 保留的采样数
+     */
+    public OshiSampler(OshiMonitor monitor, Duration interval, int historySize) {
+        this.monitor = monitor;
+        this.ring = new AtomicReferenceArray<>(Math.max(historySize, 1));
+        this.prevTicks = monitor.getCentralProcessor().getSystemCpuLoadTicks();
+        this.prevNet = monitor.getNetIoCounters();
+        this.prevAt = System.currentTimeMillis();
+        long period = Math.max(interval.toMillis(), 1L);
+        this.executor = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("oshi-sampler").factory());
+        // 首次采样不等待完整间隔，尽快提供数据
+        executor.scheduleWithFixedDelay(this::sample, Math.min(period, 1000L), period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 最近一次采样
+     *
+     * @return {@link MonitorSnapshot}，尚未采样时为 null
+     */
+    public MonitorSnapshot getLatest() {
+        return latest;
+    }
+
+    /**
+     * 保留的所有采样，按时间升序
+     *
+     * @return {@link List }<{@link MonitorSnapshot }>
+     */
+    public List<MonitorSnapshot> getHistory() {
+        return getHistory(null);
+    }
+
+    /**
+     * 时间窗口内的采样，按时间升序
+     *
+     * @param window 时间窗口，为 null 时返回所有保留的采样
+     *
+     * @return {@link List }<{@link MonitorSnapshot }>
+     */
+    public List<MonitorSnapshot> getHistory(Duration window) {
+        long written = count;
+        int size = (int) Math.min(written, ring.length());
+        long since = Objects.isNull(window) ? Long.MIN_VALUE : System.currentTimeMillis() - window.toMillis();
+        List<MonitorSnapshot> history = new ArrayList<>(size);
+        for (long i = written - size; i < written; i++) {
+            MonitorSnapshot snapshot = ring.get((int) (i % ring.length()));
+            // 读取期间被覆盖的槽位时间晚于窗口内的其他采样，按时间过滤即可
+            if (Objects.nonNull(snapshot) && snapshot.timestamp() >= since && (history.isEmpty() || snapshot.timestamp() > history.getLast().timestamp())) {
+                history.add(snapshot);
+            }
+        }
+        return history;
+    }
+
+    /**
+     * 时间窗口内某项指标的平均值
+     *
+     * @param window 时间窗口
+     * @param metric 指标，例如 {@code s -> s.cpu().usePercent()}
+     *
+     * @return 平均值，窗口内没有采样时为 0
+     */
+    public double average(Duration window, ToDoubleFunction<MonitorSnapshot> metric) {
+        return getHistory(window).stream().mapToDouble(metric).average().orElse(0);
+    }
+
+    /**
+     * 停止采样
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void sample() {
+        try {
+            long now = System.currentTimeMillis();
+            long[] ticks = monitor.getCentralProcessor().getSystemCpuLoadTicks();
+            long[] net = monitor.getNetIoCounters();
+            CpuInfo cpu = monitor.getCpuInfo(prevTicks, ticks);
+            NetIoInfo netIo = monitor.getNetIoInfo(prevNet, net, now - prevAt);
+            prevTicks = ticks;
+            prevNet = net;
+            prevAt = now;
+            MonitorSnapshot snapshot = new MonitorSnapshot(now, cpu, monitor.getMemoryInfo(), monitor.getJvmInfo(), List.copyOf(monitor.getDiskInfos()), netIo);
+            long index = count;
+            ring.set((int) (index % ring.length()), snapshot);
+            count = index + 1;
+            latest = snapshot;
+        } catch (Exception e) {
+            log.warn("[📊] 系统监控采样失败", e);
+        }
+    }
+}
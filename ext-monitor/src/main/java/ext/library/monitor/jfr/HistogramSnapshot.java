@@ -0,0 +1,23 @@
+package ext.library.monitor.jfr;
+
+import java.time.Duration;
+
+/**
+ * 耗时直方图在时间窗口内的统计
+ */
+public record HistogramSnapshot(
+        // 窗口内事件数
+        long count,
+        // 累计事件数
+        long total,
+        // 平均耗时
+        Duration mean,
+        // 最大耗时
+        Duration max,
+        // 50 分位，按 2 的幂分桶估算
+        Duration p50,
+        // 95 分位
+        Duration p95,
+        // 99 分位
+        Duration p99
+) {}
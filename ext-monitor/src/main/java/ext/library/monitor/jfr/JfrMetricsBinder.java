@@ -0,0 +1,37 @@
+package ext.library.monitor.jfr;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import jakarta.annotation.Nonnull;
+import java.util.function.Supplier;
+
+/**
+ * 将 JFR 运行时监控注册为 Micrometer 指标
+ * <p>
+ * 每类事件注册累计次数，以及统计窗口内的 p99、最大耗时 (毫秒)
+ */
+public class JfrMetricsBinder implements MeterBinder {
+
+    private final JfrTelemetry telemetry;
+
+    public JfrMetricsBinder(JfrTelemetry telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        bind(registry, "jfr.virtual.thread.pinned", "虚拟线程固定在载体线程上", telemetry::getPinned);
+        bind(registry, "jfr.gc.pause", "GC 暂停", telemetry::getGcPause);
+        bind(registry, "jfr.monitor.enter", "等待 synchronized 锁", telemetry::getMonitorEnter);
+        bind(registry, "jfr.thread.park", "线程挂起", telemetry::getThreadPark);
+    }
+
+    private void bind(MeterRegistry registry, String name, String description, Supplier<HistogramSnapshot> histogram) {
+        FunctionCounter.builder(name + ".count", histogram, h -> h.get().total()).description(description + "次数").register(registry);
+        Gauge.builder(name + ".p99", histogram, h -> h.get().p99().toNanos() / 1e6).description(description + "耗时 p99").baseUnit("milliseconds").register(registry);
+        Gauge.builder(name + ".max", histogram, h -> h.get().max().toNanos() / 1e6).description(description + "最大耗时").baseUnit("milliseconds").register(registry);
+    }
+}
@@ -0,0 +1,235 @@
+package ext.library.monitor.jfr;
+
+import ext.library.monitor.MonitorProperties;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 基于 JFR 事件流的 JVM 运行时监控
+ * <p>
+ * 在进程内订阅虚拟线程固定 (pinning)、GC 暂停、对象分配采样、锁竞争、线程挂起事件，
+ * 汇总为滚动窗口的耗时直方图与排行表，内存固定。事件由 JFR 的事件流线程处理，读取不阻塞
+ */
+public class JfrTelemetry implements AutoCloseable {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    static final String VIRTUAL_THREAD_PINNED = "jdk.VirtualThreadPinned";
+
+    static final String GARBAGE_COLLECTION = "jdk.GarbageCollection";
+
+    static final String OBJECT_ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+
+    static final String JAVA_MONITOR_ENTER = "jdk.JavaMonitorEnter";
+
+    static final String THREAD_PARK = "jdk.ThreadPark";
+
+    /** 每个窗口的槽位数 */
+    private static final int SLOTS = 6;
+
+    /** 排行表每个槽位保存的键数为 topN 的倍数 */
+    private static final int CAPACITY_FACTOR = 8;
+
+    private final int topN;
+
+    private final RecordingStream stream;
+
+    private final RollingHistogram pinned;
+
+    private final RollingHistogram gcPause;
+
+    private final RollingHistogram monitorEnter;
+
+    private final RollingHistogram threadPark;
+
+    /** 虚拟线程固定的调用位置 */
+    private final TopTable pinnedSites;
+
+    /** GC 名称 */
+    private final TopTable gcNames;
+
+    /** 分配的类 */
+    private final TopTable allocationClasses;
+
+    /** 分配的调用位置 */
+    private final TopTable allocationSites;
+
+    /** 竞争的锁对象类 */
+    private final TopTable monitorClasses;
+
+    /** 线程挂起的调用位置 */
+    private final TopTable parkSites;
+
+    /**
+     * @param properties JFR 监控配置
+     */
+    public JfrTelemetry(MonitorProperties.JfrProperties properties) {
+        Duration window = properties.getWindow();
+        this.topN = Math.max(properties.getTopN(), 1);
+        int capacity = topN * CAPACITY_FACTOR;
+        this.pinned = new RollingHistogram(window, SLOTS);
+        this.gcPause = new RollingHistogram(window, SLOTS);
+        this.monitorEnter = new RollingHistogram(window, SLOTS);
+        this.threadPark = new RollingHistogram(window, SLOTS);
+        this.pinnedSites = new TopTable(window, SLOTS, capacity);
+        this.gcNames = new TopTable(window, SLOTS, capacity);
+        this.allocationClasses = new TopTable(window, SLOTS, capacity);
+        this.allocationSites = new TopTable(window, SLOTS, capacity);
+        this.monitorClasses = new TopTable(window, SLOTS, capacity);
+        this.parkSites = new TopTable(window, SLOTS, capacity);
+
+        this.stream = new RecordingStream();
+        // 事件流数据最多保留 1 分钟，避免在磁盘上累积
+        stream.setMaxAge(Duration.ofMinutes(1L));
+        stream.setReuse(true);
+        stream.setOrdered(false);
+        stream.enable(VIRTUAL_THREAD_PINNED).withThreshold(properties.getThreshold()).withStackTrace();
+        stream.enable(GARBAGE_COLLECTION);
+        stream.enable(OBJECT_ALLOCATION_SAMPLE).with("throttle", properties.getAllocationThrottle()).withStackTrace();
+        stream.enable(JAVA_MONITOR_ENTER).withThreshold(properties.getThreshold()).withStackTrace();
+        stream.enable(THREAD_PARK).withThreshold(properties.getThreshold()).withStackTrace();
+        stream.onEvent(VIRTUAL_THREAD_PINNED, this::onPinned);
+        stream.onEvent(GARBAGE_COLLECTION, this::onGarbageCollection);
+        stream.onEvent(OBJECT_ALLOCATION_SAMPLE, this::onAllocation);
+        stream.onEvent(JAVA_MONITOR_ENTER, this::onMonitorEnter);
+        stream.onEvent(THREAD_PARK, this::onThreadPark);
+        stream.onError(e -> log.warn("[📊] JFR 事件处理失败", e));
+        stream.startAsync();
+    }
+
+    /**
+     * 虚拟线程固定在载体线程上的耗时
+     */
+    public HistogramSnapshot getPinned() {
+        return pinned.snapshot();
+    }
+
+    /**
+     * GC 暂停耗时，每次 GC 的暂停总和
+     */
+    public HistogramSnapshot getGcPause() {
+        return gcPause.snapshot();
+    }
+
+    /**
+     * 进入 synchronized 时等待锁的耗时
+     */
+    public HistogramSnapshot getMonitorEnter() {
+        return monitorEnter.snapshot();
+    }
+
+    /**
+     * 线程挂起 (LockSupport.park) 的耗时
+     */
+    public HistogramSnapshot getThreadPark() {
+        return threadPark.snapshot();
+    }
+
+    /**
+     * 虚拟线程固定的调用位置，按固定总耗时排序
+     */
+    public List<TopEntry> getTopPinnedSites() {
+        return pinnedSites.top(topN);
+    }
+
+    /**
+     * GC，按暂停总耗时排序
+     */
+    public List<TopEntry> getTopGcNames() {
+        return gcNames.top(topN);
+    }
+
+    /**
+     * 分配的类，按采样的分配字节数排序
+     */
+    public List<TopEntry> getTopAllocationClasses() {
+        return allocationClasses.top(topN);
+    }
+
+    /**
+     * 分配的调用位置，按采样的分配字节数排序
+     */
+    public List<TopEntry> getTopAllocationSites() {
+        return allocationSites.top(topN);
+    }
+
+    /**
+     * 竞争的锁对象类，按等待总耗时排序
+     */
+    public List<TopEntry> getTopMonitorClasses() {
+        return monitorClasses.top(topN);
+    }
+
+    /**
+     * 线程挂起的调用位置，按挂起总耗时排序
+     */
+    public List<TopEntry> getTopParkSites() {
+        return parkSites.top(topN);
+    }
+
+    /**
+     * 停止事件流
+     */
+    @Override
+    public void close() {
+        stream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        Duration duration = event.getDuration();
+        pinned.record(duration);
+        pinnedSites.add(site(event), duration.toNanos());
+    }
+
+    private void onGarbageCollection(RecordedEvent event) {
+        Duration pause = event.getDuration("sumOfPauses");
+        gcPause.record(pause);
+        gcNames.add(event.getString("name"), pause.toNanos());
+    }
+
+    private void onAllocation(RecordedEvent event) {
+        long weight = event.getLong("weight");
+        RecordedClass objectClass = event.getClass("objectClass");
+        allocationClasses.add(Objects.isNull(objectClass) ? "unknown" : objectClass.getName(), weight);
+        allocationSites.add(site(event), weight);
+    }
+
+    private void onMonitorEnter(RecordedEvent event) {
+        Duration duration = event.getDuration();
+        monitorEnter.record(duration);
+        RecordedClass monitorClass = event.getClass("monitorClass");
+        monitorClasses.add(Objects.isNull(monitorClass) ? "unknown" : monitorClass.getName(), duration.toNanos());
+    }
+
+    private void onThreadPark(RecordedEvent event) {
+        Duration duration = event.getDuration();
+        threadPark.record(duration);
+        parkSites.add(site(event), duration.toNanos());
+    }
+
+    /**
+     * 事件的调用位置，跳过 JDK 内部的栈帧
+     */
+    static String site(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (Objects.isNull(stackTrace) || stackTrace.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        RecordedFrame site = frames.stream().filter(frame -> frame.isJavaFrame() && !isJdk(frame)).findFirst().orElse(frames.getFirst());
+        return site.getMethod().getType().getName() + '.' + site.getMethod().getName() + ':' + site.getLineNumber();
+    }
+
+    private static boolean isJdk(RecordedFrame frame) {
+        String name = frame.getMethod().getType().getName();
+        return name.startsWith("java.") || name.startsWith("jdk.") || name.startsWith("sun.");
+    }
+}
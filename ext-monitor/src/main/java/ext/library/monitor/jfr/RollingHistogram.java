@@ -0,0 +1,151 @@
+package ext.library.monitor.jfr;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 滚动时间窗口的耗时直方图
+ * <p>
+ * 窗口按时间切分为固定数量的槽位，每个槽位按 2 的幂 (微秒) 分桶计数，过期的槽位在写入时复用，内存固定。
+ * 分位数取所在桶的上界，不超过窗口内的最大值。由单个线程写入，其他线程读取
+ */
+public class RollingHistogram {
+
+    /** 桶数，最后一个桶约 2^39 微秒 */
+    static final int BUCKETS = 40;
+
+    private final long slotMillis;
+
+    private final Slot[] slots;
+
+    /** 累计事件数，不随窗口滚动 */
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * @param window 窗口长度
+     * @param slots  槽位数，越多窗口滚动越平滑
+     */
+    public RollingHistogram(Duration window, int slots) {
+        int size = Math.max(slots, 1);
+        this.slotMillis = Math.max(window.toMillis() / size, 1L);
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            this.slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param duration 耗时
+     */
+    public void record(Duration duration) {
+        record(duration.toNanos(), System.currentTimeMillis());
+    }
+
+    void record(long nanos, long nowMillis) {
+        long epoch = nowMillis / slotMillis;
+        Slot slot = slots[(int) (epoch % slots.length)];
+        if (slot.epoch != epoch) {
+            slot.reset(epoch);
+        }
+        long value = Math.max(nanos, 0L);
+        slot.buckets.incrementAndGet(bucket(value));
+        slot.count.incrementAndGet();
+        slot.sum.addAndGet(value);
+        slot.max.accumulateAndGet(value, Math::max);
+        total.increment();
+    }
+
+    /**
+     * 累计事件数
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * 窗口内的统计
+     *
+     * @return {@link HistogramSnapshot}
+     */
+    public HistogramSnapshot snapshot() {
+        return snapshot(System.currentTimeMillis());
+    }
+
+    HistogramSnapshot snapshot(long nowMillis) {
+        long current = nowMillis / slotMillis;
+        long[] merged = new long[BUCKETS];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        for (Slot slot : slots) {
+            long epoch = slot.epoch;
+            if (epoch < 0 || current - epoch >= slots.length || epoch > current) {
+                continue;
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                merged[i] += slot.buckets.get(i);
+            }
+            count += slot.count.get();
+            sum += slot.sum.get();
+            max = Math.max(max, slot.max.get());
+        }
+        return new HistogramSnapshot(count, getTotal(), count == 0 ? Duration.ZERO : Duration.ofNanos(sum / count), Duration.ofNanos(max),
+                percentile(merged, count, max, 0.5), percentile(merged, count, max, 0.95), percentile(merged, count, max, 0.99));
+    }
+
+    private static Duration percentile(long[] buckets, long count, long max, double quantile) {
+        if (count == 0) {
+            return Duration.ZERO;
+        }
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Duration.ofNanos(Math.min(upperBound(i), max));
+            }
+        }
+        return Duration.ofNanos(max);
+    }
+
+    /**
+     * 桶 i 为 [2^i, 2^(i+1)) 微秒，不足 1 微秒计入 0 号桶
+     */
+    static int bucket(long nanos) {
+        long micros = nanos / 1000;
+        if (micros <= 1) {
+            return 0;
+        }
+        return Math.min(63 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+    }
+
+    static long upperBound(int bucket) {
+        return (1L << (bucket + 1)) * 1000;
+    }
+
+    private static final class Slot {
+        private volatile long epoch = -1;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        private final AtomicLong count = new AtomicLong();
+
+        private final AtomicLong sum = new AtomicLong();
+
+        private final AtomicLong max = new AtomicLong();
+
+        private void reset(long newEpoch) {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            count.set(0);
+            sum.set(0);
+            max.set(0);
+            epoch = newEpoch;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ext.library.monitor.jfr;
+
+/**
+ * 排行表中的一项
+ */
+public record TopEntry(
+        // 键：调用位置、类名、GC 名称等
+        String key,
+        // 事件数
+        long count,
+        // 权重：分配字节数或耗时纳秒
+        long weight
+) {}
@@ -0,0 +1,114 @@
+package ext.library.monitor.jfr;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 滚动时间窗口的排行表
+ * <p>
+ * 窗口按时间切分为固定数量的槽位，每个槽位最多保存 capacity 个键；槽位已满时淘汰权重最小的键，
+ * 新键继承其计数 (Space-Saving)，热点键的计数只会偏大不会遗漏，内存固定。由单个线程写入，其他线程读取
+ */
+public class TopTable {
+
+    private final long slotMillis;
+
+    private final int capacity;
+
+    private final Slot[] slots;
+
+    /**
+     * @param window   窗口长度
+     * @param slots    槽位数
+     * @param capacity 每个槽位最多保存的键数
+     */
+    public TopTable(Duration window, int slots, int capacity) {
+        int size = Math.max(slots, 1);
+        this.slotMillis = Math.max(window.toMillis() / size, 1L);
+        this.capacity = Math.max(capacity, 1);
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            this.slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * 记录一次事件
+     *
+     * @param key    键
+     * @param weight 权重
+     */
+    public void add(String key, long weight) {
+        add(key, weight, System.currentTimeMillis());
+    }
+
+    void add(String key, long weight, long nowMillis) {
+        long epoch = nowMillis / slotMillis;
+        Slot slot = slots[(int) (epoch % slots.length)];
+        if (slot.epoch != epoch) {
+            slot.entries.clear();
+            slot.epoch = epoch;
+        }
+        Counter counter = slot.entries.get(key);
+        if (counter == null) {
+            counter = new Counter();
+            if (slot.entries.size() >= capacity) {
+                Map.Entry<String, Counter> min = slot.entries.entrySet().stream().min(Comparator.comparingLong(e -> e.getValue().weight)).orElseThrow();
+                slot.entries.remove(min.getKey());
+                counter.count = min.getValue().count;
+                counter.weight = min.getValue().weight;
+            }
+            slot.entries.put(key, counter);
+        }
+        counter.count++;
+        counter.weight += weight;
+    }
+
+    /**
+     * 窗口内权重最大的前 n 项
+     *
+     * @param n 数量
+     *
+     * @return 按权重降序
+     */
+    public List<TopEntry> top(int n) {
+        return top(n, System.currentTimeMillis());
+    }
+
+    List<TopEntry> top(int n, long nowMillis) {
+        long current = nowMillis / slotMillis;
+        Map<String, long[]> merged = new HashMap<>();
+        for (Slot slot : slots) {
+            long epoch = slot.epoch;
+            if (epoch < 0 || current - epoch >= slots.length || epoch > current) {
+                continue;
+            }
+            slot.entries.forEach((key, counter) -> {
+                long[] sum = merged.computeIfAbsent(key, k -> new long[2]);
+                sum[0] += counter.count;
+                sum[1] += counter.weight;
+            });
+        }
+        return merged.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[1]).reversed())
+                .limit(n)
+                .map(e -> new TopEntry(e.getKey(), e.getValue()[0], e.getValue()[1]))
+                .toList();
+    }
+
+    private static final class Slot {
+        private volatile long epoch = -1;
+
+        private final Map<String, Counter> entries = new ConcurrentHashMap<>();
+    }
+
+    private static final class Counter {
+        private volatile long count;
+
+        private volatile long weight;
+    }
+}
@@ -0,0 +1,136 @@
+package ext.library.monitor.jfr;
+
+import ext.library.monitor.MonitorProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("JFR 运行时监控")
+class JfrTelemetryTest {
+
+    @Test
+    @DisplayName("测试滚动直方图")
+    void histogram() {
+        RollingHistogram histogram = new RollingHistogram(Duration.ofSeconds(6), 6);
+        long now = 60_000L;
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i), now);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot(now);
+        assertEquals(100, snapshot.count());
+        assertEquals(Duration.ofMillis(100), snapshot.max());
+        // 分位数取桶上界：50ms 落在 [32.768ms, 65.536ms)
+        assertEquals(Duration.ofNanos(RollingHistogram.upperBound(RollingHistogram.bucket(TimeUnit.MILLISECONDS.toNanos(50)))), snapshot.p50());
+        assertEquals(Duration.ofMillis(100), snapshot.p99());
+
+        // 窗口滚动后旧数据失效，累计数保留
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(1), now + 6_000L);
+        HistogramSnapshot rolled = histogram.snapshot(now + 6_000L);
+        assertEquals(1, rolled.count());
+        assertEquals(101, rolled.total());
+    }
+
+    @Test
+    @DisplayName("测试排行表容量")
+    void topTable() {
+        TopTable table = new TopTable(Duration.ofSeconds(6), 6, 4);
+        long now = 60_000L;
+        for (int i = 0; i < 1_000; i++) {
+            table.add("hot", 10, now);
+            table.add("cold-" + i, 1, now);
+        }
+        List<TopEntry> top = table.top(2, now);
+        assertEquals("hot", top.getFirst().key());
+        assertEquals(10_000, top.getFirst().weight());
+        assertEquals(1_000, top.getFirst().count());
+        assertEquals(2, top.size());
+    }
+
+    @Test
+    @DisplayName("测试合成负载")
+    void workload() throws Exception {
+        MonitorProperties.JfrProperties properties = new MonitorProperties.JfrProperties();
+        properties.setThreshold(Duration.ofMillis(10));
+        properties.setAllocationThrottle("1000/s");
+        try (JfrTelemetry telemetry = new JfrTelemetry(properties)) {
+            // 等待事件流启动
+            TimeUnit.MILLISECONDS.sleep(500);
+
+            // 锁竞争
+            Object lock = new Object();
+            CountDownLatch held = new CountDownLatch(1);
+            Thread holder = Thread.ofPlatform().start(() -> {
+                synchronized (lock) {
+                    held.countDown();
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                }
+            });
+            held.await();
+            synchronized (lock) {
+                assertTrue(lock.hashCode() != 0);
+            }
+            holder.join();
+
+            // 线程挂起
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+
+            // 对象分配与 GC
+            List<byte[]> garbage = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                garbage.add(new byte[64 * 1024]);
+                if (garbage.size() > 100) {
+                    garbage.clear();
+                }
+            }
+            System.gc();
+
+            // 虚拟线程在 synchronized 中阻塞，JDK 24 之前会固定载体线程
+            Object pinLock = new Object();
+            Thread.ofVirtual().start(() -> {
+                synchronized (pinLock) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+                }
+            }).join();
+
+            assertTrue(await(() -> telemetry.getMonitorEnter().count() > 0), () -> "monitor enter " + telemetry.getMonitorEnter());
+            assertTrue(await(() -> telemetry.getThreadPark().count() > 0), () -> "thread park " + telemetry.getThreadPark());
+            assertTrue(await(() -> telemetry.getGcPause().count() > 0), () -> "gc pause " + telemetry.getGcPause());
+            assertTrue(await(() -> !telemetry.getTopAllocationClasses().isEmpty()), "allocation");
+            if (Runtime.version().feature() < 24) {
+                assertTrue(await(() -> telemetry.getPinned().count() > 0), () -> "pinned " + telemetry.getPinned());
+                assertFalse(telemetry.getTopPinnedSites().isEmpty());
+            }
+
+            assertEquals(Object.class.getName(), telemetry.getTopMonitorClasses().getFirst().key());
+            assertTrue(telemetry.getMonitorEnter().max().toMillis() >= 10);
+            // 低于阈值的挂起不记录
+            assertTrue(telemetry.getThreadPark().max().toMillis() >= 10);
+            assertFalse(telemetry.getTopParkSites().isEmpty());
+            assertFalse(telemetry.getTopGcNames().isEmpty());
+            assertTrue(telemetry.getTopAllocationClasses().getFirst().weight() > 0);
+            assertFalse(telemetry.getTopAllocationSites().isEmpty());
+        }
+    }
+
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        return condition.getAsBoolean();
+    }
+}
@@ -1,5 +1,7 @@
 package ext.library.ratelimiter.annotation;
 
+import ext.library.ratelimiter.enums.RateLimitAlgorithm;
+
 import java.lang.annotation.Documented;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
@@ -33,6 +35,11 @@ public @interface RateLimit {
      */
     String interval() default "3m";
 
+    /**
+     * 限流算法，仅 Redis 限流器生效
+     */
+    RateLimitAlgorithm algorithm() default RateLimitAlgorithm.FIXED_WINDOW;
+
     /**
      * 限制策略
      */
@@ -1,17 +1,22 @@
 package ext.library.ratelimiter.aspect;
 
+import ext.library.core.util.ServletUtil;
 import ext.library.ratelimiter.annotation.RateLimit;
 import ext.library.ratelimiter.handler.IRateLimitHandler;
+import ext.library.ratelimiter.handler.RateLimitResult;
 import ext.library.tool.core.Exceptions;
 import ext.library.tool.util.ObjectUtil;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.http.HttpHeaders;
 
 import jakarta.annotation.Nonnull;
+import jakarta.servlet.http.HttpServletResponse;
 import java.lang.reflect.Method;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -20,6 +25,9 @@ import java.util.concurrent.ConcurrentHashMap;
 @Aspect
 public class RateLimiterAspect {
 
+    /** 剩余次数响应头 */
+    private static final String HEADER_REMAINING = "X-RateLimit-Remaining";
+
     /**
      * 缓存方法上的源注解信息。减少反射的开销
      */
@@ -45,13 +53,32 @@ public class RateLimiterAspect {
         MethodSignature signature = (MethodSignature) pjp.getSignature();
         Method method = signature.getMethod();
         RateLimit rateLimit = getRateLimit(signature.getMethod(), method.getName());
-        if (rateLimitHandler.proceed(rateLimit, pjp)) {
+        RateLimitResult result = rateLimitHandler.acquire(rateLimit, pjp);
+        setHeaders(result);
+        if (result.allowed()) {
             return pjp.proceed();
         } else {
             throw Exceptions.throwOut(ObjectUtil.isEmpty(rateLimit.msg()) ? "触发限流" : rateLimit.msg());
         }
     }
 
+    /**
+     * 写入剩余次数与重试时间响应头
+     */
+    private static void setHeaders(RateLimitResult result) {
+        HttpServletResponse response = ServletUtil.getResponse();
+        if (Objects.isNull(response)) {
+            return;
+        }
+        if (result.remaining() >= 0) {
+            response.setHeader(HEADER_REMAINING, String.valueOf(result.remaining()));
+        }
+        if (!result.allowed() && Objects.nonNull(result.retryAfter())) {
+            // 向上取整到秒
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((result.retryAfter().toMillis() + 999) / 1000));
+        }
+    }
+
     /**
      * 获取执行速率限制注解，缓存反射信息
      *
@@ -21,7 +21,7 @@ public class RateLimiterAutoConfig {
     @Bean
     @ConditionalOnMissingBean
     public IRateLimitHandler iRateLimitHandler(RateLimiterProperties rateLimiterProperties) {
-        return rateLimiterProperties.getRateLimiterType().getiRateLimitHandler();
+        return rateLimiterProperties.getRateLimiterType().getiRateLimitHandler(rateLimiterProperties);
     }
 
     @Bean
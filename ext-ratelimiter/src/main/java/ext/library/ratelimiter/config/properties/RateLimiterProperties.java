@@ -1,10 +1,14 @@
 package ext.library.ratelimiter.config.properties;
 
+import ext.library.ratelimiter.handler.HybridRateLimitHandler;
 import ext.library.ratelimiter.handler.IRateLimitHandler;
 import ext.library.ratelimiter.handler.RateLimiterHandler;
 import ext.library.ratelimiter.handler.RedisRateLimitHandler;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.function.Function;
+
 /**
  * 配置
  */
@@ -22,6 +26,18 @@ public class RateLimiterProperties {
     /** 限速器类型 */
     private RateLimiterType rateLimiterType;
 
+    /** 本地限流器最多保存的令牌桶数量 */
+    private long localMaximumSize = 100_000L;
+
+    /** 本地限流器令牌桶闲置过期时间 */
+    private Duration localExpireAfterAccess = Duration.ofMinutes(10L);
+
+    /** 混合限流器租约有效期 */
+    private Duration leaseTime = Duration.ofSeconds(1L);
+
+    /** 混合限流器单次租借数量占阈值的最大比例 */
+    private double leaseRatio = 0.1D;
+
     public String getKeyPrefix() {
         return keyPrefix;
     }
@@ -38,21 +54,58 @@ public class RateLimiterProperties {
         this.rateLimiterType = rateLimiterType;
     }
 
+    public long getLocalMaximumSize() {
+        return localMaximumSize;
+    }
+
+    public void setLocalMaximumSize(long localMaximumSize) {
+        this.localMaximumSize = localMaximumSize;
+    }
+
+    public Duration getLocalExpireAfterAccess() {
+        return localExpireAfterAccess;
+    }
+
+    public void setLocalExpireAfterAccess(Duration localExpireAfterAccess) {
+        this.localExpireAfterAccess = localExpireAfterAccess;
+    }
+
+    public Duration getLeaseTime() {
+        return leaseTime;
+    }
+
+    public void setLeaseTime(Duration leaseTime) {
+        this.leaseTime = leaseTime;
+    }
+
+    public double getLeaseRatio() {
+        return leaseRatio;
+    }
+
+    public void setLeaseRatio(double leaseRatio) {
+        this.leaseRatio = leaseRatio;
+    }
+
     /**
      * 限速器类型
      *
      * @since 2025.08.29
      */
     public enum RateLimiterType {
-        REDIS(new RedisRateLimitHandler()), GUAVA(new RateLimiterHandler());
-        private final IRateLimitHandler iRateLimitHandler;
+        REDIS(properties -> new RedisRateLimitHandler()),
+        /** 本地令牌桶，保留原名称以兼容配置 */
+        GUAVA(properties -> new RateLimiterHandler(properties.getLocalMaximumSize(), properties.getLocalExpireAfterAccess())),
+        /** 从 Redis 租借令牌在本地消费 */
+        HYBRID(properties -> new HybridRateLimitHandler(properties.getLocalMaximumSize(), properties.getLocalExpireAfterAccess(),
+                properties.getLeaseTime(), properties.getLeaseRatio()));
+        private final Function<RateLimiterProperties, IRateLimitHandler> factory;
 
-        RateLimiterType(IRateLimitHandler iRateLimitHandler) {
-            this.iRateLimitHandler = iRateLimitHandler;
+        RateLimiterType(Function<RateLimiterProperties, IRateLimitHandler> factory) {
+            this.factory = factory;
         }
 
-        public IRateLimitHandler getiRateLimitHandler() {
-            return iRateLimitHandler;
+        public IRateLimitHandler getiRateLimitHandler(RateLimiterProperties properties) {
+            return factory.apply(properties);
         }
     }
 }
\ No newline at end of file
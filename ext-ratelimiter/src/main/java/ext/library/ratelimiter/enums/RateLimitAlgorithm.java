@@ -0,0 +1,17 @@
+package ext.library.ratelimiter.enums;
+
+/**
+ * 限流算法，仅 Redis 限流器生效，Guava 限流器固定为令牌桶
+ */
+public enum RateLimitAlgorithm {
+    /** 固定窗口，窗口边界处最多放行 2 倍阈值 */
+    FIXED_WINDOW,
+    /** 滑动窗口计数，按上一窗口的剩余占比加权估算 */
+    SLIDING_WINDOW,
+    /** 滑动日志，zset 记录窗口内每次请求，精确但占用内存与请求数成正比 */
+    SLIDING_LOG,
+    /** 令牌桶，容量为阈值，窗口内匀速补满 */
+    TOKEN_BUCKET,
+    /** 通用信元速率算法，单 key 仅存储理论到达时间 */
+    GCRA
+}
@@ -0,0 +1,210 @@
+package ext.library.ratelimiter.handler;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import ext.library.ratelimiter.annotation.RateLimit;
+import ext.library.redis.script.LuaScript;
+import ext.library.redis.script.RedisScripts;
+import org.aspectj.lang.JoinPoint;
+import org.springframework.boot.convert.DurationStyle;
+
+import jakarta.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地 + 全局混合速率限制处理器
+ * <p>
+ * 全局令牌桶保存在 Redis 中，各节点一次租借一批令牌在本地消费，租借用尽或到期前不访问 Redis。
+ * 租借数量按本节点观测到的消费速率自适应，不超过阈值的 leaseRatio；租约到期时未用完的令牌在下次租借时一并归还，
+ * 本地租约被淘汰时也会归还。租借不到令牌时，在重试等待时间内本地直接拒绝，不再访问 Redis。
+ * {@link RateLimit#algorithm()} 对该处理器不生效
+ */
+@SuppressWarnings("rawtypes")
+public class HybridRateLimitHandler implements IRateLimitHandler {
+    /**
+     * 归还并租借令牌的 lua 脚本，先归还 ARGV[3] 个令牌，再最多租借 ARGV[4] 个
+     * <p>
+     * 返回 {租借到的数量, 租借不到时的重试等待毫秒}
+     */
+    // language=redis
+    private static final LuaScript<List> LEASE_SCRIPT = RedisScripts.register("rate_limit_lease", RedisRateLimitHandler.NOW + """
+            local returned = tonumber(ARGV[3])
+            local requested = tonumber(ARGV[4])
+            local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens = tonumber(bucket[1]) or limit
+            local ts = tonumber(bucket[2]) or now
+            tokens = math.min(limit, tokens + math.max(now - ts, 0) * limit / window + returned)
+            local granted = math.min(math.floor(tokens), requested)
+            tokens = tokens - granted
+            redis.call('HSET', KEYS[1], 'tokens', tokens, 'ts', now)
+            redis.call('PEXPIRE', KEYS[1], window)
+            if granted > 0 or requested == 0 then
+                return {granted, 0}
+            end
+            return {0, math.ceil((1 - tokens) * window / limit)}
+            """, List.class);
+    /** 消费速率的平滑系数 */
+    private static final double RATE_ALPHA = 0.5D;
+
+    /** 本地租约 */
+    private final Cache<String, Lease> leases;
+
+    /** 租约有效期 */
+    private final Duration leaseTime;
+
+    /** 单次租借数量占阈值的最大比例 */
+    private final double leaseRatio;
+
+    /**
+     * @param maximumSize       最多保存的租约数量
+     * @param expireAfterAccess 租约闲置过期时间
+     * @param leaseTime         租约有效期，越长 Redis 访问越少，但未用完的令牌被占用的时间越长
+     * @param leaseRatio        单次租借数量占阈值的最大比例，越大 Redis 访问越少，但节点间越不均衡
+     */
+    public HybridRateLimitHandler(long maximumSize, Duration expireAfterAccess, Duration leaseTime, double leaseRatio) {
+        this.leaseTime = leaseTime;
+        this.leaseRatio = leaseRatio;
+        this.leases = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterAccess(expireAfterAccess)
+                .<String, Lease>removalListener((key, lease, cause) -> {
+                    if (Objects.nonNull(lease) && cause != RemovalCause.REPLACED) {
+                        lease.giveBack();
+                    }
+                }).build();
+    }
+
+    @Override
+    public boolean proceed(@Nonnull RateLimit rateLimit, JoinPoint point) {
+        return acquire(rateLimit, point).allowed();
+    }
+
+    @Override
+    public RateLimitResult acquire(@Nonnull RateLimit rateLimit, JoinPoint point) {
+        String key = getCombineKey(rateLimit, point) + ":hybrid";
+        Lease lease = leases.get(key, k -> new Lease(k, rateLimit.count(), DurationStyle.detectAndParse(rateLimit.interval())));
+        RateLimitResult result = lease.tryAcquire();
+        if (result == null) {
+            result = lease.renew();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(result.allowed() ? "[🚥] 放行，本地剩余 {} 次" : "[🚥] 限流规则已触发", result.remaining());
+        }
+        return result;
+    }
+
+    /**
+     * 当前保存的租约数量
+     */
+    public long size() {
+        return leases.estimatedSize();
+    }
+
+    /**
+     * 某个 key 在本节点的租约
+     */
+    private class Lease {
+        private final String key;
+        private final long limit;
+        private final long window;
+        /** 本地剩余令牌 */
+        private final AtomicLong permits = new AtomicLong();
+        /** 租约到期时间 (纳秒) */
+        private volatile long expiresAt;
+        /** 租借被拒绝后，本地直接拒绝的截止时间 (纳秒) */
+        private volatile long deniedUntil;
+        /** 上次租借的数量与时间，用于计算消费速率，受 this 保护 */
+        private long granted;
+        private long grantedAt;
+        /** 平滑后的消费速率 (令牌/纳秒)，受 this 保护 */
+        private double rate;
+
+        Lease(String key, long limit, Duration window) {
+            this.key = key;
+            this.limit = Math.max(limit, 1L);
+            this.window = Math.max(window.toMillis(), 1L);
+            this.expiresAt = System.nanoTime();
+            this.deniedUntil = this.expiresAt;
+            this.grantedAt = System.nanoTime();
+        }
+
+        /**
+         * 从本地剩余令牌中获取，无锁；处于拒绝期内时直接拒绝
+         *
+         * @return 本地令牌不足或租约到期时返回 null
+         */
+        RateLimitResult tryAcquire() {
+            long now = System.nanoTime();
+            long denied = deniedUntil - now;
+            if (denied > 0) {
+                return RateLimitResult.denied(Duration.ofNanos(denied));
+            }
+            if (now - expiresAt >= 0) {
+                return null;
+            }
+            long current;
+            while ((current = permits.get()) > 0) {
+                if (permits.compareAndSet(current, current - 1)) {
+                    return RateLimitResult.allowed(current - 1);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * 归还到期未用完的令牌，按消费速率重新租借
+         */
+        synchronized RateLimitResult renew() {
+            // 其他线程已续租
+            RateLimitResult result = tryAcquire();
+            if (Objects.nonNull(result)) {
+                return result;
+            }
+            long now = System.nanoTime();
+            long unused = permits.getAndSet(0);
+            long used = granted - unused;
+            long elapsed = Math.max(now - grantedAt, 1L);
+            rate = rate == 0D ? (double) used / elapsed : RATE_ALPHA * used / elapsed + (1 - RATE_ALPHA) * rate;
+            long maxLease = Math.max((long) (limit * leaseRatio), 1L);
+            long requested = Math.clamp((long) Math.ceil(rate * leaseTime.toNanos()), 1L, maxLease);
+
+            List lease = LEASE_SCRIPT.execute(Collections.singletonList(key), String.valueOf(limit), String.valueOf(window),
+                    String.valueOf(unused), String.valueOf(requested));
+            boolean valid = lease != null && lease.size() >= 2;
+            if (!valid) {
+                // 结果异常时视为未租到令牌，一个租期内在本地拒绝，避免放开保护
+                log.warn("[🚥] 租借令牌返回异常，按限流处理，key: {}, result: {}", key, lease);
+            }
+            granted = valid ? ((Number) lease.get(0)).longValue() : 0L;
+            grantedAt = now;
+            if (granted <= 0) {
+                Duration retryAfter = valid ? Duration.ofMillis(((Number) lease.get(1)).longValue()) : leaseTime;
+                // 令牌恢复前的请求在本地拒绝
+                deniedUntil = now + retryAfter.toNanos();
+                return RateLimitResult.denied(retryAfter);
+            }
+            permits.set(granted - 1);
+            expiresAt = now + leaseTime.toNanos();
+            return RateLimitResult.allowed(granted - 1);
+        }
+
+        /**
+         * 归还未用完的令牌
+         */
+        void giveBack() {
+            long unused = permits.getAndSet(0);
+            if (unused <= 0) {
+                return;
+            }
+            try {
+                LEASE_SCRIPT.execute(Collections.singletonList(key), String.valueOf(limit), String.valueOf(window), String.valueOf(unused), "0");
+            } catch (Exception e) {
+                log.warn("[🚥] 归还令牌失败，key: {}", key, e);
+            }
+        }
+    }
+
+}
@@ -54,6 +54,18 @@ public interface IRateLimitHandler {
      */
     boolean proceed(RateLimit rateLimit, JoinPoint point);
 
+    /**
+     * 执行并返回剩余次数与重试时间
+     *
+     * @param rateLimit 速率限制
+     * @param point     点
+     *
+     * @return 限流结果
+     */
+    default RateLimitResult acquire(RateLimit rateLimit, JoinPoint point) {
+        return proceed(rateLimit, point) ? RateLimitResult.allowed(-1L) : RateLimitResult.denied(null);
+    }
+
     /**
      * 构建唯一标示 KEY
      *
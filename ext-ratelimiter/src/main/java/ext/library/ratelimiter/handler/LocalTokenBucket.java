@@ -0,0 +1,51 @@
+package ext.library.ratelimiter.handler;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁本地令牌桶
+ * <p>
+ * 以 GCRA 的方式实现：只保存一个理论到达时间 (TAT)，每次获取令牌将 TAT 推后一个发放间隔，
+ * TAT 超出当前时间一个窗口时表示桶已空。状态为单个 long，获取令牌仅需一次 CAS，无需加锁
+ */
+public class LocalTokenBucket {
+    /** 发放一个令牌的间隔 (纳秒) */
+    private final long interval;
+
+    /** 桶容量对应的时长 (纳秒) */
+    private final long window;
+
+    /** 理论到达时间 (纳秒) */
+    private final AtomicLong tat;
+
+    /**
+     * @param permits 窗口内的令牌数，同时也是桶容量
+     * @param window  窗口
+     */
+    public LocalTokenBucket(long permits, Duration window) {
+        this.window = Math.max(window.toNanos(), 1L);
+        this.interval = Math.max(this.window / Math.max(permits, 1L), 1L);
+        this.tat = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * 尝试获取一个令牌，不等待
+     *
+     * @return 限流结果
+     */
+    public RateLimitResult tryAcquire() {
+        while (true) {
+            long now = System.nanoTime();
+            long current = tat.get();
+            long next = Math.max(current, now) + interval;
+            long allowAt = next - window;
+            if (allowAt - now > 0) {
+                return RateLimitResult.denied(Duration.ofNanos(allowAt - now));
+            }
+            if (tat.compareAndSet(current, next)) {
+                return RateLimitResult.allowed((window - (next - now)) / interval);
+            }
+        }
+    }
+}
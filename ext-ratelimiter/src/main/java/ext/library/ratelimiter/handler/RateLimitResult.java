@@ -0,0 +1,21 @@
+package ext.library.ratelimiter.handler;
+
+import java.time.Duration;
+
+/**
+ * 限流结果
+ *
+ * @param allowed    是否放行
+ * @param remaining  剩余可用次数，未知时为 -1
+ * @param retryAfter 被限流时距离下次可放行的时间，未知时为 null
+ */
+public record RateLimitResult(boolean allowed, long remaining, Duration retryAfter) {
+
+    public static RateLimitResult allowed(long remaining) {
+        return new RateLimitResult(true, remaining, Duration.ZERO);
+    }
+
+    public static RateLimitResult denied(Duration retryAfter) {
+        return new RateLimitResult(false, 0L, retryAfter);
+    }
+}
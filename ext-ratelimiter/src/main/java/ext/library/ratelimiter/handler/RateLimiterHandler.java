@@ -1,53 +1,67 @@
 package ext.library.ratelimiter.handler;
 
-import com.google.common.util.concurrent.RateLimiter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import ext.library.ratelimiter.annotation.RateLimit;
 import org.aspectj.lang.JoinPoint;
 import org.springframework.boot.convert.DurationStyle;
 
 import jakarta.annotation.Nonnull;
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Guava 速率限制器处理程序
+ * 本地速率限制器处理程序
+ * <p>
+ * 每个限流 key 对应一个 {@link LocalTokenBucket}，存放在有容量上限、闲置过期的 Caffeine 缓存中，
+ * 避免按 IP 区分的 key 无限增长
  *
  * @since 2025.08.29
  */
 public class RateLimiterHandler implements IRateLimitHandler {
+    /** 默认最多保存的令牌桶数量 */
+    private static final long DEFAULT_MAXIMUM_SIZE = 100_000L;
+
+    /** 默认令牌桶闲置过期时间 */
+    private static final Duration DEFAULT_EXPIRE_AFTER_ACCESS = Duration.ofMinutes(10L);
+
+    /**
+     * 不同的 key 存放不同的令牌桶
+     */
+    private final Cache<String, LocalTokenBucket> buckets;
+
+    public RateLimiterHandler() {
+        this(DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_AFTER_ACCESS);
+    }
 
     /**
-     * 不同的方法存放不同的令牌桶
+     * @param maximumSize       最多保存的令牌桶数量
+     * @param expireAfterAccess 令牌桶闲置过期时间，应大于限流时间间隔，否则闲置后会重置为满桶
      */
-    private final Map<String, RateLimiter> rateLimiterMap = new ConcurrentHashMap<>();
+    public RateLimiterHandler(long maximumSize, Duration expireAfterAccess) {
+        this.buckets = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterAccess(expireAfterAccess).build();
+    }
 
     @Override
     public boolean proceed(@Nonnull RateLimit rateLimit, JoinPoint point) {
+        return acquire(rateLimit, point).allowed();
+    }
+
+    @Override
+    public RateLimitResult acquire(@Nonnull RateLimit rateLimit, JoinPoint point) {
         String key = getCombineKey(rateLimit, point);
-        Duration interval = DurationStyle.detectAndParse(rateLimit.interval());
-        RateLimiter rateLimiter;
-        // 判断 map 集合中是否有创建好的令牌桶
-        if (!rateLimiterMap.containsKey(rateLimit.key())) {
-            // 创建令牌桶，以 n r/s往桶中放入令牌
-            rateLimiter = RateLimiter.create(rateLimit.count(), interval);
-            rateLimiterMap.put(key, rateLimiter);
-        }
-        rateLimiter = rateLimiterMap.get(key);
-
-        // 获取令牌
-        boolean acquire = rateLimiter.tryAcquire(interval);
-        if (acquire) {
-            if (log.isDebugEnabled()) {
-                log.debug("[🚥] {}", rateLimiter);
-            }
-            return true;
-        }
+        LocalTokenBucket bucket = buckets.get(key, k -> new LocalTokenBucket(rateLimit.count(), DurationStyle.detectAndParse(rateLimit.interval())));
+        RateLimitResult result = bucket.tryAcquire();
         if (log.isDebugEnabled()) {
-            log.debug("[🚥] 限流规则已触发");
+            log.debug(result.allowed() ? "[🚥] 放行，剩余 {} 次" : "[🚥] 限流规则已触发", result.remaining());
         }
+        return result;
+    }
 
-        return false;
+    /**
+     * 当前保存的令牌桶数量
+     */
+    public long size() {
+        return buckets.estimatedSize();
     }
 
-}
\ No newline at end of file
+}
@@ -1,23 +1,126 @@
 package ext.library.ratelimiter.handler;
 
 import ext.library.ratelimiter.annotation.RateLimit;
-import ext.library.redis.util.RedisUtil;
+import ext.library.ratelimiter.enums.RateLimitAlgorithm;
+import ext.library.redis.script.LuaScript;
+import ext.library.redis.script.RedisScripts;
 import org.aspectj.lang.JoinPoint;
 import org.springframework.boot.convert.DurationStyle;
-import org.springframework.data.redis.core.script.RedisScript;
 
 import jakarta.annotation.Nonnull;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Redis 速率限制处理器
+ * <p>
+ * 每种算法为一个原子 lua 脚本，使用 Redis 服务端时间，返回 {是否放行, 剩余次数, 重试等待毫秒}
  */
+@SuppressWarnings("rawtypes")
 public class RedisRateLimitHandler implements IRateLimitHandler {
+    /** 取 Redis 服务端时间 (毫秒) */
+    // language=redis
+    static final String NOW = """
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local limit = tonumber(ARGV[1])
+            local window = tonumber(ARGV[2])
+            """;
+    /** 固定窗口，窗口内计数超过阈值则拒绝 */
+    // language=redis
+    private static final LuaScript<List> FIXED_WINDOW_SCRIPT = RedisScripts.register("rate_limit", NOW + """
+            local current = redis.call('INCR', KEYS[1])
+            if current == 1 then
+                redis.call('PEXPIRE', KEYS[1], window)
+            end
+            if current > limit then
+                return {0, 0, math.max(redis.call('PTTL', KEYS[1]), 0)}
+            end
+            return {1, limit - current, 0}
+            """, List.class);
+    /** 滑动窗口计数，hash 中保存当前与上一窗口的计数，上一窗口按剩余占比加权 */
+    // language=redis
+    private static final LuaScript<List> SLIDING_WINDOW_SCRIPT = RedisScripts.register("rate_limit_sliding_window", NOW + """
+            local id = math.floor(now / window)
+            local elapsed = now % window
+            local current = tonumber(redis.call('HGET', KEYS[1], id) or '0')
+            local previous = tonumber(redis.call('HGET', KEYS[1], id - 1) or '0')
+            local estimated = previous * (window - elapsed) / window + current
+            if estimated + 1 > limit then
+                local retry = window - elapsed
+                if previous > 0 and current + 1 <= limit then
+                    retry = math.max(window - elapsed - (limit - 1 - current) * window / previous, 1)
+                end
+                return {0, 0, math.ceil(retry)}
+            end
+            redis.call('HINCRBY', KEYS[1], id, 1)
+            redis.call('HDEL', KEYS[1], id - 2)
+            redis.call('PEXPIRE', KEYS[1], window * 2)
+            return {1, math.floor(limit - estimated - 1), 0}
+            """, List.class);
+    /** 滑动日志，zset 记录窗口内每次请求的时间 */
+    // language=redis
+    private static final LuaScript<List> SLIDING_LOG_SCRIPT = RedisScripts.register("rate_limit_sliding_log", NOW + """
+            redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window)
+            local count = redis.call('ZCARD', KEYS[1])
+            if count >= limit then
+                local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+                return {0, 0, math.max(tonumber(oldest[2]) + window - now, 1)}
+            end
+            redis.call('ZADD', KEYS[1], now, time[1] .. time[2] .. '-' .. count)
+            redis.call('PEXPIRE', KEYS[1], window)
+            return {1, limit - count - 1, 0}
+            """, List.class);
+    /** 令牌桶，容量为阈值，每个窗口补满 */
+    // language=redis
+    private static final LuaScript<List> TOKEN_BUCKET_SCRIPT = RedisScripts.register("rate_limit_token_bucket", NOW + """
+            local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens = tonumber(bucket[1]) or limit
+            local ts = tonumber(bucket[2]) or now
+            tokens = math.min(limit, tokens + math.max(now - ts, 0) * limit / window)
+            local allowed = tokens >= 1
+            if allowed then
+                tokens = tokens - 1
+            end
+            redis.call('HSET', KEYS[1], 'tokens', tokens, 'ts', now)
+            redis.call('PEXPIRE', KEYS[1], window)
+            if allowed then
+                return {1, math.floor(tokens), 0}
+            end
+            return {0, 0, math.ceil((1 - tokens) * window / limit)}
+            """, List.class);
+    /** GCRA，仅保存理论到达时间 (TAT)，允许的突发为阈值 */
+    // language=redis
+    private static final LuaScript<List> GCRA_SCRIPT = RedisScripts.register("rate_limit_gcra", NOW + """
+            local interval = window / limit
+            local tat = math.max(tonumber(redis.call('GET', KEYS[1]) or now), now)
+            local newTat = tat + interval
+            local allowAt = newTat - window
+            if now < allowAt then
+                return {0, 0, math.ceil(allowAt - now)}
+            end
+            redis.call('SET', KEYS[1], newTat, 'PX', math.ceil(newTat - now))
+            return {1, math.floor((window - (newTat - now)) / interval), 0}
+            """, List.class);
+    private static final Map<RateLimitAlgorithm, LuaScript<List>> SCRIPTS = Map.of(
+            RateLimitAlgorithm.FIXED_WINDOW, FIXED_WINDOW_SCRIPT,
+            RateLimitAlgorithm.SLIDING_WINDOW, SLIDING_WINDOW_SCRIPT,
+            RateLimitAlgorithm.SLIDING_LOG, SLIDING_LOG_SCRIPT,
+            RateLimitAlgorithm.TOKEN_BUCKET, TOKEN_BUCKET_SCRIPT,
+            RateLimitAlgorithm.GCRA, GCRA_SCRIPT);
 
     @Override
     public boolean proceed(@Nonnull RateLimit rateLimit, JoinPoint point) {
-        long interval = DurationStyle.detectAndParse(rateLimit.interval()).getSeconds();
-        return rateLimiter(getCombineKey(rateLimit, point), rateLimit.count(), interval);
+        return acquire(rateLimit, point).allowed();
+    }
+
+    @Override
+    public RateLimitResult acquire(@Nonnull RateLimit rateLimit, JoinPoint point) {
+        Duration interval = DurationStyle.detectAndParse(rateLimit.interval());
+        return acquire(getCombineKey(rateLimit, point), rateLimit.algorithm(), rateLimit.count(), interval);
     }
 
     /**
@@ -30,31 +133,39 @@ public class RedisRateLimitHandler implements IRateLimitHandler {
      * @return false 表示失败
      */
     public boolean rateLimiter(String key, long count, long interval) {
-        /* Redis 中的 Lua 脚本，用于实现限流功能。它通过指定的键（key）来记录访问次数，如果访问次数超过设定的阈值（count），则拒绝访问；否则增加访问计数并设置过期时间 */
-        // language=redis
-        RedisScript<Long> REDIS_SCRIPT_RATE_LIMIT = RedisScript.of("""
-                local key = KEYS[1];
-                local count = tonumber(ARGV[1]);
-                local interval = tonumber(ARGV[2]);
-                local current = tonumber(redis.call('get', key) or "0")
-                if current + 1 > count then return 0
-                else redis.call("INCRBY", key, "1") redis.call("expire", key, interval) return current + 1 end
-                """, Long.class);
-        Long currentCount = RedisUtil.execute(REDIS_SCRIPT_RATE_LIMIT, Collections.singletonList(key), String.valueOf(count),
-                // 间隔时间解析为秒
-                String.valueOf(interval));
-        if (null != currentCount) {
-            if (currentCount > 0 && currentCount <= count) {
-                if (log.isDebugEnabled()) {
-                    log.debug("[🚥] 限制期内的第 {} 次访问", currentCount);
-                }
-                return true;
+        return acquire(key, RateLimitAlgorithm.FIXED_WINDOW, count, Duration.ofSeconds(interval)).allowed();
+    }
+
+    /**
+     * 限流
+     *
+     * @param key       限流 key
+     * @param algorithm 限流算法
+     * @param limit     限定阈值
+     * @param window    时间窗口
+     *
+     * @return 限流结果
+     */
+    public RateLimitResult acquire(String key, RateLimitAlgorithm algorithm, long limit, Duration window) {
+        // 不同算法的数据结构不同，key 按算法区分
+        String algorithmKey = algorithm == RateLimitAlgorithm.FIXED_WINDOW ? key : key + ":" + algorithm.name().toLowerCase(Locale.ROOT);
+        List result = SCRIPTS.get(algorithm).execute(Collections.singletonList(algorithmKey), String.valueOf(limit), String.valueOf(Math.max(window.toMillis(), 1L)));
+        if (result == null || result.size() < 3) {
+            // 结果异常时无法判断是否超限，按限流处理，避免放开保护
+            log.warn("[🚥] 限流脚本返回异常，按限流处理，key: {}, result: {}", algorithmKey, result);
+            return RateLimitResult.denied(null);
+        }
+        if (((Number) result.get(0)).longValue() == 1L) {
+            long remaining = ((Number) result.get(1)).longValue();
+            if (log.isDebugEnabled()) {
+                log.debug("[🚥] 放行，剩余 {} 次", remaining);
             }
+            return RateLimitResult.allowed(remaining);
         }
         if (log.isDebugEnabled()) {
             log.debug("[🚥] 限流规则已触发");
         }
-        return false;
+        return RateLimitResult.denied(Duration.ofMillis(((Number) result.get(2)).longValue()));
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,63 @@
+package ext.library.ratelimiter.handler;
+
+import com.google.common.util.concurrent.RateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地令牌桶基准测试，多线程竞争同一限流器时与 Guava {@link RateLimiter} 比较吞吐量
+ * <p>
+ * permitsPerSecond 较小时大部分请求被拒绝，较大时全部放行。运行：执行 {@link #main(String[])}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class LocalTokenBucketBenchmark {
+
+    @Param({"1000", "1000000000"})
+    long permitsPerSecond;
+
+    LocalTokenBucket bucket;
+
+    RateLimiter guava;
+
+    @Setup
+    public void setup() {
+        bucket = new LocalTokenBucket(permitsPerSecond, Duration.ofSeconds(1L));
+        guava = RateLimiter.create(permitsPerSecond);
+    }
+
+    @Benchmark
+    public boolean tokenBucket() {
+        return bucket.tryAcquire().allowed();
+    }
+
+    @Benchmark
+    public boolean guavaRateLimiter() {
+        return guava.tryAcquire();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LocalTokenBucketBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,53 @@
+package ext.library.ratelimiter.handler;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("本地令牌桶测试")
+class LocalTokenBucketTest {
+
+    @Test
+    @DisplayName("测试突发容量与剩余次数")
+    void burst() {
+        LocalTokenBucket bucket = new LocalTokenBucket(5, Duration.ofHours(1L));
+        for (int i = 4; i >= 0; i--) {
+            RateLimitResult result = bucket.tryAcquire();
+            assertTrue(result.allowed());
+            assertEquals(i, result.remaining());
+        }
+        RateLimitResult denied = bucket.tryAcquire();
+        assertFalse(denied.allowed());
+        assertTrue(denied.retryAfter().compareTo(Duration.ofMinutes(11L)) > 0);
+    }
+
+    @Test
+    @DisplayName("测试并发获取不超发")
+    void concurrent() throws InterruptedException {
+        LocalTokenBucket bucket = new LocalTokenBucket(1000, Duration.ofHours(1L));
+        AtomicInteger allowed = new AtomicInteger();
+        try (ExecutorService pool = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                pool.execute(() -> {
+                    for (int j = 0; j < 500; j++) {
+                        if (bucket.tryAcquire().allowed()) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1000, allowed.get());
+    }
+}
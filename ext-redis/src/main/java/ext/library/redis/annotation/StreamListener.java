@@ -0,0 +1,56 @@
+package ext.library.redis.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Redis Stream 消费者组监听
+ * <p>
+ * 标注在 Spring Bean 的方法上，方法参数可以为空、{@code MapRecord<String, String, String>} 或 {@code Map<String, String>}。
+ * 方法正常返回时自动 ACK，抛出异常时消息保留在 PEL 中，空闲超过 {@code ext.redis.stream.min-idle} 后被重新认领投递，
+ * 投递次数达到 {@link #maxDeliveries()} 后转入死信 stream
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD})
+@Documented
+public @interface StreamListener {
+
+    /**
+     * stream key
+     */
+    String stream();
+
+    /**
+     * 消费者组，不存在时自动创建
+     */
+    String group();
+
+    /**
+     * 消费者数量，每个消费者运行在独立的虚拟线程中
+     */
+    int consumers() default 1;
+
+    /**
+     * 单次 XREADGROUP 读取的最大消息数
+     */
+    int batchSize() default 10;
+
+    /**
+     * XREADGROUP 阻塞等待时间 (毫秒)
+     */
+    long blockMillis() default 2000L;
+
+    /**
+     * 最大投递次数，达到后转入死信 stream，小于等于 0 时不转入
+     */
+    int maxDeliveries() default 3;
+
+    /**
+     * 死信 stream key，默认为 stream + ":dlq"
+     */
+    String deadLetterStream() default "";
+
+}
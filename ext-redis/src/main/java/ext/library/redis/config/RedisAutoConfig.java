@@ -4,13 +4,21 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import ext.library.redis.config.properties.RedisProperties;
 import ext.library.redis.prefix.DefaultRedisPrefixConverter;
 import ext.library.redis.prefix.IRedisPrefixConverter;
+import ext.library.redis.serialize.CompressValueCodec;
+import ext.library.redis.serialize.JsonValueCodec;
 import ext.library.redis.serialize.PrefixJdkRedisSerializer;
 import ext.library.redis.serialize.PrefixStringRedisSerializer;
+import ext.library.redis.serialize.SmileValueCodec;
+import ext.library.redis.serialize.ValueCodec;
+import ext.library.redis.stream.StreamConsumerContainer;
+import ext.library.redis.stream.StreamListenerRegistrar;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -64,6 +72,19 @@ public class RedisAutoConfig {
         return template;
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public ValueCodec valueCodec(RedisProperties redisProperties) {
+        ValueCodec valueCodec = switch (redisProperties.getCodec()) {
+            case JSON -> new JsonValueCodec();
+            case SMILE -> new SmileValueCodec();
+        };
+        if (redisProperties.getCompressThreshold() > 0) {
+            return new CompressValueCodec(valueCodec, redisProperties.getCompressThreshold(), redisProperties.getCompressAlgorithm());
+        }
+        return valueCodec;
+    }
+
     @Bean
     public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory) {
         RedisMessageListenerContainer result = new RedisMessageListenerContainer();
@@ -71,4 +92,17 @@ public class RedisAutoConfig {
         return result;
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "ext.redis.stream", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public StreamConsumerContainer streamConsumerContainer(RedisProperties redisProperties) {
+        return new StreamConsumerContainer(redisProperties.getStream());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "ext.redis.stream", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public static StreamListenerRegistrar streamListenerRegistrar(ObjectProvider<StreamConsumerContainer> streamConsumerContainer) {
+        return new StreamListenerRegistrar(streamConsumerContainer);
+    }
+
 }
\ No newline at end of file
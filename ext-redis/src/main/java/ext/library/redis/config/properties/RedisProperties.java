@@ -1,5 +1,6 @@
 package ext.library.redis.config.properties;
 
+import ext.library.redis.serialize.CompressValueCodec;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.time.Duration;
@@ -22,6 +23,25 @@ public class RedisProperties {
      */
     private Duration defaultLockTimeout = Duration.ofSeconds(10L);
 
+    /**
+     * 缓存值编码方式
+     */
+    private CodecType codec = CodecType.JSON;
+
+    /**
+     * 缓存值压缩阈值 (字节)，编码后超过该大小时压缩，小于等于 0 时不压缩
+     */
+    private int compressThreshold = 0;
+
+    /**
+     * 缓存值压缩算法，LZ4 需引入 at.yawk.lz4:lz4-java
+     */
+    private CompressValueCodec.Algorithm compressAlgorithm = CompressValueCodec.Algorithm.DEFLATE;
+
+    /**
+     * Stream 消费者组
+     */
+    private Stream stream = new Stream();
 
     public String getKeyPrefix() {
         return keyPrefix;
@@ -38,4 +58,102 @@ public class RedisProperties {
     public void setDefaultLockTimeout(Duration defaultLockTimeout) {
         this.defaultLockTimeout = defaultLockTimeout;
     }
-}
\ No newline at end of file
+
+    public CodecType getCodec() {
+        return codec;
+    }
+
+    public void setCodec(CodecType codec) {
+        this.codec = codec;
+    }
+
+    public int getCompressThreshold() {
+        return compressThreshold;
+    }
+
+    public void setCompressThreshold(int compressThreshold) {
+        this.compressThreshold = compressThreshold;
+    }
+
+    public CompressValueCodec.Algorithm getCompressAlgorithm() {
+        return compressAlgorithm;
+    }
+
+    public void setCompressAlgorithm(CompressValueCodec.Algorithm compressAlgorithm) {
+        this.compressAlgorithm = compressAlgorithm;
+    }
+
+    public Stream getStream() {
+        return stream;
+    }
+
+    public void setStream(Stream stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * 缓存值编码方式
+     */
+    public enum CodecType {
+        /** JSON 文本 */ JSON,
+        /** Smile 二进制 JSON */ SMILE,
+    }
+
+    /**
+     * Stream 消费者组
+     */
+    public static class Stream {
+
+        /**
+         * 是否启用 @StreamListener 消费
+         */
+        private boolean enabled = true;
+
+        /**
+         * pending 消息空闲超过该时间后被其他消费者认领
+         */
+        private Duration minIdle = Duration.ofMinutes(1L);
+
+        /**
+         * 扫描 pending 消息的周期
+         */
+        private Duration claimInterval = Duration.ofSeconds(30L);
+
+        /**
+         * 单次扫描 pending 消息的最大数量
+         */
+        private int claimBatchSize = 100;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getMinIdle() {
+            return minIdle;
+        }
+
+        public void setMinIdle(Duration minIdle) {
+            this.minIdle = minIdle;
+        }
+
+        public Duration getClaimInterval() {
+            return claimInterval;
+        }
+
+        public void setClaimInterval(Duration claimInterval) {
+            this.claimInterval = claimInterval;
+        }
+
+        public int getClaimBatchSize() {
+            return claimBatchSize;
+        }
+
+        public void setClaimBatchSize(int claimBatchSize) {
+            this.claimBatchSize = claimBatchSize;
+        }
+    }
+}
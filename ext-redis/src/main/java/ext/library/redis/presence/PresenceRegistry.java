@@ -0,0 +1,224 @@
+package ext.library.redis.presence;
+
+import ext.library.redis.util.RedisUtil;
+import ext.library.tool.core.VirtualThreadPools;
+import ext.library.tool.util.IDUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+
+import jakarta.annotation.Nonnull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 基于 Redis 的在线状态登记
+ * <p>
+ * 记录 key (用户 id、会话 key 等) 当前连接在哪些节点上：每个 key 一个 hash，field 为节点 id，value 为该登记的过期时间戳 (毫秒)，
+ * 一个 key 可同时在多个节点在线。节点按 ttl/3 的间隔批量刷新本地 key 的过期时间，节点宕机后其登记在 ttl 内失效，读取时忽略已过期的登记。
+ * 每个节点有自己的通道，单发消息按在线节点分组后只发送到所在节点的通道，一个节点的所有接收者合并为一条消息
+ */
+public class PresenceRegistry implements AutoCloseable {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /** 单次 pipeline 的最大命令数 */
+    private static final int BATCH_SIZE = 500;
+
+    /** 节点 id */
+    private final String nodeId = IDUtil.getUUID();
+
+    /** key 前缀 */
+    private final String namespace;
+
+    private final Duration ttl;
+
+    /** 本地在线的 key -> 连接数 */
+    private final Map<String, Integer> local = new ConcurrentHashMap<>();
+
+    private volatile boolean running = true;
+
+    /**
+     * @param namespace key 前缀，同时用于节点通道名
+     * @param ttl       登记有效期
+     */
+    public PresenceRegistry(String namespace, Duration ttl) {
+        this.namespace = namespace;
+        this.ttl = ttl;
+        VirtualThreadPools.execute("presence-heartbeat", this::heartbeatLoop);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 本节点的通道
+     */
+    public String getNodeChannel() {
+        return nodeChannel(nodeId);
+    }
+
+    /**
+     * 节点的通道
+     *
+     * @param node 节点 id
+     */
+    public String nodeChannel(String node) {
+        return namespace + ":node:" + node;
+    }
+
+    /**
+     * key 在本节点上线，同一 key 可多次上线，全部下线后才移除登记
+     *
+     * @param key key
+     */
+    public void online(String key) {
+        if (local.merge(key, 1, Integer::sum) == 1) {
+            try {
+                register(List.of(key));
+            } catch (Exception e) {
+                log.warn("[💾] 登记在线状态失败，将在下次心跳时重试，key:{}", key, e);
+            }
+        }
+    }
+
+    /**
+     * key 在本节点下线
+     *
+     * @param key key
+     */
+    public void offline(String key) {
+        Integer remaining = local.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+        if (Objects.isNull(remaining)) {
+            try {
+                RedisUtil.hDel(presenceKey(key), nodeId);
+            } catch (Exception e) {
+                log.warn("[💾] 移除在线状态失败，登记将在过期后失效，key:{}", key, e);
+            }
+        }
+    }
+
+    /**
+     * key 是否在本节点在线
+     *
+     * @param key key
+     */
+    public boolean isLocal(String key) {
+        return local.containsKey(key);
+    }
+
+    /**
+     * 查询 key 所在的节点
+     *
+     * @param keys key
+     *
+     * @return 节点 id -> 在该节点在线的 key，不在线的 key 不包含在内
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, List<String>> locate(Collection<String> keys) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+        Map<String, List<String>> nodes = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (int from = 0; from < distinct.size(); from += BATCH_SIZE) {
+            List<String> batch = distinct.subList(from, Math.min(from + BATCH_SIZE, distinct.size()));
+            List<Object> results = pipelined(operations -> batch.forEach(key -> operations.opsForHash().entries(presenceKey(key))));
+            for (int i = 0; i < batch.size(); i++) {
+                Map<Object, Object> entries = (Map<Object, Object>) results.get(i);
+                if (Objects.isNull(entries)) {
+                    continue;
+                }
+                for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+                    if (parseLong(entry.getValue()) > now) {
+                        nodes.computeIfAbsent(String.valueOf(entry.getKey()), k -> new ArrayList<>()).add(batch.get(i));
+                    }
+                }
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * 停止心跳并移除本节点的登记
+     */
+    @Override
+    public void close() {
+        running = false;
+        List<String> keys = new ArrayList<>(local.keySet());
+        local.clear();
+        try {
+            for (int from = 0; from < keys.size(); from += BATCH_SIZE) {
+                List<String> batch = keys.subList(from, Math.min(from + BATCH_SIZE, keys.size()));
+                pipelined(operations -> batch.forEach(key -> operations.opsForHash().delete(presenceKey(key), nodeId)));
+            }
+        } catch (Exception e) {
+            log.warn("[💾] 移除在线状态失败，登记将在过期后失效", e);
+        }
+    }
+
+    private void heartbeatLoop() {
+        long interval = Math.max(ttl.toMillis() / 3, 1L);
+        while (running) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(interval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!running) {
+                return;
+            }
+            try {
+                register(new ArrayList<>(local.keySet()));
+            } catch (Exception e) {
+                log.warn("[💾] 刷新在线状态失败", e);
+            }
+        }
+    }
+
+    /**
+     * 登记或续期
+     */
+    private void register(List<String> keys) {
+        String expireAt = String.valueOf(System.currentTimeMillis() + ttl.toMillis());
+        for (int from = 0; from < keys.size(); from += BATCH_SIZE) {
+            List<String> batch = keys.subList(from, Math.min(from + BATCH_SIZE, keys.size()));
+            pipelined(operations -> batch.forEach(key -> {
+                operations.opsForHash().put(presenceKey(key), nodeId, expireAt);
+                operations.expire(presenceKey(key), ttl);
+            }));
+        }
+    }
+
+    private String presenceKey(String key) {
+        return namespace + ":presence:" + key;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> pipelined(Consumer<RedisOperations<String, String>> commands) {
+        return RedisUtil.executePipelined(new SessionCallback<>() {
+            @Override
+            public <K, V> Object execute(@Nonnull RedisOperations<K, V> operations) {
+                commands.accept((RedisOperations<String, String>) operations);
+                return null;
+            }
+        });
+    }
+
+    private static long parseLong(Object value) {
+        try {
+            return Long.parseLong(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+}
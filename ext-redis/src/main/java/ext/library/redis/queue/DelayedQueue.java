@@ -0,0 +1,334 @@
+package ext.library.redis.queue;
+
+import ext.library.redis.script.LuaScript;
+import ext.library.redis.script.RedisScripts;
+import ext.library.redis.util.RedisUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 基于 Redis 的分片延迟队列
+ * <p>
+ * 数据按 hash 分布到多个 zset 分片，score 为到期时间戳 (毫秒，Redis 服务端时间，不受各节点时钟偏差影响)。调度循环通过一次 lua 调用把分片内全部到期数据
+ * (最多 batchSize 条) 原子地转移到该分片的就绪 list，再从就绪 list 领取交给处理器；下一次调度的休眠时间取各分片最早的到期时间，
+ * 且不超过 maxPollInterval，以感知其他节点新加入的数据。每个分片的 zset、就绪 list 与处理中 zset 使用相同的 hash tag，
+ * 集群模式下位于同一 slot，不同分片分散到不同 slot。
+ * <p>
+ * 投递语义为至少一次：领取时原子地从就绪 list 弹出并记入处理中 zset (score 为租约到期时间戳)，处理完成后 {@link #ack(String)} 删除；
+ * 节点在处理中宕机时，租约到期后由下一次转移放回就绪 list 重新投递。处理耗时超过 processingTimeout 时同样会被重新投递，
+ * 处理器需保证幂等
+ */
+public class DelayedQueue {
+    /** 取 Redis 服务端时间 (毫秒) */
+    // language=redis
+    private static final String NOW = """
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            """;
+    /**
+     * 添加延迟数据的 lua 脚本，到期时间为 Redis 服务端时间加延迟
+     */
+    // language=redis
+    private static final LuaScript<Long> OFFER_SCRIPT = RedisScripts.register("delayed_queue_offer", NOW + """
+            -- KEYS[1] 延迟 zset，ARGV[1] 数据，ARGV[2] 延迟时间 (毫秒)
+            return redis.call('ZADD', KEYS[1], now + tonumber(ARGV[2]), ARGV[1])
+            """, Long.class);
+    /**
+     * 转移到期数据的 lua 脚本
+     * <p>
+     * 返回距下一条数据到期的毫秒数，还有到期数据未转移时返回 0，分片为空时返回 -1
+     */
+    // language=redis
+    private static final LuaScript<Long> TRANSFER_SCRIPT = RedisScripts.register("delayed_queue_transfer", NOW + """
+            -- KEYS[1] 延迟 zset，KEYS[2] 就绪 list，KEYS[3] 处理中 zset
+            -- ARGV[1] 单次转移的最大数量
+            local expired = redis.call('ZRANGEBYSCORE', KEYS[3], '-inf', now, 'LIMIT', 0, tonumber(ARGV[1]))
+            if #expired > 0 then
+                redis.call('ZREM', KEYS[3], unpack(expired))
+                redis.call('RPUSH', KEYS[2], unpack(expired))
+            end
+            local items = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', now, 'LIMIT', 0, tonumber(ARGV[1]))
+            if #items > 0 then
+                redis.call('ZREM', KEYS[1], unpack(items))
+                redis.call('LPUSH', KEYS[2], unpack(items))
+                if #items == tonumber(ARGV[1]) then
+                    return 0
+                end
+            end
+            local next = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')[2]
+            if next then
+                return math.max(tonumber(next) - now, 0)
+            end
+            return -1
+            """, Long.class);
+    /**
+     * 领取就绪数据的 lua 脚本，弹出并记入处理中 zset
+     */
+    // language=redis
+    private static final LuaScript<String> CLAIM_SCRIPT = RedisScripts.register("delayed_queue_claim", NOW + """
+            -- KEYS[1] 就绪 list，KEYS[2] 处理中 zset
+            -- ARGV[1] 租约时长 (毫秒)
+            local data = redis.call('RPOP', KEYS[1])
+            if data then
+                redis.call('ZADD', KEYS[2], now + tonumber(ARGV[1]), data)
+            end
+            return data
+            """, String.class);
+    /** key 前缀 */
+    private static final String KEY_PREFIX = "delayed_queue:";
+    /** 默认分片数量 */
+    private static final int DEFAULT_SHARDS = 4;
+    /** 默认单次转移的最大数量 */
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    /** 默认最大调度周期 */
+    private static final Duration DEFAULT_MAX_POLL_INTERVAL = Duration.ofSeconds(1L);
+    /** 默认处理租约时长 */
+    private static final Duration DEFAULT_PROCESSING_TIMEOUT = Duration.ofMinutes(5L);
+    /** 处理失败后的重试延迟 */
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5L);
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    /** 队列名 */
+    private final String name;
+    /** 分片的延迟 zset key */
+    private final String[] delayedKeys;
+    /** 分片的就绪 list key */
+    private final String[] readyKeys;
+    /** 分片的处理中 zset key */
+    private final String[] processingKeys;
+    /** 单次转移的最大数量 */
+    private final int batchSize;
+    /** 最大调度周期 */
+    private final Duration maxPollInterval;
+    /** 处理租约时长，超过后重新投递 */
+    private final Duration processingTimeout;
+    /** 弹出就绪数据的起始分片，轮询以均衡各分片 */
+    private final AtomicInteger pollIndex = new AtomicInteger();
+    /** 调度线程 */
+    private volatile Thread scheduler;
+    /** 调度线程计划唤醒的时间戳 (本地时间) */
+    private volatile long wakeupAt = Long.MAX_VALUE;
+
+    public DelayedQueue(String name) {
+        this(name, DEFAULT_SHARDS, DEFAULT_BATCH_SIZE, DEFAULT_MAX_POLL_INTERVAL);
+    }
+
+    /**
+     * @param name            队列名
+     * @param shards          分片数量
+     * @param batchSize       单次转移的最大数量
+     * @param maxPollInterval 最大调度周期
+     */
+    public DelayedQueue(String name, int shards, int batchSize, Duration maxPollInterval) {
+        this(name, shards, batchSize, maxPollInterval, DEFAULT_PROCESSING_TIMEOUT);
+    }
+
+    /**
+     * @param name              队列名
+     * @param shards            分片数量
+     * @param batchSize         单次转移的最大数量
+     * @param maxPollInterval   最大调度周期
+     * @param processingTimeout 处理租约时长，领取后超过该时长未确认的数据重新投递
+     */
+    public DelayedQueue(String name, int shards, int batchSize, Duration maxPollInterval, Duration processingTimeout) {
+        if (shards < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("[♦️] 延迟队列分片数量与批量大小必须大于 0");
+        }
+        this.name = name;
+        this.batchSize = batchSize;
+        this.maxPollInterval = maxPollInterval;
+        this.processingTimeout = processingTimeout;
+        this.delayedKeys = new String[shards];
+        this.readyKeys = new String[shards];
+        this.processingKeys = new String[shards];
+        for (int i = 0; i < shards; i++) {
+            String tag = "{" + name + ":" + i + "}";
+            delayedKeys[i] = KEY_PREFIX + tag;
+            readyKeys[i] = KEY_PREFIX + tag + ":ready";
+            processingKeys[i] = KEY_PREFIX + tag + ":processing";
+        }
+    }
+
+    /**
+     * 添加延迟数据，同一数据重复添加时覆盖到期时间
+     *
+     * @param data  数据
+     * @param delay 延迟时间
+     */
+    public void offer(String data, Duration delay) {
+        OFFER_SCRIPT.execute(List.of(delayedKeys[shard(data)]), data, String.valueOf(delay.toMillis()));
+        // 早于调度线程计划唤醒的时间时，提前唤醒
+        Thread thread = scheduler;
+        if (Objects.nonNull(thread) && System.currentTimeMillis() + delay.toMillis() < wakeupAt) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * 删除尚未到期的数据
+     *
+     * @param data 数据
+     *
+     * @return 是否删除成功
+     */
+    public boolean remove(String data) {
+        Long removed = RedisUtil.zSetOps().remove(delayedKeys[shard(data)], data);
+        return Objects.nonNull(removed) && removed > 0;
+    }
+
+    /**
+     * 转移所有分片的到期数据到就绪 list，同时放回租约到期未确认的数据
+     *
+     * @return 距最早的下一条数据到期的毫秒数，还有到期数据未转移时为 0，队列为空时为 -1
+     */
+    public long transfer() {
+        long next = -1L;
+        String batch = String.valueOf(batchSize);
+        for (int i = 0; i < delayedKeys.length; i++) {
+            Long due = TRANSFER_SCRIPT.execute(List.of(delayedKeys[i], readyKeys[i], processingKeys[i]), batch);
+            if (Objects.nonNull(due) && due >= 0 && (next < 0 || due < next)) {
+                next = due;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * 领取一条就绪数据，没有数据返回 null；处理完成后需调用 {@link #ack(String)}，否则租约到期后重新投递
+     */
+    public String poll() {
+        int start = Math.floorMod(pollIndex.getAndIncrement(), readyKeys.length);
+        String lease = String.valueOf(processingTimeout.toMillis());
+        for (int i = 0; i < readyKeys.length; i++) {
+            int shard = (start + i) % readyKeys.length;
+            String data = CLAIM_SCRIPT.execute(List.of(readyKeys[shard], processingKeys[shard]), lease);
+            if (Objects.nonNull(data)) {
+                return data;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 确认数据已处理，从处理中 zset 删除
+     *
+     * @param data 数据
+     *
+     * @return 是否确认成功，租约已到期被重新投递时为 false
+     */
+    public boolean ack(String data) {
+        Long removed = RedisUtil.zSetOps().remove(processingKeys[shard(data)], data);
+        return Objects.nonNull(removed) && removed > 0;
+    }
+
+    /**
+     * 未到期、就绪与处理中的数据总数
+     */
+    public long size() {
+        long size = 0;
+        for (int i = 0; i < delayedKeys.length; i++) {
+            size += Objects.requireNonNullElse(RedisUtil.zSetOps().zCard(delayedKeys[i]), 0L);
+            size += Objects.requireNonNullElse(RedisUtil.listOps().size(readyKeys[i]), 0L);
+            size += Objects.requireNonNullElse(RedisUtil.zSetOps().zCard(processingKeys[i]), 0L);
+        }
+        return size;
+    }
+
+    /**
+     * 启动调度循环，在虚拟线程中转移到期数据并交给处理器，处理成功后确认，处理失败的数据延迟后重新入队
+     *
+     * @param handler 处理器
+     */
+    public synchronized void start(Consumer<String> handler) {
+        if (Objects.nonNull(scheduler)) {
+            return;
+        }
+        Thread thread = Thread.ofVirtual().name("delayed-queue-" + name).unstarted(() -> {
+            log.info("[♦️] 延迟队列调度启动，name: {}, shards: {}", name, delayedKeys.length);
+            while (scheduler == Thread.currentThread()) {
+                try {
+                    long next = transfer();
+                    drain(handler);
+                    await(next);
+                } catch (Exception e) {
+                    log.error("[♦️] 延迟队列调度失败，name: {}", name, e);
+                    await(maxPollInterval.toMillis());
+                }
+            }
+        });
+        scheduler = thread;
+        thread.start();
+    }
+
+    /**
+     * 停止调度循环
+     */
+    public synchronized void stop() {
+        Thread thread = scheduler;
+        scheduler = null;
+        if (Objects.nonNull(thread)) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void drain(Consumer<String> handler) {
+        String data;
+        while (Objects.nonNull(scheduler) && Objects.nonNull(data = poll())) {
+            try {
+                handler.accept(data);
+            } catch (Exception e) {
+                log.error("[♦️] 延迟队列数据处理失败，{}s 后重试，name: {}, data: {}", RETRY_DELAY.toSeconds(), name, data, e);
+                offer(data, RETRY_DELAY);
+            }
+            ack(data);
+        }
+    }
+
+    /**
+     * 休眠到下一条数据到期，最长 maxPollInterval
+     *
+     * @param next 距下一条数据到期的毫秒数，为 -1 时休眠 maxPollInterval
+     */
+    private void await(long next) {
+        long sleep = maxPollInterval.toMillis();
+        if (next >= 0) {
+            sleep = Math.min(sleep, next);
+        }
+        wakeupAt = System.currentTimeMillis() + sleep;
+        if (sleep > 0) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(sleep));
+        }
+        wakeupAt = Long.MAX_VALUE;
+    }
+
+    private int shard(String data) {
+        return Math.floorMod(data.hashCode(), delayedKeys.length);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getShards() {
+        return delayedKeys.length;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public Duration getMaxPollInterval() {
+        return maxPollInterval;
+    }
+
+    public Duration getProcessingTimeout() {
+        return processingTimeout;
+    }
+}
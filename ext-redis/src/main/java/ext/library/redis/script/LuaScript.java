@@ -0,0 +1,110 @@
+package ext.library.redis.script;
+
+import ext.library.redis.util.RedisUtil;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已注册的 Lua 脚本
+ * <p>
+ * 脚本文本与 SHA1 只计算一次，执行时优先使用 EVALSHA，服务端返回 NOSCRIPT 时自动回退为 EVAL 并由服务端缓存脚本。
+ * 同时记录调用次数、失败次数与耗时
+ *
+ * @param <T> 脚本返回值类型
+ *
+ * @see RedisScripts
+ */
+public class LuaScript<T> {
+
+    /** 脚本名称 */
+    private final String name;
+
+    private final RedisScript<T> script;
+
+    /** 调用次数 */
+    private final LongAdder calls = new LongAdder();
+
+    /** 失败次数 */
+    private final LongAdder errors = new LongAdder();
+
+    /** 累计耗时 (纳秒) */
+    private final LongAdder totalNanos = new LongAdder();
+
+    /** 最大耗时 (纳秒) */
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+    LuaScript(String name, String scriptText, Class<T> resultType) {
+        this.name = name;
+        this.script = RedisScript.of(scriptText, resultType);
+    }
+
+    /**
+     * 执行脚本
+     *
+     * @param keys keys
+     * @param args 参数
+     *
+     * @return 脚本返回值
+     */
+    public T execute(List<String> keys, Object... args) {
+        long start = System.nanoTime();
+        try {
+            return RedisUtil.execute(script, keys, args);
+        } catch (RuntimeException e) {
+            errors.increment();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            calls.increment();
+            totalNanos.add(elapsed);
+            maxNanos.accumulate(elapsed);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSha1() {
+        return script.getSha1();
+    }
+
+    public RedisScript<T> getScript() {
+        return script;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public Duration getTotalTime() {
+        return Duration.ofNanos(totalNanos.sum());
+    }
+
+    public Duration getMaxTime() {
+        return Duration.ofNanos(maxNanos.get());
+    }
+
+    /**
+     * 平均耗时
+     *
+     * @return {@link Duration }
+     */
+    public Duration getMeanTime() {
+        long count = calls.sum();
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos.sum() / count);
+    }
+
+    @Override
+    public String toString() {
+        return "LuaScript{name='" + name + "', sha1='" + getSha1() + "', calls=" + getCalls() + ", errors=" + getErrors() + ", mean=" + getMeanTime() + ", max=" + getMaxTime() + '}';
+    }
+}
@@ -0,0 +1,74 @@
+package ext.library.redis.script;
+
+import ext.library.redis.util.RedisUtil;
+import ext.library.tool.core.Exceptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lua 脚本注册中心
+ * <p>
+ * 每个脚本按名称只注册一次，避免每次调用都创建脚本对象、计算 SHA1 并发送脚本全文
+ */
+public class RedisScripts {
+    private static final Logger log = LoggerFactory.getLogger(RedisScripts.class);
+
+    /** 脚本名称 -> 脚本 */
+    private static final Map<String, LuaScript<?>> SCRIPTS = new ConcurrentHashMap<>();
+
+    /**
+     * 注册脚本，同名脚本已存在时直接返回已注册的脚本
+     *
+     * @param name       脚本名称
+     * @param scriptText 脚本内容
+     * @param resultType 返回值类型
+     *
+     * @return {@link LuaScript }
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> LuaScript<T> register(String name, String scriptText, Class<T> resultType) {
+        LuaScript<?> script = SCRIPTS.computeIfAbsent(name, k -> new LuaScript<>(name, scriptText, resultType));
+        if (script.getScript().getResultType() != resultType) {
+            throw Exceptions.throwOut("[♦️] Lua 脚本 {} 已注册为 {} 类型", name, script.getScript().getResultType());
+        }
+        return (LuaScript<T>) script;
+    }
+
+    /**
+     * 获取已注册的脚本
+     *
+     * @param name 脚本名称
+     *
+     * @return {@link LuaScript }，不存在时返回 null
+     */
+    public static LuaScript<?> get(String name) {
+        return SCRIPTS.get(name);
+    }
+
+    /**
+     * 获取所有已注册的脚本，可用于输出调用次数与耗时
+     *
+     * @return {@link Collection }
+     */
+    public static Collection<LuaScript<?>> getScripts() {
+        return Collections.unmodifiableCollection(SCRIPTS.values());
+    }
+
+    /**
+     * 将所有已注册的脚本预加载到 Redis 服务端 (SCRIPT LOAD)，之后的调用均可直接命中 EVALSHA
+     */
+    public static void loadAll() {
+        RedisUtil.execute((RedisConnection conn) -> {
+            SCRIPTS.values().forEach(script -> conn.scriptingCommands().scriptLoad(script.getScript().getScriptAsString().getBytes(StandardCharsets.UTF_8)));
+            return null;
+        });
+        log.debug("[♦️] 预加载 Lua 脚本 {} 个", SCRIPTS.size());
+    }
+}
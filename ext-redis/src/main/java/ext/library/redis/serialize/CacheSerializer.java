@@ -8,7 +8,10 @@ import java.lang.reflect.Type;
 
 /**
  * 缓存序列化器
+ *
+ * @deprecated 使用 {@link ValueCodec}
  */
+@Deprecated
 public interface CacheSerializer {
 
 	/**
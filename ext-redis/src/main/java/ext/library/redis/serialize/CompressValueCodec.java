@@ -0,0 +1,173 @@
+package ext.library.redis.serialize;
+
+import ext.library.tool.core.Exceptions;
+import ext.library.tool.util.ObjectUtil;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.springframework.util.ClassUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 压缩编解码器，编码结果超过阈值时使用 Deflate 或 LZ4 压缩
+ * <p>
+ * Deflate 压缩后的内容以 {@code 0x00 'D'} 开头，LZ4 以 {@code 0x00 'L'} 加 4 字节原文长度开头，未压缩的内容原样存储，
+ * 因此开启、关闭压缩或切换压缩算法均不影响已有数据的读取。LZ4 需引入 {@code at.yawk.lz4:lz4-java}
+ */
+public class CompressValueCodec implements ValueCodec {
+
+    /** Deflate 压缩内容头 */
+    private static final byte[] HEADER = {0x00, 'D'};
+
+    /** LZ4 压缩内容头，之后为 4 字节原文长度 */
+    private static final byte[] LZ4_HEADER = {0x00, 'L'};
+
+    /** 是否引入了 lz4-java */
+    private static final boolean LZ4_PRESENT = ClassUtils.isPresent("net.jpountz.lz4.LZ4Factory", CompressValueCodec.class.getClassLoader());
+
+    private final ValueCodec delegate;
+
+    /** 压缩阈值 (字节) */
+    private final int threshold;
+
+    /** 压缩算法 */
+    private final Algorithm algorithm;
+
+    public CompressValueCodec(ValueCodec delegate, int threshold) {
+        this(delegate, threshold, Algorithm.DEFLATE);
+    }
+
+    /**
+     * @param delegate  编解码器
+     * @param threshold 压缩阈值 (字节)
+     * @param algorithm 压缩算法
+     */
+    public CompressValueCodec(ValueCodec delegate, int threshold, Algorithm algorithm) {
+        if (algorithm == Algorithm.LZ4 && !LZ4_PRESENT) {
+            throw new IllegalStateException("[♦️] 使用 LZ4 压缩需引入 at.yawk.lz4:lz4-java");
+        }
+        this.delegate = delegate;
+        this.threshold = threshold;
+        this.algorithm = algorithm;
+    }
+
+    private static boolean isCompressed(byte[] bytes, byte[] header) {
+        return bytes.length > header.length && bytes[0] == header[0] && bytes[1] == header[1];
+    }
+
+    private static byte[] compress(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + HEADER.length);
+            out.write(HEADER, 0, HEADER.length);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] bytes) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, HEADER.length, bytes.length - HEADER.length);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 3);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && inflater.needsInput()) {
+                    break;
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw Exceptions.unchecked(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        byte[] bytes = delegate.encode(value);
+        if (Objects.isNull(bytes) || bytes.length < threshold) {
+            return bytes;
+        }
+        byte[] compressed = algorithm == Algorithm.LZ4 ? Lz4.compress(bytes) : compress(bytes);
+        // 压缩无收益时保留原文
+        return compressed.length < bytes.length ? compressed : bytes;
+    }
+
+    @Override
+    public <T> T decode(byte[] bytes, Class<T> clazz) {
+        if (ObjectUtil.isEmpty(bytes)) {
+            return null;
+        }
+        if (isCompressed(bytes, HEADER)) {
+            return delegate.decode(decompress(bytes), clazz);
+        }
+        if (isCompressed(bytes, LZ4_HEADER)) {
+            return delegate.decode(Lz4.decompress(bytes), clazz);
+        }
+        return delegate.decode(bytes, clazz);
+    }
+
+    public ValueCodec getDelegate() {
+        return delegate;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * 压缩算法
+     */
+    public enum Algorithm {
+        /** Deflate，压缩率较高，JDK 自带 */ DEFLATE,
+        /** LZ4，压缩与解压速度快，需引入 lz4-java */ LZ4,
+    }
+
+    /**
+     * LZ4 压缩，单独加载以便未引入 lz4-java 时不影响 Deflate
+     */
+    private static final class Lz4 {
+        private static byte[] compress(byte[] bytes) {
+            LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+            int offset = LZ4_HEADER.length + Integer.BYTES;
+            byte[] out = new byte[offset + compressor.maxCompressedLength(bytes.length)];
+            System.arraycopy(LZ4_HEADER, 0, out, 0, LZ4_HEADER.length);
+            ByteBuffer.wrap(out, LZ4_HEADER.length, Integer.BYTES).putInt(bytes.length);
+            int length = compressor.compress(bytes, 0, bytes.length, out, offset);
+            return Arrays.copyOf(out, offset + length);
+        }
+
+        private static byte[] decompress(byte[] bytes) {
+            int offset = LZ4_HEADER.length + Integer.BYTES;
+            int length = ByteBuffer.wrap(bytes, LZ4_HEADER.length, Integer.BYTES).getInt();
+            byte[] out = new byte[length];
+            LZ4SafeDecompressor decompressor = LZ4Factory.fastestInstance().safeDecompressor();
+            decompressor.decompress(bytes, offset, bytes.length - offset, out, 0, length);
+            return out;
+        }
+    }
+
+}
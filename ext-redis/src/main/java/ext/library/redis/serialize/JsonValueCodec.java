@@ -0,0 +1,44 @@
+package ext.library.redis.serialize;
+
+import ext.library.json.util.JsonUtil;
+import ext.library.tool.util.ObjectUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * JSON 编解码器，与 {@link JsonUtil} 的序列化结果一致
+ * <p>
+ * 兼容旧版本再次按 JSON 字符串编码的数据 (值为 JSON 字符串，其内容才是对象的 JSON)，按原格式读取失败时解开一层再读取
+ */
+public class JsonValueCodec implements ValueCodec {
+
+    @Override
+    public byte[] encode(Object value) {
+        if (Objects.isNull(value)) {
+            return null;
+        }
+        return JsonUtil.toJsonAsBytes(value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T decode(byte[] bytes, Class<T> clazz) {
+        if (ObjectUtil.isEmpty(bytes)) {
+            return null;
+        }
+        // 字符串按原文存储，不是合法的 JSON
+        if (clazz == String.class) {
+            return (T) new String(bytes, StandardCharsets.UTF_8);
+        }
+        try {
+            return JsonUtil.readObj(bytes, clazz);
+        } catch (Exception e) {
+            if (bytes[0] != '"') {
+                throw e;
+            }
+            return JsonUtil.readObj(JsonUtil.readObj(bytes, String.class), clazz);
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package ext.library.redis.serialize;
+
+/**
+ * 缓存值编解码器
+ * <p>
+ * 负责缓存值与 Redis 中字节内容的相互转换，可通过注册 {@link ValueCodec} Bean 替换默认实现
+ *
+ * @see JsonValueCodec
+ * @see SmileValueCodec
+ * @see CompressValueCodec
+ */
+public interface ValueCodec {
+
+    /**
+     * 编码
+     *
+     * @param value 缓存值
+     *
+     * @return 编码后的字节，value 为 null 时返回 null
+     */
+    byte[] encode(Object value);
+
+    /**
+     * 解码
+     *
+     * @param bytes 编码后的字节
+     * @param clazz 值类型
+     *
+     * @return 缓存值，bytes 为空时返回 null
+     */
+    <T> T decode(byte[] bytes, Class<T> clazz);
+
+}
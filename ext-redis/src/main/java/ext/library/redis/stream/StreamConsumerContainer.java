@@ -0,0 +1,248 @@
+package ext.library.redis.stream;
+
+import ext.library.redis.annotation.StreamListener;
+import ext.library.redis.config.properties.RedisProperties;
+import ext.library.redis.util.RedisUtil;
+import ext.library.tool.constant.Symbol;
+import ext.library.tool.core.Exceptions;
+import ext.library.tool.core.Threads;
+import ext.library.tool.core.VirtualThreadPools;
+import ext.library.tool.util.INetUtil;
+import ext.library.tool.util.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis Stream 消费者组容器
+ * <p>
+ * 每个 {@link StreamListener} 启动 consumers 个虚拟线程阻塞执行 XREADGROUP，处理完一批后才读取下一批，
+ * 未确认的消息最多为 consumers * batchSize，以此实现背压。另有一个虚拟线程周期性扫描 PEL：
+ * 空闲超过 minIdle 的消息通过 XCLAIM 认领后重新处理，投递次数达到上限的消息转入死信 stream 并 ACK
+ */
+public class StreamConsumerContainer implements SmartLifecycle {
+    /** 读取失败后的退避时间 */
+    private static final Duration ERROR_BACKOFF = Duration.ofSeconds(1L);
+    /** 消费者名称前缀，主机 + 进程 id */
+    private static final String CONSUMER_PREFIX = INetUtil.getHostIp() + Symbol.COLON + ProcessHandle.current().pid();
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final RedisProperties.Stream properties;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean running = false;
+    private volatile CountDownLatch stopped = new CountDownLatch(0);
+
+    public StreamConsumerContainer(RedisProperties.Stream properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 注册监听方法，容器已启动时立即开始消费
+     *
+     * @param bean     监听方法所在的 bean
+     * @param method   监听方法
+     * @param listener 注解
+     */
+    public void register(Object bean, Method method, StreamListener listener) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (parameterTypes.length > 1 || (parameterTypes.length == 1 && !MapRecord.class.isAssignableFrom(parameterTypes[0]) && !Map.class.isAssignableFrom(parameterTypes[0]))) {
+            throw Exceptions.throwOut("[♦️] @StreamListener 方法参数只能为空、MapRecord 或 Map，method: {}", method);
+        }
+        method.setAccessible(true);
+        String deadLetterStream = StringUtil.isBlank(listener.deadLetterStream()) ? listener.stream() + ":dlq" : listener.deadLetterStream();
+        Subscription subscription = new Subscription(bean, method, listener, deadLetterStream);
+        subscriptions.add(subscription);
+        synchronized (this) {
+            if (running) {
+                start(subscription);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        stopped = new CountDownLatch(subscriptions.stream().mapToInt(s -> s.listener().consumers() + 1).sum());
+        subscriptions.forEach(this::start);
+    }
+
+    private void start(Subscription subscription) {
+        StreamListener listener = subscription.listener();
+        try {
+            RedisUtil.xGroupCreate(listener.stream(), listener.group());
+        } catch (Exception e) {
+            // 消费者组已存在 (BUSYGROUP)
+            log.debug("[♦️] 消费者组已存在，stream: {}, group: {}", listener.stream(), listener.group());
+        }
+        for (int i = 0; i < listener.consumers(); i++) {
+            String consumer = CONSUMER_PREFIX + Symbol.DASHED + i;
+            VirtualThreadPools.execute("stream-consumer", () -> runUntilStopped(() -> consume(subscription, consumer)));
+        }
+        VirtualThreadPools.execute("stream-claimer", () -> runUntilStopped(() -> reclaim(subscription, CONSUMER_PREFIX + Symbol.DASHED + "claimer")));
+        log.info("[♦️] Stream 消费者启动，stream: {}, group: {}, consumers: {}", listener.stream(), listener.group(), listener.consumers());
+    }
+
+    private void runUntilStopped(Runnable runnable) {
+        try {
+            runnable.run();
+        } finally {
+            stopped.countDown();
+        }
+    }
+
+    /**
+     * 阻塞读取新消息并处理
+     */
+    private void consume(Subscription subscription, String consumer) {
+        StreamListener listener = subscription.listener();
+        StreamReadOptions options = StreamReadOptions.empty().count(Math.max(listener.batchSize(), 1)).block(Duration.ofMillis(Math.max(listener.blockMillis(), 1L)));
+        StreamOffset<String> offset = StreamOffset.create(listener.stream(), ReadOffset.lastConsumed());
+        while (running) {
+            try {
+                List<MapRecord<String, String, String>> records = RedisUtil.xReadGroup(listener.group(), consumer, options, offset);
+                if (records != null) {
+                    records.forEach(record -> handle(subscription, record));
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.error("[♦️] 读取 Stream 消息失败，stream: {}, group: {}", listener.stream(), listener.group(), e);
+                Threads.sleep(ERROR_BACKOFF);
+            }
+        }
+    }
+
+    /**
+     * 周期性认领空闲的 pending 消息，投递次数超限的转入死信
+     */
+    private void reclaim(Subscription subscription, String claimer) {
+        StreamListener listener = subscription.listener();
+        Duration minIdle = properties.getMinIdle();
+        while (running) {
+            Threads.sleep(properties.getClaimInterval());
+            if (!running) {
+                return;
+            }
+            try {
+                PendingMessages pending = RedisUtil.xPending(listener.stream(), listener.group(), Range.unbounded(), properties.getClaimBatchSize());
+                List<RecordId> claimIds = new ArrayList<>(pending.size());
+                for (PendingMessage message : pending) {
+                    if (message.getElapsedTimeSinceLastDelivery().compareTo(minIdle) < 0) {
+                        continue;
+                    }
+                    if (listener.maxDeliveries() > 0 && message.getTotalDeliveryCount() >= listener.maxDeliveries()) {
+                        deadLetter(subscription, message);
+                    } else {
+                        claimIds.add(message.getId());
+                    }
+                }
+                if (!claimIds.isEmpty()) {
+                    List<MapRecord<String, String, String>> records = RedisUtil.xClaim(listener.stream(), listener.group(), claimer, minIdle, claimIds.toArray(RecordId[]::new));
+                    log.debug("[♦️] 认领空闲消息 {} 条，stream: {}, group: {}", records.size(), listener.stream(), listener.group());
+                    records.forEach(record -> handle(subscription, record));
+                }
+            } catch (Exception e) {
+                log.error("[♦️] 认领 Stream 空闲消息失败，stream: {}, group: {}", listener.stream(), listener.group(), e);
+            }
+        }
+    }
+
+    /**
+     * 转入死信 stream，附带原消息 id 与投递次数
+     */
+    private void deadLetter(Subscription subscription, PendingMessage message) {
+        StreamListener listener = subscription.listener();
+        List<MapRecord<String, String, String>> records = RedisUtil.xRange(listener.stream(), Range.just(message.getIdAsString()));
+        if (!records.isEmpty()) {
+            Map<String, String> content = new LinkedHashMap<>(records.getFirst().getValue());
+            content.put("dlq-source-id", message.getIdAsString());
+            content.put("dlq-deliveries", String.valueOf(message.getTotalDeliveryCount()));
+            RedisUtil.xAdd(subscription.deadLetterStream(), content);
+        }
+        RedisUtil.xAck(listener.stream(), listener.group(), message.getId());
+        log.warn("[♦️] 消息投递 {} 次仍失败，转入死信，stream: {}, id: {}", message.getTotalDeliveryCount(), listener.stream(), message.getIdAsString());
+    }
+
+    /**
+     * 调用监听方法，成功后 ACK，失败时保留在 PEL 中等待重新认领
+     */
+    private void handle(Subscription subscription, MapRecord<String, String, String> record) {
+        StreamListener listener = subscription.listener();
+        Method method = subscription.method();
+        try {
+            if (method.getParameterCount() == 0) {
+                method.invoke(subscription.bean());
+            } else if (Map.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                method.invoke(subscription.bean(), record.getValue());
+            } else {
+                method.invoke(subscription.bean(), record);
+            }
+            RedisUtil.xAck(listener.stream(), listener.group(), record.getId());
+        } catch (InvocationTargetException e) {
+            log.error("[♦️] 处理 Stream 消息失败，stream: {}, id: {}", listener.stream(), record.getId(), e.getTargetException());
+        } catch (Exception e) {
+            log.error("[♦️] 处理 Stream 消息失败，stream: {}, id: {}", listener.stream(), record.getId(), e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+        // 等待阻塞读取返回
+        long maxBlock = subscriptions.stream().mapToLong(s -> s.listener().blockMillis()).max().orElse(0L);
+        try {
+            if (!stopped.await(maxBlock + ERROR_BACKOFF.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("[♦️] 等待 Stream 消费者停止超时");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public List<Subscription> getSubscriptions() {
+        return List.copyOf(subscriptions);
+    }
+
+    /**
+     * 已注册的监听
+     *
+     * @param bean             监听方法所在的 bean
+     * @param method           监听方法
+     * @param listener         注解
+     * @param deadLetterStream 死信 stream key
+     */
+    public record Subscription(Object bean, Method method, StreamListener listener, String deadLetterStream) {
+    }
+}
@@ -0,0 +1,32 @@
+package ext.library.redis.stream;
+
+import ext.library.redis.annotation.StreamListener;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+/**
+ * 扫描 Bean 中标注了 {@link StreamListener} 的方法，注册到 {@link StreamConsumerContainer}
+ */
+public class StreamListenerRegistrar implements BeanPostProcessor {
+
+    private final ObjectProvider<StreamConsumerContainer> container;
+
+    public StreamListenerRegistrar(ObjectProvider<StreamConsumerContainer> container) {
+        this.container = container;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        Map<Method, StreamListener> methods = MethodIntrospector.selectMethods(targetClass,
+                (MethodIntrospector.MetadataLookup<StreamListener>) method -> AnnotatedElementUtils.findMergedAnnotation(method, StreamListener.class));
+        methods.forEach((method, listener) -> container.getObject().register(bean, AopUtils.selectInvocableMethod(method, bean.getClass()), listener));
+        return bean;
+    }
+}
@@ -0,0 +1,447 @@
+package ext.library.redis.util;
+
+import ext.library.tool.constant.Symbol;
+import ext.library.tool.core.Exceptions;
+import ext.library.tool.core.Threads;
+import ext.library.tool.core.VirtualThreadPools;
+import ext.library.tool.util.IDUtil;
+import ext.library.tool.util.INetUtil;
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于 Redis 的分布式锁基类
+ * <p>
+ * 负责线程内重入计数、等待与唤醒、看门狗续期，加锁、解锁、续期的原子操作由子类通过 lua 脚本实现。
+ * 持有者标识为 实例 id + 线程 id，在加锁、解锁时按当前线程计算，同一实例可被多个线程共享，各线程分别持有、分别计数。
+ * 等待锁的线程挂起，由解锁时发布到 {@link #UNLOCK_CHANNEL} 的通知唤醒，轮询仅作为通知丢失时的兜底
+ *
+ * @see DistributedLock
+ * @see DistributedFairLock
+ * @see DistributedReadWriteLock
+ */
+public abstract class AbstractDistributedLock implements Lock {
+    /** 解锁通知的通道，消息为锁 key */
+    protected final static String UNLOCK_CHANNEL = "distributed_lock:unlock";
+    /** 默认的锁超时时间 */
+    protected final static Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30L);
+    /** 默认的获取锁超时时间 */
+    protected final static Duration DEFAULT_TRY_LOCK_TIMEOUT = Duration.ofSeconds(10L);
+    /** 等待锁时，自旋尝试的周期，默认 10 毫秒，仅在未能订阅解锁通知时使用 */
+    protected final static Duration DEFAULT_LOOP_INTERVAL = Duration.ofMillis(10L);
+    /** 已订阅解锁通知时，兜底轮询的最大周期 */
+    protected final static Duration NOTIFY_FALLBACK_INTERVAL = Duration.ofSeconds(1L);
+    /** 本机 host + 进程 id */
+    private static final String CURRENT_HOST = INetUtil.getHostIp() + Symbol.COLON + ProcessHandle.current().pid();
+    /** 等待中的线程，key 为锁 key */
+    private static final Map<String, Set<Thread>> WAITERS = new ConcurrentHashMap<>();
+    /** 是否已订阅解锁通知 */
+    private static volatile boolean subscribed = false;
+    protected final Logger log = LoggerFactory.getLogger(getClass());
+    /** 锁 Key */
+    protected final String lockKey;
+    /** 锁超时时间，开启看门狗时为每次续期的时长 */
+    protected final Duration timeout;
+    /** 等待锁时，自旋尝试的周期 */
+    protected final Duration loopInterval;
+    /** 是否开启看门狗续期 */
+    protected final boolean watchdog;
+    /** 主机 + 进程 + 实例 id */
+    protected final String instanceId;
+    /** 线程 id -> 该线程的持有状态 */
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+
+    protected AbstractDistributedLock(String lockKey, Duration timeout, Duration loopInterval, boolean watchdog) {
+        this(lockKey, timeout, loopInterval, watchdog, newInstanceId());
+    }
+
+    /**
+     * @param instanceId 实例 id，共享同一 id 的锁视为同一持有者 (如读写锁的读锁与写锁)
+     */
+    protected AbstractDistributedLock(String lockKey, Duration timeout, Duration loopInterval, boolean watchdog, String instanceId) {
+        this.lockKey = lockKey;
+        this.timeout = timeout;
+        this.loopInterval = loopInterval;
+        this.watchdog = watchdog;
+        this.instanceId = instanceId;
+    }
+
+    /**
+     * @return 新的实例 id
+     */
+    static String newInstanceId() {
+        return CURRENT_HOST + Symbol.COLON + IDUtil.getUUID();
+    }
+
+    /**
+     * 订阅解锁通知，所有锁共用一个通道，失败时退化为轮询
+     */
+    private static void subscribe() {
+        if (subscribed) {
+            return;
+        }
+        synchronized (AbstractDistributedLock.class) {
+            if (subscribed) {
+                return;
+            }
+            try {
+                RedisUtil.subscribe(UNLOCK_CHANNEL, (message, pattern) -> {
+                    Set<Thread> waiters = WAITERS.get(new String(message.getBody(), StandardCharsets.UTF_8));
+                    if (Objects.nonNull(waiters)) {
+                        waiters.forEach(LockSupport::unpark);
+                    }
+                });
+                subscribed = true;
+            } catch (Exception e) {
+                LoggerFactory.getLogger(AbstractDistributedLock.class).warn("[🔐] 订阅解锁通知失败，等待锁时将使用轮询", e);
+            }
+        }
+    }
+
+    /**
+     * 当前线程的持有者标识
+     *
+     * @return 实例 id + 线程 id
+     */
+    protected String owner() {
+        return instanceId + Symbol.COLON + Thread.currentThread().threadId();
+    }
+
+    /**
+     * 执行加锁脚本
+     *
+     * @param owner 持有者标识
+     *
+     * @return 成功返回负的重入次数，失败返回锁的剩余存活时间 (毫秒)
+     */
+    protected abstract Long acquire(String owner);
+
+    /**
+     * 执行解锁脚本，重入次数归零时需发布解锁通知
+     *
+     * @param owner 持有者标识
+     *
+     * @return 剩余重入次数，非该持有者持有时返回 -1
+     */
+    protected abstract Long release(String owner);
+
+    /**
+     * 执行续期脚本，由看门狗线程调用
+     *
+     * @param owner 持有者标识
+     *
+     * @return 该持有者仍持有锁时续期并返回 true
+     */
+    protected abstract Boolean renew(String owner);
+
+    /**
+     * 放弃等待时调用，默认无操作
+     *
+     * @param owner 持有者标识
+     */
+    protected void cancelAcquire(String owner) {
+    }
+
+    /**
+     * 获取锁，如果锁被持有，将一直等待，直到超出默认的的 DEFAULT_TRY_LOCK_TIMEOUT
+     */
+    @Override
+    public void lock() {
+        try {
+            if (!tryLock(DEFAULT_TRY_LOCK_TIMEOUT.toNanos(), false)) {
+                throw Exceptions.throwOut("[🔐] 尝试加锁超时，key: {}", lockKey);
+            }
+        } catch (InterruptedException e) {
+            throw Exceptions.unchecked(e);
+        }
+    }
+
+    /**
+     * 尝试获取锁，如果锁被持有，则等待相应的时间 (等待锁时可被中断)
+     *
+     * @throws InterruptedException 被中断等待
+     */
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        if (!tryLockInterruptibly(DEFAULT_TRY_LOCK_TIMEOUT.toNanos())) {
+            throw Exceptions.throwOut("[🔐] 尝试加锁超时，key: {}", this.lockKey);
+        }
+    }
+
+    /**
+     * 尝试获取锁，只会立即获取一次，如果锁被占用，则返回 false, 获取成功则返回 true
+     *
+     * @return 是否成功获取锁
+     */
+    @Override
+    public boolean tryLock() {
+        String owner = owner();
+        if (tryAcquire(owner) < 0) {
+            return true;
+        }
+        cancelAcquire(owner);
+        return false;
+    }
+
+    /**
+     * 当前线程尝试获取一次锁
+     *
+     * @param owner 当前线程的持有者标识
+     *
+     * @return 成功返回负数，失败返回锁的剩余存活时间 (毫秒)
+     */
+    private long tryAcquire(String owner) {
+        try {
+            Long result = acquire(owner);
+            if (result == null || result >= 0) {
+                return result == null ? 0L : result;
+            }
+            Hold hold = holds.computeIfAbsent(Thread.currentThread().threadId(), k -> new Hold());
+            hold.count++;
+            log.debug("[🔐] {}，lockKey: {}, lockValue: {}", result < -1 ? "锁重入成功" : "加锁成功", lockKey, owner);
+            // 每个持有线程至多一个看门狗，最后一次解锁时停止
+            if (watchdog && Objects.isNull(hold.watchdog)) {
+                hold.watchdog = startWatchdog(owner);
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("[🔐] 尝试加锁错误，lockKey: {}, lockValue: {}", lockKey, owner, e);
+            return 0L;
+        }
+    }
+
+    /**
+     * 启动看门狗，每 1/3 锁超时时间续期一次，被取消、锁已释放或持有线程结束时退出
+     *
+     * @param owner 持有者标识
+     *
+     * @return 看门狗，用于解锁时取消
+     */
+    private Future<?> startWatchdog(String owner) {
+        Thread holder = Thread.currentThread();
+        long interval = Math.max(timeout.toMillis() / 3, 1L);
+        return VirtualThreadPools.submit(() -> {
+            while (holder.isAlive()) {
+                Threads.sleep(interval);
+                if (Thread.currentThread().isInterrupted() || !Boolean.TRUE.equals(renew(owner))) {
+                    return null;
+                }
+                log.debug("[🔐] 锁续期成功，lockKey: {}, lockValue: {}", lockKey, owner);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 尝试获取锁，如果锁被占用，则持续尝试获取，直到超过指定的 time 时间
+     *
+     * @param time 等待锁的时间
+     *
+     * @return 是否成功获取锁
+     *
+     * @throws InterruptedException 被中断
+     */
+    public boolean tryLock(Duration time) throws InterruptedException {
+        return tryLock(time.toNanos(), false);
+    }
+
+    /**
+     * 尝试获取锁，如果锁被占用，则持续尝试获取，直到超过指定的 time 时间
+     *
+     * @param time 等待锁的时间
+     * @param unit time 的单位
+     *
+     * @return 是否成功获取锁
+     *
+     * @throws InterruptedException 被中断
+     */
+    @Override
+    public boolean tryLock(long time, @NonNull TimeUnit unit) throws InterruptedException {
+        return tryLockInterruptibly(unit.toNanos(time));
+    }
+
+    private boolean tryLockInterruptibly(long nanos) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException("[🔐] 尝试加锁中断");
+        }
+        return tryLock(nanos, true);
+    }
+
+    /**
+     * 尝试获取锁，如果锁被占用，则挂起等待解锁通知，直到超过指定的时间
+     *
+     * @param nanos         等待锁的时间 (纳秒)
+     * @param interruptibly 等待是否可被中断
+     *
+     * @return 是否成功获取锁
+     *
+     * @throws InterruptedException 被中断
+     */
+    private boolean tryLock(long nanos, boolean interruptibly) throws InterruptedException {
+        String owner = owner();
+        long ttl = tryAcquire(owner);
+        if (ttl < 0) {
+            return true;
+        }
+        subscribe();
+        long deadline = System.nanoTime() + nanos;
+        Thread current = Thread.currentThread();
+        // 先登记再重试，避免错过两次尝试之间的解锁通知
+        Set<Thread> waiters = WAITERS.computeIfAbsent(lockKey, k -> ConcurrentHashMap.newKeySet());
+        waiters.add(current);
+        boolean acquired = false;
+        boolean interrupted = false;
+        try {
+            while (true) {
+                ttl = tryAcquire(owner);
+                if (ttl < 0) {
+                    acquired = true;
+                    return true;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                long wait = subscribed ? Math.min(Math.max(ttl, 1L), NOTIFY_FALLBACK_INTERVAL.toMillis()) : loopInterval.toMillis();
+                LockSupport.parkNanos(this, Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(wait)));
+                if (Thread.interrupted()) {
+                    if (interruptibly) {
+                        throw new InterruptedException("[🔐] 尝试加锁中断");
+                    }
+                    interrupted = true;
+                }
+            }
+        } finally {
+            waiters.remove(current);
+            if (waiters.isEmpty()) {
+                WAITERS.remove(lockKey, waiters);
+            }
+            if (!acquired) {
+                cancelAcquire(owner);
+            }
+            if (interrupted) {
+                current.interrupt();
+            }
+        }
+    }
+
+    /**
+     * 释放当前线程持有的锁，当前线程未持有时忽略
+     */
+    @Override
+    public void unlock() {
+        long threadId = Thread.currentThread().threadId();
+        Hold hold = holds.get(threadId);
+        if (Objects.isNull(hold)) {
+            return;
+        }
+        String owner = owner();
+        try {
+            // 使用 lua 脚本处理锁判断和释放
+            Long res = release(owner);
+            if (res != null && res >= 0) {
+                if (--hold.count <= 0) {
+                    release(threadId, hold);
+                }
+                log.debug("[🔐] {}，lockKey: {}, lockValue: {}", res > 0 ? "解锁重入成功" : "解锁成功", this.lockKey, owner);
+                return;
+            }
+            // 锁已过期或被其他持有者获取
+            release(threadId, hold);
+        } catch (Exception e) {
+            log.error("[🔐] 解锁错误", e);
+        }
+        log.warn("[🔐] 解锁失败，lockKey: {}, lockValue: {}", this.lockKey, owner);
+    }
+
+    /**
+     * 清除线程的持有状态并停止看门狗
+     */
+    private void release(long threadId, Hold hold) {
+        holds.remove(threadId, hold);
+        if (Objects.nonNull(hold.watchdog)) {
+            hold.watchdog.cancel(true);
+        }
+    }
+
+    @Override
+    @NonNull
+    public Condition newCondition() {
+        throw new UnsupportedOperationException();
+    }
+
+    public String getLockKey() {
+        return lockKey;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public Duration getLoopInterval() {
+        return loopInterval;
+    }
+
+    /**
+     * @return 当前线程的持有者标识
+     */
+    public String getHostThreadId() {
+        return owner();
+    }
+
+    /**
+     * @return 当前线程的持有者标识
+     */
+    public String getLockValue() {
+        return owner();
+    }
+
+    /**
+     * @return 当前线程的持有次数
+     */
+    public int getHoldCount() {
+        Hold hold = holds.get(Thread.currentThread().threadId());
+        return Objects.isNull(hold) ? 0 : hold.count;
+    }
+
+    /**
+     * @return 当前线程是否持有锁
+     */
+    public boolean isHeldByCurrentThread() {
+        return getHoldCount() > 0;
+    }
+
+    /**
+     * @return 当前线程是否重入持有锁
+     */
+    public boolean isReentrant() {
+        return getHoldCount() > 1;
+    }
+
+    public boolean isWatchdog() {
+        return watchdog;
+    }
+
+    /**
+     * 线程的持有状态，仅由持有线程修改
+     */
+    private static final class Hold {
+        /** 持有次数 */
+        private int count;
+        /** 看门狗，未开启时为 null */
+        private Future<?> watchdog;
+    }
+}
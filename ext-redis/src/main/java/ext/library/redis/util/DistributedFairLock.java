@@ -0,0 +1,123 @@
+package ext.library.redis.util;
+
+import ext.library.redis.script.LuaScript;
+import ext.library.redis.script.RedisScripts;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 基于 Redis 的公平分布式锁 (线程内可重入)
+ * <p>
+ * 在 {@link DistributedLock} 的基础上，未获取到锁的线程按到达顺序进入排队 zset，锁空闲时只有队首可以获取，避免饥饿。
+ * 等待者每次尝试时刷新存活时间，超过 {@link #WAITER_TIMEOUT} 未刷新 (如进程退出) 的等待者被移出队列。
+ * 入队时间和存活时间均取 Redis 服务端时间
+ */
+public class DistributedFairLock extends AbstractDistributedLock {
+    /**
+     * 加锁的 lua 脚本
+     * <p>
+     * 成功返回负的重入次数，失败时入队并返回需等待的时间 (毫秒)
+     */
+    // language=redis
+    private static final LuaScript<Long> LOCK_SCRIPT = RedisScripts.register("distributed_fair_lock", """
+            -- KEYS[1] 锁，KEYS[2] 排队 zset (score 为入队时间)，KEYS[3] 等待者存活 zset (score 为过期时间)
+            -- ARGV[1] 持有者，ARGV[2] 锁超时时间，ARGV[3] 等待者存活时长，ARGV[4] 锁空闲但未轮到时的等待时间
+            -- 使用 Redis 服务端时间，排队顺序和等待者过期不受各节点时钟偏差影响
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local stale = redis.call('ZRANGEBYSCORE', KEYS[3], '-inf', now)
+            for _, waiter in ipairs(stale) do
+                redis.call('ZREM', KEYS[2], waiter)
+                redis.call('ZREM', KEYS[3], waiter)
+            end
+            if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 1 then
+                local count = redis.call('HINCRBY', KEYS[1], ARGV[1], 1)
+                redis.call('PEXPIRE', KEYS[1], ARGV[2])
+                return -count
+            end
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                local head = redis.call('ZRANGE', KEYS[2], 0, 0)[1]
+                if not head or head == ARGV[1] then
+                    redis.call('ZREM', KEYS[2], ARGV[1])
+                    redis.call('ZREM', KEYS[3], ARGV[1])
+                    redis.call('HINCRBY', KEYS[1], ARGV[1], 1)
+                    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+                    return -1
+                end
+            end
+            redis.call('ZADD', KEYS[2], 'NX', now, ARGV[1])
+            redis.call('ZADD', KEYS[3], now + tonumber(ARGV[3]), ARGV[1])
+            local ttl = redis.call('PTTL', KEYS[1])
+            if ttl < 0 then
+                return tonumber(ARGV[4])
+            end
+            return ttl
+            """, Long.class);
+    /** 放弃等待的 lua 脚本，出队后锁空闲时通知下一个等待者 */
+    // language=redis
+    private static final LuaScript<Boolean> CANCEL_SCRIPT = RedisScripts.register("distributed_fair_lock_cancel", """
+            redis.call('ZREM', KEYS[2], ARGV[1])
+            redis.call('ZREM', KEYS[3], ARGV[1])
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                redis.call('PUBLISH', ARGV[2], ARGV[3])
+            end
+            return true
+            """, Boolean.class);
+    /** 锁 key 前缀 */
+    private final static String LOCK_PREFIX = "distributed_fair_lock";
+    /** 等待者未刷新时的最长存活时间 */
+    private final static Duration WAITER_TIMEOUT = Duration.ofSeconds(5L);
+    /** 锁、排队 zset、等待者存活 zset，使用 hash tag 保证集群模式下位于同一 slot */
+    private final List<String> keys;
+    /** 等待者存活时长 */
+    private final long waiterTimeout;
+
+    /**
+     * 使用默认的锁超时时间，持有期间由看门狗续期
+     */
+    public DistributedFairLock(String lockName) {
+        this(lockName, DEFAULT_TIMEOUT, DEFAULT_LOOP_INTERVAL, true);
+    }
+
+    public DistributedFairLock(String lockName, Duration timeout) {
+        this(lockName, timeout, DEFAULT_LOOP_INTERVAL, false);
+    }
+
+    /**
+     * @param lockName     锁名称
+     * @param timeout      锁超时时间，开启看门狗时为每次续期的时长
+     * @param loopInterval 等待锁时，自旋尝试的周期
+     * @param watchdog     是否开启看门狗续期
+     */
+    public DistributedFairLock(String lockName, Duration timeout, Duration loopInterval, boolean watchdog) {
+        super(LOCK_PREFIX + "{" + DistributedLock.requireName(lockName) + "}", timeout, loopInterval, watchdog);
+        this.keys = List.of(lockKey, lockKey + ":queue", lockKey + ":waiters");
+        this.waiterTimeout = Math.max(WAITER_TIMEOUT.toMillis(), loopInterval.toMillis() * 3);
+    }
+
+    @Override
+    protected Long acquire(String owner) {
+        return LOCK_SCRIPT.execute(keys, owner, String.valueOf(timeout.toMillis()), String.valueOf(waiterTimeout),
+                String.valueOf(NOTIFY_FALLBACK_INTERVAL.toMillis()));
+    }
+
+    @Override
+    protected Long release(String owner) {
+        return DistributedLock.UNLOCK_SCRIPT.execute(List.of(lockKey), owner, String.valueOf(timeout.toMillis()), UNLOCK_CHANNEL, lockKey);
+    }
+
+    @Override
+    protected Boolean renew(String owner) {
+        return DistributedLock.RENEW_SCRIPT.execute(List.of(lockKey), owner, String.valueOf(timeout.toMillis()));
+    }
+
+    @Override
+    protected void cancelAcquire(String owner) {
+        try {
+            CANCEL_SCRIPT.execute(keys, owner, UNLOCK_CHANNEL, lockKey);
+        } catch (Exception e) {
+            log.warn("[🔐] 退出排队失败，将在 {}ms 后自动移除，lockKey: {}", waiterTimeout, lockKey, e);
+        }
+    }
+}
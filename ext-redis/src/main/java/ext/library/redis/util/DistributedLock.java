@@ -1,310 +1,136 @@
 package ext.library.redis.util;
 
-import ext.library.tool.constant.Symbol;
-import ext.library.tool.core.Exceptions;
-import ext.library.tool.core.Threads;
-import ext.library.tool.util.INetUtil;
-import org.jspecify.annotations.NonNull;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
+import ext.library.redis.script.LuaScript;
+import ext.library.redis.script.RedisScripts;
 
 import java.time.Duration;
-import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
 
 /**
  * 基于 Redis 的分布式锁 (线程内可重入)
+ * <p>
+ * 锁以 Hash 存储，field 为 主机 + 进程 + 实例 id + 线程 id，value 为重入次数；等待锁的线程挂起，由解锁时发布的通知唤醒，
+ * 轮询仅作为通知丢失时的兜底。未指定锁超时时间时，持有期间由看门狗在虚拟线程中续期
+ * <p>
+ * 旧版本以 String 存储在 distributed_lock + 锁名称 下，新版本的 Hash 使用独立的 key (旧 key + :v2)，两者不会因类型不同而报错。
+ * 滚动升级期间两个版本互斥：加锁时旧 key 存在视为被旧版本持有；持有期间同时写入旧 key (值以 v2: 开头，旧版本不会视为自己持有)，
+ * 旧版本据此等待，解锁时一并删除。Hash 与旧 key 使用相同的 hash tag，集群模式下位于同一 slot
  */
-public class DistributedLock implements Lock {
-    /** 默认的锁超时时间 */
-    private final static Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30L);
-    /** 锁 key 前缀 */
-    private final static String LOCK_PREFIX = "distributed_lock";
-    /** 默认的获取锁超时时间 */
-    private final static Duration DEFAULT_TRY_LOCK_TIMEOUT = Duration.ofSeconds(10L);
-    /** 等待锁时，自旋尝试的周期，默认 10 毫秒 */
-    private final static Duration DEFAULT_LOOP_INTERVAL = Duration.ofMillis(10L);
-    /** 分布式锁过期时间 s 可以根据业务自己调节 */
-    private static final Long LOCK_REDIS_TIMEOUT = 10L;
-    /** 本机 host */
-    private static final String CURRENT_HOST = INetUtil.getHostIp();
-    /** 序列值，用于确保锁 value 的唯一性 */
-    private static AtomicLong SERIAL_NUM;
-    /** 最大序列值 */
-    private static long MAX_SERIAL;
-    private final Logger log = LoggerFactory.getLogger(getClass());
-    /** 锁 Key */
-    private final String lockKey;
-    /** 锁超时时间 (单位毫秒) */
-    private final Duration timeout;
-    /** 等待锁时，自旋尝试的周期 (单位毫秒) */
-    private final Duration loopInterval;
-    /** 主机 + 线程 id */
-    private final String hostThreadId;
-    /** 锁定值 */
-    private final String lockValue;
-    /** 是否重入 */
-    private boolean reentrant = false;
-    /** 是否持有锁 */
-    private boolean locked = false;
-
-
-    public DistributedLock(String lockName) {
-        this(lockName, DEFAULT_TIMEOUT, DEFAULT_LOOP_INTERVAL);
-    }
-
-    public DistributedLock(String lockName, Duration timeout) {
-        this(lockName, timeout, DEFAULT_LOOP_INTERVAL);
-    }
-
-    public DistributedLock(String lockName, Duration timeout, Duration loopInterval) {
-        if (lockName == null) {
-            throw new IllegalArgumentException("[🔐] lockName 必须分配");
-        }
-        this.lockKey = LOCK_PREFIX + lockName;
-        this.timeout = timeout;
-        this.loopInterval = loopInterval;
-        this.hostThreadId = CURRENT_HOST + Symbol.COLON + Thread.currentThread().threadId();
-        this.lockValue = this.hostThreadId + Symbol.COLON + getNextSerial();
-    }
-
+public class DistributedLock extends AbstractDistributedLock {
     /**
-     * @return 下一个序列值
+     * 加锁的 lua 脚本，锁与旧版本的锁都不存在，或由当前线程持有时重入次数 +1，并写入旧版本的锁
+     * <p>
+     * 成功返回负的重入次数，失败返回锁的剩余存活时间 (毫秒)
      */
-    private static synchronized long getNextSerial() {
-        long serial = SERIAL_NUM.incrementAndGet();
-        if (serial > MAX_SERIAL) {
-            serial = serial - MAX_SERIAL;
-            SERIAL_NUM.set(serial);
-        }
-        return serial;
-    }
-
-    private static DefaultRedisScript<Boolean> getBooleanDefaultRedisScript() {
-        String script = "local val,ttl=ARGV[1],ARGV[2] if redis.call('EXISTS', KEYS[1])==1 then local curValue = redis.call('GET', KEYS[1]) if string.find(curValue, val)==1 then local curTtl = redis.call('TTL', KEYS[1]) redis.call('EXPIRE', KEYS[1], curTtl + ttl) return true else return false end else return false end";
-        DefaultRedisScript<Boolean> redisScript = new DefaultRedisScript<>();
-        redisScript.setResultType(Boolean.class);
-        redisScript.setScriptText(script);
-        return redisScript;
-    }
-
-    /**
-     * 获取锁，如果锁被持有，将一直等待，直到超出默认的的 DEFAULT_TRY_LOCK_TIMEOUT
-     */
-    @Override
-    public void lock() {
-        try {
-            if (!tryLock(DEFAULT_TRY_LOCK_TIMEOUT)) {
-                throw Exceptions.throwOut("[🔐] 尝试加锁超时，key: {}", lockKey);
-            }
-        } catch (InterruptedException e) {
-            throw Exceptions.unchecked(e);
-        }
-    }
-
-    /**
-     * 尝试获取锁，如果锁被持有，则等待相应的时间 (等待锁时可被中断)
-     *
-     * @throws InterruptedException 被中断等待
-     */
-    @Override
-    public void lockInterruptibly() throws InterruptedException {
-        if (!tryLock(DEFAULT_TRY_LOCK_TIMEOUT, true)) {
-            throw Exceptions.throwOut("[🔐] 尝试加锁超时，key: {}", this.lockKey);
-        }
-    }
-
+    // language=redis
+    static final LuaScript<Long> LOCK_SCRIPT = RedisScripts.register("distributed_lock", """
+            if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 1
+                    or (redis.call('EXISTS', KEYS[1]) == 0 and redis.call('EXISTS', KEYS[2]) == 0) then
+                local count = redis.call('HINCRBY', KEYS[1], ARGV[1], 1)
+                redis.call('PEXPIRE', KEYS[1], ARGV[2])
+                redis.call('SET', KEYS[2], 'v2:' .. ARGV[1], 'PX', ARGV[2])
+                return -count
+            end
+            return math.max(redis.call('PTTL', KEYS[1]), redis.call('PTTL', KEYS[2]), 0)
+            """, Long.class);
     /**
-     * 尝试获取锁，只会立即获取一次，如果锁被占用，则返回 false, 获取成功则返回 true
-     *
-     * @return 是否成功获取锁
+     * 解锁的 lua 脚本，重入次数 -1，归零时删除锁 (及 KEYS[2] 旧版本的锁) 并发布解锁通知
+     * <p>
+     * 返回剩余重入次数，非当前线程持有时返回 -1
      */
-    @Override
-    public boolean tryLock() {
-        try {
-            Boolean success = setIfAbsent(lockKey, lockValue, timeout);
-            if (success != null && success) {
-                locked = true;
-                log.debug("[🔐] 加锁成功，lockKey: {}, lockValue: {}", lockKey, lockValue);
-                return true;
-            } else {
-                // 如果持有锁的是当前线程，则重入
-                // language=Redis
-                DefaultRedisScript<Boolean> redisScript = getBooleanDefaultRedisScript();
-                success = RedisUtil.execute(redisScript, List.of(lockKey), hostThreadId, String.valueOf(Math.max(timeout.toSeconds(), 1)));
-                if (success != null && success) {
-                    this.reentrant = true;
-                    locked = true;
-                    log.debug("[🔐] 锁重入成功，lockKey: {}, lockValue: {}", lockKey, lockValue);
-                    return true;
-                }
-            }
-        } catch (Exception e) {
-            log.error("[🔐] 尝试加锁错误，请先解锁，lockKey: {}, lockValue: {}", lockKey, lockValue, e);
-            unlock();
-        }
-        return false;
-    }
+    // language=redis
+    static final LuaScript<Long> UNLOCK_SCRIPT = RedisScripts.register("distributed_unlock", """
+            if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then
+                return -1
+            end
+            local count = redis.call('HINCRBY', KEYS[1], ARGV[1], -1)
+            if count > 0 then
+                redis.call('PEXPIRE', KEYS[1], ARGV[2])
+                if KEYS[2] then
+                    redis.call('PEXPIRE', KEYS[2], ARGV[2])
+                end
+                return count
+            end
+            redis.call('DEL', unpack(KEYS))
+            redis.call('PUBLISH', ARGV[3], ARGV[4])
+            return 0
+            """, Long.class);
+    /** 续期的 lua 脚本，仅当前线程仍持有锁时续期 (及 KEYS[2] 旧版本的锁) */
+    // language=redis
+    static final LuaScript<Boolean> RENEW_SCRIPT = RedisScripts.register("distributed_lock_renew", """
+            if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 1 then
+                redis.call('PEXPIRE', KEYS[1], ARGV[2])
+                if KEYS[2] then
+                    redis.call('PEXPIRE', KEYS[2], ARGV[2])
+                end
+                return true
+            end
+            return false
+            """, Boolean.class);
+    /** 锁 key 前缀，与旧版本相同 */
+    private final static String LOCK_PREFIX = "distributed_lock";
+    /** 锁格式版本，追加在旧版本的 key 之后 */
+    private final static String LOCK_VERSION = ":v2";
+    /** 旧版本 (String) 的锁 key */
+    private final String legacyKey;
 
     /**
-     * 使用 lua 脚本的方式实现 setIfAbsent, 因为当业务应用使用了 redisson 时，直接使用 template 的 setIfAbsent 返回值为 null
-     *
-     * @param key     key
-     * @param value   值
-     * @param timeout 超时时间
-     *
-     * @return 是否成功设值
+     * 使用默认的锁超时时间 (30 秒)，持有期间由看门狗续期
+     * <p>
+     * 注意：旧版本的默认构造不续期，锁在 30 秒后自动过期；现在只要持有者存活锁就不会过期，必须调用 {@link #unlock()} 释放。
+     * 需要到期自动释放时使用 {@link #DistributedLock(String, Duration)}
      */
-    private Boolean setIfAbsent(String key, String value, Duration timeout) {
-        // language=Redis
-        String script = "local val,ttl=ARGV[1],ARGV[2] if redis.call('EXISTS', KEYS[1])==1 then return false else redis.call('SET', KEYS[1], ARGV[1]) redis.call('EXPIRE', KEYS[1], ARGV[2]) return true end";
-        DefaultRedisScript<Boolean> redisScript = new DefaultRedisScript<>();
-        redisScript.setResultType(Boolean.class);
-        redisScript.setScriptText(script);
-        return RedisUtil.execute(redisScript, List.of(key), value, String.valueOf(timeout.toSeconds()));
+    public DistributedLock(String lockName) {
+        this(lockName, DEFAULT_TIMEOUT, DEFAULT_LOOP_INTERVAL, true);
     }
 
-    /**
-     * 尝试获取锁，如果锁被占用，则持续尝试获取，直到超过指定的 time 时间
-     *
-     * @param time 等待锁的时间
-     *
-     * @return 是否成功获取锁
-     *
-     * @throws InterruptedException 被中断
-     */
-    public boolean tryLock(Duration time) throws InterruptedException {
-        return tryLock(time.toMillis(), TimeUnit.MILLISECONDS, false);
+    public DistributedLock(String lockName, Duration timeout) {
+        this(lockName, timeout, DEFAULT_LOOP_INTERVAL, false);
     }
 
-    /**
-     * 尝试获取锁，如果锁被占用，则持续尝试获取，直到超过指定的 time 时间
-     *
-     * @param time 等待锁的时间
-     * @param unit time 的单位
-     *
-     * @return 是否成功获取锁
-     *
-     * @throws InterruptedException 被中断
-     */
-    @Override
-    public boolean tryLock(long time, @NonNull TimeUnit unit) throws InterruptedException {
-        return tryLock(time, unit, false);
+    public DistributedLock(String lockName, Duration timeout, Duration loopInterval) {
+        this(lockName, timeout, loopInterval, false);
     }
 
     /**
-     * 尝试获取锁，如果锁被占用，则持续尝试获取，直到超过指定的 time 时间
-     *
-     * @param time          等待锁的时间
-     * @param interruptibly 等待是否可被中断
-     *
-     * @return 是否成功获取锁
-     *
-     * @throws InterruptedException 被中断
+     * @param lockName     锁名称
+     * @param timeout      锁超时时间，开启看门狗时为每次续期的时长
+     * @param loopInterval 等待锁时，自旋尝试的周期
+     * @param watchdog     是否开启看门狗续期
      */
-    private boolean tryLock(Duration time, boolean interruptibly) {
-        long millis = time.toMillis();
-        long current = System.currentTimeMillis();
-        do {
-            if (interruptibly && Thread.interrupted()) {
-                throw Exceptions.throwOut("[🔐] 尝试加锁定中断");
-            }
-            if (tryLock()) {
-                return true;
-            }
-            Threads.sleep(loopInterval);
-        } while (System.currentTimeMillis() - current < millis);
-        return false;
+    public DistributedLock(String lockName, Duration timeout, Duration loopInterval, boolean watchdog) {
+        super(lockKey(LOCK_PREFIX + requireName(lockName)), timeout, loopInterval, watchdog);
+        this.legacyKey = LOCK_PREFIX + lockName;
     }
 
     /**
-     * 尝试获取锁，如果锁被占用，则持续尝试获取，直到超过指定的 time 时间
-     *
-     * @param time          等待锁的时间
-     * @param unit          time 的单位
-     * @param interruptibly 等待是否可被中断
-     *
-     * @return 是否成功获取锁
+     * 锁 key，与旧版本的 key 使用相同的 hash tag：旧 key 已包含 hash tag 时直接追加版本，否则将旧 key 整体作为 hash tag
      *
-     * @throws InterruptedException 被中断
+     * @param legacyKey 旧版本的锁 key
      */
-    private boolean tryLock(long time, TimeUnit unit, boolean interruptibly) {
-        long millis = unit.convert(time, TimeUnit.MILLISECONDS);
-        long current = System.currentTimeMillis();
-        do {
-            if (interruptibly && Thread.interrupted()) {
-                throw Exceptions.throwOut("[🔐] 尝试加锁中断");
-            }
-            if (tryLock()) {
-                return true;
-            }
-            Threads.sleep(loopInterval);
-        } while (System.currentTimeMillis() - current < millis);
-        return false;
+    static String lockKey(String legacyKey) {
+        return legacyKey.indexOf('{') >= 0 ? legacyKey + LOCK_VERSION : "{" + legacyKey + "}" + LOCK_VERSION;
     }
 
-    /**
-     * 释放锁
-     */
-    @Override
-    public void unlock() {
-        try {
-            if (!locked) {
-                return;
-            }
-            if (this.reentrant) {
-                log.debug("[🔐] 解锁重入成功，lockKey: {}, lockValue: {}", this.lockKey, this.lockValue);
-                return;
-            }
-            // 使用 lua 脚本处理锁判断和释放
-            String script = "if redis.call('get', KEYS[1]) == ARGV[1] then redis.call('del', KEYS[1]) return true else return false end";
-            DefaultRedisScript<Boolean> redisScript = new DefaultRedisScript<>();
-            redisScript.setResultType(Boolean.class);
-            redisScript.setScriptText(script);
-            Boolean res = RedisUtil.execute(redisScript, Collections.singletonList(this.lockKey), this.lockValue);
-            if (res != null && res) {
-                locked = false;
-                log.debug("[🔐] 解锁成功，lockKey: {}, lockValue: {}", this.lockKey, this.lockValue);
-                return;
-            }
-        } catch (Exception e) {
-            log.error("[🔐] 解锁错误", e);
+    static String requireName(String lockName) {
+        if (lockName == null) {
+            throw new IllegalArgumentException("[🔐] lockName 必须分配");
         }
-        log.warn("[🔐] 解锁失败，lockKey: {}, lockValue: {}", this.lockKey, this.lockValue);
+        return lockName;
     }
 
     @Override
-    @NonNull
-    public Condition newCondition() {
-        throw new UnsupportedOperationException();
-    }
-
-    public String getLockKey() {
-        return lockKey;
-    }
-
-    public Duration getTimeout() {
-        return timeout;
-    }
-
-    public Duration getLoopInterval() {
-        return loopInterval;
+    protected Long acquire(String owner) {
+        return LOCK_SCRIPT.execute(List.of(lockKey, legacyKey), owner, String.valueOf(timeout.toMillis()));
     }
 
-    public String getHostThreadId() {
-        return hostThreadId;
-    }
-
-    public String getLockValue() {
-        return lockValue;
+    @Override
+    protected Long release(String owner) {
+        return UNLOCK_SCRIPT.execute(List.of(lockKey, legacyKey), owner, String.valueOf(timeout.toMillis()), UNLOCK_CHANNEL, lockKey);
     }
 
-    public boolean isReentrant() {
-        return reentrant;
+    @Override
+    protected Boolean renew(String owner) {
+        return RENEW_SCRIPT.execute(List.of(lockKey, legacyKey), owner, String.valueOf(timeout.toMillis()));
     }
-}
\ No newline at end of file
+}
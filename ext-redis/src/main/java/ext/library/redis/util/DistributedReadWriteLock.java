@@ -0,0 +1,161 @@
+package ext.library.redis.util;
+
+import ext.library.redis.script.LuaScript;
+import ext.library.redis.script.RedisScripts;
+import org.jspecify.annotations.NonNull;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * 基于 Redis 的分布式读写锁 (线程内可重入)
+ * <p>
+ * 锁以 Hash 存储，mode 为当前模式 (read / write)，读锁持有者 field 为 {@code 线程标识:r}，写锁持有者为 {@code 线程标识:w}，
+ * value 为重入次数。读锁之间共享，写锁独占；持有写锁的线程可再获取读锁 (锁降级)，反之不行。
+ * 读锁持续被获取时写锁可能饥饿，写多的场景请使用 {@link DistributedFairLock}
+ */
+public class DistributedReadWriteLock implements ReadWriteLock {
+    /** 获取读锁的 lua 脚本，成功返回负的重入次数，失败返回锁的剩余存活时间 (毫秒) */
+    // language=redis
+    private static final LuaScript<Long> READ_LOCK_SCRIPT = RedisScripts.register("distributed_read_lock", """
+            local mode = redis.call('HGET', KEYS[1], 'mode')
+            if not mode or mode == 'read' or redis.call('HEXISTS', KEYS[1], ARGV[1] .. ':w') == 1 then
+                if not mode then
+                    redis.call('HSET', KEYS[1], 'mode', 'read')
+                end
+                local count = redis.call('HINCRBY', KEYS[1], ARGV[1] .. ':r', 1)
+                redis.call('PEXPIRE', KEYS[1], ARGV[2])
+                return -count
+            end
+            return math.max(redis.call('PTTL', KEYS[1]), 0)
+            """, Long.class);
+    /** 获取写锁的 lua 脚本，成功返回负的重入次数，失败返回锁的剩余存活时间 (毫秒) */
+    // language=redis
+    private static final LuaScript<Long> WRITE_LOCK_SCRIPT = RedisScripts.register("distributed_write_lock", """
+            local mode = redis.call('HGET', KEYS[1], 'mode')
+            if not mode or (mode == 'write' and redis.call('HEXISTS', KEYS[1], ARGV[1] .. ':w') == 1) then
+                redis.call('HSET', KEYS[1], 'mode', 'write')
+                local count = redis.call('HINCRBY', KEYS[1], ARGV[1] .. ':w', 1)
+                redis.call('PEXPIRE', KEYS[1], ARGV[2])
+                return -count
+            end
+            return math.max(redis.call('PTTL', KEYS[1]), 0)
+            """, Long.class);
+    /**
+     * 释放读锁或写锁的 lua 脚本，全部释放时删除锁，写锁释放后仅剩读锁时切换为读模式，均发布解锁通知
+     * <p>
+     * 返回剩余重入次数，非当前线程持有时返回 -1
+     */
+    // language=redis
+    private static final LuaScript<Long> UNLOCK_SCRIPT = RedisScripts.register("distributed_rw_unlock", """
+            if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then
+                return -1
+            end
+            local count = redis.call('HINCRBY', KEYS[1], ARGV[1], -1)
+            if count > 0 then
+                redis.call('PEXPIRE', KEYS[1], ARGV[2])
+                return count
+            end
+            redis.call('HDEL', KEYS[1], ARGV[1])
+            if redis.call('HLEN', KEYS[1]) == 1 then
+                redis.call('DEL', KEYS[1])
+                redis.call('PUBLISH', ARGV[3], ARGV[4])
+            elseif string.sub(ARGV[1], -2) == ':w' then
+                redis.call('HSET', KEYS[1], 'mode', 'read')
+                redis.call('PUBLISH', ARGV[3], ARGV[4])
+            end
+            return 0
+            """, Long.class);
+    /** 锁 key 前缀 */
+    private final static String LOCK_PREFIX = "distributed_rw_lock";
+
+    private final ReadLock readLock;
+
+    private final WriteLock writeLock;
+
+    /**
+     * 使用默认的锁超时时间，持有期间由看门狗续期
+     */
+    public DistributedReadWriteLock(String lockName) {
+        this(lockName, AbstractDistributedLock.DEFAULT_TIMEOUT, AbstractDistributedLock.DEFAULT_LOOP_INTERVAL, true);
+    }
+
+    public DistributedReadWriteLock(String lockName, Duration timeout) {
+        this(lockName, timeout, AbstractDistributedLock.DEFAULT_LOOP_INTERVAL, false);
+    }
+
+    /**
+     * @param lockName     锁名称
+     * @param timeout      锁超时时间，开启看门狗时为每次续期的时长
+     * @param loopInterval 等待锁时，自旋尝试的周期
+     * @param watchdog     是否开启看门狗续期
+     */
+    public DistributedReadWriteLock(String lockName, Duration timeout, Duration loopInterval, boolean watchdog) {
+        String lockKey = LOCK_PREFIX + DistributedLock.requireName(lockName);
+        // 读锁与写锁共用实例 id，同一线程持有写锁时可再获取读锁
+        String instanceId = AbstractDistributedLock.newInstanceId();
+        this.readLock = new ReadLock(lockKey, timeout, loopInterval, watchdog, instanceId);
+        this.writeLock = new WriteLock(lockKey, timeout, loopInterval, watchdog, instanceId);
+    }
+
+    @Override
+    @NonNull
+    public ReadLock readLock() {
+        return readLock;
+    }
+
+    @Override
+    @NonNull
+    public WriteLock writeLock() {
+        return writeLock;
+    }
+
+    /**
+     * 读锁
+     */
+    public static class ReadLock extends AbstractDistributedLock {
+        ReadLock(String lockKey, Duration timeout, Duration loopInterval, boolean watchdog, String instanceId) {
+            super(lockKey, timeout, loopInterval, watchdog, instanceId);
+        }
+
+        @Override
+        protected Long acquire(String owner) {
+            return READ_LOCK_SCRIPT.execute(List.of(lockKey), owner, String.valueOf(timeout.toMillis()));
+        }
+
+        @Override
+        protected Long release(String owner) {
+            return UNLOCK_SCRIPT.execute(List.of(lockKey), owner + ":r", String.valueOf(timeout.toMillis()), UNLOCK_CHANNEL, lockKey);
+        }
+
+        @Override
+        protected Boolean renew(String owner) {
+            return DistributedLock.RENEW_SCRIPT.execute(List.of(lockKey), owner + ":r", String.valueOf(timeout.toMillis()));
+        }
+    }
+
+    /**
+     * 写锁
+     */
+    public static class WriteLock extends AbstractDistributedLock {
+        WriteLock(String lockKey, Duration timeout, Duration loopInterval, boolean watchdog, String instanceId) {
+            super(lockKey, timeout, loopInterval, watchdog, instanceId);
+        }
+
+        @Override
+        protected Long acquire(String owner) {
+            return WRITE_LOCK_SCRIPT.execute(List.of(lockKey), owner, String.valueOf(timeout.toMillis()));
+        }
+
+        @Override
+        protected Long release(String owner) {
+            return UNLOCK_SCRIPT.execute(List.of(lockKey), owner + ":w", String.valueOf(timeout.toMillis()), UNLOCK_CHANNEL, lockKey);
+        }
+
+        @Override
+        protected Boolean renew(String owner) {
+            return DistributedLock.RENEW_SCRIPT.execute(List.of(lockKey), owner + ":w", String.valueOf(timeout.toMillis()));
+        }
+    }
+}
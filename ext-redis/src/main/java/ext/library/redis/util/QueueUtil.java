@@ -1,6 +1,7 @@
 package ext.library.redis.util;
 
-import org.springframework.data.redis.core.script.RedisScript;
+import ext.library.redis.script.LuaScript;
+import ext.library.redis.script.RedisScripts;
 
 import java.time.Duration;
 import java.util.Collections;
@@ -10,6 +11,20 @@ import java.util.concurrent.TimeUnit;
  * 分布式队列工具 轻量级队列 重量级数据量 请使用 MQ 要求 redis 5.X 以上
  */
 public class QueueUtil {
+    /**
+     * 获取一个到期的延迟队列数据的 lua 脚本
+     */
+    // language=redis
+    private static final LuaScript<String> DELAYED_CONSUMER_SCRIPT = RedisScripts.register("queue_delayed_consumer", """
+            -- KEYS[1] 延时队列的 key
+            -- ARGV[1] 当前时间戳 (毫秒)
+            -- 返回值：到期的数据（如果存在）或 nil
+            local task = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, 1)[1]
+            if task then
+                redis.call('ZREM', KEYS[1], task)
+            end
+            return task
+            """, String.class);
 
     /**
      * 添加普通队列数据
@@ -52,19 +67,18 @@ public class QueueUtil {
      * @param time      延迟时间
      */
     public static void delayedProducer(String queueName, String data, long time) {
-        long score = System.currentTimeMillis() / 1000 + time;
-        RedisUtil.zSetOps().add(queueName, data, score);
+        delayedProducer(queueName, data, Duration.ofSeconds(time));
     }
 
     /**
-     * 添加延迟队列数据 默认秒
+     * 添加延迟队列数据，score 为到期时间戳 (毫秒)
      *
      * @param queueName 队列名
      * @param data      数据
      * @param time      延迟时间
      */
     public static void delayedProducer(String queueName, String data, Duration time) {
-        long score = time.getSeconds();
+        long score = System.currentTimeMillis() + time.toMillis();
         RedisUtil.zSetOps().add(queueName, data, score);
     }
 
@@ -77,40 +91,17 @@ public class QueueUtil {
      * @param timeUnit  单位
      */
     public static void delayedProducer(String queueName, String data, long time, TimeUnit timeUnit) {
-        long seconds = timeUnit.toSeconds(time);
-        delayedProducer(queueName, data, seconds);
+        delayedProducer(queueName, data, Duration.ofMillis(timeUnit.toMillis(time)));
     }
 
     /**
-     * 获取一个延迟队列数据 没有数据返回 null
+     * 获取一个到期的延迟队列数据 没有数据返回 null，批量消费请使用 {@link ext.library.redis.queue.DelayedQueue}
      *
      * @param queueName 队列名
      */
     public static String delayedConsumer(String queueName) {
-        // language=redis
-        String luaScript = """
-                -- KEYS[1] 延时队列的 key
-                -- ARGV[1] 当前时间戳
-                -- 返回值：任务 ID（如果存在）或 nil
-                
-                local key = KEYS[1]
-                local currentTime = tonumber(ARGV[1])
-                
-                -- 使用 zrangebyscore 和 zrem 的组合命令 zpopmin，它原子性地返回并移除分数最低的元素
-                -- 这里假设 Redis 版本支持 zpopmin 命令（Redis 5.0 及以上版本）
-                local task = redis.call('zpopmin', key, 1, 'BLOCK', 0, 'SCORES')
-                
-                -- zpopmin 返回的是一个包含两个元素的数组，第一个元素是分数，第二个是成员
-                if task and #task > 0 and task[2] and tonumber(task[1]) <= currentTime then
-                    return task[2] -- 返回任务 ID
-                else
-                    return nil
-                end
-                """; // 上面定义的 Lua 脚本内容
-        RedisScript<String> script = RedisScript.of(luaScript, String.class);
-        long currentTime = System.currentTimeMillis() / 1000;
-        return RedisUtil.getRedisTemplate()
-                .execute(script, Collections.singletonList(queueName), String.valueOf(currentTime));
+        long currentTime = System.currentTimeMillis();
+        return DELAYED_CONSUMER_SCRIPT.execute(Collections.singletonList(queueName), String.valueOf(currentTime));
     }
 
     /**
@@ -2,6 +2,9 @@ package ext.library.redis.util;
 
 import ext.library.core.util.SpringUtil;
 import ext.library.json.util.JsonUtil;
+import ext.library.redis.script.LuaScript;
+import ext.library.redis.script.RedisScripts;
+import ext.library.redis.serialize.ValueCodec;
 import ext.library.tool.core.Exceptions;
 import ext.library.tool.util.DateUtil;
 import org.slf4j.Logger;
@@ -11,8 +14,10 @@ import org.springframework.data.redis.connection.Limit;
 import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
 import org.springframework.data.redis.connection.stream.Consumer;
 import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessages;
 import org.springframework.data.redis.connection.stream.ReadOffset;
 import org.springframework.data.redis.connection.stream.Record;
 import org.springframework.data.redis.connection.stream.RecordId;
@@ -33,8 +38,8 @@ import org.springframework.data.redis.core.StreamOperations;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.data.redis.core.ZSetOperations;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializer;
@@ -65,8 +70,9 @@ public class RedisUtil {
      * 自增并设置过期时间的 lua 脚本
      */
     // language=redis
-    private static final DefaultRedisScript<Long> INCR_BY_EXPIRE_LUA_SCRIPT = new DefaultRedisScript<>("local r = redis.call('INCRBY', KEYS[1], ARGV[1]) redis.call('EXPIRE', KEYS[1], ARGV[2]) return r", Long.class);
+    private static final LuaScript<Long> INCR_BY_EXPIRE_LUA_SCRIPT = RedisScripts.register("incr_by_expire", "local r = redis.call('INCRBY', KEYS[1], ARGV[1]) redis.call('EXPIRE', KEYS[1], ARGV[2]) return r", Long.class);
     private static final RedisTemplate<String, String> redisTemplate = SpringUtil.getBean(StringRedisTemplate.class);
+    private static final ValueCodec valueCodec = SpringUtil.getBean(ValueCodec.class);
     private static final Logger log = LoggerFactory.getLogger(RedisUtil.class);
 
     /**
@@ -89,6 +95,10 @@ public class RedisUtil {
         return redisTemplate;
     }
 
+    public static ValueCodec getValueCodec() {
+        return valueCodec;
+    }
+
     /**
      * 删除所有匹配指定前缀的 key（例如：user:*）
      * 使用 SCAN + UNLINK，避免阻塞
@@ -330,6 +340,27 @@ public class RedisUtil {
         return getRedisTemplate().getExpire(key);
     }
 
+    /**
+     * 批量查询剩余生存时间（以毫秒为单位），使用 pipeline 一次往返完成
+     *
+     * @param keys 待查询的 key
+     *
+     * @return 与 keys 顺序一致的 PTTL，key 不存在时为 -2，未设置过期时间时为 -1
+     *
+     * @see <a href="http://redis.io/commands/pttl">PTTL Command</a>
+     */
+    public static List<Long> pTtl(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        RedisSerializer<String> keySerializer = getKeySerializer();
+        List<Object> results = getRedisTemplate().executePipelined((RedisCallback<Object>) conn -> {
+            keys.forEach(key -> conn.keyCommands().pTtl(keySerializer.serialize(key)));
+            return null;
+        });
+        return results.stream().map(result -> result instanceof Long ttl ? ttl : -2L).toList();
+    }
+
     /**
      * 使用 Cursor 遍历指定规则的 keys
      *
@@ -430,6 +461,34 @@ public class RedisUtil {
         return JsonUtil.readObj(value, clazz);
     }
 
+    /**
+     * 获取指定 key 的 value 值，使用 {@link ValueCodec} 解码
+     *
+     * @param key   指定的 key
+     * @param clazz 值类型
+     *
+     * @return 当 key 不存在时返回 null
+     *
+     * @see <a href="http://redis.io/commands/get">Get Command</a>
+     */
+    public static <T> T getObj(String key, Class<T> clazz) {
+        return getValueCodec().decode(getBytes(key), clazz);
+    }
+
+    /**
+     * 获取指定 key 的原始字节内容
+     *
+     * @param key 指定的 key
+     *
+     * @return 当 key 不存在时返回 null
+     *
+     * @see <a href="http://redis.io/commands/get">Get Command</a>
+     */
+    public static byte[] getBytes(String key) {
+        byte[] rawKey = getKeySerializer().serialize(key);
+        return getRedisTemplate().execute((RedisConnection conn) -> conn.stringCommands().get(rawKey));
+    }
+
     /**
      * 获取指定 key 的 value 值，并将指定的 key 进行删除
      *
@@ -546,7 +605,7 @@ public class RedisUtil {
      * @return 自增后的 value 值
      */
     public static long incrByAndExpire(String key, long delta, long timeout) {
-        return getRedisTemplate().execute(INCR_BY_EXPIRE_LUA_SCRIPT, Collections.singletonList(key), String.valueOf(delta), String.valueOf(timeout));
+        return INCR_BY_EXPIRE_LUA_SCRIPT.execute(Collections.singletonList(key), String.valueOf(delta), String.valueOf(timeout));
     }
 
     /**
@@ -609,6 +668,53 @@ public class RedisUtil {
         return mGetToMap(Arrays.asList(keys));
     }
 
+    /**
+     * 从指定的 keys 批量获取原始字节内容
+     *
+     * @param keys keys
+     *
+     * @return values list，当值为空时，该 key 对应的 value 为 null
+     *
+     * @see <a href="http://redis.io/commands/mget">MGet Command</a>
+     */
+    public static List<byte[]> mGetBytes(Collection<String> keys) {
+        RedisSerializer<String> keySerializer = getKeySerializer();
+        byte[][] rawKeys = keys.stream().map(keySerializer::serialize).toArray(byte[][]::new);
+        return getRedisTemplate().execute((RedisConnection conn) -> conn.stringCommands().mGet(rawKeys));
+    }
+
+    /**
+     * 批量获取 keys 的值，使用 {@link ValueCodec} 解码，并返回一个 map
+     *
+     * @param keys  keys
+     * @param clazz 值类型
+     *
+     * @return map，key 和 value 的键值对集合，当 value 获取为 null 时，不存入此 map
+     *
+     * @see <a href="http://redis.io/commands/mget">MGet Command</a>
+     */
+    public static <T> Map<String, T> mGetObjToMap(Collection<String> keys, Class<T> clazz) {
+        Map<String, T> map = new HashMap<>(keys.size());
+        if (keys.isEmpty()) {
+            return map;
+        }
+        List<byte[]> values = mGetBytes(keys);
+        if (values == null || values.isEmpty()) {
+            return map;
+        }
+
+        Iterator<String> keysIterator = keys.iterator();
+        Iterator<byte[]> valuesIterator = values.iterator();
+        while (keysIterator.hasNext()) {
+            String key = keysIterator.next();
+            T value = getValueCodec().decode(valuesIterator.next(), clazz);
+            if (value != null) {
+                map.put(key, value);
+            }
+        }
+        return map;
+    }
+
     /**
      * 设置 value for key
      *
@@ -647,6 +753,63 @@ public class RedisUtil {
         valueOps().set(key, value, timeout);
     }
 
+    /**
+     * 设置 value for key, 使用 {@link ValueCodec} 编码, 同时为其设置过期时间
+     *
+     * @param key     key
+     * @param value   value
+     * @param timeout 过期时间
+     */
+    public static void setObj(String key, Object value, Duration timeout) {
+        setBytes(key, getValueCodec().encode(value), timeout);
+    }
+
+    /**
+     * 设置原始字节内容 for key, 同时为其设置过期时间
+     *
+     * @param key     key
+     * @param value   value
+     * @param timeout 过期时间
+     *
+     * @see <a href="http://redis.io/commands/set">Set Command</a>
+     */
+    public static void setBytes(String key, byte[] value, Duration timeout) {
+        byte[] rawKey = getKeySerializer().serialize(key);
+        getRedisTemplate().execute((RedisConnection conn) -> conn.stringCommands().set(rawKey, value, Expiration.from(timeout), RedisStringCommands.SetOption.upsert()));
+    }
+
+    /**
+     * 批量设置 value, 使用 {@link ValueCodec} 编码, 同时为其设置过期时间
+     *
+     * @param values  key 和 value 的键值对集合
+     * @param timeout 过期时间
+     */
+    public static void mSetObj(Map<String, ?> values, Duration timeout) {
+        Map<String, byte[]> rawValues = new LinkedHashMap<>(values.size());
+        values.forEach((key, value) -> rawValues.put(key, getValueCodec().encode(value)));
+        mSetBytes(rawValues, timeout);
+    }
+
+    /**
+     * 批量设置原始字节内容, 同时为其设置过期时间，使用 pipeline 一次往返完成
+     *
+     * @param values  key 和 value 的键值对集合
+     * @param timeout 过期时间
+     *
+     * @see <a href="http://redis.io/commands/set">Set Command</a>
+     */
+    public static void mSetBytes(Map<String, byte[]> values, Duration timeout) {
+        if (values.isEmpty()) {
+            return;
+        }
+        RedisSerializer<String> keySerializer = getKeySerializer();
+        Expiration expiration = Expiration.from(timeout);
+        executePipelined((RedisConnection conn) -> {
+            values.forEach((key, value) -> conn.stringCommands().set(keySerializer.serialize(key), value, expiration, RedisStringCommands.SetOption.upsert()));
+            return null;
+        });
+    }
+
     /**
      * 设置 value for key, 同时为其设置过期时间
      *
@@ -1844,6 +2007,24 @@ public class RedisUtil {
         return getRedisTemplate().execute((RedisConnection conn) -> conn.streamCommands().xAdd(Record.of(rawContent).withStreamKey(rawKey), xAddOptions));
     }
 
+    /**
+     * XCLAIM key group consumer min-idle-time ID [ID ...]
+     *
+     * @param key         key of stream
+     * @param group       consume group
+     * @param consumer    new owner
+     * @param minIdleTime only claim messages idle for at least this time
+     * @param ids         record ids
+     *
+     * @return the claimed records
+     *
+     * @see <a href="https://redis.io/commands/xclaim/">XCLAIM Command</a>
+     * @since Redis 5.0.0
+     */
+    public static List<MapRecord<String, String, String>> xClaim(String key, String group, String consumer, Duration minIdleTime, RecordId... ids) {
+        return streamOps().claim(key, group, consumer, minIdleTime, ids);
+    }
+
     /**
      * XDEL key ID [ID ...]
      *
@@ -1895,6 +2076,23 @@ public class RedisUtil {
         return streamOps().size(key);
     }
 
+    /**
+     * XPENDING key group start end count
+     *
+     * @param key   key of stream
+     * @param group consume group
+     * @param range range of record ids
+     * @param count max number of messages
+     *
+     * @return pending messages with owner, idle time and delivery count
+     *
+     * @see <a href="https://redis.io/commands/xpending/">XPENDING Command</a>
+     * @since Redis 5.0.0
+     */
+    public static PendingMessages xPending(String key, String group, Range<?> range, long count) {
+        return streamOps().pending(key, group, range, count);
+    }
+
     /**
      * XRANGE key start end COUNT count
      *
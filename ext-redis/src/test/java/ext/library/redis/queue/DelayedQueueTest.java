@@ -0,0 +1,94 @@
+package ext.library.redis.queue;
+
+import ext.library.core.util.SpringUtil;
+import ext.library.redis.config.RedisAutoConfig;
+import ext.library.tool.util.IDUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 需要本机 6379 端口的 Redis，不可用时跳过
+ */
+@DisplayName("延迟队列测试")
+@SpringBootTest(classes = SpringUtil.class)
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, RedisAutoConfig.class, RedisAutoConfiguration.class})
+class DelayedQueueTest {
+
+    @BeforeAll
+    static void requireRedis() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", 6379), 200);
+        } catch (IOException e) {
+            assumeTrue(false, "Redis 不可用");
+        }
+    }
+
+    @Test
+    @DisplayName("测试未确认的数据在租约到期后重新投递")
+    void redeliver() throws Exception {
+        DelayedQueue queue = new DelayedQueue("test:" + IDUtil.getUUID(), 2, 10, Duration.ofSeconds(1L), Duration.ofMillis(300));
+        queue.offer("order-1", Duration.ZERO);
+        queue.transfer();
+
+        // 领取后未确认，模拟处理中宕机
+        assertEquals("order-1", queue.poll());
+        queue.transfer();
+        assertNull(queue.poll());
+        assertEquals(1, queue.size());
+
+        TimeUnit.MILLISECONDS.sleep(400);
+        queue.transfer();
+        assertEquals("order-1", queue.poll());
+        assertTrue(queue.ack("order-1"));
+        assertFalse(queue.ack("order-1"));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    @DisplayName("测试处理完成后确认")
+    void ack() throws Exception {
+        DelayedQueue queue = new DelayedQueue("test:" + IDUtil.getUUID(), 4, 10, Duration.ofMillis(200), Duration.ofSeconds(10L));
+        int count = 50;
+        Set<String> handled = ConcurrentHashMap.newKeySet();
+        CountDownLatch latch = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            queue.offer("order-" + i, Duration.ofMillis(i * 5L));
+        }
+        queue.start(data -> {
+            handled.add(data);
+            latch.countDown();
+        });
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertEquals(count, handled.size());
+            // 确认在处理器返回后执行
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (queue.size() > 0 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(20);
+            }
+            assertEquals(0, queue.size());
+        } finally {
+            queue.stop();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ext.library.redis.serialize;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * 缓存值编解码基准测试，比较各编解码器的编码、解码吞吐量
+ * <p>
+ * 编码后的大小由 {@link ValueCodecTest} 校验。运行：执行 {@link #main(String[])}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueCodecBenchmark {
+
+    @Param({"JSON", "SMILE", "JSON_DEFLATE", "JSON_LZ4", "SMILE_LZ4"})
+    String codecType;
+
+    /** 列表元素数，1 约 100 字节，100 约 10KB */
+    @Param({"1", "100"})
+    int size;
+
+    ValueCodec codec;
+
+    Object value;
+
+    byte[] bytes;
+
+    @Setup
+    public void setup() {
+        codec = switch (codecType) {
+            case "JSON" -> new JsonValueCodec();
+            case "SMILE" -> new SmileValueCodec();
+            case "JSON_DEFLATE" -> new CompressValueCodec(new JsonValueCodec(), 256);
+            case "JSON_LZ4" -> new CompressValueCodec(new JsonValueCodec(), 256, CompressValueCodec.Algorithm.LZ4);
+            case "SMILE_LZ4" -> new CompressValueCodec(new SmileValueCodec(), 256, CompressValueCodec.Algorithm.LZ4);
+            default -> throw new IllegalArgumentException(codecType);
+        };
+        LocalDateTime now = LocalDateTime.of(2025, 8, 29, 12, 0);
+        value = LongStream.range(0, size).mapToObj(i -> new ValueCodecTest.User(i, "基准测试-" + i, now, List.of("admin", "user"))).toArray(ValueCodecTest.User[]::new);
+        bytes = codec.encode(value);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return codec.decode(bytes, ValueCodecTest.User[].class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ValueCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,83 @@
+package ext.library.redis.serialize;
+
+import ext.library.json.util.JsonUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("ValueCodec 编解码测试")
+class ValueCodecTest {
+    final User user = new User(1L, "单元测试", LocalDateTime.of(2025, 8, 29, 12, 0), List.of("admin", "user"));
+    final String str = "单元测试";
+
+    @Test
+    @DisplayName("测试 JSON 编解码")
+    void json() {
+        ValueCodec codec = new JsonValueCodec();
+        assertEquals(user, codec.decode(codec.encode(user), User.class));
+        assertEquals(str, codec.decode(codec.encode(str), String.class));
+        assertEquals(100L, codec.decode(codec.encode(100L), Long.class));
+        assertNull(codec.encode(null));
+        assertNull(codec.decode(null, User.class));
+    }
+
+    @Test
+    @DisplayName("测试读取二次编码的历史数据")
+    void legacy() {
+        ValueCodec codec = new JsonValueCodec();
+        String json = JsonUtil.toJson(user);
+        byte[] legacy = ('"' + json.replace("\"", "\\\"") + '"').getBytes(StandardCharsets.UTF_8);
+        assertEquals(user, codec.decode(legacy, User.class));
+        assertEquals(user, new CompressValueCodec(codec, 256).decode(legacy, User.class));
+    }
+
+    @Test
+    @DisplayName("测试 Smile 编解码")
+    void smile() {
+        ValueCodec codec = new SmileValueCodec();
+        assertEquals(user, codec.decode(codec.encode(user), User.class));
+        assertEquals(str, codec.decode(codec.encode(str), String.class));
+        assertEquals(100L, codec.decode(codec.encode(100L), Long.class));
+        assertTrue(codec.encode(user).length < new JsonValueCodec().encode(user).length);
+    }
+
+    @Test
+    @DisplayName("测试压缩编解码")
+    void compress() {
+        List<User> users = LongStream.range(0, 100).mapToObj(i -> new User(i, str, user.createTime(), user.roles())).toList();
+        ValueCodec json = new JsonValueCodec();
+        ValueCodec codec = new CompressValueCodec(json, 256);
+        byte[] bytes = codec.encode(users);
+        assertTrue(bytes.length < json.encode(users).length);
+        assertEquals(users.size(), codec.decode(bytes, User[].class).length);
+        // 低于阈值不压缩，可直接由原编解码器读取
+        assertEquals(user, json.decode(codec.encode(user), User.class));
+        // 未压缩的历史数据可正常读取
+        assertEquals(user, codec.decode(json.encode(user), User.class));
+    }
+
+    @Test
+    @DisplayName("测试 LZ4 压缩编解码")
+    void lz4() {
+        List<User> users = LongStream.range(0, 100).mapToObj(i -> new User(i, str, user.createTime(), user.roles())).toList();
+        ValueCodec json = new JsonValueCodec();
+        ValueCodec deflate = new CompressValueCodec(json, 256);
+        ValueCodec lz4 = new CompressValueCodec(json, 256, CompressValueCodec.Algorithm.LZ4);
+        byte[] bytes = lz4.encode(users);
+        assertTrue(bytes.length < json.encode(users).length);
+        assertEquals(users, List.of(lz4.decode(bytes, User[].class)));
+        // 切换压缩算法后已有数据仍可读取
+        assertEquals(users, List.of(deflate.decode(bytes, User[].class)));
+        assertEquals(users, List.of(lz4.decode(deflate.encode(users), User[].class)));
+    }
+
+    record User(Long id, String name, LocalDateTime createTime, List<String> roles) {}
+}
@@ -0,0 +1,77 @@
+package ext.library.redis.util;
+
+import ext.library.tool.util.IDUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("公平分布式锁测试")
+class DistributedFairLockTest extends RedisLockTestSupport {
+
+    @Test
+    @DisplayName("测试多个线程共享同一公平锁实例")
+    void sharedInstance() throws Exception {
+        DistributedFairLock lock = new DistributedFairLock("test:" + IDUtil.getUUID(), Duration.ofSeconds(10L));
+        assertTrue(lock.tryLock());
+        assertFalse(fork(lock::tryLock).get());
+
+        // 等待者按到达顺序获取
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        List<Future<Boolean>> waiters = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            int index = i;
+            waiters.add(fork(() -> {
+                boolean locked = lock.tryLock(Duration.ofSeconds(10L));
+                order.add(index);
+                lock.unlock();
+                return locked;
+            }));
+            Thread.sleep(100L);
+        }
+        lock.unlock();
+        for (Future<Boolean> waiter : waiters) {
+            assertTrue(waiter.get());
+        }
+        assertEquals(List.of(0, 1, 2), order);
+    }
+
+    @Test
+    @DisplayName("测试公平锁互斥")
+    void exclusion() throws Exception {
+        DistributedFairLock lock = new DistributedFairLock("test:" + IDUtil.getUUID(), Duration.ofSeconds(10L));
+        AtomicInteger holders = new AtomicInteger();
+        AtomicInteger maxHolders = new AtomicInteger();
+        List<Future<Boolean>> workers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            workers.add(fork(() -> {
+                for (int j = 0; j < 5; j++) {
+                    if (!lock.tryLock(Duration.ofSeconds(10L))) {
+                        return false;
+                    }
+                    try {
+                        maxHolders.accumulateAndGet(holders.incrementAndGet(), Math::max);
+                        Thread.sleep(5L);
+                        holders.decrementAndGet();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+                return true;
+            }));
+        }
+        for (Future<Boolean> worker : workers) {
+            assertTrue(worker.get());
+        }
+        assertEquals(1, maxHolders.get());
+    }
+}
@@ -0,0 +1,82 @@
+package ext.library.redis.util;
+
+import ext.library.core.util.SpringUtil;
+import ext.library.redis.config.RedisAutoConfig;
+import ext.library.tool.util.IDUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式锁基准测试，比较多线程竞争同一把锁时公平锁与非公平锁的吞吐量
+ * <p>
+ * 需要本机 6379 端口的 Redis。运行：执行 {@link #main(String[])}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class DistributedLockBenchmark {
+
+    @Param({"PLAIN", "FAIR"})
+    String lockType;
+
+    ConfigurableApplicationContext context;
+
+    AbstractDistributedLock lock;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(SpringUtil.class, RedisConfig.class).web(WebApplicationType.NONE).run();
+        String lockName = "benchmark:" + IDUtil.getUUID();
+        lock = switch (lockType) {
+            case "PLAIN" -> new DistributedLock(lockName, Duration.ofSeconds(10L));
+            case "FAIR" -> new DistributedFairLock(lockName, Duration.ofSeconds(10L));
+            default -> throw new IllegalArgumentException(lockType);
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void lockAndUnlock() {
+        lock.lock();
+        lock.unlock();
+    }
+
+    @ImportAutoConfiguration({JacksonAutoConfiguration.class, RedisAutoConfig.class, RedisAutoConfiguration.class})
+    static class RedisConfig {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DistributedLockBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,112 @@
+package ext.library.redis.util;
+
+import ext.library.tool.util.IDUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("分布式锁测试")
+class DistributedLockTest extends RedisLockTestSupport {
+
+    @Test
+    @DisplayName("测试多个线程共享同一锁实例")
+    void sharedInstance() throws Exception {
+        DistributedLock lock = new DistributedLock("test:" + IDUtil.getUUID(), Duration.ofSeconds(10L));
+        assertTrue(lock.tryLock());
+        assertTrue(lock.tryLock());
+        assertEquals(2, lock.getHoldCount());
+
+        // 其他线程既不能获取，也不能释放当前线程持有的锁
+        assertFalse(fork(lock::tryLock).get());
+        assertEquals(0, fork(() -> {
+            lock.unlock();
+            return lock.getHoldCount();
+        }).get());
+        assertFalse(fork(lock::tryLock).get());
+
+        lock.unlock();
+        assertFalse(fork(lock::tryLock).get());
+        lock.unlock();
+        assertFalse(lock.isHeldByCurrentThread());
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Boolean> other = fork(() -> {
+            boolean locked = lock.tryLock(Duration.ofSeconds(5L));
+            acquired.countDown();
+            release.await();
+            lock.unlock();
+            return locked;
+        });
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        assertFalse(lock.tryLock());
+        release.countDown();
+        assertTrue(other.get());
+        assertTrue(lock.tryLock(Duration.ofSeconds(5L)));
+        lock.unlock();
+    }
+
+    @Test
+    @DisplayName("测试看门狗在最后一次解锁时停止")
+    void watchdog() throws Exception {
+        DistributedLock lock = new DistributedLock("test:" + IDUtil.getUUID(), Duration.ofMillis(300L), Duration.ofMillis(10L), true);
+        long before = DistributedLock.RENEW_SCRIPT.getCalls();
+        lock.lock();
+        lock.lock();
+        lock.lock();
+        // 超过锁超时时间仍持有
+        Thread.sleep(1000L);
+        assertFalse(fork(lock::tryLock).get());
+        // 重入不会启动新的看门狗，每 100ms 续期一次
+        long renewed = DistributedLock.RENEW_SCRIPT.getCalls() - before;
+        assertTrue(renewed >= 5 && renewed <= 12, "renew calls: " + renewed);
+
+        lock.unlock();
+        lock.unlock();
+        lock.unlock();
+        long released = DistributedLock.RENEW_SCRIPT.getCalls();
+        Thread.sleep(400L);
+        assertEquals(released, DistributedLock.RENEW_SCRIPT.getCalls());
+        assertTrue(fork(() -> {
+            boolean locked = lock.tryLock();
+            lock.unlock();
+            return locked;
+        }).get());
+    }
+
+    @Test
+    @DisplayName("测试与旧版本 String 格式的锁互斥")
+    void legacy() throws Exception {
+        String lockName = "test:" + IDUtil.getUUID();
+        String legacyKey = "distributed_lock" + lockName;
+        DistributedLock lock = new DistributedLock(lockName, Duration.ofSeconds(10L));
+
+        // 旧版本持有时不能获取
+        RedisUtil.set(legacyKey, "127.0.0.1:1:1", 10L);
+        assertFalse(lock.tryLock());
+        RedisUtil.del(legacyKey);
+
+        // 持有时写入旧 key，旧版本视为已被占用，解锁时一并删除
+        assertTrue(lock.tryLock());
+        assertTrue(RedisUtil.get(legacyKey).startsWith("v2:"));
+        assertTrue(RedisUtil.ttl(legacyKey) > 0);
+        lock.unlock();
+        assertFalse(RedisUtil.exists(legacyKey));
+        assertFalse(RedisUtil.exists(DistributedLock.lockKey(legacyKey)));
+    }
+
+    @Test
+    @DisplayName("测试锁 key 与旧版本 key 的 hash tag 相同")
+    void lockKey() {
+        assertEquals("{distributed_locka}:v2", DistributedLock.lockKey("distributed_locka"));
+        assertEquals("distributed_lock{a}b:v2", DistributedLock.lockKey("distributed_lock{a}b"));
+    }
+}
@@ -0,0 +1,48 @@
+package ext.library.redis.util;
+
+import ext.library.tool.util.IDUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("分布式读写锁测试")
+class DistributedReadWriteLockTest extends RedisLockTestSupport {
+
+    @Test
+    @DisplayName("测试多个线程共享同一读写锁实例")
+    void sharedInstance() throws Exception {
+        DistributedReadWriteLock lock = new DistributedReadWriteLock("test:" + IDUtil.getUUID(), Duration.ofSeconds(10L));
+        DistributedReadWriteLock.ReadLock readLock = lock.readLock();
+        DistributedReadWriteLock.WriteLock writeLock = lock.writeLock();
+
+        // 写锁独占
+        assertTrue(writeLock.tryLock());
+        assertFalse(fork(writeLock::tryLock).get());
+        assertFalse(fork(readLock::tryLock).get());
+
+        // 持有写锁的线程可降级为读锁，其他线程仍被排斥
+        assertTrue(readLock.tryLock());
+        writeLock.unlock();
+        assertFalse(fork(writeLock::tryLock).get());
+        assertTrue(fork(() -> {
+            boolean locked = readLock.tryLock();
+            readLock.unlock();
+            return locked;
+        }).get());
+
+        // 其他线程持有读锁时，当前线程不能获取写锁
+        readLock.unlock();
+        assertTrue(fork(() -> {
+            boolean locked = readLock.tryLock();
+            boolean exclusive = !fork(writeLock::tryLock).get();
+            readLock.unlock();
+            return locked && exclusive;
+        }).get());
+        assertTrue(writeLock.tryLock());
+        writeLock.unlock();
+    }
+}
@@ -0,0 +1,50 @@
+package ext.library.redis.util;
+
+import ext.library.core.util.SpringUtil;
+import ext.library.redis.config.RedisAutoConfig;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 分布式锁测试，需要本机 6379 端口的 Redis，不可用时跳过
+ */
+@SpringBootTest(classes = SpringUtil.class)
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, RedisAutoConfig.class, RedisAutoConfiguration.class})
+abstract class RedisLockTestSupport {
+
+    @BeforeAll
+    static void requireRedis() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", 6379), 200);
+        } catch (IOException e) {
+            assumeTrue(false, "Redis 不可用");
+        }
+    }
+
+    /**
+     * 在新线程中执行，用于模拟共享同一锁实例的其他线程
+     */
+    static <T> Future<T> fork(Callable<T> callable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Thread.ofVirtual().start(() -> {
+            try {
+                future.complete(callable.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+}
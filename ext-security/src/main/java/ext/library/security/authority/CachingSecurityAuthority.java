@@ -0,0 +1,109 @@
+package ext.library.security.authority;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import ext.library.security.config.properties.SecurityProperties;
+import ext.library.tool.core.VirtualThreadPools;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * 缓存角色/权限的 {@link SecurityAuthority} 装饰器
+ * </p>
+ * 两级缓存：同一请求内通过 {@link ScopedValue} 只查询一次；跨请求按 loginId 保存在本地 Caffeine 缓存中，
+ * 超过 refreshAfterWrite 后在下次访问时异步刷新 (刷新完成前返回旧值)，超过 expireAfterWrite 后同步重新加载。
+ * 管理员修改用户授权后调用 {@link #invalidate(String)} 立即失效
+ */
+public class CachingSecurityAuthority implements SecurityAuthority {
+
+    /** 请求内的角色/权限快照 */
+    private static final ScopedValue<Map<String, SecurityGrants>> REQUEST_GRANTS = ScopedValue.newInstance();
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final SecurityAuthority delegate;
+
+    private final LoadingCache<String, SecurityGrants> cache;
+
+    public CachingSecurityAuthority(SecurityAuthority delegate, SecurityProperties.AuthorityCacheProperties properties) {
+        this.delegate = delegate;
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .executor(VirtualThreadPools::execute);
+        if (properties.getRefreshAfterWrite().compareTo(properties.getExpireAfterWrite()) < 0) {
+            builder.refreshAfterWrite(properties.getRefreshAfterWrite());
+        }
+        this.cache = builder.build(this::load);
+    }
+
+    /**
+     * 在请求作用域内执行，作用域内同一 loginId 的角色/权限只查询一次
+     *
+     * @param runnable 请求处理
+     */
+    public static void runInRequestScope(Runnable runnable) {
+        ScopedValue.where(REQUEST_GRANTS, new HashMap<>(4)).run(runnable);
+    }
+
+    @Override
+    public List<String> getPermissionCodeList(String loginId) {
+        return getGrants(loginId).permissions();
+    }
+
+    @Override
+    public List<String> getRoleCodeList(String loginId) {
+        return getGrants(loginId).roles();
+    }
+
+    /**
+     * 获取角色/权限快照
+     *
+     * @param loginId 登录 Id
+     *
+     * @return SecurityGrants
+     */
+    public SecurityGrants getGrants(String loginId) {
+        if (REQUEST_GRANTS.isBound()) {
+            return REQUEST_GRANTS.get().computeIfAbsent(loginId, cache::get);
+        }
+        return cache.get(loginId);
+    }
+
+    /**
+     * 失效指定用户的缓存，修改用户授权后调用
+     *
+     * @param loginId 登录 Id
+     */
+    public void invalidate(String loginId) {
+        cache.invalidate(loginId);
+        if (REQUEST_GRANTS.isBound()) {
+            REQUEST_GRANTS.get().remove(loginId);
+        }
+        log.debug("[🛡️] 失效角色/权限缓存，loginId: {}", loginId);
+    }
+
+    /**
+     * 失效全部缓存，修改角色的权限后调用
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        if (REQUEST_GRANTS.isBound()) {
+            REQUEST_GRANTS.get().clear();
+        }
+        log.debug("[🛡️] 失效全部角色/权限缓存");
+    }
+
+    public SecurityAuthority getDelegate() {
+        return delegate;
+    }
+
+    private SecurityGrants load(String loginId) {
+        return SecurityGrants.of(delegate.getRoleCodeList(loginId), delegate.getPermissionCodeList(loginId));
+    }
+}
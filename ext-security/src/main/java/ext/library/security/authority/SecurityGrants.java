@@ -0,0 +1,52 @@
+package ext.library.security.authority;
+
+import ext.library.security.util.PermissionTrie;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 用户的角色/权限快照，集合与通配索引在创建时预先计算，随快照按 loginId 缓存，校验时无需再次构建
+ *
+ * @param roles          角色码
+ * @param permissions    权限码
+ * @param roleSet        角色码集合
+ * @param permissionSet  权限码集合
+ * @param roleTrie       角色码通配索引
+ * @param permissionTrie 权限码通配索引
+ */
+public record SecurityGrants(List<String> roles, List<String> permissions, Set<String> roleSet, Set<String> permissionSet,
+                             PermissionTrie roleTrie, PermissionTrie permissionTrie) {
+
+    /**
+     * 创建快照
+     *
+     * @param roles       角色码
+     * @param permissions 权限码
+     *
+     * @return SecurityGrants
+     */
+    public static SecurityGrants of(List<String> roles, List<String> permissions) {
+        List<String> roleList = copy(roles);
+        List<String> permissionList = copy(permissions);
+        return new SecurityGrants(roleList, permissionList, Set.copyOf(roleList), Set.copyOf(permissionList),
+                PermissionTrie.of(roleList), PermissionTrie.of(permissionList));
+    }
+
+    private static List<String> copy(List<String> list) {
+        if (list == null || list.isEmpty()) {
+            return List.of();
+        }
+        List<String> copy = new ArrayList<>(list.size());
+        Set<String> seen = new HashSet<>(list.size());
+        for (String code : list) {
+            if (Objects.nonNull(code) && seen.add(code)) {
+                copy.add(code);
+            }
+        }
+        return List.copyOf(copy);
+    }
+}
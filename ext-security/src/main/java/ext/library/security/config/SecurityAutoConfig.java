@@ -1,15 +1,25 @@
 package ext.library.security.config;
 
+import ext.library.security.authority.CachingSecurityAuthority;
 import ext.library.security.authority.SecurityAuthority;
 import ext.library.security.config.properties.SecurityProperties;
+import ext.library.security.enums.SecurityRepositoryEnum;
+import ext.library.security.interceptor.SecurityAuthorityScopeFilter;
+import ext.library.security.listener.SecurityEventDispatcher;
+import ext.library.security.listener.SecurityEventPublishManager;
+import ext.library.security.repository.NearCacheSecurityRepository;
 import ext.library.security.repository.SecurityRepository;
+import ext.library.security.router.SecurityRouteIndex;
 import ext.library.security.service.SecurityService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
 
 /**
  * 自动配置
@@ -39,7 +49,11 @@ public class SecurityAutoConfig {
     @Bean
     @ConditionalOnMissingBean(SecurityRepository.class)
     public SecurityRepository securityRepository(SecurityProperties securityProperties) {
-        return securityProperties.getRepository().getSecurityRepository();
+        SecurityRepository securityRepository = securityProperties.getRepository().getSecurityRepository();
+        if (securityProperties.getRepository() == SecurityRepositoryEnum.REDIS && securityProperties.getNearCache().getEnabled()) {
+            return new NearCacheSecurityRepository(securityRepository, securityProperties.getNearCache());
+        }
+        return securityRepository;
     }
 
     /**
@@ -48,10 +62,61 @@ public class SecurityAutoConfig {
      * @return {@code SecurityAuthority }
      */
     @Bean
-    @ConditionalOnMissingBean(SecurityAuthority.class)
+    @ConditionalOnMissingBean(value = SecurityAuthority.class, ignored = CachingSecurityAuthority.class)
     public SecurityAuthority securityAuthority() {
         log.warn("[🛡️] 将使用默认权限认证接口，所有权限皆无，建议实现 SecurityAuthority 接口中的业务逻辑！");
         return new SecurityAuthority() {};
     }
 
-}
\ No newline at end of file
+    /**
+     * 路由索引注入
+     *
+     * @return {@code SecurityRouteIndex }
+     */
+    @Bean
+    @ConditionalOnMissingBean(SecurityRouteIndex.class)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public SecurityRouteIndex securityRouteIndex(SecurityProperties securityProperties) {
+        return new SecurityRouteIndex(securityProperties);
+    }
+
+    /**
+     * 角色/权限缓存，作为主 {@link SecurityAuthority} 包装业务实现，业务实现仍可按自身类型获取
+     *
+     * @return {@code CachingSecurityAuthority }
+     */
+    @Bean
+    @Primary
+    @ConditionalOnMissingBean(CachingSecurityAuthority.class)
+    @ConditionalOnProperty(prefix = "ext.security.authority-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public CachingSecurityAuthority cachingSecurityAuthority(SecurityAuthority securityAuthority, SecurityProperties securityProperties) {
+        return new CachingSecurityAuthority(securityAuthority, securityProperties.getAuthorityCache());
+    }
+
+    /**
+     * 角色/权限请求作用域
+     *
+     * @return {@code SecurityAuthorityScopeFilter }
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "ext.security.authority-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public SecurityAuthorityScopeFilter securityAuthorityScopeFilter() {
+        return new SecurityAuthorityScopeFilter();
+    }
+
+    /**
+     * 异步事件分发，ext.security.event.async=true 时开启
+     *
+     * @return {@code SecurityEventDispatcher }
+     */
+    @Bean
+    @ConditionalOnMissingBean(SecurityEventDispatcher.class)
+    @ConditionalOnProperty(prefix = "ext.security.event", name = "async", havingValue = "true")
+    public SecurityEventDispatcher securityEventDispatcher(SecurityProperties securityProperties) {
+        SecurityEventDispatcher dispatcher = new SecurityEventDispatcher(securityProperties.getEvent());
+        SecurityEventPublishManager.setDispatcher(dispatcher);
+        return dispatcher;
+    }
+
+}
@@ -0,0 +1,26 @@
+package ext.library.security.config;
+
+import ext.library.security.listener.SecurityEventDispatcher;
+import ext.library.security.listener.SecurityEventMetricsBinder;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * 认证 Micrometer 指标配置，在 {@link SecurityAutoConfig} 之后装配
+ */
+@AutoConfiguration(after = SecurityAutoConfig.class)
+@ConditionalOnClass(MeterBinder.class)
+public class SecurityMetricsAutoConfig {
+
+    @Bean
+    @ConditionalOnBean(SecurityEventDispatcher.class)
+    @ConditionalOnMissingBean
+    public SecurityEventMetricsBinder securityEventMetricsBinder(SecurityEventDispatcher securityEventDispatcher) {
+        return new SecurityEventMetricsBinder(securityEventDispatcher);
+    }
+
+}
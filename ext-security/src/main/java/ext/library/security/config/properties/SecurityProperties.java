@@ -1,10 +1,13 @@
 package ext.library.security.config.properties;
 
+import ext.library.security.enums.OverflowPolicy;
 import ext.library.security.enums.SecurityRepositoryEnum;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
 import jakarta.validation.constraints.Pattern;
+import java.time.Duration;
+import java.util.List;
 
 /**
  * <p>
@@ -77,6 +80,31 @@ public class SecurityProperties {
      */
     private CookieProperties cookieConfig = new CookieProperties();
 
+    /**
+     * 角色/权限缓存配置
+     */
+    private AuthorityCacheProperties authorityCache = new AuthorityCacheProperties();
+
+    /**
+     * token/session 本地缓存配置，仅 redis 存储时生效
+     */
+    private NearCacheProperties nearCache = new NearCacheProperties();
+
+    /**
+     * 事件分发配置
+     */
+    private EventProperties event = new EventProperties();
+
+    /**
+     * 需要鉴权的路由，默认全部
+     */
+    private List<String> includePaths = List.of("/**");
+
+    /**
+     * 忽略鉴权的路由
+     */
+    private List<String> excludePaths = List.of();
+
     public String getSecurityName() {
         return securityName;
     }
@@ -173,6 +201,46 @@ public class SecurityProperties {
         this.cookieConfig = cookieConfig;
     }
 
+    public AuthorityCacheProperties getAuthorityCache() {
+        return authorityCache;
+    }
+
+    public void setAuthorityCache(AuthorityCacheProperties authorityCache) {
+        this.authorityCache = authorityCache;
+    }
+
+    public NearCacheProperties getNearCache() {
+        return nearCache;
+    }
+
+    public void setNearCache(NearCacheProperties nearCache) {
+        this.nearCache = nearCache;
+    }
+
+    public EventProperties getEvent() {
+        return event;
+    }
+
+    public void setEvent(EventProperties event) {
+        this.event = event;
+    }
+
+    public List<String> getIncludePaths() {
+        return includePaths;
+    }
+
+    public void setIncludePaths(List<String> includePaths) {
+        this.includePaths = includePaths;
+    }
+
+    public List<String> getExcludePaths() {
+        return excludePaths;
+    }
+
+    public void setExcludePaths(List<String> excludePaths) {
+        this.excludePaths = excludePaths;
+    }
+
     public static class CookieProperties {
 
         /**
@@ -230,4 +298,196 @@ public class SecurityProperties {
         }
     }
 
-}
\ No newline at end of file
+    public static class AuthorityCacheProperties {
+
+        /**
+         * 是否缓存 SecurityAuthority 返回的角色/权限
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 最多缓存的用户数量
+         */
+        private Long maximumSize = 10000L;
+
+        /**
+         * 写入后过期时间
+         */
+        private Duration expireAfterWrite = Duration.ofMinutes(1L);
+
+        /**
+         * 写入后超过该时间的缓存在下次访问时异步刷新，刷新完成前返回旧值
+         */
+        private Duration refreshAfterWrite = Duration.ofSeconds(30L);
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(Long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getExpireAfterWrite() {
+            return expireAfterWrite;
+        }
+
+        public void setExpireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+        }
+
+        public Duration getRefreshAfterWrite() {
+            return refreshAfterWrite;
+        }
+
+        public void setRefreshAfterWrite(Duration refreshAfterWrite) {
+            this.refreshAfterWrite = refreshAfterWrite;
+        }
+    }
+
+    public static class NearCacheProperties {
+
+        /**
+         * 是否在本地缓存 token 与 session，变更时通过 redis pub/sub 通知其他节点失效
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 最多缓存的 token/session 数量
+         */
+        private Long maximumSize = 10000L;
+
+        /**
+         * 写入后过期时间，失效通知丢失时的兜底
+         */
+        private Duration expireAfterWrite = Duration.ofSeconds(30L);
+
+        /**
+         * 失效通知通道
+         */
+        private String channel = "security:revocation";
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(Long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getExpireAfterWrite() {
+            return expireAfterWrite;
+        }
+
+        public void setExpireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+        }
+
+        public String getChannel() {
+            return channel;
+        }
+
+        public void setChannel(String channel) {
+            this.channel = channel;
+        }
+    }
+
+    public static class EventProperties {
+
+        /**
+         * 是否异步分发事件，默认关闭，在发布线程中依次调用监听器，监听器的异常抛给调用方；
+         * 开启后监听器在各自的虚拟线程中执行，异常只记录日志
+         */
+        private Boolean async = false;
+
+        /**
+         * 每个监听器的队列容量
+         */
+        private Integer bufferSize = 1024;
+
+        /**
+         * 队列已满时的处理策略
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.CALLER_RUNS;
+
+        /**
+         * 批量监听器每批最多事件数
+         */
+        private Integer batchSize = 100;
+
+        /**
+         * 批量监听器凑批的最长等待时间
+         */
+        private Duration batchLinger = Duration.ofMillis(200L);
+
+        /**
+         * 停止时等待队列中事件投递完成的最长时间
+         */
+        private Duration shutdownTimeout = Duration.ofSeconds(5L);
+
+        public Boolean getAsync() {
+            return async;
+        }
+
+        public void setAsync(Boolean async) {
+            this.async = async;
+        }
+
+        public Integer getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(Integer bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public Integer getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(Integer batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getBatchLinger() {
+            return batchLinger;
+        }
+
+        public void setBatchLinger(Duration batchLinger) {
+            this.batchLinger = batchLinger;
+        }
+
+        public Duration getShutdownTimeout() {
+            return shutdownTimeout;
+        }
+
+        public void setShutdownTimeout(Duration shutdownTimeout) {
+            this.shutdownTimeout = shutdownTimeout;
+        }
+    }
+
+}
@@ -22,6 +22,36 @@ public interface SecurityRedisConstant {
      */
     String TOKEN_REL_LOGIN_ID_KEY = KEY_PREFIX + ":token:{}";
 
+    /**
+     * hash 存储结构 key 前缀
+     */
+    String HASH_KEY_PREFIX = KEY_PREFIX + ":v2";
+
+    /**
+     * session hash key 前缀，后接 {loginId}，与 token 索引位于同一 slot
+     */
+    String SESSION_HASH_KEY = HASH_KEY_PREFIX + ":session:";
+
+    /**
+     * 登录 ID 的 token 索引 (zset，score 为过期时间戳) key 后缀
+     */
+    String SESSION_TOKEN_INDEX_SUFFIX = ":tokens";
+
+    /**
+     * token hash key 前缀，后接 token
+     */
+    String TOKEN_HASH_KEY = HASH_KEY_PREFIX + ":token:";
+
+    /**
+     * 全部 token 索引 (zset，score 均为 0，按字典序查询)
+     */
+    String TOKEN_LEX_INDEX_KEY = HASH_KEY_PREFIX + ":{tokens}";
+
+    /**
+     * 全部 token 过期索引 (zset，score 为过期时间戳)，与字典序索引位于同一 slot
+     */
+    String TOKEN_EXPIRY_INDEX_KEY = HASH_KEY_PREFIX + ":{tokens}:expiry";
+
     /**
      * 登录账户密码错误次数 redis key
      */
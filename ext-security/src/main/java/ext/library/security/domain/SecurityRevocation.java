@@ -0,0 +1,25 @@
+package ext.library.security.domain;
+
+/**
+ * <p>
+ * 本地缓存失效通知
+ * </p>
+ *
+ * @param node    发送节点
+ * @param type    失效类型
+ * @param key     loginId 或 token
+ * @param version session 版本号，仅 {@link Type#SESSION} 时有值
+ */
+public record SecurityRevocation(String node, Type type, String key, Long version) {
+
+    public enum Type {
+        /** session，key 为 loginId */
+        SESSION,
+        /** token，key 为 token */
+        TOKEN,
+        /** 角色/权限，key 为 loginId */
+        GRANTS,
+        /** 全部角色/权限 */
+        ALL_GRANTS,
+    }
+}
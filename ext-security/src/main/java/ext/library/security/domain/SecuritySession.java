@@ -29,7 +29,7 @@ import java.util.UUID;
 public class SecuritySession implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
-    private final Logger log = LoggerFactory.getLogger(getClass());
+    private static final Logger log = LoggerFactory.getLogger(SecuritySession.class);
     /**
      * 挂载数据
      */
@@ -0,0 +1,15 @@
+package ext.library.security.enums;
+
+/**
+ * 异步事件队列已满时的处理策略
+ */
+public enum OverflowPolicy {
+
+	/** 阻塞发布线程直到队列有空位 */
+	BLOCK,
+	/** 丢弃最早的事件 */
+	DROP_OLDEST,
+	/** 由发布线程同步执行 */
+	CALLER_RUNS
+
+}
@@ -0,0 +1,33 @@
+package ext.library.security.interceptor;
+
+import ext.library.security.authority.CachingSecurityAuthority;
+import ext.library.tool.core.Exceptions;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.annotation.Nonnull;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * <p>
+ * 角色/权限请求作用域过滤器
+ * </p>
+ * 请求内多次鉴权时只查询一次 SecurityAuthority
+ */
+public class SecurityAuthorityScopeFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(@Nonnull HttpServletRequest request, @Nonnull HttpServletResponse response, @Nonnull FilterChain filterChain) throws ServletException, IOException {
+        CachingSecurityAuthority.runInRequestScope(() -> {
+            try {
+                filterChain.doFilter(request, response);
+            } catch (IOException | ServletException e) {
+                throw Exceptions.unchecked(e);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,22 @@
+package ext.library.security.listener;
+
+import java.util.List;
+
+/**
+ * <p>
+ * 批量监听接口
+ * </p>
+ * 异步分发时按批次接收事件，适合写库等单次开销较大的监听器；同步分发时每个事件单独成批
+ */
+public interface BatchSecurityListener extends SecurityListener {
+
+    /**
+     * 批量接收事件，事件按发布顺序排列
+     *
+     * @param events 事件
+     */
+    default void onEvents(List<SecurityEvent> events) {
+        events.forEach(event -> event.dispatch(this));
+    }
+
+}
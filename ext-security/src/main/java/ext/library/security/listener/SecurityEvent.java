@@ -0,0 +1,76 @@
+package ext.library.security.listener;
+
+import ext.library.security.domain.SecurityLoginParams;
+import org.slf4j.MDC;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * 安全事件
+ * </p>
+ * 由 {@link SecurityEventPublishManager} 创建，异步分发时保留发布线程的 MDC 上下文
+ *
+ * @param type              事件类型
+ * @param loginId           登录 Id
+ * @param token             token 值
+ * @param deviceType        设备类型
+ * @param loginParams       登录参数，仅登录事件
+ * @param securitySessionId session id，仅 session 创建/销毁事件
+ * @param timestamp         发布时间戳 (毫秒)
+ * @param context           发布线程的 MDC 上下文
+ */
+public record SecurityEvent(Type type, String loginId, String token, String deviceType, SecurityLoginParams loginParams,
+                            String securitySessionId, long timestamp, Map<String, String> context) {
+
+    static SecurityEvent of(Type type, String loginId, String token, String deviceType, SecurityLoginParams loginParams) {
+        return new SecurityEvent(type, loginId, token, deviceType, loginParams, null, System.currentTimeMillis(), MDC.getCopyOfContextMap());
+    }
+
+    static SecurityEvent ofSession(Type type, String securitySessionId) {
+        return new SecurityEvent(type, null, null, null, null, securitySessionId, System.currentTimeMillis(), MDC.getCopyOfContextMap());
+    }
+
+    /**
+     * 调用监听器对应的方法
+     *
+     * @param listener 监听器
+     */
+    public void dispatch(SecurityListener listener) {
+        switch (type) {
+            case LOGIN -> listener.doLogin(loginId, token, loginParams);
+            case KICK_OUT -> listener.doKickOut(loginId, token, deviceType);
+            case REPLACE_OUT -> listener.doReplaceOut(loginId, token, deviceType);
+            case BANNED -> listener.doBanned(loginId, token, deviceType);
+            case UNSEAL -> listener.doUnseal(loginId, token, deviceType);
+            case RENEWAL -> listener.doRenewal(loginId, token, deviceType);
+            case REMOVE -> listener.doRemove(loginId, token, deviceType);
+            case LOGIN_OUT -> listener.doLoginOut(loginId, token, deviceType);
+            case CREATED_SESSION -> listener.doCreatedSecuritySession(securitySessionId);
+            case DESTROY_SESSION -> listener.doDestroySecuritySession(securitySessionId);
+        }
+    }
+
+    public enum Type {
+        /** 登录 */
+        LOGIN,
+        /** 被踢下线 */
+        KICK_OUT,
+        /** 被顶下线 */
+        REPLACE_OUT,
+        /** 封禁 */
+        BANNED,
+        /** 解封 */
+        UNSEAL,
+        /** 续约 */
+        RENEWAL,
+        /** 移除 */
+        REMOVE,
+        /** 退出 */
+        LOGIN_OUT,
+        /** 创建 session */
+        CREATED_SESSION,
+        /** 销毁 session */
+        DESTROY_SESSION
+    }
+}
@@ -0,0 +1,382 @@
+package ext.library.security.listener;
+
+import ext.library.security.config.properties.SecurityProperties;
+import ext.library.security.enums.OverflowPolicy;
+import ext.library.tool.core.VirtualThreadPools;
+import ext.library.tool.util.ObjectUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * 异步事件分发
+ * </p>
+ * 每个监听器一个有界环形队列与一个虚拟线程，同一监听器按发布顺序接收事件，慢监听器不影响其他监听器与请求线程。
+ * {@link BatchSecurityListener} 按批次接收，批次在达到 batchSize 或等待 batchLinger 后投递。
+ * 队列已满时按 {@link OverflowPolicy} 处理，CALLER_RUNS 时该事件可能先于队列中的事件执行。
+ * 记录每个监听器的队列深度、投递次数、失败次数、丢弃次数与耗时，可通过 {@link SecurityEventMetricsBinder} 注册为 Micrometer 指标
+ */
+public class SecurityEventDispatcher implements AutoCloseable {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /** 空闲时检查停止标记的间隔 */
+    private static final long POLL_MILLIS = 200L;
+
+    private final SecurityProperties.EventProperties properties;
+
+    private final Map<SecurityListener, Worker> workers = new ConcurrentHashMap<>();
+
+    /** 监听器分发线程创建时的回调 */
+    private final List<Consumer<ListenerMetrics>> metricsCallbacks = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running = true;
+
+    public SecurityEventDispatcher(SecurityProperties.EventProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 发布事件
+     *
+     * @param event     事件
+     * @param listeners 监听器
+     */
+    public void publish(SecurityEvent event, List<SecurityListener> listeners) {
+        for (SecurityListener listener : listeners) {
+            Worker worker = running ? workers.computeIfAbsent(listener, this::newWorker) : null;
+            if (null == worker || worker.stopped) {
+                // 分发已停止，在发布线程中调用，异常只记录日志，与异步分发一致
+                try {
+                    SecurityEventPublishManager.dispatch(event, listener);
+                } catch (Exception e) {
+                    log.error("[🛡️] 监听器 {} 处理 {} 事件异常", listener.getClass().getName(), event.type(), e);
+                }
+            } else {
+                worker.offer(event);
+            }
+        }
+    }
+
+    /**
+     * 停止监听器的分发线程，已入队的事件仍会投递
+     *
+     * @param listener 监听器
+     */
+    public void remove(SecurityListener listener) {
+        Worker worker = workers.remove(listener);
+        if (null != worker) {
+            worker.stopped = true;
+        }
+    }
+
+    /**
+     * 所有监听器队列中等待投递的事件数
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Worker worker : workers.values()) {
+            depth += worker.queue.size();
+        }
+        return depth;
+    }
+
+    /**
+     * 各监听器的分发指标
+     */
+    public List<ListenerMetrics> getMetrics() {
+        return workers.values().stream().map(worker -> worker.metrics).toList();
+    }
+
+    /**
+     * 订阅监听器分发指标，已有的监听器立即回调，之后新建分发线程的监听器在创建时回调
+     *
+     * @param callback 回调
+     */
+    public void onMetrics(Consumer<ListenerMetrics> callback) {
+        metricsCallbacks.add(callback);
+        workers.values().forEach(worker -> callback.accept(worker.metrics));
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 停止分发，等待已入队的事件投递完成，超过 shutdownTimeout 后中断
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (SecurityEventPublishManager.getDispatcher() == this) {
+            SecurityEventPublishManager.setDispatcher(null);
+        }
+        List<Worker> stopping = new ArrayList<>(workers.values());
+        workers.clear();
+        stopping.forEach(worker -> worker.stopped = true);
+        long deadline = System.nanoTime() + properties.getShutdownTimeout().toNanos();
+        for (Worker worker : stopping) {
+            try {
+                worker.future.get(Math.max(deadline - System.nanoTime(), 0L), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                log.warn("[🛡️] 监听器 {} 未在停止时限内完成，丢弃 {} 个事件", worker.metrics.getName(), worker.queue.size());
+                worker.future.cancel(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("[🛡️] 停止监听器 {} 异常", worker.metrics.getName(), e);
+            }
+        }
+    }
+
+    private Worker newWorker(SecurityListener listener) {
+        Worker worker = new Worker(listener);
+        for (Consumer<ListenerMetrics> callback : metricsCallbacks) {
+            try {
+                callback.accept(worker.metrics);
+            } catch (Exception e) {
+                log.warn("[🛡️] 注册监听器 {} 分发指标失败", worker.metrics.getName(), e);
+            }
+        }
+        return worker;
+    }
+
+    /**
+     * 单个监听器的队列与分发线程
+     */
+    private final class Worker {
+        private final SecurityListener listener;
+
+        private final BlockingQueue<SecurityEvent> queue;
+
+        private final int batchSize;
+
+        private final ListenerMetrics metrics;
+
+        private final Future<?> future;
+
+        private volatile boolean stopped = false;
+
+        private volatile Thread thread;
+
+        Worker(SecurityListener listener) {
+            this.listener = listener;
+            this.queue = new ArrayBlockingQueue<>(properties.getBufferSize());
+            this.batchSize = listener instanceof BatchSecurityListener ? Math.max(properties.getBatchSize(), 1) : 1;
+            this.metrics = new ListenerMetrics(listener.getClass().getName(), queue);
+            this.future = VirtualThreadPools.submit(() -> {
+                run();
+                return null;
+            });
+        }
+
+        void offer(SecurityEvent event) {
+            if (queue.offer(event)) {
+                return;
+            }
+            switch (properties.getOverflowPolicy()) {
+                case BLOCK -> {
+                    // 监听器内发布事件给自己时不能阻塞
+                    if (Thread.currentThread() == thread) {
+                        deliver(List.of(event), false);
+                        return;
+                    }
+                    try {
+                        queue.put(event);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        metrics.dropped.increment();
+                    }
+                }
+                case DROP_OLDEST -> {
+                    while (!queue.offer(event)) {
+                        if (null != queue.poll()) {
+                            metrics.dropped.increment();
+                        }
+                    }
+                }
+                case CALLER_RUNS -> deliver(List.of(event), false);
+            }
+        }
+
+        private void run() {
+            thread = Thread.currentThread();
+            thread.setName("security-event-" + listener.getClass().getSimpleName());
+            List<SecurityEvent> batch = new ArrayList<>(batchSize);
+            try {
+                while (!stopped || !queue.isEmpty()) {
+                    SecurityEvent first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (null == first) {
+                        continue;
+                    }
+                    batch.add(first);
+                    fill(batch);
+                    deliver(batch, true);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * 批量监听器凑批，最多等待 batchLinger
+         */
+        private void fill(List<SecurityEvent> batch) throws InterruptedException {
+            if (batchSize <= 1) {
+                return;
+            }
+            queue.drainTo(batch, batchSize - batch.size());
+            long deadline = System.nanoTime() + properties.getBatchLinger().toNanos();
+            while (batch.size() < batchSize && !stopped) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return;
+                }
+                SecurityEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (null == next) {
+                    return;
+                }
+                batch.add(next);
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+        }
+
+        /**
+         * 投递事件
+         *
+         * @param events  事件
+         * @param async   是否在分发线程中，是则恢复发布线程的 MDC 上下文
+         */
+        private void deliver(List<SecurityEvent> events, boolean async) {
+            long start = System.nanoTime();
+            try {
+                if (listener instanceof BatchSecurityListener batchListener) {
+                    invoke(events.getFirst(), async, () -> batchListener.onEvents(events));
+                } else {
+                    for (SecurityEvent event : events) {
+                        invoke(event, async, () -> event.dispatch(listener));
+                    }
+                }
+            } finally {
+                metrics.record(events.size(), System.nanoTime() - start);
+            }
+        }
+
+        private void invoke(SecurityEvent event, boolean async, Runnable runnable) {
+            if (async && ObjectUtil.isNotEmpty(event.context())) {
+                MDC.setContextMap(event.context());
+            }
+            try {
+                runnable.run();
+            } catch (Throwable e) {
+                metrics.errors.increment();
+                log.error("[🛡️] 监听器 {} 处理 {} 事件异常", metrics.getName(), event.type(), e);
+            } finally {
+                if (async) {
+                    MDC.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * 监听器分发指标
+     */
+    public static final class ListenerMetrics {
+        /** 监听器类名 */
+        private final String name;
+
+        private final BlockingQueue<SecurityEvent> queue;
+
+        /** 投递事件数 */
+        private final LongAdder events = new LongAdder();
+
+        /** 投递次数，批量监听器一批算一次 */
+        private final LongAdder deliveries = new LongAdder();
+
+        /** 失败次数 */
+        private final LongAdder errors = new LongAdder();
+
+        /** 丢弃事件数 */
+        private final LongAdder dropped = new LongAdder();
+
+        /** 累计耗时 (纳秒) */
+        private final LongAdder totalNanos = new LongAdder();
+
+        /** 最大耗时 (纳秒) */
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+        private ListenerMetrics(String name, BlockingQueue<SecurityEvent> queue) {
+            this.name = name;
+            this.queue = queue;
+        }
+
+        private void record(int count, long elapsed) {
+            events.add(count);
+            deliveries.increment();
+            totalNanos.add(elapsed);
+            maxNanos.accumulate(elapsed);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getQueueDepth() {
+            return queue.size();
+        }
+
+        public long getEvents() {
+            return events.sum();
+        }
+
+        public long getDeliveries() {
+            return deliveries.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getDropped() {
+            return dropped.sum();
+        }
+
+        public Duration getMaxTime() {
+            return Duration.ofNanos(maxNanos.get());
+        }
+
+        /**
+         * 平均每次投递耗时
+         *
+         * @return {@link Duration }
+         */
+        public Duration getMeanTime() {
+            long count = deliveries.sum();
+            return count == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos.sum() / count);
+        }
+
+        @Override
+        public String toString() {
+            return "ListenerMetrics{name='" + name + "', queueDepth=" + getQueueDepth() + ", events=" + getEvents() + ", deliveries=" + getDeliveries()
+                    + ", errors=" + getErrors() + ", dropped=" + getDropped() + ", mean=" + getMeanTime() + ", max=" + getMaxTime() + '}';
+        }
+    }
+}
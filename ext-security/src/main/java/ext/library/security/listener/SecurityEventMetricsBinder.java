@@ -0,0 +1,50 @@
+package ext.library.security.listener;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import jakarta.annotation.Nonnull;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 将异步事件分发指标注册为 Micrometer 指标
+ * <p>
+ * 注册全部监听器的队列深度，以及每个监听器 (tag listener 为类名) 的队列深度、投递事件数、投递次数、失败次数、丢弃事件数与耗时，
+ * 监听器在首次收到事件时创建分发线程，其指标在此时注册
+ */
+public class SecurityEventMetricsBinder implements MeterBinder {
+
+    private final SecurityEventDispatcher dispatcher;
+
+    public SecurityEventMetricsBinder(SecurityEventDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        Gauge.builder("security.event.queue.depth.total", dispatcher, SecurityEventDispatcher::getQueueDepth)
+                .description("全部监听器等待投递的事件数").register(registry);
+        dispatcher.onMetrics(metrics -> bind(registry, metrics));
+    }
+
+    private static void bind(MeterRegistry registry, SecurityEventDispatcher.ListenerMetrics metrics) {
+        Tags tags = Tags.of("listener", metrics.getName());
+        Gauge.builder("security.event.queue.depth", metrics, SecurityEventDispatcher.ListenerMetrics::getQueueDepth)
+                .description("等待投递的事件数").tags(tags).register(registry);
+        counter(registry, "security.event.events", "投递事件数", metrics, SecurityEventDispatcher.ListenerMetrics::getEvents, tags);
+        counter(registry, "security.event.deliveries", "投递次数，批量监听器一批算一次", metrics, SecurityEventDispatcher.ListenerMetrics::getDeliveries, tags);
+        counter(registry, "security.event.errors", "失败次数", metrics, SecurityEventDispatcher.ListenerMetrics::getErrors, tags);
+        counter(registry, "security.event.dropped", "丢弃事件数", metrics, SecurityEventDispatcher.ListenerMetrics::getDropped, tags);
+        Gauge.builder("security.event.delivery.mean", metrics, m -> m.getMeanTime().toNanos() / 1e6)
+                .description("平均每次投递耗时").baseUnit("milliseconds").tags(tags).register(registry);
+        Gauge.builder("security.event.delivery.max", metrics, m -> m.getMaxTime().toNanos() / 1e6)
+                .description("最大投递耗时").baseUnit("milliseconds").tags(tags).register(registry);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, String description, T obj, ToDoubleFunction<T> count, Tags tags) {
+        FunctionCounter.builder(name, obj, count).description(description).tags(tags).register(registry);
+    }
+}
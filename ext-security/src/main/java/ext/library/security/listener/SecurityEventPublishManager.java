@@ -2,12 +2,58 @@ package ext.library.security.listener;
 
 import ext.library.security.domain.SecurityLoginParams;
 
+import java.util.List;
+import java.util.Objects;
+
 /**
  * <p>
  * 事件发布管理
  * </p>
+ * 设置了 {@link SecurityEventDispatcher} 时异步分发 (ext.security.event.async=true)，否则在发布线程中依次调用监听器，监听器的异常抛给调用方
  */
 public class SecurityEventPublishManager {
+    private static volatile SecurityEventDispatcher dispatcher;
+
+    /**
+     * 设置异步分发器
+     *
+     * @param eventDispatcher 分发器，为 null 时恢复同步分发
+     */
+    public static void setDispatcher(SecurityEventDispatcher eventDispatcher) {
+        dispatcher = eventDispatcher;
+    }
+
+    public static SecurityEventDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * 发布事件
+     *
+     * @param event 事件
+     */
+    public static void publish(SecurityEvent event) {
+        List<SecurityListener> listeners = SecurityListenerManager.getListener();
+        SecurityEventDispatcher current = dispatcher;
+        if (Objects.nonNull(current) && current.isRunning()) {
+            current.publish(event, listeners);
+            return;
+        }
+        for (SecurityListener listener : listeners) {
+            dispatch(event, listener);
+        }
+    }
+
+    /**
+     * 同步调用监听器，异常抛给调用方
+     */
+    static void dispatch(SecurityEvent event, SecurityListener listener) {
+        if (listener instanceof BatchSecurityListener batchListener) {
+            batchListener.onEvents(List.of(event));
+        } else {
+            event.dispatch(listener);
+        }
+    }
 
     /**
      * 登录接口操作触发
@@ -17,7 +63,7 @@ public class SecurityEventPublishManager {
      * @param loginModel 登录参数
      */
     public static void doLogin(String loginId, String token, SecurityLoginParams loginModel) {
-        SecurityListenerManager.getListener().forEach(item -> item.doLogin(loginId, token, loginModel));
+        publish(SecurityEvent.of(SecurityEvent.Type.LOGIN, loginId, token, null, loginModel));
     }
 
     /**
@@ -28,7 +74,7 @@ public class SecurityEventPublishManager {
      * @param deviceType 设备类型
      */
     public static void doKickOut(String loginId, String token, String deviceType) {
-        SecurityListenerManager.getListener().forEach(item -> item.doKickOut(loginId, token, deviceType));
+        publish(SecurityEvent.of(SecurityEvent.Type.KICK_OUT, loginId, token, deviceType, null));
     }
 
     /**
@@ -39,7 +85,7 @@ public class SecurityEventPublishManager {
      * @param deviceType 设备类型
      */
     public static void doReplaceOut(String loginId, String token, String deviceType) {
-        SecurityListenerManager.getListener().forEach(item -> item.doReplaceOut(loginId, token, deviceType));
+        publish(SecurityEvent.of(SecurityEvent.Type.REPLACE_OUT, loginId, token, deviceType, null));
     }
 
     /**
@@ -50,7 +96,7 @@ public class SecurityEventPublishManager {
      * @param deviceType 设备类型
      */
     public static void doBanned(String loginId, String token, String deviceType) {
-        SecurityListenerManager.getListener().forEach(item -> item.doBanned(loginId, token, deviceType));
+        publish(SecurityEvent.of(SecurityEvent.Type.BANNED, loginId, token, deviceType, null));
     }
 
     /**
@@ -61,7 +107,7 @@ public class SecurityEventPublishManager {
      * @param deviceType 设备类型
      */
     public static void doUnseal(String loginId, String token, String deviceType) {
-        SecurityListenerManager.getListener().forEach(item -> item.doUnseal(loginId, token, deviceType));
+        publish(SecurityEvent.of(SecurityEvent.Type.UNSEAL, loginId, token, deviceType, null));
     }
 
     /**
@@ -72,7 +118,7 @@ public class SecurityEventPublishManager {
      * @param deviceType 设备类型
      */
     public static void doRenewal(String loginId, String token, String deviceType) {
-        SecurityListenerManager.getListener().forEach(item -> item.doRenewal(loginId, token, deviceType));
+        publish(SecurityEvent.of(SecurityEvent.Type.RENEWAL, loginId, token, deviceType, null));
     }
 
     /**
@@ -83,7 +129,7 @@ public class SecurityEventPublishManager {
      * @param deviceType 设备类型
      */
     public static void doRemove(String loginId, String token, String deviceType) {
-        SecurityListenerManager.getListener().forEach(item -> item.doRemove(loginId, token, deviceType));
+        publish(SecurityEvent.of(SecurityEvent.Type.REMOVE, loginId, token, deviceType, null));
     }
 
     /**
@@ -94,7 +140,7 @@ public class SecurityEventPublishManager {
      * @param deviceType 设备类型
      */
     public static void doLoginOut(String loginId, String token, String deviceType) {
-        SecurityListenerManager.getListener().forEach(item -> item.doLoginOut(loginId, token, deviceType));
+        publish(SecurityEvent.of(SecurityEvent.Type.LOGIN_OUT, loginId, token, deviceType, null));
     }
 
     /**
@@ -103,7 +149,7 @@ public class SecurityEventPublishManager {
      * @param securitySessionId session id
      */
     public static void doCreatedSecuritySession(String securitySessionId) {
-        SecurityListenerManager.getListener().forEach(item -> item.doCreatedSecuritySession(securitySessionId));
+        publish(SecurityEvent.ofSession(SecurityEvent.Type.CREATED_SESSION, securitySessionId));
     }
 
     /**
@@ -112,7 +158,7 @@ public class SecurityEventPublishManager {
      * @param securitySessionId session id
      */
     public static void doDestroySecuritySession(String securitySessionId) {
-        SecurityListenerManager.getListener().forEach(item -> item.doDestroySecuritySession(securitySessionId));
+        publish(SecurityEvent.ofSession(SecurityEvent.Type.DESTROY_SESSION, securitySessionId));
     }
 
 }
\ No newline at end of file
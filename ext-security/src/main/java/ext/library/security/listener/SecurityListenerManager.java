@@ -2,8 +2,9 @@ package ext.library.security.listener;
 
 import ext.library.tool.core.Exceptions;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * <p>
@@ -12,7 +13,8 @@ import java.util.List;
  */
 public class SecurityListenerManager {
 
-    private static final List<SecurityListener> LISTENER_LIST = new ArrayList<>();
+    /** 每次发布事件都会遍历，注册/移除很少 */
+    private static final List<SecurityListener> LISTENER_LIST = new CopyOnWriteArrayList<>();
 
     static {
         SecurityListenerManager.LISTENER_LIST.add(new SecurityListener() {
@@ -50,13 +52,25 @@ public class SecurityListenerManager {
             throw Exceptions.throwOut("[🛡️] 移除监听器不能为空");
         }
         LISTENER_LIST.remove(listener);
+        retire(listener);
     }
 
     /**
      * 清空所有已注册的监听器
      */
     public static void clearListener() {
+        LISTENER_LIST.forEach(SecurityListenerManager::retire);
         LISTENER_LIST.clear();
     }
 
+    /**
+     * 停止已移除监听器的异步分发线程
+     */
+    private static void retire(SecurityListener listener) {
+        SecurityEventDispatcher dispatcher = SecurityEventPublishManager.getDispatcher();
+        if (Objects.nonNull(dispatcher)) {
+            dispatcher.remove(listener);
+        }
+    }
+
 }
\ No newline at end of file
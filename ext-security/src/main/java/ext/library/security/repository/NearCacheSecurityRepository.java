@@ -0,0 +1,322 @@
+package ext.library.security.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import ext.library.core.util.SpringUtil;
+import ext.library.json.util.JsonUtil;
+import ext.library.redis.util.RedisUtil;
+import ext.library.security.authority.CachingSecurityAuthority;
+import ext.library.security.authority.SecurityAuthority;
+import ext.library.security.config.properties.SecurityProperties;
+import ext.library.security.constants.SecurityConstant;
+import ext.library.security.domain.SecurityRevocation;
+import ext.library.security.domain.SecuritySession;
+import ext.library.security.domain.SecurityToken;
+import ext.library.tool.util.DateUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+
+import jakarta.annotation.Nonnull;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 带本地缓存的存储
+ * </p>
+ * 在 redis 存储之上按 token 缓存 SecurityToken、按 loginId 缓存 SecuritySession，鉴权时通常无需访问 redis。
+ * 本节点修改或删除 token/session 时写穿并通过 redis pub/sub 广播失效通知，其他节点收到后淘汰本地缓存；
+ * session 的 {@link SecuritySession#getVersion() version} 在每次保存时递增，本地缓存的版本更新时忽略过期的通知。
+ * 缓存中保存副本，每次读取返回新的副本，调用方修改不会影响缓存。token 在本地的存活时间不超过其剩余有效期 (创建时间 + 超时时间)，
+ * 错过失效通知时也不会在过期后继续通过鉴权；session 的版本号仅用于排序失效通知，错过通知时本地副本在 expireAfterWrite 后失效。
+ * 应用启动完成时订阅失效通知，在此之前的读写也会先尝试订阅，保证写入缓存前已能收到其他节点的通知
+ */
+public class NearCacheSecurityRepository implements SecurityRepository, ApplicationListener<ApplicationReadyEvent> {
+    /** 本节点标识，忽略自己发出的通知 */
+    private static final String NODE = UUID.randomUUID().toString();
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final SecurityRepository delegate;
+
+    private final String channel;
+
+    private final Cache<String, SecuritySession> sessionCache;
+
+    private final Cache<String, SecurityToken> tokenCache;
+
+    private volatile boolean subscribed = false;
+
+    public NearCacheSecurityRepository(SecurityRepository delegate, SecurityProperties.NearCacheProperties properties) {
+        this.delegate = delegate;
+        this.channel = properties.getChannel();
+        this.sessionCache = Caffeine.newBuilder().maximumSize(properties.getMaximumSize()).expireAfterWrite(properties.getExpireAfterWrite()).build();
+        this.tokenCache = Caffeine.newBuilder().maximumSize(properties.getMaximumSize()).expireAfter(new TokenExpiry(properties.getExpireAfterWrite())).build();
+    }
+
+    @Override
+    public void onApplicationEvent(@Nonnull ApplicationReadyEvent event) {
+        subscribe();
+    }
+
+    @Override
+    public SecuritySession getSecuritySessionByLoginId(String loginId) {
+        subscribe();
+        SecuritySession session = sessionCache.getIfPresent(loginId);
+        if (Objects.isNull(session)) {
+            session = delegate.getSecuritySessionByLoginId(loginId);
+            if (Objects.isNull(session)) {
+                return null;
+            }
+            sessionCache.put(loginId, copy(session));
+            return session;
+        }
+        return copy(session);
+    }
+
+    @Override
+    public Long getSessionTimeoutByLoginId(String loginId) {
+        return delegate.getSessionTimeoutByLoginId(loginId);
+    }
+
+    @Override
+    public boolean saveSecuritySession(@Nonnull SecuritySession session) {
+        subscribe();
+        session.setVersion(Objects.requireNonNullElse(session.getVersion(), 0L) + 1);
+        boolean saved = delegate.saveSecuritySession(session);
+        if (saved) {
+            sessionCache.put(session.getLoginId(), copy(session));
+            publish(SecurityRevocation.Type.SESSION, session.getLoginId(), session.getVersion());
+        }
+        return saved;
+    }
+
+    @Override
+    public boolean removeSecuritySessionByLoginId(String loginId) {
+        boolean removed = delegate.removeSecuritySessionByLoginId(loginId);
+        sessionCache.invalidate(loginId);
+        publish(SecurityRevocation.Type.SESSION, loginId, null);
+        return removed;
+    }
+
+    @Override
+    public SecurityToken getSecurityTokenByTokenValue(String tokenValue) {
+        SecurityToken token = getCachedToken(tokenValue);
+        return Objects.isNull(token) ? null : copy(token);
+    }
+
+    @Override
+    public String getActivityTimeByTokenValue(String tokenValue) {
+        SecurityToken token = getCachedToken(tokenValue);
+        return Objects.isNull(token) ? null : token.getActivityTime();
+    }
+
+    @Override
+    public Long getTokenTimeOutByTokenValue(String tokenValue) {
+        return delegate.getTokenTimeOutByTokenValue(tokenValue);
+    }
+
+    @Override
+    public Long getTokenActivityTimeOutByTokenValue(String tokenValue) {
+        SecurityToken token = getCachedToken(tokenValue);
+        if (Objects.isNull(token)) {
+            return null;
+        }
+        Long timeout = token.getActivityTimeout();
+        if (SecurityConstant.NON_EXPIRING.equals(timeout)) {
+            return SecurityConstant.NON_EXPIRING;
+        }
+        // 计算剩余时间
+        long second = DateUtil.parse(token.getActivityTime()).plusSeconds(timeout).toEpochSecond(ZoneOffset.ofHours(8))
+                - LocalDateTime.now().toEpochSecond(ZoneOffset.ofHours(8));
+        return second > 0 ? second : 0L;
+    }
+
+    @Override
+    public boolean saveToken(@Nonnull SecurityToken token) {
+        subscribe();
+        boolean saved = delegate.saveToken(token);
+        if (saved) {
+            tokenCache.put(token.getToken(), copy(token));
+            publish(SecurityRevocation.Type.TOKEN, token.getToken(), null);
+        }
+        return saved;
+    }
+
+    @Override
+    public boolean removeTokenByTokenValue(String tokenValue) {
+        boolean removed = delegate.removeTokenByTokenValue(tokenValue);
+        tokenCache.invalidate(tokenValue);
+        publish(SecurityRevocation.Type.TOKEN, tokenValue, null);
+        return removed;
+    }
+
+    @Override
+    public boolean renewalTokenByTokenValue(String tokenValue) {
+        boolean renewed = delegate.renewalTokenByTokenValue(tokenValue);
+        if (renewed) {
+            tokenCache.invalidate(tokenValue);
+            publish(SecurityRevocation.Type.TOKEN, tokenValue, null);
+        }
+        return renewed;
+    }
+
+    @Override
+    public List<String> queryTokenList(String tokenValue, boolean sortedDesc) {
+        return delegate.queryTokenList(tokenValue, sortedDesc);
+    }
+
+    @Override
+    public List<String> queryTokenListByLoginId(String loginId) {
+        return delegate.queryTokenListByLoginId(loginId);
+    }
+
+    /**
+     * 通知所有节点失效角色/权限缓存
+     *
+     * @param loginId 登录 Id，为 null 时失效全部
+     */
+    public void revokeGrants(String loginId) {
+        if (Objects.isNull(loginId)) {
+            publish(SecurityRevocation.Type.ALL_GRANTS, null, null);
+        } else {
+            publish(SecurityRevocation.Type.GRANTS, loginId, null);
+        }
+    }
+
+    public SecurityRepository getDelegate() {
+        return delegate;
+    }
+
+    private SecurityToken getCachedToken(String tokenValue) {
+        subscribe();
+        SecurityToken token = tokenCache.getIfPresent(tokenValue);
+        if (Objects.isNull(token)) {
+            token = delegate.getSecurityTokenByTokenValue(tokenValue);
+            if (Objects.nonNull(token)) {
+                tokenCache.put(tokenValue, copy(token));
+            }
+        }
+        return token;
+    }
+
+    private void publish(SecurityRevocation.Type type, String key, Long version) {
+        try {
+            RedisUtil.publish(channel, JsonUtil.toJson(new SecurityRevocation(NODE, type, key, version)));
+        } catch (Exception e) {
+            log.warn("[🛡️] 发送缓存失效通知失败，type: {}, key: {}", type, key, e);
+        }
+    }
+
+    /**
+     * 订阅失效通知，本节点在此之前没有缓存；失败时下次读写重试
+     */
+    private void subscribe() {
+        if (subscribed) {
+            return;
+        }
+        synchronized (this) {
+            if (subscribed) {
+                return;
+            }
+            try {
+                RedisUtil.subscribe(channel, SecurityRevocation.class, this::onRevocation);
+                subscribed = true;
+            } catch (Exception e) {
+                log.warn("[🛡️] 订阅缓存失效通知失败，本地缓存将在过期后失效", e);
+            }
+        }
+    }
+
+    private void onRevocation(SecurityRevocation revocation) {
+        if (Objects.isNull(revocation) || NODE.equals(revocation.node()) || Objects.isNull(revocation.type())) {
+            return;
+        }
+        log.debug("[🛡️] 收到缓存失效通知：{}", revocation);
+        switch (revocation.type()) {
+            case SESSION -> sessionCache.asMap().computeIfPresent(revocation.key(), (loginId, session) -> {
+                // 本地版本更新时保留
+                boolean newer = Objects.nonNull(revocation.version()) && Objects.nonNull(session.getVersion()) && session.getVersion() > revocation.version();
+                return newer ? session : null;
+            });
+            case TOKEN -> tokenCache.invalidate(revocation.key());
+            case GRANTS -> {
+                if (SpringUtil.getBean(SecurityAuthority.class) instanceof CachingSecurityAuthority authority) {
+                    authority.invalidate(revocation.key());
+                }
+            }
+            case ALL_GRANTS -> {
+                if (SpringUtil.getBean(SecurityAuthority.class) instanceof CachingSecurityAuthority authority) {
+                    authority.invalidateAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * token 的本地存活时间，取 expireAfterWrite 与 token 剩余有效期的较小值，读取不延长存活时间
+     */
+    private record TokenExpiry(Duration expireAfterWrite) implements Expiry<String, SecurityToken> {
+
+        @Override
+        public long expireAfterCreate(@Nonnull String key, @Nonnull SecurityToken token, long currentTime) {
+            long expireAfterWrite = this.expireAfterWrite.toNanos();
+            Long timeout = token.getTimeout();
+            if (Objects.isNull(timeout) || SecurityConstant.NON_EXPIRING.equals(timeout) || Objects.isNull(token.getCreateTime())) {
+                return expireAfterWrite;
+            }
+            try {
+                long expireAt = DateUtil.parse(token.getCreateTime()).plusSeconds(timeout).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                long remaining = TimeUnit.MILLISECONDS.toNanos(Math.max(expireAt - System.currentTimeMillis(), 0L));
+                return Math.min(expireAfterWrite, remaining);
+            } catch (Exception e) {
+                return expireAfterWrite;
+            }
+        }
+
+        @Override
+        public long expireAfterUpdate(@Nonnull String key, @Nonnull SecurityToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(@Nonnull String key, @Nonnull SecurityToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private static SecurityToken copy(SecurityToken token) {
+        if (Objects.isNull(token)) {
+            return null;
+        }
+        SecurityToken copy = new SecurityToken(token.getToken(), token.getLoginId(), token.getDeviceType(), token.getTimeout(),
+                token.getActivityTime(), token.getActivityTimeout(), token.getState(), token.getCreateTime(), token.getUpdateTime());
+        copy.getTokenMountData().putAll(token.getTokenMountData());
+        return copy;
+    }
+
+    private static SecuritySession copy(SecuritySession session) {
+        List<SecurityToken> tokenInfoList = null;
+        if (Objects.nonNull(session.getTokenInfoList())) {
+            tokenInfoList = new ArrayList<>(session.getTokenInfoList().size());
+            for (SecurityToken token : session.getTokenInfoList()) {
+                tokenInfoList.add(copy(token));
+            }
+        }
+        SecuritySession copy = new SecuritySession(session.getSecuritySessionId(), session.getLoginId(), session.getTimeout(),
+                copy(session.getCurrentSecurityToken()), session.getCreateTime(), session.getUpdateTime(), tokenInfoList, session.getVersion());
+        copy.getMountData().putAll(session.getMountData());
+        return copy;
+    }
+
+}
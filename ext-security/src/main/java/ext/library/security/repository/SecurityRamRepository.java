@@ -1,8 +1,14 @@
 package ext.library.security.repository;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
 import ext.library.security.constants.SecurityConstant;
 import ext.library.security.domain.SecuritySession;
 import ext.library.security.domain.SecurityToken;
+import ext.library.security.listener.SecurityEventPublishManager;
 import ext.library.tool.core.Exceptions;
 import ext.library.tool.util.DateUtil;
 import ext.library.tool.util.StringUtil;
@@ -11,102 +17,98 @@ import org.slf4j.LoggerFactory;
 
 import jakarta.annotation.Nonnull;
 import java.time.LocalDateTime;
-import java.time.ZoneOffset;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>
  * 默认基于内存存储实现
  * </p>
+ * session 与 token 保存在 Caffeine 缓存中，过期时间在保存时解析为时间戳 (毫秒)，之后不再解析日期字符串；
+ * 按条目过期由 Caffeine 的分层时间轮驱动，均摊 O(1)，并由系统调度线程及时清理，过期时通知 {@link SecurityEventPublishManager}
  */
 public class SecurityRamRepository implements SecurityRepository {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
     /**
      * SecuritySession 存储
      */
-    private static final AtomicReference<Map<String, SecuritySession>> sessionMap = new AtomicReference<>(
-            new ConcurrentHashMap<>());
+    private final Cache<String, SessionEntry> sessionCache = Caffeine.newBuilder()
+            .expireAfter(new EntryExpiry<String, SessionEntry>())
+            .scheduler(Scheduler.systemScheduler())
+            .<String, SessionEntry>removalListener((loginId, entry, cause) -> {
+                if (cause == RemovalCause.EXPIRED && Objects.nonNull(entry)) {
+                    onSessionExpired(entry);
+                }
+            })
+            .build();
+
     /**
      * SecurityToken 存储
      */
-    private static final AtomicReference<Map<String, SecurityToken>> tokenMap = new AtomicReference<>(
-            new ConcurrentHashMap<>());
-    /**
-     * 记录数据版本信息
-     */
-    private static final AtomicReference<Map<String, Long>> versionMap = new AtomicReference<>(
-            new ConcurrentHashMap<>());
-    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final Cache<String, TokenEntry> tokenCache = Caffeine.newBuilder()
+            .expireAfter(new EntryExpiry<String, TokenEntry>())
+            .scheduler(Scheduler.systemScheduler())
+            .<String, TokenEntry>removalListener((tokenValue, entry, cause) -> {
+                if (cause == RemovalCause.EXPIRED && Objects.nonNull(entry)) {
+                    SecurityToken token = entry.token();
+                    log.debug("[🛡️] token 已过期：{}", tokenValue);
+                    SecurityEventPublishManager.doRemove(token.getLoginId(), token.getToken(), token.getDeviceType());
+                }
+            })
+            .build();
 
     @Override
     public SecuritySession getSecuritySessionByLoginId(String loginId) {
-        SecuritySession securitySession = sessionMap.get().get(loginId);
-        if (null == securitySession) {
+        SessionEntry entry = sessionCache.getIfPresent(loginId);
+        if (null == entry) {
             return null;
         }
-        Long timeout = securitySession.getTimeout();
-        if (!SecurityConstant.NON_EXPIRING.equals(timeout)) {
-            // 判断是否超时
-            String createTime = securitySession.getCreateTime();
-            if (DateUtil.parse(createTime).plusSeconds(timeout).isBefore(LocalDateTime.now())) {
-                // 已超时，销毁 security session
-                securitySession.destroySecuritySession();
-                return null;
-            }
-        }
-        Long version = versionMap.get().get(loginId);
-        securitySession.setVersion(null == version ? 0L : version);
+        SecuritySession securitySession = entry.session();
+        securitySession.setVersion(entry.version());
         return securitySession;
     }
 
     @Override
     public Long getSessionTimeoutByLoginId(String loginId) {
-        SecuritySession securitySession = getSecuritySessionByLoginId(loginId);
-        if (null == securitySession) {
+        SessionEntry entry = sessionCache.getIfPresent(loginId);
+        if (null == entry) {
             return null;
         }
-        Long timeout = securitySession.getTimeout();
-        if (!SecurityConstant.NON_EXPIRING.equals(timeout)) {
-            // 计算剩余时间
-            String createTime = securitySession.getCreateTime();
-            long second = DateUtil.parse(createTime).plusSeconds(timeout).toEpochSecond(ZoneOffset.ofHours(8))
-                    - LocalDateTime.now().toEpochSecond(ZoneOffset.ofHours(8));
-            return second > 0 ? second : 0L;
-        }
-        return timeout;
+        return remainingSeconds(entry.expireAt());
     }
 
     @Override
     public boolean saveSecuritySession(@Nonnull SecuritySession session) {
-        Long version = versionMap.get().get(session.getLoginId());
-        version = null == version ? 0L : version;
-        if (null != session.getVersion() && !session.getVersion().equals(version)) {
-            throw Exceptions.throwOut("[🛡️] 版本验证异常");
-        }
-        versionMap.get().put(session.getLoginId(), ++version);
-        sessionMap.get().put(session.getLoginId(), session);
+        sessionCache.asMap().compute(session.getLoginId(), (loginId, entry) -> {
+            long version = null == entry ? 0L : entry.version();
+            if (null != session.getVersion() && !session.getVersion().equals(version)) {
+                throw Exceptions.throwOut("[🛡️] 版本验证异常");
+            }
+            Deadline expire = Deadline.of(session.getCreateTime(), session.getTimeout(), null == entry ? null : entry.expire());
+            return new SessionEntry(session, expire, version + 1);
+        });
         return true;
     }
 
     @Override
     public boolean removeSecuritySessionByLoginId(String loginId) {
-        SecuritySession securitySession = sessionMap.get().get(loginId);
-        if (null == securitySession) {
+        SessionEntry entry = sessionCache.asMap().remove(loginId);
+        if (null == entry) {
             return false;
         }
-        securitySession.getTokenInfoList().forEach(item -> removeTokenByTokenValue(item.getToken()));
-        sessionMap.get().remove(loginId);
+        entry.session().getTokenInfoList().forEach(item -> removeTokenByTokenValue(item.getToken()));
         return true;
     }
 
     @Override
     public SecurityToken getSecurityTokenByTokenValue(String tokenValue) {
-        return tokenMap.get().get(tokenValue);
+        TokenEntry entry = tokenCache.getIfPresent(tokenValue);
+        return Objects.isNull(entry) ? null : entry.token();
     }
 
     @Override
@@ -117,63 +119,55 @@ public class SecurityRamRepository implements SecurityRepository {
 
     @Override
     public Long getTokenTimeOutByTokenValue(String tokenValue) {
-        SecurityToken securityToken = getSecurityTokenByTokenValue(tokenValue);
-        if (Objects.isNull(securityToken)) {
+        TokenEntry entry = tokenCache.getIfPresent(tokenValue);
+        if (Objects.isNull(entry)) {
             return null;
         }
-        String createTime = securityToken.getCreateTime();
-        // 计算超时时间
-        Long timeout = securityToken.getTimeout();
-        if (SecurityConstant.NON_EXPIRING.equals(timeout)) {
-            return SecurityConstant.NON_EXPIRING;
-        }
-        // 计算剩余时间
-        long second = DateUtil.parse(createTime).plusSeconds(timeout).toEpochSecond(ZoneOffset.ofHours(8))
-                - LocalDateTime.now().toEpochSecond(ZoneOffset.ofHours(8));
-        return second > 0 ? second : 0L;
+        return remainingSeconds(entry.expireAt());
     }
 
     @Override
     public Long getTokenActivityTimeOutByTokenValue(String tokenValue) {
-        SecurityToken securityToken = getSecurityTokenByTokenValue(tokenValue);
-        if (Objects.isNull(securityToken)) {
+        TokenEntry entry = tokenCache.getIfPresent(tokenValue);
+        if (Objects.isNull(entry)) {
             return null;
         }
-        String activityTime = securityToken.getActivityTime();
-        // 计算超时时间
-        Long timeout = securityToken.getActivityTimeout();
-        if (SecurityConstant.NON_EXPIRING.equals(timeout)) {
-            return SecurityConstant.NON_EXPIRING;
-        }
-        // 计算剩余时间
-        long second = DateUtil.parse(activityTime).plusSeconds(timeout).toEpochSecond(ZoneOffset.ofHours(8))
-                - LocalDateTime.now().toEpochSecond(ZoneOffset.ofHours(8));
-        return second > 0 ? second : 0L;
+        return remainingSeconds(entry.activity().expireAt());
     }
 
     @Override
     public boolean saveToken(SecurityToken token) {
-        tokenMap.get().put(token.getToken(), token);
+        tokenCache.asMap().compute(token.getToken(), (tokenValue, entry) -> {
+            // 过期时间延用创建 token 时的过期时间
+            Deadline expire = Deadline.of(token.getCreateTime(), token.getTimeout(), null == entry ? null : entry.expire());
+            Deadline activity = Deadline.of(token.getActivityTime(), token.getActivityTimeout(), null == entry ? null : entry.activity());
+            return new TokenEntry(token, expire, activity);
+        });
         return true;
     }
 
     @Override
     public boolean removeTokenByTokenValue(String tokenValue) {
-        SecurityToken securityToken = tokenMap.get().remove(tokenValue);
-        return Objects.nonNull(securityToken);
+        return Objects.nonNull(tokenCache.asMap().remove(tokenValue));
     }
 
     @Override
     public boolean renewalTokenByTokenValue(String tokenValue) {
-        SecurityToken securityToken = tokenMap.get().remove(tokenValue);
-        securityToken.setActivityTime(DateUtil.format(LocalDateTime.now()));
-        return true;
+        LocalDateTime now = LocalDateTime.now();
+        TokenEntry renewed = tokenCache.asMap().computeIfPresent(tokenValue, (key, entry) -> {
+            SecurityToken securityToken = entry.token();
+            String activityTime = DateUtil.format(now);
+            securityToken.setActivityTime(activityTime);
+            Deadline activity = new Deadline(activityTime, securityToken.getActivityTimeout(), expireAt(toEpochMilli(now), securityToken.getActivityTimeout()));
+            return new TokenEntry(securityToken, entry.expire(), activity);
+        });
+        return Objects.nonNull(renewed);
     }
 
     @Override
     public List<String> queryTokenList(String tokenValue, boolean sortedDesc) {
         List<String> list = new ArrayList<>();
-        for (String key : tokenMap.get().keySet()) {
+        for (String key : tokenCache.asMap().keySet()) {
             if (StringUtil.isNotBlank(tokenValue) && !key.contains(tokenValue)) {
                 continue;
             }
@@ -185,4 +179,114 @@ public class SecurityRamRepository implements SecurityRepository {
         return list;
     }
 
-}
\ No newline at end of file
+    /**
+     * 立即清理已过期的数据
+     */
+    public void cleanUp() {
+        sessionCache.cleanUp();
+        tokenCache.cleanUp();
+    }
+
+    /**
+     * session 过期，同时移除其 token 并通知销毁
+     */
+    private void onSessionExpired(SessionEntry entry) {
+        SecuritySession session = entry.session();
+        log.debug("[🛡️] session 已过期：{}", session.getLoginId());
+        session.getTokenInfoList().forEach(item -> removeTokenByTokenValue(item.getToken()));
+        SecurityEventPublishManager.doDestroySecuritySession(session.getSecuritySessionId());
+    }
+
+    private static long expireAt(long start, Long timeout) {
+        if (null == timeout || SecurityConstant.NON_EXPIRING.equals(timeout)) {
+            return Long.MAX_VALUE;
+        }
+        return start + TimeUnit.SECONDS.toMillis(timeout);
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 剩余秒数，永不过期时为 {@link SecurityConstant#NON_EXPIRING}
+     */
+    private static long remainingSeconds(long expireAt) {
+        if (expireAt == Long.MAX_VALUE) {
+            return SecurityConstant.NON_EXPIRING;
+        }
+        return Math.max(TimeUnit.MILLISECONDS.toSeconds(expireAt - System.currentTimeMillis()), 0L);
+    }
+
+    /**
+     * 过期时间，保存解析前的起始时间与超时时间，二者未变化时不重新解析
+     *
+     * @param startTime 起始时间 格式 yyyy-MM-dd HH:mm:ss
+     * @param timeout   超时时间 单位秒
+     * @param expireAt  过期时间戳 (毫秒)，永不过期时为 {@link Long#MAX_VALUE}
+     */
+    private record Deadline(String startTime, Long timeout, long expireAt) {
+        static Deadline of(String startTime, Long timeout, Deadline previous) {
+            if (Objects.nonNull(previous) && Objects.equals(previous.startTime(), startTime) && Objects.equals(previous.timeout(), timeout)) {
+                return previous;
+            }
+            long start = StringUtil.isBlank(startTime) ? System.currentTimeMillis() : toEpochMilli(DateUtil.parse(startTime));
+            return new Deadline(startTime, timeout, SecurityRamRepository.expireAt(start, timeout));
+        }
+    }
+
+    /**
+     * 带过期时间戳的条目
+     */
+    private interface ExpiringEntry {
+        Deadline expire();
+
+        default long expireAt() {
+            return expire().expireAt();
+        }
+    }
+
+    /**
+     * session 条目
+     *
+     * @param session session
+     * @param expire  过期时间
+     * @param version 版本号
+     */
+    private record SessionEntry(SecuritySession session, Deadline expire, long version) implements ExpiringEntry {
+    }
+
+    /**
+     * token 条目
+     *
+     * @param token    token
+     * @param expire   过期时间
+     * @param activity 活跃超时时间
+     */
+    private record TokenEntry(SecurityToken token, Deadline expire, Deadline activity) implements ExpiringEntry {
+    }
+
+    /**
+     * 按条目的过期时间戳过期，每次写入重新计算
+     */
+    private static final class EntryExpiry<K, V extends ExpiringEntry> implements Expiry<K, V> {
+        @Override
+        public long expireAfterCreate(@Nonnull K key, @Nonnull V value, long currentTime) {
+            if (value.expireAt() == Long.MAX_VALUE) {
+                return Long.MAX_VALUE;
+            }
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(value.expireAt() - System.currentTimeMillis(), 0L));
+        }
+
+        @Override
+        public long expireAfterUpdate(@Nonnull K key, @Nonnull V value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(@Nonnull K key, @Nonnull V value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+}
@@ -1,6 +1,8 @@
 package ext.library.security.repository;
 
 import ext.library.json.util.JsonUtil;
+import ext.library.redis.script.LuaScript;
+import ext.library.redis.script.RedisScripts;
 import ext.library.redis.util.RedisUtil;
 import ext.library.security.constants.SecurityConstant;
 import ext.library.security.constants.SecurityRedisConstant;
@@ -10,27 +12,60 @@ import ext.library.tool.util.DateUtil;
 import ext.library.tool.util.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
 
 import jakarta.annotation.Nonnull;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * <p>
  * redis 存储
  * </p>
+ * session 与 token 各为一个 hash，简单字段直接存储，集合字段存储为 json。每个登录 Id 的 session 与其 token 索引
+ * (zset，score 为过期时间戳) 使用相同的 hash tag；全部 token 另有字典序索引与过期索引，查询 token 列表时不扫描键空间，
+ * 写入与查询时清理索引中已过期的 token，删除 session 时一并删除其 token。
+ * 一次保存的多条命令 (包括写入索引) 通过 pipeline 一次往返完成，token 的过期时间由创建时间推算，不再额外读取 TTL。
+ * token 与索引位于不同 slot，无法放入同一事务或脚本，写入中途失败时索引可能残留，查询时按过期索引清理。
+ * <p>
+ * 兼容旧版本以 json 字符串存储的数据：新结构中不存在时读取旧 key，保存时写入新结构并删除旧 key，
+ * 也可调用 {@link #migrateLegacy()} 一次性迁移
  */
 public class SecurityRedisRepository implements SecurityRepository {
+    /** 永不过期的 token 在索引中的 score */
+    private static final double NON_EXPIRING_SCORE = Long.MAX_VALUE;
+
+    /** 以 json 存储的字段 */
+    private static final Set<String> JSON_FIELDS = Set.of("mountData", "currentSecurityToken", "tokenInfoList", "tokenMountData");
+
+    /** 旧版本 session key 匹配规则 */
+    private static final String LEGACY_SESSION_PATTERN = StringUtil.format(SecurityRedisConstant.SESSION_INFO_KEY, "*");
+
+    /** 旧版本 token key 匹配规则 */
+    private static final String LEGACY_TOKEN_PATTERN = StringUtil.format(SecurityRedisConstant.TOKEN_REL_LOGIN_ID_KEY, "*");
+
+    /** 每保存该数量的 token 清理一次全部 token 索引中已过期的 token */
+    private static final int INDEX_CLEANUP_INTERVAL = 64;
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
+    /** 保存 token 的次数，用于按间隔清理索引 */
+    private final AtomicLong savedTokens = new AtomicLong();
+
     /**
      * 根据登录 Id 查询 SecuritySession
      *
@@ -40,9 +75,11 @@ public class SecurityRedisRepository implements SecurityRepository {
      */
     @Override
     public SecuritySession getSecuritySessionByLoginId(String loginId) {
-        String redisKey = StringUtil.format(SecurityRedisConstant.SESSION_INFO_KEY, loginId);
-        SecuritySession session = RedisUtil.get(redisKey, SecuritySession.class);
-        return Objects.isNull(session) ? null : session;
+        Map<String, String> hash = RedisUtil.hGetAll(sessionKey(loginId));
+        if (Objects.nonNull(hash) && !hash.isEmpty()) {
+            return decode(hash, SecuritySession.class);
+        }
+        return RedisUtil.get(legacySessionKey(loginId), SecuritySession.class);
     }
 
     /**
@@ -54,20 +91,38 @@ public class SecurityRedisRepository implements SecurityRepository {
      */
     @Override
     public Long getSessionTimeoutByLoginId(String loginId) {
-        String redisKey = StringUtil.format(SecurityRedisConstant.SESSION_INFO_KEY, loginId);
-        return RedisUtil.ttl(redisKey);
+        Long ttl = RedisUtil.ttl(sessionKey(loginId));
+        if (Objects.isNull(ttl) || ttl == -2L) {
+            return RedisUtil.ttl(legacySessionKey(loginId));
+        }
+        return ttl;
     }
 
     @Override
     public boolean saveSecuritySession(@Nonnull SecuritySession session) {
-        String redisKey = StringUtil.format(SecurityRedisConstant.SESSION_INFO_KEY, session.getLoginId());
-        String sessionJson = JsonUtil.toJson(session);
-        if (null == session.getTimeout() || SecurityConstant.NON_EXPIRING.equals(session.getTimeout())) {
-            RedisUtil.set(redisKey, sessionJson);
-        } else {
-            // session 为每个 token 共用，所以每次更新时超时时间都重置为配置的最大超时时间
-            RedisUtil.setEx(redisKey, sessionJson, session.getTimeout(), TimeUnit.SECONDS);
-        }
+        String loginId = session.getLoginId();
+        String sessionKey = sessionKey(loginId);
+        String indexKey = sessionKey + SecurityRedisConstant.SESSION_TOKEN_INDEX_SUFFIX;
+        List<String> removedFields = new ArrayList<>();
+        Map<String, String> hash = encode(session, removedFields);
+        boolean nonExpiring = null == session.getTimeout() || SecurityConstant.NON_EXPIRING.equals(session.getTimeout());
+        pipelined(operations -> {
+            operations.opsForHash().putAll(sessionKey, hash);
+            if (!removedFields.isEmpty()) {
+                operations.opsForHash().delete(sessionKey, removedFields.toArray());
+            }
+            // 清理 token 索引中已过期的 token
+            operations.opsForZSet().removeRangeByScore(indexKey, Double.NEGATIVE_INFINITY, System.currentTimeMillis());
+            if (nonExpiring) {
+                operations.persist(sessionKey);
+                operations.persist(indexKey);
+            } else {
+                // session 为每个 token 共用，所以每次更新时超时时间都重置为配置的最大超时时间
+                operations.expire(sessionKey, session.getTimeout(), TimeUnit.SECONDS);
+                operations.expire(indexKey, session.getTimeout(), TimeUnit.SECONDS);
+            }
+            operations.delete(legacySessionKey(loginId));
+        });
         return true;
     }
 
@@ -80,9 +135,33 @@ public class SecurityRedisRepository implements SecurityRepository {
      */
     @Override
     public boolean removeSecuritySessionByLoginId(String loginId) {
-        // 删除 session 信息
-        String redisKey = StringUtil.format(SecurityRedisConstant.SESSION_INFO_KEY, loginId);
-        return RedisUtil.del(redisKey);
+        String sessionKey = sessionKey(loginId);
+        String indexKey = sessionKey + SecurityRedisConstant.SESSION_TOKEN_INDEX_SUFFIX;
+        List<String> tokens = new ArrayList<>();
+        var indexed = RedisUtil.zSetOps().range(indexKey, 0, -1);
+        if (Objects.nonNull(indexed) && !indexed.isEmpty()) {
+            tokens.addAll(indexed);
+        } else {
+            // 旧版本数据没有 token 索引
+            SecuritySession session = getSecuritySessionByLoginId(loginId);
+            if (Objects.nonNull(session)) {
+                session.getTokenInfoList().forEach(item -> tokens.add(item.getToken()));
+            }
+        }
+        List<Object> results = pipelined(operations -> {
+            operations.delete(List.of(sessionKey, indexKey));
+            operations.delete(legacySessionKey(loginId));
+            // session 的 token 一并删除，并从全部 token 索引中移除
+            for (String tokenValue : tokens) {
+                operations.delete(tokenKey(tokenValue));
+                operations.delete(legacyTokenKey(tokenValue));
+            }
+            if (!tokens.isEmpty()) {
+                operations.opsForZSet().remove(SecurityRedisConstant.TOKEN_LEX_INDEX_KEY, tokens.toArray());
+                operations.opsForZSet().remove(SecurityRedisConstant.TOKEN_EXPIRY_INDEX_KEY, tokens.toArray());
+            }
+        });
+        return deleted(results.subList(0, Math.min(2, results.size())));
     }
 
     /**
@@ -94,9 +173,11 @@ public class SecurityRedisRepository implements SecurityRepository {
      */
     @Override
     public SecurityToken getSecurityTokenByTokenValue(String tokenValue) {
-        String redisKey = StringUtil.format(SecurityRedisConstant.TOKEN_REL_LOGIN_ID_KEY, tokenValue);
-        SecurityToken token = RedisUtil.get(redisKey, SecurityToken.class);
-        return Objects.isNull(token) ? null : token;
+        Map<String, String> hash = RedisUtil.hGetAll(tokenKey(tokenValue));
+        if (Objects.nonNull(hash) && !hash.isEmpty()) {
+            return decode(hash, SecurityToken.class);
+        }
+        return RedisUtil.get(legacyTokenKey(tokenValue), SecurityToken.class);
     }
 
     /**
@@ -108,6 +189,10 @@ public class SecurityRedisRepository implements SecurityRepository {
      */
     @Override
     public String getActivityTimeByTokenValue(String tokenValue) {
+        String activityTime = RedisUtil.hGet(tokenKey(tokenValue), "activityTime");
+        if (Objects.nonNull(activityTime)) {
+            return activityTime;
+        }
         SecurityToken securityToken = getSecurityTokenByTokenValue(tokenValue);
         if (Objects.isNull(securityToken)) {
             return null;
@@ -116,7 +201,7 @@ public class SecurityRedisRepository implements SecurityRepository {
     }
 
     /**
-     * 根据 tokenValue 获取 token 活跃超时时间
+     * 根据 tokenValue 获取 token 超时时间
      *
      * @param tokenValue token
      *
@@ -124,8 +209,11 @@ public class SecurityRedisRepository implements SecurityRepository {
      */
     @Override
     public Long getTokenTimeOutByTokenValue(String tokenValue) {
-        String redisKey = StringUtil.format(SecurityRedisConstant.TOKEN_REL_LOGIN_ID_KEY, tokenValue);
-        return RedisUtil.ttl(redisKey);
+        Long ttl = RedisUtil.ttl(tokenKey(tokenValue));
+        if (Objects.isNull(ttl) || ttl == -2L) {
+            return RedisUtil.ttl(legacyTokenKey(tokenValue));
+        }
+        return ttl;
     }
 
     /**
@@ -163,18 +251,36 @@ public class SecurityRedisRepository implements SecurityRepository {
      */
     @Override
     public boolean saveToken(@Nonnull SecurityToken token) {
-        String redisKey = StringUtil.format(SecurityRedisConstant.TOKEN_REL_LOGIN_ID_KEY, token.getToken());
-        String tokenJson = JsonUtil.toJson(token);
-        if (null == token.getTimeout() || SecurityConstant.NON_EXPIRING.equals(token.getTimeout())) {
-            RedisUtil.set(redisKey, tokenJson);
-        } else {
-            // 获取超时时间
-            Long timeout = RedisUtil.ttl(redisKey);
-            if (Objects.isNull(timeout) || timeout <= 0) {
-                timeout = token.getTimeout();
+        String tokenValue = token.getToken();
+        String tokenKey = tokenKey(tokenValue);
+        List<String> removedFields = new ArrayList<>();
+        Map<String, String> hash = encode(token, removedFields);
+        boolean nonExpiring = null == token.getTimeout() || SecurityConstant.NON_EXPIRING.equals(token.getTimeout());
+        // 超时时间延用创建 token 时的超时时间
+        long expireAt = nonExpiring ? Long.MAX_VALUE : expireAt(token);
+        double score = nonExpiring ? NON_EXPIRING_SCORE : expireAt;
+        pipelined(operations -> {
+            operations.opsForHash().putAll(tokenKey, hash);
+            if (!removedFields.isEmpty()) {
+                operations.opsForHash().delete(tokenKey, removedFields.toArray());
+            }
+            if (nonExpiring) {
+                operations.persist(tokenKey);
+            } else {
+                operations.expireAt(tokenKey, Instant.ofEpochMilli(expireAt));
+            }
+            if (StringUtil.isNotBlank(token.getLoginId())) {
+                operations.opsForZSet().add(sessionKey(token.getLoginId()) + SecurityRedisConstant.SESSION_TOKEN_INDEX_SUFFIX, tokenValue, score);
             }
-            // 重新保存 token，超时时间需要延用创建 token 时的超时时间
-            RedisUtil.setEx(redisKey, tokenJson, timeout, TimeUnit.SECONDS);
+            // 写入全部 token 索引
+            operations.opsForZSet().add(SecurityRedisConstant.TOKEN_LEX_INDEX_KEY, tokenValue, 0D);
+            operations.opsForZSet().add(SecurityRedisConstant.TOKEN_EXPIRY_INDEX_KEY, tokenValue, score);
+            operations.delete(legacyTokenKey(tokenValue));
+        });
+        // 按间隔清理已过期的 token，索引不随写入无限增长
+        if (savedTokens.incrementAndGet() % INDEX_CLEANUP_INTERVAL == 0) {
+            Scripts.CLEANUP_SCRIPT.execute(List.of(SecurityRedisConstant.TOKEN_LEX_INDEX_KEY, SecurityRedisConstant.TOKEN_EXPIRY_INDEX_KEY),
+                    String.valueOf(System.currentTimeMillis()));
         }
         return true;
     }
@@ -188,8 +294,22 @@ public class SecurityRedisRepository implements SecurityRepository {
      */
     @Override
     public boolean removeTokenByTokenValue(String tokenValue) {
-        String redisKey = StringUtil.format(SecurityRedisConstant.TOKEN_REL_LOGIN_ID_KEY, tokenValue);
-        return RedisUtil.del(redisKey);
+        String loginId = RedisUtil.hGet(tokenKey(tokenValue), "loginId");
+        if (Objects.isNull(loginId)) {
+            SecurityToken legacyToken = RedisUtil.get(legacyTokenKey(tokenValue), SecurityToken.class);
+            loginId = Objects.isNull(legacyToken) ? null : legacyToken.getLoginId();
+        }
+        String indexKey = Objects.isNull(loginId) ? null : sessionKey(loginId) + SecurityRedisConstant.SESSION_TOKEN_INDEX_SUFFIX;
+        List<Object> results = pipelined(operations -> {
+            operations.delete(tokenKey(tokenValue));
+            operations.delete(legacyTokenKey(tokenValue));
+            if (Objects.nonNull(indexKey)) {
+                operations.opsForZSet().remove(indexKey, tokenValue);
+            }
+            operations.opsForZSet().remove(SecurityRedisConstant.TOKEN_LEX_INDEX_KEY, tokenValue);
+            operations.opsForZSet().remove(SecurityRedisConstant.TOKEN_EXPIRY_INDEX_KEY, tokenValue);
+        });
+        return deleted(results.subList(0, Math.min(2, results.size())));
     }
 
     /**
@@ -201,7 +321,12 @@ public class SecurityRedisRepository implements SecurityRepository {
      */
     @Override
     public boolean renewalTokenByTokenValue(String tokenValue) {
-        SecurityToken securityToken = getSecurityTokenByTokenValue(tokenValue);
+        Long renewed = Scripts.RENEW_SCRIPT.execute(Collections.singletonList(tokenKey(tokenValue)), DateUtil.format(LocalDateTime.now()));
+        if (Objects.nonNull(renewed) && renewed == 1L) {
+            return true;
+        }
+        // 旧版本数据，续约时迁移到新结构
+        SecurityToken securityToken = RedisUtil.get(legacyTokenKey(tokenValue), SecurityToken.class);
         if (Objects.isNull(securityToken)) {
             return false;
         }
@@ -212,25 +337,196 @@ public class SecurityRedisRepository implements SecurityRepository {
     /**
      * 查询所有 token 列表
      *
-     * @param tokenValue token 值，支持模糊匹配
+     * @param tokenValue token 值，支持前缀匹配
      * @param sortedDesc 是否降序
      *
      * @return List<String>
      */
     @Override
     public List<String> queryTokenList(String tokenValue, boolean sortedDesc) {
-        String redisKey = StringUtil.format(SecurityRedisConstant.TOKEN_REL_LOGIN_ID_KEY,
-                StringUtil.isNotBlank(tokenValue) ? tokenValue + "*" : "*");
-        Set<String> setList = RedisUtil.keys(redisKey);
-        List<String> list = null == setList ? new ArrayList<>()
-                : setList.stream()
-                .map(key -> key.substring(key.lastIndexOf(":") + 1))
-                .sorted(Comparator.comparing(String::toString))
-                .collect(Collectors.toList());
-        if (sortedDesc) {
-            Collections.reverse(list);
+        List<String> list = Scripts.QUERY_SCRIPT.execute(List.of(SecurityRedisConstant.TOKEN_LEX_INDEX_KEY, SecurityRedisConstant.TOKEN_EXPIRY_INDEX_KEY),
+                String.valueOf(System.currentTimeMillis()), StringUtil.isNotBlank(tokenValue) ? tokenValue : "", sortedDesc ? "1" : "0");
+        return Objects.isNull(list) ? new ArrayList<>() : new ArrayList<>(list);
+    }
+
+    /**
+     * 查询登录 Id 的 token 列表，通过 token 索引查询，不读取 session
+     *
+     * @param loginId 登录 Id
+     *
+     * @return token 列表
+     */
+    @Override
+    public List<String> queryTokenListByLoginId(String loginId) {
+        String indexKey = sessionKey(loginId) + SecurityRedisConstant.SESSION_TOKEN_INDEX_SUFFIX;
+        var tokens = RedisUtil.zSetOps().rangeByScore(indexKey, System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+        if (Objects.isNull(tokens) || tokens.isEmpty()) {
+            return SecurityRepository.super.queryTokenListByLoginId(loginId);
+        }
+        return List.copyOf(tokens);
+    }
+
+    /**
+     * 将旧版本以 json 字符串存储的 session 与 token 迁移到 hash 结构，使用 SCAN 遍历
+     *
+     * @return 迁移的数量
+     */
+    public long migrateLegacy() {
+        long migrated = 0L;
+        try (Cursor<String> cursor = RedisUtil.scan(LEGACY_SESSION_PATTERN, 100L)) {
+            while (cursor.hasNext()) {
+                SecuritySession session = RedisUtil.get(cursor.next(), SecuritySession.class);
+                if (Objects.nonNull(session) && Objects.nonNull(session.getLoginId())) {
+                    Long ttl = RedisUtil.ttl(legacySessionKey(session.getLoginId()));
+                    saveSecuritySession(session);
+                    // 保留剩余有效期
+                    if (Objects.nonNull(ttl) && ttl > 0) {
+                        RedisUtil.expire(sessionKey(session.getLoginId()), ttl);
+                        RedisUtil.expire(sessionKey(session.getLoginId()) + SecurityRedisConstant.SESSION_TOKEN_INDEX_SUFFIX, ttl);
+                    }
+                    migrated++;
+                }
+            }
+        }
+        try (Cursor<String> cursor = RedisUtil.scan(LEGACY_TOKEN_PATTERN, 100L)) {
+            while (cursor.hasNext()) {
+                SecurityToken token = RedisUtil.get(cursor.next(), SecurityToken.class);
+                if (Objects.nonNull(token) && Objects.nonNull(token.getToken())) {
+                    saveToken(token);
+                    migrated++;
+                }
+            }
         }
-        return list;
+        log.info("[🛡️] 迁移旧版本认证数据 {} 条", migrated);
+        return migrated;
+    }
+
+    private static String sessionKey(String loginId) {
+        return SecurityRedisConstant.SESSION_HASH_KEY + "{" + loginId + "}";
+    }
+
+    private static String tokenKey(String tokenValue) {
+        return SecurityRedisConstant.TOKEN_HASH_KEY + tokenValue;
+    }
+
+    private static String legacySessionKey(String loginId) {
+        return StringUtil.format(SecurityRedisConstant.SESSION_INFO_KEY, loginId);
+    }
+
+    private static String legacyTokenKey(String tokenValue) {
+        return StringUtil.format(SecurityRedisConstant.TOKEN_REL_LOGIN_ID_KEY, tokenValue);
+    }
+
+    /**
+     * token 的过期时间戳 (毫秒)，由创建时间与超时时间推算
+     */
+    private static long expireAt(SecurityToken token) {
+        LocalDateTime createTime = StringUtil.isNotBlank(token.getCreateTime()) ? DateUtil.parse(token.getCreateTime()) : LocalDateTime.now();
+        long expireAt = createTime.plusSeconds(token.getTimeout()).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        // 创建时间异常时至少保留一秒，由 redis 过期删除
+        return Math.max(expireAt, System.currentTimeMillis() + 1000L);
+    }
+
+    /**
+     * 对象转为 hash，简单字段直接存储，集合与对象字段 ({@link #JSON_FIELDS}) 存储为 json
+     *
+     * @param value         对象
+     * @param removedFields 值为 null 的字段，保存时从 hash 中删除
+     */
+    private static Map<String, String> encode(Object value, List<String> removedFields) {
+        Map<String, Object> map = JsonUtil.readMap(JsonUtil.toJson(value));
+        Map<String, String> hash = new LinkedHashMap<>(map.size());
+        map.forEach((field, fieldValue) -> {
+            if (Objects.isNull(fieldValue)) {
+                removedFields.add(field);
+            } else {
+                hash.put(field, JSON_FIELDS.contains(field) ? JsonUtil.toJson(fieldValue) : String.valueOf(fieldValue));
+            }
+        });
+        return hash;
+    }
+
+    /**
+     * hash 转为对象，仅 {@link #JSON_FIELDS} 中的字段按 json 解析，其余字段原样作为字符串
+     */
+    private static <T> T decode(Map<String, String> hash, Class<T> clazz) {
+        Map<String, Object> map = new LinkedHashMap<>(hash.size());
+        hash.forEach((field, fieldValue) -> {
+            if (!JSON_FIELDS.contains(field)) {
+                map.put(field, fieldValue);
+            } else if (fieldValue.startsWith("[")) {
+                map.put(field, JsonUtil.readList(fieldValue, Object.class));
+            } else {
+                map.put(field, JsonUtil.readMap(fieldValue));
+            }
+        });
+        return JsonUtil.convert(map, clazz);
+    }
+
+    private static boolean deleted(List<Object> results) {
+        return results.stream().anyMatch(result -> Boolean.TRUE.equals(result) || (result instanceof Number number && number.longValue() > 0));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> pipelined(Consumer<RedisOperations<String, String>> commands) {
+        return RedisUtil.executePipelined(new SessionCallback<>() {
+            @Override
+            public <K, V> Object execute(@Nonnull RedisOperations<K, V> operations) {
+                commands.accept((RedisOperations<String, String>) operations);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * lua 脚本，首次使用时注册，仅使用内存存储时不加载 redis 相关类
+     */
+    private static final class Scripts {
+        /**
+         * 续约，token 存在时更新活跃时间
+         */
+        // language=redis
+        private static final LuaScript<Long> RENEW_SCRIPT = RedisScripts.register("security_token_renew", """
+                if redis.call('EXISTS', KEYS[1]) == 1 then
+                    redis.call('HSET', KEYS[1], 'activityTime', ARGV[1])
+                    return 1
+                end
+                return 0
+                """, Long.class);
+
+        /**
+         * 清理全部 token 索引中最多 1000 个已过期的 token，ARGV[1] 为当前时间
+         */
+        // language=redis
+        private static final LuaScript<Long> CLEANUP_SCRIPT = RedisScripts.register("security_token_index_cleanup", """
+                local expired = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', ARGV[1], 'LIMIT', 0, 1000)
+                if #expired > 0 then
+                    redis.call('ZREM', KEYS[2], unpack(expired))
+                    redis.call('ZREM', KEYS[1], unpack(expired))
+                end
+                return #expired
+                """, Long.class);
+
+        /**
+         * 清理过期 token 后按字典序查询，ARGV[2] 为前缀，ARGV[3] 为 1 时降序
+         */
+        // language=redis
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        private static final LuaScript<List<String>> QUERY_SCRIPT = (LuaScript) RedisScripts.register("security_token_query", """
+                local expired = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', ARGV[1], 'LIMIT', 0, 1000)
+                if #expired > 0 then
+                    redis.call('ZREM', KEYS[2], unpack(expired))
+                    redis.call('ZREM', KEYS[1], unpack(expired))
+                end
+                local min, max = '-', '+'
+                if ARGV[2] ~= '' then
+                    min, max = '[' .. ARGV[2], '[' .. ARGV[2] .. '\\255'
+                end
+                if ARGV[3] == '1' then
+                    return redis.call('ZREVRANGEBYLEX', KEYS[1], max, min)
+                end
+                return redis.call('ZRANGEBYLEX', KEYS[1], min, max)
+                """, List.class);
     }
 
-}
\ No newline at end of file
+}
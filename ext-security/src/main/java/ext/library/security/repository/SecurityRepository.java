@@ -2,7 +2,9 @@ package ext.library.security.repository;
 
 import ext.library.security.domain.SecuritySession;
 import ext.library.security.domain.SecurityToken;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * <p>
@@ -99,4 +101,17 @@ public interface SecurityRepository {
 	 */
 	List<String> queryTokenList(String tokenValue, boolean sortedDesc);
 
+	/**
+	 * 查询登录 Id 的 token 列表
+	 * @param loginId 登录 Id
+	 * @return token 列表
+	 */
+	default List<String> queryTokenListByLoginId(String loginId) {
+		SecuritySession session = getSecuritySessionByLoginId(loginId);
+		if (Objects.isNull(session) || Objects.isNull(session.getTokenInfoList())) {
+			return Collections.emptyList();
+		}
+		return session.getTokenInfoList().stream().map(SecurityToken::getToken).toList();
+	}
+
 }
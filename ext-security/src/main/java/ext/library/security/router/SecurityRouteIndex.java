@@ -0,0 +1,128 @@
+package ext.library.security.router;
+
+import ext.library.security.config.properties.SecurityProperties;
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import org.springframework.web.util.pattern.PatternParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * 预编译的路由索引
+ * </p>
+ * 启动时将配置中的 include/exclude 路由解析为 {@link PathPattern}，请求时只做匹配；
+ * 配置刷新 (列表被重新绑定) 后在下一次匹配时重新编译。{@link PathPatternParser} 不支持的写法 (如中间的 **) 回退到 {@link AntPathMatcher}
+ */
+public class SecurityRouteIndex {
+    /** 全局忽略的路由 */
+    private static final List<String> GLOBAL_EXCLUDES = List.of("/error");
+
+    private static final PathMatcher ANT_PATH_MATCHER = new AntPathMatcher();
+
+    /** 编译后的路由，包含代码中通过 SecurityRouter 指定的路由 */
+    private static final Map<String, CompiledPattern> COMPILED = new ConcurrentHashMap<>();
+
+    private final SecurityProperties securityProperties;
+
+    private volatile Routes routes;
+
+    public SecurityRouteIndex(SecurityProperties securityProperties) {
+        this.securityProperties = securityProperties;
+        this.routes = compile();
+    }
+
+    /**
+     * 路由匹配
+     *
+     * @param pattern 匹配值
+     * @param path    路径
+     *
+     * @return 是否匹配
+     */
+    public static boolean match(String pattern, String path) {
+        return compile(pattern).matches(path, PathContainer.parsePath(path));
+    }
+
+    /**
+     * 是否需要鉴权，未被 include 匹配或被 exclude 匹配时不需要
+     *
+     * @param path 请求路径
+     */
+    public boolean isProtected(String path) {
+        Routes current = getRoutes();
+        PathContainer container = PathContainer.parsePath(path);
+        return anyMatch(current.includes(), path, container) && !anyMatch(current.excludes(), path, container);
+    }
+
+    /**
+     * 是否被 exclude 匹配
+     *
+     * @param path 请求路径
+     */
+    public boolean isExcluded(String path) {
+        return anyMatch(getRoutes().excludes(), path, PathContainer.parsePath(path));
+    }
+
+    private static boolean anyMatch(List<CompiledPattern> patterns, String path, PathContainer container) {
+        for (CompiledPattern pattern : patterns) {
+            if (pattern.matches(path, container)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Routes getRoutes() {
+        Routes current = routes;
+        if (current.includeSource() != securityProperties.getIncludePaths() || current.excludeSource() != securityProperties.getExcludePaths()) {
+            current = compile();
+            routes = current;
+        }
+        return current;
+    }
+
+    private Routes compile() {
+        List<String> includeSource = securityProperties.getIncludePaths();
+        List<String> excludeSource = securityProperties.getExcludePaths();
+        List<CompiledPattern> excludes = new ArrayList<>(GLOBAL_EXCLUDES.size() + excludeSource.size());
+        GLOBAL_EXCLUDES.forEach(pattern -> excludes.add(compile(pattern)));
+        excludeSource.forEach(pattern -> excludes.add(compile(pattern)));
+        return new Routes(includeSource, excludeSource, includeSource.stream().map(SecurityRouteIndex::compile).toList(), List.copyOf(excludes));
+    }
+
+    private static CompiledPattern compile(String pattern) {
+        return COMPILED.computeIfAbsent(pattern, p -> {
+            try {
+                return new CompiledPattern(p, PathPatternParser.defaultInstance.parse(p));
+            } catch (PatternParseException e) {
+                return new CompiledPattern(p, null);
+            }
+        });
+    }
+
+    /**
+     * 编译后的路由
+     *
+     * @param pattern     原始路由
+     * @param pathPattern 解析后的路由，不支持时为 null
+     */
+    private record CompiledPattern(String pattern, PathPattern pathPattern) {
+        boolean matches(String path, PathContainer container) {
+            return Objects.nonNull(pathPattern) ? pathPattern.matches(container) : ANT_PATH_MATCHER.match(pattern, path);
+        }
+    }
+
+    /**
+     * 编译后的路由列表，保留原始列表用于判断配置是否刷新
+     */
+    private record Routes(List<String> includeSource, List<String> excludeSource, List<CompiledPattern> includes, List<CompiledPattern> excludes) {
+    }
+}
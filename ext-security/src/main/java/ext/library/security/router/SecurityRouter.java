@@ -1,17 +1,17 @@
 package ext.library.security.router;
 
 import ext.library.core.util.ServletUtil;
+import ext.library.core.util.SpringUtil;
 import ext.library.security.annotion.RequiresPermissions;
 import ext.library.security.annotion.RequiresRoles;
 import ext.library.security.annotion.SecurityIgnore;
 import ext.library.security.exception.ForbiddenException;
 import ext.library.security.util.PermissionUtil;
 import ext.library.security.util.SecurityUtil;
+import ext.library.tool.holder.Lazy;
 import ext.library.tool.util.ClassUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.util.AntPathMatcher;
-import org.springframework.util.PathMatcher;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -26,16 +26,16 @@ import java.util.function.BooleanSupplier;
  * </p>
  */
 public class SecurityRouter {
+    private static final Lazy<SecurityRouteIndex> routeIndex = Lazy.of(() -> SpringUtil.getBean(SecurityRouteIndex.class));
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     /**
-     * 忽略路由匹配列表
+     * 忽略路由匹配列表，配置中的路由由 {@link SecurityRouteIndex} 匹配
      */
     private final List<String> excludePathList = new ArrayList<>();
 
     private SecurityRouter() {
-        // 全局忽略
-        excludePathList.add("/error");
     }
 
     public static SecurityRouter build() {
@@ -53,7 +53,7 @@ public class SecurityRouter {
         // 判断是否检查角色
         RequiresRoles requiresRoles = ClassUtil.getAnnotation(method, RequiresRoles.class);
         if (Objects.nonNull(requiresRoles)) {
-            if (!PermissionUtil.hasMultiPermValid(List.of(requiresRoles.value()), requiresRoles.logical(), PermissionUtil.getRoles())) {
+            if (!PermissionUtil.hasMultiPermValid(List.of(requiresRoles.value()), requiresRoles.logical(), PermissionUtil.getGrants().roleTrie())) {
                 throw new ForbiddenException("无角色权限");
             }
         }
@@ -61,7 +61,7 @@ public class SecurityRouter {
         // 判断是否检查权限
         RequiresPermissions requiresPermissions = ClassUtil.getAnnotation(method, RequiresPermissions.class);
         if (Objects.nonNull(requiresPermissions)) {
-            if (!PermissionUtil.hasMultiPermValid(List.of(requiresPermissions.value()), requiresPermissions.logical(), PermissionUtil.getPermissions())) {
+            if (!PermissionUtil.hasMultiPermValid(List.of(requiresPermissions.value()), requiresPermissions.logical(), PermissionUtil.getGrants().permissionTrie())) {
                 throw new ForbiddenException("无访问权限");
             }
         }
@@ -99,8 +99,7 @@ public class SecurityRouter {
      * @return 是否匹配
      */
     private boolean routePathMatch(String pattern, String path) {
-        PathMatcher pathMatcher = new AntPathMatcher();
-        return pathMatcher.match(pattern, path);
+        return SecurityRouteIndex.match(pattern, path);
     }
 
     /**
@@ -124,8 +123,26 @@ public class SecurityRouter {
      */
     private boolean checkExcludeMatch() {
         String path = ServletUtil.getRequest().getRequestURI();
-        if (excludePathList.isEmpty()) {
-            return false;
+        if (routeIndex.get().isExcluded(path)) {
+            return true;
+        }
+        for (String pattern : excludePathList) {
+            if (routePathMatch(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否不需要鉴权，未被 include 匹配或被 exclude 匹配
+     *
+     * @return true 忽略 false 不忽略
+     */
+    private boolean checkIgnorePath() {
+        String path = ServletUtil.getRequest().getRequestURI();
+        if (!routeIndex.get().isProtected(path)) {
+            return true;
         }
         for (String pattern : excludePathList) {
             if (routePathMatch(pattern, path)) {
@@ -145,7 +162,7 @@ public class SecurityRouter {
     public boolean run(Method method) {
         // 判断忽略鉴权
         SecurityIgnore securityIgnore = ClassUtil.getAnnotation(method, SecurityIgnore.class);
-        if (!checkExcludeMatch() && Objects.isNull(securityIgnore)) {
+        if (Objects.isNull(securityIgnore) && !checkIgnorePath()) {
             // 验证方法权限
             checkMethodPermission(method);
         }
@@ -532,7 +532,7 @@ public interface SecurityService {
      * @return true 有 false 没有
      */
     default Boolean hasRole(String[] roleCode, Logical logical) {
-        return PermissionUtil.hasMultiPermValid(List.of(roleCode), logical, PermissionUtil.getRoles());
+        return PermissionUtil.hasMultiPermValid(List.of(roleCode), logical, PermissionUtil.getGrants().roleTrie());
     }
 
     /**
@@ -555,7 +555,7 @@ public interface SecurityService {
      * @return true 有 false 没有
      */
     default Boolean hasPermission(String[] permissionCode, Logical logical) {
-        return PermissionUtil.hasMultiPermValid(List.of(permissionCode), logical, PermissionUtil.getPermissions());
+        return PermissionUtil.hasMultiPermValid(List.of(permissionCode), logical, PermissionUtil.getGrants().permissionTrie());
     }
 
     /**
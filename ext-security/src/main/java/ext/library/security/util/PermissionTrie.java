@@ -0,0 +1,138 @@
+package ext.library.security.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 权限码通配索引
+ * <p>
+ * 将一组权限码 (可包含通配符 *，匹配任意长度字符) 编译为前缀树，不含 * 的权限码直接放入 hash 集合。
+ * 匹配时在树上同时推进所有可达节点，* 节点可吸收任意字符，耗时与被匹配的权限码长度成线性关系，与权限码数量无关
+ */
+public final class PermissionTrie {
+    /** 通配符 */
+    private static final char WILDCARD = '*';
+
+    /** 不含通配符的权限码 */
+    private final Set<String> exact = new HashSet<>();
+
+    /** 含通配符的权限码前缀树 */
+    private final Node root = new Node();
+
+    private boolean hasWildcard;
+
+    private PermissionTrie(Collection<String> patterns) {
+        for (String pattern : patterns) {
+            if (pattern == null || pattern.isBlank()) {
+                continue;
+            }
+            if (pattern.indexOf(WILDCARD) < 0) {
+                exact.add(pattern);
+            } else {
+                insert(pattern);
+                hasWildcard = true;
+            }
+        }
+    }
+
+    /**
+     * 编译权限码
+     *
+     * @param patterns 权限码，可包含通配符 *
+     *
+     * @return 权限码索引
+     */
+    public static PermissionTrie of(Collection<String> patterns) {
+        return new PermissionTrie(Objects.requireNonNullElse(patterns, List.of()));
+    }
+
+    /**
+     * 是否有权限码匹配
+     *
+     * @param code 权限码
+     *
+     * @return true 匹配
+     */
+    public boolean matches(String code) {
+        if (code == null || code.isBlank()) {
+            return false;
+        }
+        if (exact.contains(code)) {
+            return true;
+        }
+        if (!hasWildcard) {
+            return false;
+        }
+        List<Node> active = new ArrayList<>();
+        addClosure(active, root);
+        List<Node> next = new ArrayList<>();
+        for (int i = 0; i < code.length() && !active.isEmpty(); i++) {
+            char c = code.charAt(i);
+            for (Node node : active) {
+                if (node.loop) {
+                    addClosure(next, node);
+                }
+                Node child = node.children.get(c);
+                if (child != null) {
+                    addClosure(next, child);
+                }
+            }
+            List<Node> swap = active;
+            active = next;
+            next = swap;
+            next.clear();
+        }
+        for (Node node : active) {
+            if (node.terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void insert(String pattern) {
+        Node node = root;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == WILDCARD) {
+                // 连续的 * 等价于一个
+                if (!node.loop) {
+                    if (node.star == null) {
+                        node.star = new Node();
+                        node.star.loop = true;
+                    }
+                    node = node.star;
+                }
+            } else {
+                node = node.children.computeIfAbsent(c, k -> new Node());
+            }
+        }
+        node.terminal = true;
+    }
+
+    /**
+     * 加入节点及其 * 子节点 (* 可匹配空串)
+     */
+    private static void addClosure(List<Node> nodes, Node node) {
+        while (node != null && !nodes.contains(node)) {
+            nodes.add(node);
+            node = node.star;
+        }
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        /** 通配符子节点 */
+        private Node star;
+        /** 是否为通配符节点，可吸收任意字符 */
+        private boolean loop;
+        /** 是否为权限码结尾 */
+        private boolean terminal;
+    }
+}
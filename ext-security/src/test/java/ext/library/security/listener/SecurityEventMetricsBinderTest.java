@@ -0,0 +1,52 @@
+package ext.library.security.listener;
+
+import ext.library.security.config.properties.SecurityProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("异步事件分发指标测试")
+class SecurityEventMetricsBinderTest {
+
+    @Test
+    @DisplayName("测试监听器指标在创建分发线程时注册")
+    void bind() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CountDownLatch latch = new CountDownLatch(2);
+        SecurityListener failing = new SecurityListener() {
+            @Override
+            public void doLoginOut(String loginId, String token, String deviceType) {
+                latch.countDown();
+                throw new IllegalStateException("test");
+            }
+        };
+        try (SecurityEventDispatcher dispatcher = new SecurityEventDispatcher(new SecurityProperties.EventProperties())) {
+            new SecurityEventMetricsBinder(dispatcher).bindTo(registry);
+            assertNotNull(registry.find("security.event.queue.depth.total").gauge());
+
+            SecurityEvent event = SecurityEvent.of(SecurityEvent.Type.LOGIN_OUT, "1", "token", "pc", null);
+            dispatcher.publish(event, List.of(failing));
+            dispatcher.publish(event, List.of(failing));
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+            String listener = failing.getClass().getName();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (registry.get("security.event.deliveries").tag("listener", listener).functionCounter().count() < 2 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            assertEquals(2D, registry.get("security.event.events").tag("listener", listener).functionCounter().count());
+            assertEquals(2D, registry.get("security.event.errors").tag("listener", listener).functionCounter().count());
+            assertEquals(0D, registry.get("security.event.dropped").tag("listener", listener).functionCounter().count());
+            assertEquals(0D, registry.get("security.event.queue.depth").tag("listener", listener).gauge().value());
+            assertNotNull(registry.find("security.event.delivery.max").tag("listener", listener).gauge());
+        }
+    }
+}
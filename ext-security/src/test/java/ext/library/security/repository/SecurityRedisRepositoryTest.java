@@ -0,0 +1,163 @@
+package ext.library.security.repository;
+
+import ext.library.core.util.SpringUtil;
+import ext.library.json.util.JsonUtil;
+import ext.library.redis.config.RedisAutoConfig;
+import ext.library.redis.util.RedisUtil;
+import ext.library.security.constants.SecurityRedisConstant;
+import ext.library.security.domain.SecuritySession;
+import ext.library.security.domain.SecurityToken;
+import ext.library.tool.util.DateUtil;
+import ext.library.tool.util.IDUtil;
+import ext.library.tool.util.StringUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 需要本机 6379 端口的 Redis，不可用时跳过
+ */
+@DisplayName("认证数据 redis 存储测试")
+@SpringBootTest(classes = SpringUtil.class)
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, RedisAutoConfig.class, RedisAutoConfiguration.class})
+class SecurityRedisRepositoryTest {
+
+    private final SecurityRedisRepository repository = new SecurityRedisRepository();
+
+    @BeforeAll
+    static void requireRedis() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", 6379), 200);
+        } catch (IOException e) {
+            assumeTrue(false, "Redis 不可用");
+        }
+    }
+
+    @Test
+    @DisplayName("测试 hash 编解码")
+    void hash() {
+        String loginId = IDUtil.getUUID();
+        SecurityToken token = token(loginId);
+        token.getTokenMountData().put("tenant", "t1");
+        SecuritySession session = session(loginId, token);
+        session.getMountData().put("name", "张三");
+        try {
+            assertTrue(repository.saveToken(token));
+            assertTrue(repository.saveSecuritySession(session));
+
+            Map<String, String> hash = RedisUtil.hGetAll(SecurityRedisConstant.TOKEN_HASH_KEY + token.getToken());
+            assertEquals(loginId, hash.get("loginId"));
+            assertEquals("3600", hash.get("timeout"));
+            assertEquals("{\"tenant\":\"t1\"}", hash.get("tokenMountData"));
+            // null 字段不写入
+            assertFalse(hash.containsKey("deviceType"));
+
+            SecurityToken loaded = repository.getSecurityTokenByTokenValue(token.getToken());
+            assertEquals(token.getToken(), loaded.getToken());
+            assertEquals(3600L, loaded.getTimeout());
+            assertEquals(-1L, loaded.getActivityTimeout());
+            assertEquals(token.getCreateTime(), loaded.getCreateTime());
+            assertEquals("t1", loaded.getAttribute("tenant"));
+            assertNull(loaded.getDeviceType());
+            assertEquals(token.getActivityTime(), repository.getActivityTimeByTokenValue(token.getToken()));
+            long ttl = repository.getTokenTimeOutByTokenValue(token.getToken());
+            assertTrue(ttl > 3500 && ttl <= 3600, String.valueOf(ttl));
+
+            SecuritySession loadedSession = repository.getSecuritySessionByLoginId(loginId);
+            assertEquals(session.getSecuritySessionId(), loadedSession.getSecuritySessionId());
+            assertEquals("张三", loadedSession.getAttribute("name"));
+            assertEquals(1, loadedSession.getTokenInfoList().size());
+            assertEquals(token.getToken(), loadedSession.getTokenInfoList().getFirst().getToken());
+            assertEquals(List.of(token.getToken()), repository.queryTokenListByLoginId(loginId));
+            assertTrue(repository.queryTokenList(token.getToken(), false).contains(token.getToken()));
+        } finally {
+            repository.removeSecuritySessionByLoginId(loginId);
+        }
+        assertNull(repository.getSecurityTokenByTokenValue(token.getToken()));
+        assertFalse(repository.queryTokenList(token.getToken(), false).contains(token.getToken()));
+    }
+
+    @Test
+    @DisplayName("测试读取旧版本数据")
+    void legacy() {
+        String loginId = IDUtil.getUUID();
+        SecurityToken token = token(loginId);
+        SecuritySession session = session(loginId, token);
+        String legacyTokenKey = StringUtil.format(SecurityRedisConstant.TOKEN_REL_LOGIN_ID_KEY, token.getToken());
+        String legacySessionKey = StringUtil.format(SecurityRedisConstant.SESSION_INFO_KEY, loginId);
+        RedisUtil.set(legacyTokenKey, JsonUtil.toJson(token), 3600L);
+        RedisUtil.set(legacySessionKey, JsonUtil.toJson(session), 3600L);
+        try {
+            assertEquals(loginId, repository.getSecurityTokenByTokenValue(token.getToken()).getLoginId());
+            assertEquals(token.getActivityTime(), repository.getActivityTimeByTokenValue(token.getToken()));
+            assertTrue(repository.getTokenTimeOutByTokenValue(token.getToken()) > 0);
+            assertEquals(session.getSecuritySessionId(), repository.getSecuritySessionByLoginId(loginId).getSecuritySessionId());
+            assertTrue(repository.getSessionTimeoutByLoginId(loginId) > 0);
+            // 没有 token 索引时从 session 读取
+            assertEquals(List.of(token.getToken()), repository.queryTokenListByLoginId(loginId));
+
+            // 续约时迁移到新结构
+            assertTrue(repository.renewalTokenByTokenValue(token.getToken()));
+            assertFalse(RedisUtil.exists(legacyTokenKey));
+            assertNotNull(RedisUtil.hGet(SecurityRedisConstant.TOKEN_HASH_KEY + token.getToken(), "loginId"));
+        } finally {
+            repository.removeSecuritySessionByLoginId(loginId);
+        }
+        assertFalse(RedisUtil.exists(legacySessionKey));
+        assertNull(repository.getSecurityTokenByTokenValue(token.getToken()));
+    }
+
+    @Test
+    @DisplayName("测试迁移旧版本数据")
+    void migrateLegacy() {
+        String loginId = IDUtil.getUUID();
+        SecurityToken token = token(loginId);
+        SecuritySession session = session(loginId, token);
+        String legacyTokenKey = StringUtil.format(SecurityRedisConstant.TOKEN_REL_LOGIN_ID_KEY, token.getToken());
+        String legacySessionKey = StringUtil.format(SecurityRedisConstant.SESSION_INFO_KEY, loginId);
+        RedisUtil.set(legacyTokenKey, JsonUtil.toJson(token), 3600L);
+        RedisUtil.set(legacySessionKey, JsonUtil.toJson(session), 600L);
+        try {
+            assertTrue(repository.migrateLegacy() >= 2);
+            assertFalse(RedisUtil.exists(legacyTokenKey));
+            assertFalse(RedisUtil.exists(legacySessionKey));
+            assertEquals(loginId, RedisUtil.hGet(SecurityRedisConstant.TOKEN_HASH_KEY + token.getToken(), "loginId"));
+            assertEquals(session.getSecuritySessionId(), repository.getSecuritySessionByLoginId(loginId).getSecuritySessionId());
+            // 保留旧数据的剩余有效期
+            long ttl = repository.getSessionTimeoutByLoginId(loginId);
+            assertTrue(ttl > 0 && ttl <= 600, String.valueOf(ttl));
+            assertEquals(List.of(token.getToken()), repository.queryTokenListByLoginId(loginId));
+        } finally {
+            repository.removeSecuritySessionByLoginId(loginId);
+        }
+    }
+
+    private static SecurityToken token(String loginId) {
+        String now = DateUtil.format(LocalDateTime.now());
+        return new SecurityToken(IDUtil.getUUID(), loginId, null, 3600L, now, -1L, "1", now, now);
+    }
+
+    private static SecuritySession session(String loginId, SecurityToken token) {
+        String now = DateUtil.format(LocalDateTime.now());
+        return new SecuritySession(IDUtil.getUUID(), loginId, 3600L, token, now, now, new ArrayList<>(List.of(token)), 1L);
+    }
+}
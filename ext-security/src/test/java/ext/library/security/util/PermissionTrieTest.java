@@ -0,0 +1,83 @@
+package ext.library.security.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("权限码通配索引测试")
+class PermissionTrieTest {
+
+    @Test
+    @DisplayName("测试 * 位于开头、中间、结尾")
+    void wildcardPosition() {
+        PermissionTrie trie = PermissionTrie.of(List.of("*:delete", "user:*:view", "order:*"));
+        assertTrue(trie.matches("user:delete"));
+        assertTrue(trie.matches(":delete"));
+        assertFalse(trie.matches("user:delete:all"));
+
+        assertTrue(trie.matches("user:profile:view"));
+        assertTrue(trie.matches("user::view"));
+        assertTrue(trie.matches("user:a:b:view"));
+        assertFalse(trie.matches("user:profile:edit"));
+
+        assertTrue(trie.matches("order:"));
+        assertTrue(trie.matches("order:add:batch"));
+        assertFalse(trie.matches("orders:add"));
+    }
+
+    @Test
+    @DisplayName("测试连续的 *")
+    void consecutiveWildcards() {
+        PermissionTrie trie = PermissionTrie.of(List.of("user:**", "a***b"));
+        assertTrue(trie.matches("user:"));
+        assertTrue(trie.matches("user:add"));
+        assertTrue(trie.matches("ab"));
+        assertTrue(trie.matches("axyzb"));
+        assertFalse(trie.matches("axyz"));
+        assertTrue(PermissionTrie.of(List.of("**")).matches("anything"));
+    }
+
+    @Test
+    @DisplayName("测试多个通配模式重叠")
+    void overlapping() {
+        PermissionTrie trie = PermissionTrie.of(List.of("user:*:view", "user:admin:*", "user:*:*:edit"));
+        assertTrue(trie.matches("user:admin:view"));
+        assertTrue(trie.matches("user:admin:delete"));
+        assertTrue(trie.matches("user:x:y:edit"));
+        // 前一个 * 吸收过多字符时仍能回到其他分支
+        assertTrue(trie.matches("user:view:view"));
+        assertFalse(trie.matches("user:guest:delete"));
+        assertFalse(trie.matches("role:admin:view"));
+    }
+
+    @Test
+    @DisplayName("测试空白权限码")
+    void blank() {
+        PermissionTrie trie = PermissionTrie.of(Arrays.asList("", " ", null, "user:add"));
+        assertFalse(trie.matches(null));
+        assertFalse(trie.matches(""));
+        assertFalse(trie.matches(" "));
+        assertTrue(trie.matches("user:add"));
+        assertFalse(PermissionTrie.of(null).matches("user:add"));
+        assertFalse(PermissionTrie.of(List.of("*")).matches(""));
+    }
+
+    @Test
+    @DisplayName("测试与逐个模糊匹配结果一致")
+    void consistentWithStrMatch() {
+        List<String> patterns = List.of("*", "a*", "*b", "a*b", "a**c", "*a*", "abc", "a*b*c");
+        List<String> codes = List.of("a", "b", "ab", "abc", "acb", "aXbYc", "ba", "c", "aaa");
+        for (String pattern : patterns) {
+            PermissionTrie trie = PermissionTrie.of(List.of(pattern));
+            for (String code : codes) {
+                assertEquals(PermissionUtil.strMatch(code, pattern), trie.matches(code), pattern + " -> " + code);
+            }
+        }
+    }
+}
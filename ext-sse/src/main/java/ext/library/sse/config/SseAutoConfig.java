@@ -1,5 +1,6 @@
 package ext.library.sse.config;
 
+import ext.library.redis.presence.PresenceRegistry;
 import ext.library.sse.config.properties.SseProperties;
 import ext.library.sse.controller.SseController;
 import ext.library.sse.listener.SseTopicListener;
@@ -21,8 +22,12 @@ public class SseAutoConfig {
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     @Bean
-    public SseEmitterManager sseEmitterManager() {
-        return new SseEmitterManager();
+    public SseEmitterManager sseEmitterManager(SseProperties sseProperties) {
+        SseProperties.PresenceProperties presence = sseProperties.getPresence();
+        if (Boolean.TRUE.equals(presence.getEnabled())) {
+            return new SseEmitterManager(sseProperties.getBroadcast(), new PresenceRegistry(SseEmitterManager.SSE_TOPIC, presence.getTtl()));
+        }
+        return new SseEmitterManager(sseProperties.getBroadcast());
     }
 
     @Bean
@@ -4,6 +4,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
 import jakarta.validation.constraints.Pattern;
+import java.time.Duration;
 
 /**
  * SSE 配置项
@@ -23,6 +24,16 @@ public class SseProperties {
     @Pattern(regexp = "^/(?:[a-zA-Z0-9\\-._~!$&'()*+,;=:@/%]*|\\*{1,2})*$")
     private String path;
 
+    /**
+     * 消息分发配置
+     */
+    private BroadcastProperties broadcast = new BroadcastProperties();
+
+    /**
+     * 在线状态配置
+     */
+    private PresenceProperties presence = new PresenceProperties();
+
     public Boolean getEnabled() {
         return enabled;
     }
@@ -38,4 +49,143 @@ public class SseProperties {
     public void setPath(String path) {
         this.path = path;
     }
-}
\ No newline at end of file
+
+    public BroadcastProperties getBroadcast() {
+        return broadcast;
+    }
+
+    public void setBroadcast(BroadcastProperties broadcast) {
+        this.broadcast = broadcast;
+    }
+
+    public PresenceProperties getPresence() {
+        return presence;
+    }
+
+    public void setPresence(PresenceProperties presence) {
+        this.presence = presence;
+    }
+
+    public static class BroadcastProperties {
+
+        /**
+         * 连接分片数，小于等于 0 时为 CPU 核数
+         */
+        private Integer buckets = 0;
+
+        /**
+         * 每个分片最多排队的事件数
+         */
+        private Integer queueCapacity = 10000;
+
+        /**
+         * 分片每次最多合并写入的事件数
+         */
+        private Integer batchSize = 64;
+
+        /**
+         * 心跳间隔，连接超过该时间没有写入时发送注释帧，写入失败的连接被清理
+         */
+        private Duration heartbeatInterval = Duration.ofSeconds(15L);
+
+        /**
+         * 每个连接保留的最近事件数，用于按 Last-Event-ID 重放
+         */
+        private Integer replaySize = 16;
+
+        /**
+         * 连接断开后保留重放缓存的时间
+         */
+        private Duration replayRetention = Duration.ofMinutes(2L);
+
+        /**
+         * 每个连接最多待写入的事件数，超过时断开连接，客户端重连后按 Last-Event-ID 重放
+         */
+        private Integer pendingCapacity = 256;
+
+        public Integer getBuckets() {
+            return buckets;
+        }
+
+        public void setBuckets(Integer buckets) {
+            this.buckets = buckets;
+        }
+
+        public Integer getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(Integer queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Integer getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(Integer batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getHeartbeatInterval() {
+            return heartbeatInterval;
+        }
+
+        public void setHeartbeatInterval(Duration heartbeatInterval) {
+            this.heartbeatInterval = heartbeatInterval;
+        }
+
+        public Integer getReplaySize() {
+            return replaySize;
+        }
+
+        public void setReplaySize(Integer replaySize) {
+            this.replaySize = replaySize;
+        }
+
+        public Duration getReplayRetention() {
+            return replayRetention;
+        }
+
+        public void setReplayRetention(Duration replayRetention) {
+            this.replayRetention = replayRetention;
+        }
+
+        public Integer getPendingCapacity() {
+            return pendingCapacity;
+        }
+
+        public void setPendingCapacity(Integer pendingCapacity) {
+            this.pendingCapacity = pendingCapacity;
+        }
+    }
+
+    public static class PresenceProperties {
+
+        /**
+         * 启用在线状态登记，启用后单发消息只发布到接收者所在节点的通道，关闭时发布到全局通道
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 在线登记有效期，节点按 1/3 有效期续期，节点宕机后登记在有效期内失效
+         */
+        private Duration ttl = Duration.ofSeconds(60L);
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.beans.factory.DisposableBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
@@ -30,12 +31,14 @@ public class SseController implements DisposableBean {
 
     /**
      * 建立 SSE 连接
+     *
+     * @param lastEventId 断线重连时浏览器携带的最后一个事件 id
      */
     @GetMapping(value = "${ext.sse.path}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter connect() {
+    public SseEmitter connect(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
         String tokenValue = SecurityUtil.getCurrentTokenValue();
         String userId = SecurityUtil.getCurrentLoginId();
-        return sseEmitterManager.connect(userId, tokenValue);
+        return sseEmitterManager.connect(userId, tokenValue, lastEventId);
     }
 
     /**
@@ -33,7 +33,7 @@ public class SseTopicListener implements ApplicationRunner {
             log.info("[📨] SSE 主题订阅收到消息，session keys:{},message:{}", message.getUserIds(), message.getMessage());
             // 如果 key 不为空就按照 key 发消息 如果为空就群发
             if (ObjectUtil.isNotEmpty(message.getUserIds())) {
-                message.getUserIds().forEach(key -> sseEmitterManager.sendMessage(key, message.getMessage()));
+                sseEmitterManager.sendMessage(message.getUserIds(), message.getMessage());
             } else {
                 sseEmitterManager.sendMessage(message.getMessage());
             }
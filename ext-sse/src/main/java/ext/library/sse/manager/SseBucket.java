@@ -0,0 +1,266 @@
+package ext.library.sse.manager;
+
+import ext.library.redis.presence.PresenceRegistry;
+import ext.library.sse.config.properties.SseProperties;
+import ext.library.tool.core.VirtualThreadPools;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SSE 连接分片
+ * <p>
+ * 用户按 id 分配到分片，分片一个虚拟线程与一个有界事件队列；每次取出一批事件，按连接合并后交给连接写入，
+ * 写入在连接自己的虚拟线程中进行，分片线程不等待写完。空闲时按心跳间隔向空闲连接发送注释帧，
+ * 写入失败或消费过慢的连接解绑，断开超过重放保留时间的连接移除
+ */
+final class SseBucket {
+    private static final Logger log = LoggerFactory.getLogger(SseBucket.class);
+
+    private static final SseEvent HEARTBEAT = SseEvent.comment("heartbeat");
+
+    private final int index;
+
+    private final SseProperties.BroadcastProperties properties;
+
+    /** 在线状态登记，未启用时为 null */
+    private final PresenceRegistry presence;
+
+    /** userId -> token -> 连接 */
+    private final Map<String, Map<String, SseConnection>> connections = new ConcurrentHashMap<>();
+
+    private final BlockingQueue<Delivery> queue;
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final SseEmitterManager.BucketMetrics metrics;
+
+    private final Future<?> future;
+
+    private volatile boolean running = true;
+
+    SseBucket(int index, SseProperties.BroadcastProperties properties, PresenceRegistry presence) {
+        this.index = index;
+        this.properties = properties;
+        this.presence = presence;
+        this.queue = new LinkedBlockingQueue<>(Math.max(properties.getQueueCapacity(), 1));
+        this.metrics = new SseEmitterManager.BucketMetrics(index, size, queue);
+        this.future = VirtualThreadPools.submit(() -> {
+            run();
+            return null;
+        });
+    }
+
+    SseEmitterManager.BucketMetrics getMetrics() {
+        return metrics;
+    }
+
+    boolean hasUser(String userId) {
+        Map<String, SseConnection> userConnections = connections.get(userId);
+        return Objects.nonNull(userConnections) && userConnections.values().stream().anyMatch(connection -> Objects.nonNull(connection.getEmitter()));
+    }
+
+    Set<String> getUserIds() {
+        return connections.keySet();
+    }
+
+    /**
+     * 绑定连接，同一 userId + token 重连时复用原连接的重放缓存
+     */
+    SseConnection connect(String userId, String token) {
+        boolean[] created = {false};
+        SseConnection connection = connections.computeIfAbsent(userId, k -> new ConcurrentHashMap<>()).computeIfAbsent(token, k -> {
+            size.incrementAndGet();
+            created[0] = true;
+            return new SseConnection(this, userId, token, properties.getReplaySize(), properties.getPendingCapacity());
+        });
+        if (created[0] && Objects.nonNull(presence)) {
+            presence.online(userId);
+        }
+        return connection;
+    }
+
+    /**
+     * 移除连接
+     */
+    SseConnection disconnect(String userId, String token) {
+        Map<String, SseConnection> userConnections = connections.get(userId);
+        if (Objects.isNull(userConnections)) {
+            return null;
+        }
+        SseConnection connection = userConnections.remove(token);
+        if (Objects.nonNull(connection)) {
+            size.decrementAndGet();
+            if (Objects.nonNull(presence)) {
+                presence.offline(userId);
+            }
+        }
+        connections.computeIfPresent(userId, (k, v) -> v.isEmpty() ? null : v);
+        return connection;
+    }
+
+    /**
+     * 投递事件
+     *
+     * @param event   事件
+     * @param userIds 接收用户，null 时为分片内所有用户
+     */
+    void offer(SseEvent event, Set<String> userIds) {
+        if (!queue.offer(new Delivery(event, userIds, System.nanoTime()))) {
+            metrics.dropped.increment();
+            log.warn("[📨] SSE 分片 {} 事件队列已满，丢弃事件 {}", index, event.id());
+        }
+    }
+
+    void close() {
+        running = false;
+        future.cancel(true);
+        connections.values().forEach(userConnections -> userConnections.values().forEach(connection -> {
+            SseEmitter emitter = connection.getEmitter();
+            if (Objects.nonNull(emitter)) {
+                emitter.complete();
+            }
+        }));
+        connections.clear();
+        size.set(0);
+    }
+
+    private void run() {
+        Thread.currentThread().setName("sse-bucket-" + index);
+        long interval = properties.getHeartbeatInterval().toNanos();
+        long nextHeartbeat = System.nanoTime() + interval;
+        List<Delivery> batch = new ArrayList<>(properties.getBatchSize());
+        try {
+            while (running) {
+                Delivery first = queue.poll(Math.max(nextHeartbeat - System.nanoTime(), 0L), TimeUnit.NANOSECONDS);
+                if (Objects.nonNull(first)) {
+                    batch.add(first);
+                    queue.drainTo(batch, properties.getBatchSize() - 1);
+                    deliver(batch);
+                    batch.clear();
+                }
+                if (System.nanoTime() - nextHeartbeat >= 0) {
+                    heartbeat(interval);
+                    nextHeartbeat = System.nanoTime() + interval;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliver(List<Delivery> batch) {
+        boolean broadcast = false;
+        Set<String> targetUsers = new HashSet<>();
+        for (Delivery delivery : batch) {
+            if (Objects.isNull(delivery.userIds())) {
+                broadcast = true;
+                break;
+            }
+            targetUsers.addAll(delivery.userIds());
+        }
+        Collection<String> users = broadcast ? connections.keySet() : targetUsers;
+        List<SseEvent> events = new ArrayList<>(batch.size());
+        for (String userId : users) {
+            Map<String, SseConnection> userConnections = connections.get(userId);
+            if (Objects.isNull(userConnections)) {
+                continue;
+            }
+            events.clear();
+            for (Delivery delivery : batch) {
+                if (Objects.isNull(delivery.userIds()) || delivery.userIds().contains(userId)) {
+                    events.add(delivery.event());
+                }
+            }
+            if (events.isEmpty()) {
+                continue;
+            }
+            for (SseConnection connection : userConnections.values()) {
+                connection.write(events);
+            }
+        }
+        long now = System.nanoTime();
+        for (Delivery delivery : batch) {
+            long latency = now - delivery.enqueuedAt();
+            metrics.totalNanos.add(latency);
+            metrics.maxNanos.accumulate(latency);
+        }
+        metrics.events.add(batch.size());
+    }
+
+    /**
+     * 连接写入成功，由连接的写入线程调用
+     */
+    void written() {
+        metrics.writes.increment();
+    }
+
+    /**
+     * 连接写入失败，由连接的写入线程调用
+     */
+    void failed(SseConnection connection, SseEmitter emitter, Exception e) {
+        metrics.failed.increment();
+        reap(connection, emitter, e);
+    }
+
+    /**
+     * 向空闲连接发送心跳，清理断开过久的连接
+     */
+    private void heartbeat(long interval) {
+        long now = System.nanoTime();
+        long retention = properties.getReplayRetention().toNanos();
+        for (Map<String, SseConnection> userConnections : connections.values()) {
+            for (SseConnection connection : userConnections.values()) {
+                SseEmitter emitter = connection.getEmitter();
+                if (Objects.isNull(emitter)) {
+                    if (now - connection.getDetachedAt() >= retention) {
+                        disconnect(connection.getUserId(), connection.getToken());
+                    }
+                    continue;
+                }
+                if (now - connection.getLastWrite() < interval) {
+                    continue;
+                }
+                if (connection.heartbeat(HEARTBEAT)) {
+                    metrics.heartbeats.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * 解绑连接，客户端重连后按 Last-Event-ID 重放
+     */
+    void reap(SseConnection connection, SseEmitter emitter, Exception e) {
+        log.debug("[📨] SSE 连接已断开，userId:{}，{}", connection.getUserId(), e.getMessage());
+        metrics.reaped.increment();
+        connection.detach(emitter);
+        if (Objects.nonNull(emitter)) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * 待投递的事件
+     *
+     * @param event      事件
+     * @param userIds    接收用户，null 时为所有用户
+     * @param enqueuedAt 入队时间 (纳秒)
+     */
+    private record Delivery(SseEvent event, Set<String> userIds, long enqueuedAt) {
+    }
+}
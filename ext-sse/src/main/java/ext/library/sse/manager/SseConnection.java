@@ -0,0 +1,228 @@
+package ext.library.sse.manager;
+
+import ext.library.tool.core.VirtualThreadPools;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 用户的一个 SSE 连接 (userId + token)
+ * <p>
+ * 保存最近的事件用于断线重连时按 Last-Event-ID 重放，连接断开后保留一段时间等待重连。
+ * 分片线程只把事件放入连接的待写入队列，由连接自己的虚拟线程写出，同一时刻至多一个写入线程，保证事件顺序；
+ * 阻塞的慢客户端不影响同一分片的其他连接，待写入的事件超过上限时断开，客户端重连后按 Last-Event-ID 重放
+ */
+final class SseConnection {
+    private final SseBucket bucket;
+
+    private final String userId;
+
+    private final String token;
+
+    /** 最近的事件，环形 */
+    private final SseEvent[] ring;
+
+    private int next = 0;
+
+    /** 待写入的报文，按顺序 */
+    private final List<ResponseBodyEmitter.DataWithMediaType> pending = new ArrayList<>();
+
+    /** 最多待写入的报文数 */
+    private final int pendingCapacity;
+
+    /** 是否已有写入线程 */
+    private boolean draining = false;
+
+    /** 当前连接，断开时为 null */
+    private volatile SseEmitter emitter;
+
+    /** 最后一次写入时间 (纳秒) */
+    private volatile long lastWrite = System.nanoTime();
+
+    /** 断开时间 (纳秒) */
+    private volatile long detachedAt;
+
+    SseConnection(SseBucket bucket, String userId, String token, int replaySize, int pendingCapacity) {
+        this.bucket = bucket;
+        this.userId = userId;
+        this.token = token;
+        this.ring = new SseEvent[Math.max(replaySize, 0)];
+        this.pendingCapacity = Math.max(pendingCapacity, 1);
+    }
+
+    String getUserId() {
+        return userId;
+    }
+
+    String getToken() {
+        return token;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    long getLastWrite() {
+        return lastWrite;
+    }
+
+    long getDetachedAt() {
+        return detachedAt;
+    }
+
+    /**
+     * 绑定新的连接，并重放 lastEventId 之后的事件，原连接未写出的事件丢弃
+     *
+     * @param newEmitter  连接
+     * @param lastEventId 客户端收到的最后一个事件 id，null 时不重放
+     */
+    void attach(SseEmitter newEmitter, Long lastEventId) {
+        SseEmitter old;
+        boolean schedule = false;
+        synchronized (this) {
+            old = this.emitter;
+            this.emitter = newEmitter;
+            pending.clear();
+            if (Objects.nonNull(lastEventId)) {
+                for (int i = 0; i < ring.length; i++) {
+                    SseEvent event = ring[(next + i) % ring.length];
+                    if (Objects.nonNull(event) && event.id() > lastEventId) {
+                        pending.add(event.frame());
+                    }
+                }
+                schedule = schedule();
+            }
+        }
+        if (Objects.nonNull(old) && old != newEmitter) {
+            old.complete();
+        }
+        if (schedule) {
+            VirtualThreadPools.execute(this::drain);
+        }
+    }
+
+    /**
+     * 连接结束，仅当仍是当前连接时解绑
+     *
+     * @param closed 结束的连接
+     */
+    synchronized void detach(SseEmitter closed) {
+        if (emitter == closed && Objects.nonNull(closed)) {
+            emitter = null;
+            detachedAt = System.nanoTime();
+            pending.clear();
+        }
+    }
+
+    /**
+     * 写入事件，未连接时只保存用于重放；不等待写完
+     *
+     * @param events 事件，按顺序
+     *
+     * @return 是否放入待写入队列
+     */
+    boolean write(List<SseEvent> events) {
+        SseEmitter current;
+        boolean schedule;
+        synchronized (this) {
+            for (SseEvent event : events) {
+                remember(event);
+            }
+            current = emitter;
+            if (Objects.isNull(current)) {
+                return false;
+            }
+            if (pending.size() + events.size() <= pendingCapacity) {
+                for (SseEvent event : events) {
+                    pending.add(event.frame());
+                }
+                schedule = schedule();
+                current = null;
+            } else {
+                schedule = false;
+            }
+        }
+        if (Objects.nonNull(current)) {
+            // 客户端消费过慢，断开后由客户端重连重放
+            bucket.reap(this, current, new IOException("待写入的事件超过 " + pendingCapacity));
+            return false;
+        }
+        if (schedule) {
+            VirtualThreadPools.execute(this::drain);
+        }
+        return true;
+    }
+
+    /**
+     * 空闲时发送心跳，仍有事件待写入时无需心跳
+     *
+     * @param heartbeat 心跳帧
+     *
+     * @return 是否放入待写入队列
+     */
+    boolean heartbeat(SseEvent heartbeat) {
+        synchronized (this) {
+            if (Objects.isNull(emitter) || draining) {
+                return false;
+            }
+            pending.add(heartbeat.frame());
+            schedule();
+        }
+        VirtualThreadPools.execute(this::drain);
+        return true;
+    }
+
+    /**
+     * 标记写入线程，需持有锁
+     *
+     * @return 是否需要启动写入线程
+     */
+    private boolean schedule() {
+        if (draining || pending.isEmpty()) {
+            return false;
+        }
+        draining = true;
+        return true;
+    }
+
+    /**
+     * 写出待写入的报文，每次合并为一次写入，直到队列为空
+     */
+    private void drain() {
+        while (true) {
+            Set<ResponseBodyEmitter.DataWithMediaType> frames;
+            SseEmitter current;
+            synchronized (this) {
+                current = emitter;
+                if (pending.isEmpty() || Objects.isNull(current)) {
+                    pending.clear();
+                    draining = false;
+                    return;
+                }
+                frames = new LinkedHashSet<>(pending);
+                pending.clear();
+            }
+            try {
+                current.send(frames);
+                lastWrite = System.nanoTime();
+                bucket.written();
+            } catch (Exception e) {
+                bucket.failed(this, current, e);
+            }
+        }
+    }
+
+    private void remember(SseEvent event) {
+        if (ring.length == 0) {
+            return;
+        }
+        ring[next] = event;
+        next = (next + 1) % ring.length;
+    }
+}
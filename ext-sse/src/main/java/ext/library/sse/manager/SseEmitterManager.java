@@ -1,9 +1,10 @@
 package ext.library.sse.manager;
 
 import ext.library.json.util.JsonUtil;
+import ext.library.redis.presence.PresenceRegistry;
 import ext.library.redis.util.RedisUtil;
+import ext.library.sse.config.properties.SseProperties;
 import ext.library.sse.domain.SseMessage;
-import ext.library.tool.core.VirtualThreadPools;
 import ext.library.tool.util.ObjectUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,23 +12,62 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.annotation.Nonnull;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
 /**
  * 管理 Server-Sent Events (SSE) 连接
+ * <p>
+ * 连接按用户分配到固定数量的分片 ({@link SseBucket})，消息只编码一次，按分片入队后由分片线程批量分发，每个连接在自己的虚拟线程中写入；
+ * 定时心跳及时发现半开连接，每个连接保留最近的事件，断线重连时按 Last-Event-ID 重放。
+ * 启用在线状态登记时，不在本机的用户按所在节点分组，每个节点只发布一条消息到其通道，未登记的用户发布到全局频道兜底
  */
-public class SseEmitterManager {
+public class SseEmitterManager implements AutoCloseable {
     /**
      * 订阅的频道
      */
-    private final static String SSE_TOPIC = "ext:sse";
-    private final static Map<String, Map<String, SseEmitter>> USER_TOKEN_EMITTERS = new ConcurrentHashMap<>();
+    public final static String SSE_TOPIC = "ext:sse";
     private final Logger log = LoggerFactory.getLogger(getClass());
 
+    private final SseBucket[] buckets;
+
+    /** 事件 id */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /** 在线状态登记，未启用时为 null */
+    private final PresenceRegistry presence;
+
+    public SseEmitterManager(SseProperties.BroadcastProperties properties) {
+        this(properties, null);
+    }
+
+    /**
+     * @param properties 消息分发配置
+     * @param presence   在线状态登记，为 null 时不在本机的用户消息发布到全局频道
+     */
+    public SseEmitterManager(SseProperties.BroadcastProperties properties, PresenceRegistry presence) {
+        this.presence = presence;
+        int size = properties.getBuckets() > 0 ? properties.getBuckets() : Runtime.getRuntime().availableProcessors();
+        this.buckets = new SseBucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new SseBucket(i, properties, presence);
+        }
+    }
+
     /**
      * 建立与指定用户的 SSE 连接
      *
@@ -37,26 +77,36 @@ public class SseEmitterManager {
      * @return 返回一个 SseEmitter 实例，客户端可以通过该实例接收 SSE 事件
      */
     public SseEmitter connect(String userId, String token) {
-        // 从 USER_TOKEN_EMITTERS 中获取或创建当前用户的 SseEmitter 映射表（ConcurrentHashMap）
-        // 每个用户可以有多个 SSE 连接，通过 token 进行区分
-        Map<String, SseEmitter> emitters = USER_TOKEN_EMITTERS.computeIfAbsent(userId, k -> new ConcurrentHashMap<>());
+        return connect(userId, token, null);
+    }
+
+    /**
+     * 建立与指定用户的 SSE 连接，重连时重放客户端未收到的事件
+     *
+     * @param userId      用户的唯一标识符，用于区分不同用户的连接
+     * @param token       用户的唯一令牌，用于识别具体的连接
+     * @param lastEventId 客户端收到的最后一个事件 id (请求头 Last-Event-ID)，首次连接为 null
+     *
+     * @return 返回一个 SseEmitter 实例，客户端可以通过该实例接收 SSE 事件
+     */
+    public SseEmitter connect(String userId, String token, String lastEventId) {
+        SseConnection connection = bucket(userId).connect(userId, token);
 
         // 创建一个新的 SseEmitter 实例，超时时间设置为 0 表示无限制
         SseEmitter emitter = new SseEmitter(0L);
 
-        emitters.put(token, emitter);
-
-        // 当 emitter 完成、超时或发生错误时，从映射表中移除对应的 token
-        emitter.onCompletion(() -> emitters.remove(token));
-        emitter.onTimeout(() -> emitters.remove(token));
-        emitter.onError((e) -> emitters.remove(token));
+        // 当 emitter 完成、超时或发生错误时解绑，保留重放缓存等待重连
+        emitter.onCompletion(() -> connection.detach(emitter));
+        emitter.onTimeout(() -> connection.detach(emitter));
+        emitter.onError((e) -> connection.detach(emitter));
 
         try {
             // 向客户端发送一条连接成功的事件
             emitter.send(SseEmitter.event().comment("connected").data("connected"));
+            connection.attach(emitter, parseEventId(lastEventId));
         } catch (IOException e) {
-            // 如果发送消息失败，则从映射表中移除 emitter
-            emitters.remove(token);
+            // 如果发送消息失败，则解绑 emitter
+            connection.detach(emitter);
         }
         return emitter;
     }
@@ -68,15 +118,16 @@ public class SseEmitterManager {
      * @param token  用户的唯一令牌，用于识别具体的连接
      */
     public void disconnect(String userId, String token) {
-        Map<String, SseEmitter> emitters = USER_TOKEN_EMITTERS.get(userId);
-        if (emitters != null) {
-            try {
-                SseEmitter emitter = emitters.get(token);
-                emitter.send(SseEmitter.event().comment("disconnected").data("disconnected"));
-                emitter.complete();
-            } catch (Exception ignore) {
-                emitters.remove(token);
-            }
+        SseConnection connection = bucket(userId).disconnect(userId, token);
+        if (Objects.isNull(connection) || Objects.isNull(connection.getEmitter())) {
+            return;
+        }
+        SseEmitter emitter = connection.getEmitter();
+        try {
+            emitter.send(SseEmitter.event().comment("disconnected").data("disconnected"));
+            emitter.complete();
+        } catch (Exception ignore) {
+            connection.detach(emitter);
         }
     }
 
@@ -87,6 +138,10 @@ public class SseEmitterManager {
      */
     public void subscribeMessage(Consumer<SseMessage> consumer) {
         RedisUtil.subscribe(SSE_TOPIC, SseMessage.class, consumer);
+        // 启用在线状态登记时，同时订阅本节点的频道接收单发消息
+        if (Objects.nonNull(presence)) {
+            RedisUtil.subscribe(presence.getNodeChannel(), SseMessage.class, consumer);
+        }
     }
 
     /**
@@ -96,18 +151,22 @@ public class SseEmitterManager {
      * @param message 要发送的消息内容
      */
     public void sendMessage(String userId, String message) {
-        VirtualThreadPools.execute("SSE Send", () -> {
-            Map<String, SseEmitter> emitters = USER_TOKEN_EMITTERS.get(userId);
-            if (emitters != null) {
-                for (Map.Entry<String, SseEmitter> entry : emitters.entrySet()) {
-                    try {
-                        entry.getValue().send(SseEmitter.event().name("message").data(message));
-                    } catch (Exception e) {
-                        emitters.remove(entry.getKey());
-                    }
-                }
-            }
-        });
+        bucket(userId).offer(newEvent(message), Set.of(userId));
+    }
+
+    /**
+     * 向指定的多个用户会话发送消息，消息只编码一次
+     *
+     * @param userIds 要发送消息的用户 id
+     * @param message 要发送的消息内容
+     */
+    public void sendMessage(Collection<String> userIds, String message) {
+        SseEvent event = newEvent(message);
+        Map<SseBucket, Set<String>> grouped = new HashMap<>();
+        for (String userId : userIds) {
+            grouped.computeIfAbsent(bucket(userId), k -> new HashSet<>()).add(userId);
+        }
+        grouped.forEach((bucket, users) -> bucket.offer(event, users));
     }
 
     /**
@@ -116,33 +175,62 @@ public class SseEmitterManager {
      * @param message 要发送的消息内容
      */
     public void sendMessage(String message) {
-        for (String userId : USER_TOKEN_EMITTERS.keySet()) {
-            sendMessage(userId, message);
+        SseEvent event = newEvent(message);
+        for (SseBucket bucket : buckets) {
+            bucket.offer(event, null);
         }
     }
 
+    /**
+     * 用户是否在本机有 SSE 连接
+     *
+     * @param userId 用户 id
+     */
+    public boolean existUser(String userId) {
+        return bucket(userId).hasUser(userId);
+    }
+
     /**
      * 发布 SSE 订阅消息
      *
      * @param sseMessage 要发布的 SSE 消息对象
      */
     public void publishMessage(@Nonnull SseMessage sseMessage) {
+        List<String> localUserIds = new ArrayList<>();
         List<String> unsentUserIds = new ArrayList<>();
-        // 当前服务内用户，直接发送消息
         for (String userId : sseMessage.getUserIds()) {
-            if (USER_TOKEN_EMITTERS.containsKey(userId)) {
-                sendMessage(userId, sseMessage.getMessage());
+            if (existUser(userId)) {
+                localUserIds.add(userId);
                 continue;
             }
             unsentUserIds.add(userId);
         }
+        // 当前服务内用户，直接发送消息
+        if (ObjectUtil.isNotEmpty(localUserIds)) {
+            sendMessage(localUserIds, sseMessage.getMessage());
+        }
         // 不在当前服务内用户，发布订阅消息
-        if (ObjectUtil.isNotEmpty(unsentUserIds)) {
-            SseMessage broadcastMessage = new SseMessage();
-            broadcastMessage.setMessage(sseMessage.getMessage());
-            broadcastMessage.setUserIds(unsentUserIds);
-            log.info("[📨] SSE 发送主题订阅消息，topic:{},session keys:{},message:{}", SSE_TOPIC, unsentUserIds, sseMessage.getMessage());
-            RedisUtil.publish(SSE_TOPIC, JsonUtil.toJson(broadcastMessage));
+        if (ObjectUtil.isEmpty(unsentUserIds)) {
+            return;
+        }
+        if (Objects.isNull(presence)) {
+            publish(SSE_TOPIC, unsentUserIds, sseMessage.getMessage());
+            return;
+        }
+        // 按所在节点分组，每个节点只发布一条消息到其频道
+        Map<String, List<String>> nodes = presence.locate(unsentUserIds);
+        Set<String> located = new HashSet<>();
+        nodes.values().forEach(located::addAll);
+        // 登记在本节点但当前未连接的用户 (断线重连中，消息保留在重放缓冲区) 在本地发送
+        List<String> selfUserIds = nodes.remove(presence.getNodeId());
+        if (ObjectUtil.isNotEmpty(selfUserIds)) {
+            sendMessage(selfUserIds, sseMessage.getMessage());
+        }
+        nodes.forEach((nodeId, userIds) -> publish(presence.nodeChannel(nodeId), userIds, sseMessage.getMessage()));
+        // 未登记的用户 (登记尚未同步、节点未启用在线状态登记) 发布到全局频道兜底
+        List<String> unresolved = unsentUserIds.stream().filter(userId -> !located.contains(userId)).toList();
+        if (ObjectUtil.isNotEmpty(unresolved)) {
+            publish(SSE_TOPIC, unresolved, sseMessage.getMessage());
         }
     }
 
@@ -158,4 +246,151 @@ public class SseEmitterManager {
         RedisUtil.publish(SSE_TOPIC, JsonUtil.toJson(broadcastMessage));
     }
 
-}
\ No newline at end of file
+    private void publish(String channel, List<String> userIds, String message) {
+        SseMessage broadcastMessage = new SseMessage();
+        broadcastMessage.setMessage(message);
+        broadcastMessage.setUserIds(userIds);
+        log.info("[📨] SSE 发送主题订阅消息，topic:{},session keys:{},message:{}", channel, userIds, message);
+        RedisUtil.publish(channel, JsonUtil.toJson(broadcastMessage));
+    }
+
+    /**
+     * 各分片的指标
+     */
+    public List<BucketMetrics> getMetrics() {
+        return Arrays.stream(buckets).map(SseBucket::getMetrics).toList();
+    }
+
+    /**
+     * 关闭所有连接并停止分片线程
+     */
+    @Override
+    public void close() {
+        for (SseBucket bucket : buckets) {
+            bucket.close();
+        }
+        if (Objects.nonNull(presence)) {
+            presence.close();
+        }
+    }
+
+    private SseBucket bucket(String userId) {
+        return buckets[Math.floorMod(Objects.hashCode(userId), buckets.length)];
+    }
+
+    private SseEvent newEvent(String message) {
+        return SseEvent.of(sequence.incrementAndGet(), "message", Objects.requireNonNullElse(message, ""));
+    }
+
+    private static Long parseEventId(String lastEventId) {
+        if (ObjectUtil.isEmpty(lastEventId)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 分片指标
+     */
+    public static final class BucketMetrics {
+        private final int index;
+
+        private final AtomicInteger connections;
+
+        private final BlockingQueue<?> queue;
+
+        /** 投递事件数 */
+        final LongAdder events = new LongAdder();
+
+        /** 写入连接次数，一批事件合并为一次 */
+        final LongAdder writes = new LongAdder();
+
+        /** 写入失败次数 */
+        final LongAdder failed = new LongAdder();
+
+        /** 队列已满丢弃的事件数 */
+        final LongAdder dropped = new LongAdder();
+
+        /** 心跳次数 */
+        final LongAdder heartbeats = new LongAdder();
+
+        /** 清理的断开连接数 */
+        final LongAdder reaped = new LongAdder();
+
+        /** 累计投递延迟 (纳秒)，入队到分发给连接 */
+        final LongAdder totalNanos = new LongAdder();
+
+        /** 最大投递延迟 (纳秒) */
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+        BucketMetrics(int index, AtomicInteger connections, BlockingQueue<?> queue) {
+            this.index = index;
+            this.connections = connections;
+            this.queue = queue;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * 连接数，包含等待重连的连接
+         */
+        public int getConnections() {
+            return connections.get();
+        }
+
+        public int getQueueDepth() {
+            return queue.size();
+        }
+
+        public long getEvents() {
+            return events.sum();
+        }
+
+        public long getWrites() {
+            return writes.sum();
+        }
+
+        public long getFailed() {
+            return failed.sum();
+        }
+
+        public long getDropped() {
+            return dropped.sum();
+        }
+
+        public long getHeartbeats() {
+            return heartbeats.sum();
+        }
+
+        public long getReaped() {
+            return reaped.sum();
+        }
+
+        public Duration getMaxLatency() {
+            return Duration.ofNanos(maxNanos.get());
+        }
+
+        /**
+         * 平均投递延迟
+         *
+         * @return {@link Duration }
+         */
+        public Duration getMeanLatency() {
+            long count = events.sum();
+            return count == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos.sum() / count);
+        }
+
+        @Override
+        public String toString() {
+            return "BucketMetrics{index=" + index + ", connections=" + getConnections() + ", queueDepth=" + getQueueDepth() + ", events=" + getEvents()
+                    + ", writes=" + getWrites() + ", failed=" + getFailed() + ", dropped=" + getDropped() + ", heartbeats=" + getHeartbeats()
+                    + ", reaped=" + getReaped() + ", mean=" + getMeanLatency() + ", max=" + getMaxLatency() + '}';
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ext.library.sse.manager;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * SSE 事件，创建时即编码为 SSE 报文字节，发送给所有连接时共用
+ *
+ * @param id    事件 id，递增，用于 Last-Event-ID 重放；注释帧为 0
+ * @param frame 编码后的报文
+ */
+record SseEvent(long id, ResponseBodyEmitter.DataWithMediaType frame) {
+
+    static SseEvent of(long id, String name, String data) {
+        StringBuilder builder = new StringBuilder(data.length() + 32);
+        builder.append("id:").append(id).append('\n');
+        builder.append("event:").append(name).append('\n');
+        // 多行数据每行一个 data 字段
+        for (String line : data.split("\r\n|\r|\n", -1)) {
+            builder.append("data:").append(line).append('\n');
+        }
+        builder.append('\n');
+        return new SseEvent(id, encode(builder.toString()));
+    }
+
+    /**
+     * 注释帧，客户端忽略，用于心跳
+     */
+    static SseEvent comment(String comment) {
+        return new SseEvent(0L, encode(':' + comment + "\n\n"));
+    }
+
+    Set<ResponseBodyEmitter.DataWithMediaType> frames() {
+        return Set.of(frame);
+    }
+
+    private static ResponseBodyEmitter.DataWithMediaType encode(String text) {
+        return new ResponseBodyEmitter.DataWithMediaType(text.getBytes(StandardCharsets.UTF_8), MediaType.TEXT_EVENT_STREAM);
+    }
+}
@@ -0,0 +1,200 @@
+package ext.library.sse.manager;
+
+import ext.library.sse.config.properties.SseProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("SSE 连接分片测试")
+class SseBucketTest {
+
+    @Test
+    @DisplayName("测试断线重连按 Last-Event-ID 重放")
+    void replay() {
+        SseBucket bucket = new SseBucket(0, properties(), null);
+        try {
+            SseConnection connection = bucket.connect("u1", "t1");
+            LocalEmitter first = new LocalEmitter(0L, false);
+            connection.attach(first, null);
+            for (long id = 1; id <= 3; id++) {
+                bucket.offer(event(id), Set.of("u1"));
+            }
+            assertTrue(await(() -> first.payloads().size() == 3));
+            assertEquals(List.of("e1", "e2", "e3"), first.payloads());
+
+            // 断开期间的事件只保存用于重放
+            connection.detach(first);
+            bucket.offer(event(4), Set.of("u1"));
+            bucket.offer(event(5), Set.of("u1"));
+            assertTrue(await(() -> bucket.getMetrics().getEvents() == 5));
+            assertEquals(3, first.payloads().size());
+
+            LocalEmitter second = new LocalEmitter(0L, false);
+            connection.attach(second, 3L);
+            assertTrue(await(() -> second.payloads().size() == 2));
+            assertEquals(List.of("e4", "e5"), second.payloads());
+
+            // 重放后继续按顺序接收新事件
+            bucket.offer(event(6), Set.of("u1"));
+            assertTrue(await(() -> second.payloads().size() == 3));
+            assertEquals(List.of("e4", "e5", "e6"), second.payloads());
+        } finally {
+            bucket.close();
+        }
+    }
+
+    @Test
+    @DisplayName("测试清理断开的连接")
+    void reap() {
+        SseProperties.BroadcastProperties properties = properties();
+        properties.setHeartbeatInterval(Duration.ofMillis(50L));
+        properties.setReplayRetention(Duration.ofMillis(200L));
+        SseBucket bucket = new SseBucket(0, properties, null);
+        try {
+            SseConnection broken = bucket.connect("broken", "t1");
+            broken.attach(new LocalEmitter(0L, true), null);
+            SseConnection alive = bucket.connect("alive", "t1");
+            LocalEmitter aliveEmitter = new LocalEmitter(0L, false);
+            alive.attach(aliveEmitter, null);
+
+            // 心跳写入失败的连接解绑，超过重放保留时间后移除
+            assertTrue(await(() -> bucket.getMetrics().getReaped() == 1));
+            assertNull(broken.getEmitter());
+            assertTrue(await(() -> !bucket.getUserIds().contains("broken")));
+            assertEquals(Set.of("alive"), bucket.getUserIds());
+            assertEquals(1, bucket.getMetrics().getConnections());
+            assertTrue(bucket.getMetrics().getHeartbeats() > 0);
+            assertTrue(aliveEmitter.payloads().contains(":heartbeat"));
+        } finally {
+            bucket.close();
+        }
+    }
+
+    @Test
+    @DisplayName("测试慢客户端不阻塞同一分片的其他连接")
+    void slowConsumerIsolation() {
+        SseProperties.BroadcastProperties properties = properties();
+        properties.setPendingCapacity(4);
+        SseBucket bucket = new SseBucket(0, properties, null);
+        try {
+            LocalEmitter slow = new LocalEmitter(2_000L, false);
+            SseConnection slowConnection = bucket.connect("slow", "t1");
+            slowConnection.attach(slow, null);
+            List<LocalEmitter> fast = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                LocalEmitter emitter = new LocalEmitter(0L, false);
+                bucket.connect("fast" + i, "t1").attach(emitter, null);
+                fast.add(emitter);
+            }
+            long start = System.nanoTime();
+            for (long id = 1; id <= 10; id++) {
+                bucket.offer(event(id), null);
+                // 逐个事件分发，使慢客户端的待写入事件逐步累积
+                long delivered = id;
+                assertTrue(await(() -> bucket.getMetrics().getEvents() == delivered));
+            }
+            assertTrue(await(() -> fast.stream().allMatch(emitter -> emitter.payloads().size() == 10)));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+            assertEquals(List.of("e1", "e2", "e3", "e4", "e5", "e6", "e7", "e8", "e9", "e10"), fast.getLast().payloads());
+
+            // 慢客户端待写入的事件超过上限后被断开，重连时仍可重放
+            assertEquals(1, bucket.getMetrics().getReaped());
+            assertNull(slowConnection.getEmitter());
+            LocalEmitter reconnected = new LocalEmitter(0L, false);
+            slowConnection.attach(reconnected, 8L);
+            assertTrue(await(() -> reconnected.payloads().size() == 2));
+            assertEquals(List.of("e9", "e10"), reconnected.payloads());
+        } finally {
+            bucket.close();
+        }
+    }
+
+    private static SseProperties.BroadcastProperties properties() {
+        SseProperties.BroadcastProperties properties = new SseProperties.BroadcastProperties();
+        properties.setHeartbeatInterval(Duration.ofMinutes(1L));
+        return properties;
+    }
+
+    private static SseEvent event(long id) {
+        return SseEvent.of(id, "message", "e" + id);
+    }
+
+    private static boolean await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return condition.getAsBoolean();
+    }
+
+    /**
+     * 进程内客户端，记录收到的报文，可模拟慢消费与写入失败
+     */
+    private static final class LocalEmitter extends SseEmitter {
+        private final long delayMillis;
+
+        private final boolean broken;
+
+        private final List<String> received = new ArrayList<>();
+
+        LocalEmitter(long delayMillis, boolean broken) {
+            super(0L);
+            this.delayMillis = delayMillis;
+            this.broken = broken;
+        }
+
+        List<String> payloads() {
+            synchronized (received) {
+                return List.copyOf(received);
+            }
+        }
+
+        @Override
+        public void send(Set<ResponseBodyEmitter.DataWithMediaType> items) throws IOException {
+            if (broken) {
+                throw new IOException("Broken pipe");
+            }
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (received) {
+                for (ResponseBodyEmitter.DataWithMediaType item : items) {
+                    received.add(payload((byte[]) item.getData()));
+                }
+            }
+        }
+
+        /**
+         * 事件的 data 字段，注释帧原样返回
+         */
+        private static String payload(byte[] frame) {
+            String text = new String(frame, StandardCharsets.UTF_8).strip();
+            int index = text.indexOf("data:");
+            return index < 0 ? text : text.substring(index + "data:".length());
+        }
+    }
+}
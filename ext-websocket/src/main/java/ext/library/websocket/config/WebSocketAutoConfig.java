@@ -1,8 +1,11 @@
 package ext.library.websocket.config;
 
+import ext.library.redis.presence.PresenceRegistry;
 import ext.library.tool.util.StringUtil;
 import ext.library.websocket.config.properties.WebSocketProperties;
+import ext.library.websocket.fanout.WebSocketFanout;
 import ext.library.websocket.handler.ExtWebSocketHandler;
+import ext.library.websocket.holder.WebSocketSessionHolder;
 import ext.library.websocket.interceptor.ExtWebSocketInterceptor;
 import ext.library.websocket.listener.WebSocketTopicListener;
 import org.slf4j.Logger;
@@ -18,6 +21,8 @@ import org.springframework.web.socket.server.HandshakeInterceptor;
 
 import jakarta.annotation.Nonnull;
 
+import static ext.library.websocket.constant.WebSocketConstants.WEB_SOCKET_TOPIC;
+
 /**
  * WebSocket 配置
  */
@@ -58,6 +63,19 @@ public class WebSocketAutoConfig {
         return new ExtWebSocketHandler();
     }
 
+    @Bean
+    public WebSocketFanout webSocketFanout(@Nonnull WebSocketProperties webSocketProperties) {
+        return new WebSocketFanout(webSocketProperties.getFanout());
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = WebSocketProperties.PREFIX + ".presence.enabled", havingValue = "true", matchIfMissing = true)
+    public PresenceRegistry webSocketPresence(@Nonnull WebSocketProperties webSocketProperties) {
+        PresenceRegistry presence = new PresenceRegistry(WEB_SOCKET_TOPIC, webSocketProperties.getPresence().getTtl());
+        WebSocketSessionHolder.setPresence(presence);
+        return presence;
+    }
+
     @Bean
     public WebSocketTopicListener topicListener() {
         return new WebSocketTopicListener();
@@ -1,9 +1,11 @@
 package ext.library.websocket.config.properties;
 
+import ext.library.websocket.fanout.SlowConsumerPolicy;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
 import jakarta.validation.constraints.Pattern;
+import java.time.Duration;
 
 /**
  * WebSocket 配置项
@@ -38,6 +40,16 @@ public class WebSocketProperties {
      */
     private Integer bufferSizeLimit = 1024 * 1024 * 5;
 
+    /**
+     * 消息分发配置
+     */
+    private FanoutProperties fanout = new FanoutProperties();
+
+    /**
+     * 在线状态配置
+     */
+    private PresenceProperties presence = new PresenceProperties();
+
     public Boolean getEnabled() {
         return enabled;
     }
@@ -77,4 +89,117 @@ public class WebSocketProperties {
     public void setBufferSizeLimit(Integer bufferSizeLimit) {
         this.bufferSizeLimit = bufferSizeLimit;
     }
-}
\ No newline at end of file
+
+    public FanoutProperties getFanout() {
+        return fanout;
+    }
+
+    public void setFanout(FanoutProperties fanout) {
+        this.fanout = fanout;
+    }
+
+    public PresenceProperties getPresence() {
+        return presence;
+    }
+
+    public void setPresence(PresenceProperties presence) {
+        this.presence = presence;
+    }
+
+    public static class FanoutProperties {
+
+        /**
+         * 发送通道数，小于等于 0 时为 CPU 核数
+         */
+        private Integer lanes = 0;
+
+        /**
+         * 每个会话最多排队的消息数
+         */
+        private Integer queueCapacity = 256;
+
+        /**
+         * 每个会话每次最多连续发送的消息数，之后重新排队
+         */
+        private Integer drainBatch = 64;
+
+        /**
+         * 会话发送队列已满时的处理策略
+         */
+        private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.DROP_OLDEST;
+
+        /**
+         * 单次发送超过该时间的会话转到独立线程发送，不再占用发送通道
+         */
+        private Duration slowSendThreshold = Duration.ofMillis(100L);
+
+        public Integer getLanes() {
+            return lanes;
+        }
+
+        public void setLanes(Integer lanes) {
+            this.lanes = lanes;
+        }
+
+        public Integer getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(Integer queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Integer getDrainBatch() {
+            return drainBatch;
+        }
+
+        public void setDrainBatch(Integer drainBatch) {
+            this.drainBatch = drainBatch;
+        }
+
+        public SlowConsumerPolicy getSlowConsumerPolicy() {
+            return slowConsumerPolicy;
+        }
+
+        public void setSlowConsumerPolicy(SlowConsumerPolicy slowConsumerPolicy) {
+            this.slowConsumerPolicy = slowConsumerPolicy;
+        }
+
+        public Duration getSlowSendThreshold() {
+            return slowSendThreshold;
+        }
+
+        public void setSlowSendThreshold(Duration slowSendThreshold) {
+            this.slowSendThreshold = slowSendThreshold;
+        }
+    }
+
+    public static class PresenceProperties {
+
+        /**
+         * 启用在线状态登记，启用后单发消息只发布到接收者所在节点的通道，关闭时发布到全局通道
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 在线登记有效期，节点按 1/3 有效期续期，节点宕机后登记在有效期内失效
+         */
+        private Duration ttl = Duration.ofSeconds(60L);
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+}
@@ -17,6 +17,11 @@ public class WebSocketMessage implements Serializable {
      */
     private List<String> sessionKeys;
 
+    /**
+     * 需要推送到的主题，不为空时发送给订阅该主题的会话
+     */
+    private String topic;
+
     /**
      * 需要发送的消息
      */
@@ -30,6 +35,14 @@ public class WebSocketMessage implements Serializable {
         this.sessionKeys = sessionKeys;
     }
 
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
     public String getMessage() {
         return message;
     }
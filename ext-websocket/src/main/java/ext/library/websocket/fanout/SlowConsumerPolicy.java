@@ -0,0 +1,15 @@
+package ext.library.websocket.fanout;
+
+/**
+ * 会话发送队列已满 (客户端消费过慢) 时的处理策略
+ */
+public enum SlowConsumerPolicy {
+
+    /** 丢弃最早未发送的消息 */
+    DROP_OLDEST,
+    /** 丢弃新消息 */
+    DROP_NEWEST,
+    /** 关闭会话 */
+    CLOSE
+
+}
@@ -0,0 +1,566 @@
+package ext.library.websocket.fanout;
+
+import ext.library.tool.core.VirtualThreadPools;
+import ext.library.websocket.config.properties.WebSocketProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * WebSocket 消息分发
+ * </p>
+ * 会话按 id 分片到固定数量的发送通道 (lane)，每个通道一个虚拟线程。每个会话一个有界发送队列，有待发送消息时进入通道的就绪队列，
+ * 通道线程取出后直接发送，同一时刻每个会话至多一个发送线程，无需加锁且保持消息顺序。每次最多发送 drainBatch 条后重新排队，
+ * 队列已满时按 {@link SlowConsumerPolicy} 处理。群发时同一消息对象投递给所有会话，只序列化一次
+ * <p>
+ * 单次发送超过 slowSendThreshold 时，由巡检线程为通道启动新的通道线程，原线程发送完当前批次后退出，该会话标记为慢会话，
+ * 之后的批次在独立的虚拟线程中发送，不再占用通道线程，直到一个批次内的发送都不超过阈值
+ */
+public class WebSocketFanout implements AutoCloseable {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /** 空闲时检查停止标记的间隔 */
+    private static final long POLL_MILLIS = 200L;
+
+    private final WebSocketProperties.FanoutProperties properties;
+
+    private final Lane[] lanes;
+
+    private final Future<?> monitor;
+
+    /** sessionId -> 发送队列 */
+    private final Map<String, Outbox> outboxes = new ConcurrentHashMap<>();
+
+    private volatile boolean running = true;
+
+    public WebSocketFanout(WebSocketProperties.FanoutProperties properties) {
+        this.properties = properties;
+        int size = properties.getLanes() > 0 ? properties.getLanes() : Runtime.getRuntime().availableProcessors();
+        this.lanes = new Lane[size];
+        for (int i = 0; i < size; i++) {
+            lanes[i] = new Lane(i);
+        }
+        this.monitor = VirtualThreadPools.submit(() -> {
+            monitor();
+            return null;
+        });
+    }
+
+    /**
+     * 发送消息
+     *
+     * @param session 会话
+     * @param message 消息
+     *
+     * @return 是否已进入发送队列
+     */
+    public boolean send(WebSocketSession session, WebSocketMessage<?> message) {
+        if (Objects.isNull(session) || !session.isOpen()) {
+            log.warn("[⛓️][send] session 会话已经关闭");
+            return false;
+        }
+        Outbox outbox = getOutbox(session);
+        return Objects.nonNull(outbox) && outbox.enqueue(message);
+    }
+
+    /**
+     * 群发消息，消息对象在所有会话间共用
+     *
+     * @param message  消息
+     * @param sessions 会话
+     *
+     * @return 进入发送队列的会话数
+     */
+    public int broadcast(WebSocketMessage<?> message, Collection<WebSocketSession> sessions) {
+        int accepted = 0;
+        for (WebSocketSession session : sessions) {
+            if (Objects.isNull(session) || !session.isOpen()) {
+                continue;
+            }
+            Outbox outbox = getOutbox(session);
+            if (Objects.nonNull(outbox) && outbox.enqueue(message)) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * 会话关闭后移除其发送队列，未发送的消息丢弃
+     *
+     * @param session 会话
+     */
+    public void unregister(WebSocketSession session) {
+        Outbox outbox = outboxes.remove(session.getId());
+        if (Objects.nonNull(outbox)) {
+            outbox.closed = true;
+            outbox.lane.sessions.decrementAndGet();
+            outbox.metrics.dropped.add(outbox.queue.size());
+            outbox.queue.clear();
+        }
+    }
+
+    /**
+     * 各发送通道的指标
+     */
+    public List<LaneMetrics> getLaneMetrics() {
+        return Arrays.stream(lanes).map(lane -> lane.metrics).toList();
+    }
+
+    /**
+     * 会话的发送指标
+     *
+     * @param sessionId 会话 id
+     *
+     * @return 指标，会话不存在时为 null
+     */
+    public SessionMetrics getSessionMetrics(String sessionId) {
+        Outbox outbox = outboxes.get(sessionId);
+        return Objects.isNull(outbox) ? null : outbox.metrics;
+    }
+
+    /**
+     * 所有会话的发送指标
+     */
+    public List<SessionMetrics> getSessionMetrics() {
+        return outboxes.values().stream().map(outbox -> outbox.metrics).toList();
+    }
+
+    /**
+     * 停止发送通道，未发送的消息丢弃
+     */
+    @Override
+    public void close() {
+        running = false;
+        monitor.cancel(true);
+        for (Lane lane : lanes) {
+            lane.future.cancel(true);
+        }
+        outboxes.clear();
+    }
+
+    /**
+     * 巡检各通道，当前发送超过阈值时为通道换一个线程
+     */
+    private void monitor() throws InterruptedException {
+        Thread.currentThread().setName("websocket-lane-monitor");
+        long threshold = properties.getSlowSendThreshold().toNanos();
+        long interval = Math.max(TimeUnit.NANOSECONDS.toMillis(threshold) / 2, 10L);
+        while (running) {
+            TimeUnit.MILLISECONDS.sleep(interval);
+            long now = System.nanoTime();
+            for (Lane lane : lanes) {
+                Outbox writing = lane.writing;
+                if (Objects.nonNull(writing) && now - lane.writeStart > threshold) {
+                    lane.detach(writing);
+                }
+            }
+        }
+    }
+
+    private Outbox getOutbox(WebSocketSession session) {
+        if (!running) {
+            return null;
+        }
+        return outboxes.computeIfAbsent(session.getId(), id -> {
+            Lane lane = lanes[Math.floorMod(id.hashCode(), lanes.length)];
+            lane.sessions.incrementAndGet();
+            return new Outbox(session, lane);
+        });
+    }
+
+    /**
+     * 会话发送队列
+     */
+    private final class Outbox {
+        private final WebSocketSession session;
+
+        private final Lane lane;
+
+        private final BlockingQueue<WebSocketMessage<?>> queue;
+
+        /** 是否已在通道的就绪队列中 */
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        /** 慢会话，在独立的虚拟线程中发送 */
+        private volatile boolean slow = false;
+
+        private final SessionMetrics metrics;
+
+        private volatile boolean closed = false;
+
+        Outbox(WebSocketSession session, Lane lane) {
+            this.session = session;
+            this.lane = lane;
+            this.queue = new ArrayBlockingQueue<>(Math.max(properties.getQueueCapacity(), 1));
+            this.metrics = new SessionMetrics(session.getId(), lane.index, queue);
+        }
+
+        boolean enqueue(WebSocketMessage<?> message) {
+            if (closed) {
+                metrics.dropped.increment();
+                return false;
+            }
+            if (!queue.offer(message)) {
+                switch (properties.getSlowConsumerPolicy()) {
+                    case DROP_OLDEST -> {
+                        if (Objects.nonNull(queue.poll())) {
+                            metrics.dropped.increment();
+                        }
+                        if (!queue.offer(message)) {
+                            metrics.dropped.increment();
+                            return false;
+                        }
+                    }
+                    case DROP_NEWEST -> {
+                        metrics.dropped.increment();
+                        return false;
+                    }
+                    case CLOSE -> {
+                        log.warn("[⛓️][send] session ({}) 消费过慢，发送队列已满，关闭连接", session.getId());
+                        close(CloseStatus.SESSION_NOT_RELIABLE);
+                        return false;
+                    }
+                }
+            }
+            metrics.enqueued.increment();
+            if (scheduled.compareAndSet(false, true)) {
+                lane.ready.offer(this);
+            }
+            return true;
+        }
+
+        void close(CloseStatus status) {
+            unregister(session);
+            try {
+                session.close(status);
+            } catch (IOException e) {
+                log.error("[⛓️][close] 主动关闭 session ({}) 连接失败", session.getId());
+            }
+        }
+    }
+
+    /**
+     * 发送通道
+     */
+    private final class Lane {
+        private final int index;
+
+        /** 有待发送消息的会话 */
+        private final BlockingQueue<Outbox> ready = new LinkedBlockingQueue<>();
+
+        private final AtomicInteger sessions = new AtomicInteger();
+
+        private final LaneMetrics metrics;
+
+        /** 当前通道线程的标记，换线程时替换，原线程据此退出 */
+        private final AtomicReference<Object> worker = new AtomicReference<>();
+
+        /** 通道线程正在发送的会话 */
+        private volatile Outbox writing;
+
+        private volatile long writeStart;
+
+        private volatile Future<?> future;
+
+        Lane(int index) {
+            this.index = index;
+            this.metrics = new LaneMetrics(index, sessions, ready);
+            Object token = new Object();
+            worker.set(token);
+            start(token);
+        }
+
+        private void start(Object token) {
+            this.future = VirtualThreadPools.submit(() -> {
+                run(token);
+                return null;
+            });
+        }
+
+        /**
+         * 通道线程卡在慢会话上，启动新的通道线程，原线程发送完当前批次后退出
+         */
+        private void detach(Outbox outbox) {
+            Object token = worker.get();
+            if (writing != outbox || !running) {
+                return;
+            }
+            outbox.slow = true;
+            Object next = new Object();
+            if (worker.compareAndSet(token, next)) {
+                metrics.detached.increment();
+                log.warn("[⛓️][send] session ({}) 发送过慢，转到独立线程发送", outbox.session.getId());
+                start(next);
+            }
+        }
+
+        private void run(Object token) {
+            Thread.currentThread().setName("websocket-lane-" + index);
+            try {
+                while (running && worker.get() == token) {
+                    Outbox outbox = ready.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (Objects.isNull(outbox)) {
+                        continue;
+                    }
+                    if (outbox.slow) {
+                        metrics.offloaded.increment();
+                        VirtualThreadPools.execute(() -> drain(outbox, null));
+                    } else {
+                        drain(outbox, token);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * 发送会话的一批消息，scheduled 标记保证同一会话同一时刻只有一个线程执行
+         *
+         * @param outbox 会话发送队列
+         * @param token  通道线程的标记，在独立线程中发送时为 null
+         */
+        private void drain(Outbox outbox, Object token) {
+            long max = 0L;
+            try {
+                for (int i = 0; i < properties.getDrainBatch() && running; i++) {
+                    WebSocketMessage<?> message = outbox.queue.poll();
+                    if (Objects.isNull(message)) {
+                        break;
+                    }
+                    max = Math.max(max, write(outbox, message, token));
+                }
+            } finally {
+                if (Objects.isNull(token)) {
+                    // 一个批次内的发送都不超过阈值时回到通道线程发送
+                    outbox.slow = max > properties.getSlowSendThreshold().toNanos();
+                }
+                outbox.scheduled.set(false);
+            }
+            // 仍有消息或释放标记期间有新消息，重新排队
+            if (!outbox.queue.isEmpty() && outbox.scheduled.compareAndSet(false, true)) {
+                ready.offer(outbox);
+            }
+        }
+
+        /**
+         * 发送消息
+         *
+         * @return 发送耗时 (纳秒)
+         */
+        private long write(Outbox outbox, WebSocketMessage<?> message, Object token) {
+            WebSocketSession session = outbox.session;
+            if (outbox.closed || !session.isOpen()) {
+                outbox.metrics.dropped.increment();
+                return 0L;
+            }
+            long start = System.nanoTime();
+            // 换线程后原线程继续发送当前批次，不再参与巡检
+            boolean inline = Objects.nonNull(token) && worker.get() == token;
+            if (inline) {
+                writeStart = start;
+                writing = outbox;
+            }
+            try {
+                session.sendMessage(message);
+                outbox.metrics.sent.increment();
+                metrics.sent.increment();
+            } catch (SessionLimitExceededException e) {
+                // 发送超时或缓冲超限，session 已被标记为关闭，但连接本身可能未关闭，需要主动关闭
+                outbox.metrics.failed.increment();
+                metrics.failed.increment();
+                log.error("[⛓️][error] session ({}) 发送消息失败", session.getId());
+                outbox.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException | RuntimeException e) {
+                outbox.metrics.failed.increment();
+                metrics.failed.increment();
+                log.error("[⛓️][send] session({}) 发送消息异常，message:{}", session.getId(), message, e);
+            } finally {
+                if (inline && worker.get() == token) {
+                    writing = null;
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            metrics.totalNanos.add(elapsed);
+            metrics.maxNanos.accumulate(elapsed);
+            return elapsed;
+        }
+    }
+
+    /**
+     * 发送通道指标
+     */
+    public static final class LaneMetrics {
+        private final int index;
+
+        private final AtomicInteger sessions;
+
+        private final BlockingQueue<?> ready;
+
+        /** 发送成功数 */
+        private final LongAdder sent = new LongAdder();
+
+        /** 发送失败数 */
+        private final LongAdder failed = new LongAdder();
+
+        /** 累计发送耗时 (纳秒) */
+        private final LongAdder totalNanos = new LongAdder();
+
+        /** 最大发送耗时 (纳秒) */
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+        /** 因慢发送更换通道线程的次数 */
+        private final LongAdder detached = new LongAdder();
+
+        /** 在独立线程中发送的批次数 */
+        private final LongAdder offloaded = new LongAdder();
+
+        private LaneMetrics(int index, AtomicInteger sessions, BlockingQueue<?> ready) {
+            this.index = index;
+            this.sessions = sessions;
+            this.ready = ready;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * 分配到该通道的会话数
+         */
+        public int getSessions() {
+            return sessions.get();
+        }
+
+        /**
+         * 等待发送的会话数
+         */
+        public int getReadySessions() {
+            return ready.size();
+        }
+
+        public long getSent() {
+            return sent.sum();
+        }
+
+        public long getFailed() {
+            return failed.sum();
+        }
+
+        public Duration getMaxTime() {
+            return Duration.ofNanos(maxNanos.get());
+        }
+
+        public long getDetached() {
+            return detached.sum();
+        }
+
+        public long getOffloaded() {
+            return offloaded.sum();
+        }
+
+        /**
+         * 平均每条消息发送耗时
+         *
+         * @return {@link Duration }
+         */
+        public Duration getMeanTime() {
+            long count = sent.sum() + failed.sum();
+            return count == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos.sum() / count);
+        }
+
+        @Override
+        public String toString() {
+            return "LaneMetrics{index=" + index + ", sessions=" + getSessions() + ", readySessions=" + getReadySessions() + ", sent=" + getSent()
+                    + ", failed=" + getFailed() + ", mean=" + getMeanTime() + ", max=" + getMaxTime() + ", detached=" + getDetached()
+                    + ", offloaded=" + getOffloaded() + '}';
+        }
+    }
+
+    /**
+     * 会话发送指标
+     */
+    public static final class SessionMetrics {
+        private final String sessionId;
+
+        private final int lane;
+
+        private final BlockingQueue<?> queue;
+
+        /** 入队数 */
+        private final LongAdder enqueued = new LongAdder();
+
+        /** 发送成功数 */
+        private final LongAdder sent = new LongAdder();
+
+        /** 发送失败数 */
+        private final LongAdder failed = new LongAdder();
+
+        /** 丢弃数 */
+        private final LongAdder dropped = new LongAdder();
+
+        private SessionMetrics(String sessionId, int lane, BlockingQueue<?> queue) {
+            this.sessionId = sessionId;
+            this.lane = lane;
+            this.queue = queue;
+        }
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public int getLane() {
+            return lane;
+        }
+
+        public int getQueueDepth() {
+            return queue.size();
+        }
+
+        public long getEnqueued() {
+            return enqueued.sum();
+        }
+
+        public long getSent() {
+            return sent.sum();
+        }
+
+        public long getFailed() {
+            return failed.sum();
+        }
+
+        public long getDropped() {
+            return dropped.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "SessionMetrics{sessionId='" + sessionId + "', lane=" + lane + ", queueDepth=" + getQueueDepth() + ", enqueued=" + getEnqueued()
+                    + ", sent=" + getSent() + ", failed=" + getFailed() + ", dropped=" + getDropped() + '}';
+        }
+    }
+}
@@ -5,6 +5,7 @@ import ext.library.security.domain.SecuritySession;
 import ext.library.tool.holder.Lazy;
 import ext.library.websocket.config.properties.WebSocketProperties;
 import ext.library.websocket.domain.WebSocketMessage;
+import ext.library.websocket.fanout.WebSocketFanout;
 import ext.library.websocket.holder.WebSocketSessionHolder;
 import ext.library.websocket.util.WebSocketUtil;
 import org.slf4j.Logger;
@@ -32,6 +33,8 @@ public class ExtWebSocketHandler extends AbstractWebSocketHandler {
 
     private final Lazy<WebSocketProperties> properties = Lazy.of(() -> SpringUtil.getBean(WebSocketProperties.class));
 
+    private final Lazy<WebSocketFanout> fanout = Lazy.of(() -> SpringUtil.getBean(WebSocketFanout.class));
+
     /**
      * 连接成功后
      */
@@ -123,7 +126,8 @@ public class ExtWebSocketHandler extends AbstractWebSocketHandler {
             log.info("[⛓️][disconnect] 无效的 token. sessionId: {}", session.getId());
             return;
         }
-        WebSocketSessionHolder.removeSession(loginUser.getLoginId());
+        WebSocketSessionHolder.removeSession(loginUser.getLoginId(), session);
+        fanout.get().unregister(session);
         log.info("[⛓️][disconnect] sessionId: {},userId:{}", session.getId(), loginUser.getLoginId());
     }
 
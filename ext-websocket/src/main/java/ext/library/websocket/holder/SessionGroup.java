@@ -0,0 +1,75 @@
+package ext.library.websocket.holder;
+
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一组 WebSocket 会话 (同一用户的多个连接、同一主题的订阅者)
+ * <p>
+ * 成员按会话 id 保存，加入、退出为 O(1)；发送时读取不可变快照，遍历不加锁。
+ * 成员变化后快照在下一次读取时重建，连续的加入、退出只重建一次
+ */
+final class SessionGroup {
+
+    /** sessionId -> 会话 */
+    private final Map<String, WebSocketSession> members = new ConcurrentHashMap<>();
+
+    private volatile List<WebSocketSession> snapshot = List.of();
+
+    private volatile boolean dirty = false;
+
+    /**
+     * 加入会话
+     *
+     * @return 是否为新成员
+     */
+    boolean add(WebSocketSession session) {
+        WebSocketSession previous = members.put(session.getId(), session);
+        dirty = true;
+        return previous == null;
+    }
+
+    /**
+     * 移除会话
+     *
+     * @return 是否移除了成员
+     */
+    boolean remove(String sessionId) {
+        if (members.remove(sessionId) == null) {
+            return false;
+        }
+        dirty = true;
+        return true;
+    }
+
+    boolean contains(String sessionId) {
+        return members.containsKey(sessionId);
+    }
+
+    boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    int size() {
+        return members.size();
+    }
+
+    /**
+     * 当前成员的不可变快照
+     */
+    List<WebSocketSession> snapshot() {
+        if (dirty) {
+            synchronized (this) {
+                if (dirty) {
+                    // 先清除标记，重建期间的变化会再次标记
+                    dirty = false;
+                    snapshot = List.copyOf(members.values());
+                }
+            }
+        }
+        return snapshot;
+    }
+}
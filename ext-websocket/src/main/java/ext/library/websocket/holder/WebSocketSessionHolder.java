@@ -1,38 +1,111 @@
 package ext.library.websocket.holder;
 
+import ext.library.redis.presence.PresenceRegistry;
 import org.springframework.web.socket.WebSocketSession;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * WebSocketSession 用于保存当前所有在线的会话信息
+ * <p>
+ * 一个会话键 (用户) 可同时有多个会话 (多个标签页、多个设备)，会话可订阅多个主题 (房间)。
+ * 主题保存订阅的会话，会话保存订阅的主题用于断开时退订；按主题发送只遍历该主题的成员，
+ * 发送时读取成员快照，遍历不加锁
  */
 public class WebSocketSessionHolder {
 
-    private static final Map<String, WebSocketSession> USER_SESSION_MAP = new ConcurrentHashMap<>();
+    /** sessionId -> 会话 */
+    private static final Map<String, WebSocketSession> SESSION_MAP = new ConcurrentHashMap<>();
+
+    /** 会话键 -> 会话 */
+    private static final Map<String, SessionGroup> USER_SESSION_MAP = new ConcurrentHashMap<>();
+
+    /** 主题 -> 订阅的会话 */
+    private static final Map<String, SessionGroup> TOPIC_SESSION_MAP = new ConcurrentHashMap<>();
+
+    /** sessionId -> 订阅的主题 */
+    private static final Map<String, Set<String>> SESSION_TOPIC_MAP = new ConcurrentHashMap<>();
+
+    /** 在线状态登记，未启用时为 null */
+    private static volatile PresenceRegistry presence;
 
     private WebSocketSessionHolder() {
     }
 
     /**
-     * 将 WebSocket 会话添加到用户会话 Map 中
+     * 设置在线状态登记，会话上下线时同步登记
+     *
+     * @param registry 在线状态登记
+     */
+    public static void setPresence(PresenceRegistry registry) {
+        presence = registry;
+    }
+
+    /**
+     * 获取在线状态登记
+     *
+     * @return 在线状态登记，未启用时为 null
+     */
+    public static PresenceRegistry getPresence() {
+        return presence;
+    }
+
+    /**
+     * 将 WebSocket 会话添加到用户会话 Map 中，同一会话键的已有会话保留
      *
      * @param sessionKey 会话键，用于检索会话
      * @param session    要添加的 WebSocket 会话
      */
     public static void addSession(String sessionKey, WebSocketSession session) {
-        USER_SESSION_MAP.put(sessionKey, session);
+        boolean[] added = {false};
+        USER_SESSION_MAP.compute(sessionKey, (k, group) -> {
+            SessionGroup sessions = Objects.isNull(group) ? new SessionGroup() : group;
+            added[0] = sessions.add(session);
+            return sessions;
+        });
+        SESSION_MAP.put(session.getId(), session);
+        PresenceRegistry registry = presence;
+        if (added[0] && Objects.nonNull(registry)) {
+            registry.online(sessionKey);
+        }
     }
 
     /**
-     * 从用户会话 Map 中移除指定会话键对应的 WebSocket 会话
+     * 移除会话键下的指定会话，并退订该会话订阅的所有主题
+     *
+     * @param sessionKey 会话键
+     * @param session    要移除的 WebSocket 会话
+     */
+    public static void removeSession(String sessionKey, WebSocketSession session) {
+        String sessionId = session.getId();
+        boolean[] removed = {false};
+        USER_SESSION_MAP.computeIfPresent(sessionKey, (k, group) -> {
+            removed[0] = group.remove(sessionId);
+            return group.isEmpty() ? null : group;
+        });
+        SESSION_MAP.remove(sessionId);
+        unsubscribeAll(sessionId);
+        PresenceRegistry registry = presence;
+        if (removed[0] && Objects.nonNull(registry)) {
+            registry.offline(sessionKey);
+        }
+    }
+
+    /**
+     * 从用户会话 Map 中移除指定会话键对应的所有 WebSocket 会话
      *
      * @param sessionKey 要移除的会话键
      */
     public static void removeSession(String sessionKey) {
-        USER_SESSION_MAP.remove(sessionKey);
+        for (WebSocketSession session : getSessions(sessionKey)) {
+            removeSession(sessionKey, session);
+        }
     }
 
     /**
@@ -40,10 +113,11 @@ public class WebSocketSessionHolder {
      *
      * @param sessionKey 要获取的会话键
      *
-     * @return 与给定会话键对应的 WebSocket 会话，如果不存在则返回 null
+     * @return 与给定会话键对应的所有 WebSocket 会话快照，如果不存在则返回空集合
      */
-    public static WebSocketSession getSessions(String sessionKey) {
-        return USER_SESSION_MAP.get(sessionKey);
+    public static List<WebSocketSession> getSessions(String sessionKey) {
+        SessionGroup group = USER_SESSION_MAP.get(sessionKey);
+        return Objects.isNull(group) ? List.of() : group.snapshot();
     }
 
     /**
@@ -55,6 +129,15 @@ public class WebSocketSessionHolder {
         return USER_SESSION_MAP.keySet();
     }
 
+    /**
+     * 获取所有在线的 WebSocket 会话
+     *
+     * @return 所有 WebSocket 会话
+     */
+    public static Collection<WebSocketSession> getSessionList() {
+        return SESSION_MAP.values();
+    }
+
     /**
      * 检查给定的会话键是否存在于用户会话 Map 中
      *
@@ -66,4 +149,92 @@ public class WebSocketSessionHolder {
         return USER_SESSION_MAP.containsKey(sessionKey);
     }
 
-}
\ No newline at end of file
+    /**
+     * 会话订阅主题，会话不在线时忽略
+     *
+     * @param topic   主题
+     * @param session WebSocket 会话
+     */
+    public static void subscribe(String topic, WebSocketSession session) {
+        String sessionId = session.getId();
+        if (!SESSION_MAP.containsKey(sessionId)) {
+            return;
+        }
+        SESSION_TOPIC_MAP.computeIfAbsent(sessionId, k -> ConcurrentHashMap.newKeySet()).add(topic);
+        TOPIC_SESSION_MAP.compute(topic, (k, group) -> {
+            SessionGroup sessions = Objects.isNull(group) ? new SessionGroup() : group;
+            sessions.add(SESSION_MAP.getOrDefault(sessionId, session));
+            return sessions;
+        });
+        // 订阅期间会话断开，撤销订阅
+        if (!SESSION_MAP.containsKey(sessionId)) {
+            unsubscribeAll(sessionId);
+        }
+    }
+
+    /**
+     * 会话退订主题
+     *
+     * @param topic   主题
+     * @param session WebSocket 会话
+     */
+    public static void unsubscribe(String topic, WebSocketSession session) {
+        String sessionId = session.getId();
+        SESSION_TOPIC_MAP.computeIfPresent(sessionId, (k, topics) -> {
+            topics.remove(topic);
+            return topics.isEmpty() ? null : topics;
+        });
+        removeFromTopic(topic, sessionId);
+    }
+
+    /**
+     * 获取订阅主题的会话
+     *
+     * @param topic 主题
+     *
+     * @return 订阅主题的 WebSocket 会话快照，没有订阅时返回空集合
+     */
+    public static List<WebSocketSession> getTopicSessions(String topic) {
+        SessionGroup group = TOPIC_SESSION_MAP.get(topic);
+        return Objects.isNull(group) ? List.of() : group.snapshot();
+    }
+
+    /**
+     * 获取会话订阅的主题
+     *
+     * @param session WebSocket 会话
+     *
+     * @return 会话订阅的主题
+     */
+    public static Set<String> getTopics(WebSocketSession session) {
+        Set<String> topics = SESSION_TOPIC_MAP.get(session.getId());
+        return Objects.isNull(topics) ? Set.of() : Collections.unmodifiableSet(topics);
+    }
+
+    /**
+     * 获取所有有订阅的主题
+     *
+     * @return 主题集合
+     */
+    public static Set<String> getTopicsAll() {
+        return TOPIC_SESSION_MAP.keySet();
+    }
+
+    private static void unsubscribeAll(String sessionId) {
+        Set<String> topics = SESSION_TOPIC_MAP.remove(sessionId);
+        if (Objects.isNull(topics)) {
+            return;
+        }
+        for (String topic : topics) {
+            removeFromTopic(topic, sessionId);
+        }
+    }
+
+    private static void removeFromTopic(String topic, String sessionId) {
+        TOPIC_SESSION_MAP.computeIfPresent(topic, (k, group) -> {
+            group.remove(sessionId);
+            return group.isEmpty() ? null : group;
+        });
+    }
+
+}
@@ -1,7 +1,6 @@
 package ext.library.websocket.listener;
 
 import ext.library.tool.util.ObjectUtil;
-import ext.library.websocket.holder.WebSocketSessionHolder;
 import ext.library.websocket.util.WebSocketUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,16 +26,14 @@ public class WebSocketTopicListener implements ApplicationRunner {
     public void run(ApplicationArguments args) throws Exception {
         // 订阅 WebSocket 消息
         WebSocketUtil.subscribeMessage((message) -> {
-            log.info("[⛓️] WebSocket 主题订阅收到消息，session keys:{},message:{}", message.getSessionKeys(), message.getMessage());
-            // 如果 key 不为空就按照 key 发消息 如果为空就群发
-            if (ObjectUtil.isNotEmpty(message.getSessionKeys())) {
-                message.getSessionKeys().forEach(key -> {
-                    if (WebSocketSessionHolder.existSession(key)) {
-                        WebSocketUtil.sendMessage(key, message.getMessage());
-                    }
-                });
+            log.info("[⛓️] WebSocket 主题订阅收到消息，session keys:{},room:{},message:{}", message.getSessionKeys(), message.getTopic(), message.getMessage());
+            // 如果主题不为空就发给主题的订阅者，如果 key 不为空就按照 key 发消息 如果都为空就群发
+            if (ObjectUtil.isNotEmpty(message.getTopic())) {
+                WebSocketUtil.sendTopicMessage(message.getTopic(), message.getMessage());
+            } else if (ObjectUtil.isNotEmpty(message.getSessionKeys())) {
+                WebSocketUtil.sendMessage(message.getSessionKeys(), message.getMessage());
             } else {
-                WebSocketSessionHolder.getSessionsAll().forEach(key -> WebSocketUtil.sendMessage(key, message.getMessage()));
+                WebSocketUtil.sendMessageAll(message.getMessage());
             }
         });
         log.info("[⛓️] 初始化 WebSocket 主题订阅监听器成功");
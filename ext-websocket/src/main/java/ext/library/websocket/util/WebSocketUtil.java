@@ -1,22 +1,28 @@
 package ext.library.websocket.util;
 
+import ext.library.core.util.SpringUtil;
 import ext.library.json.util.JsonUtil;
+import ext.library.redis.presence.PresenceRegistry;
 import ext.library.redis.util.RedisUtil;
-import ext.library.tool.core.VirtualThreadPools;
+import ext.library.tool.holder.Lazy;
 import ext.library.tool.util.ObjectUtil;
 import ext.library.websocket.domain.WebSocketMessage;
+import ext.library.websocket.fanout.WebSocketFanout;
 import ext.library.websocket.holder.WebSocketSessionHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.SessionLimitExceededException;
 
 import jakarta.annotation.Nonnull;
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.function.Consumer;
 
 import static ext.library.websocket.constant.WebSocketConstants.WEB_SOCKET_TOPIC;
@@ -27,6 +33,8 @@ import static ext.library.websocket.constant.WebSocketConstants.WEB_SOCKET_TOPIC
 public class WebSocketUtil {
     private static final Logger log = LoggerFactory.getLogger(WebSocketUtil.class);
 
+    private static final Lazy<WebSocketFanout> fanout = Lazy.of(() -> SpringUtil.getBean(WebSocketFanout.class));
+
     /**
      * 向指定的 WebSocket 会话发送消息
      *
@@ -34,8 +42,7 @@ public class WebSocketUtil {
      * @param message    要发送的消息内容
      */
     public static void sendMessage(String sessionKey, String message) {
-        WebSocketSession session = WebSocketSessionHolder.getSessions(sessionKey);
-        sendMessage(session, message);
+        fanout.get().broadcast(new TextMessage(message), WebSocketSessionHolder.getSessions(sessionKey));
     }
 
     /**
@@ -45,6 +52,11 @@ public class WebSocketUtil {
      */
     public static void subscribeMessage(Consumer<WebSocketMessage> consumer) {
         RedisUtil.subscribe(WEB_SOCKET_TOPIC, WebSocketMessage.class, consumer);
+        // 启用在线状态登记时，同时订阅本节点的通道接收单发消息
+        PresenceRegistry presence = WebSocketSessionHolder.getPresence();
+        if (Objects.nonNull(presence)) {
+            RedisUtil.subscribe(presence.getNodeChannel(), WebSocketMessage.class, consumer);
+        }
     }
 
     /**
@@ -53,23 +65,51 @@ public class WebSocketUtil {
      * @param webSocketMessage 要发布的 WebSocket 消息对象
      */
     public static void publishMessage(@Nonnull WebSocketMessage webSocketMessage) {
+        List<String> localSessionKeys = new ArrayList<>();
         List<String> unsentSessionKeys = new ArrayList<>();
-        // 当前服务内 session，直接发送消息
         for (String sessionKey : webSocketMessage.getSessionKeys()) {
             if (WebSocketSessionHolder.existSession(sessionKey)) {
-                WebSocketUtil.sendMessage(sessionKey, webSocketMessage.getMessage());
+                localSessionKeys.add(sessionKey);
                 continue;
             }
             unsentSessionKeys.add(sessionKey);
         }
+        // 当前服务内 session，直接发送消息
+        if (ObjectUtil.isNotEmpty(localSessionKeys)) {
+            WebSocketUtil.sendMessage(localSessionKeys, webSocketMessage.getMessage());
+        }
         // 不在当前服务内 session，发布订阅消息
-        if (ObjectUtil.isNotEmpty(unsentSessionKeys)) {
-            WebSocketMessage broadcastMessage = new WebSocketMessage();
-            broadcastMessage.setMessage(webSocketMessage.getMessage());
-            broadcastMessage.setSessionKeys(unsentSessionKeys);
-            log.info("[⛓️] WebSocket 发送主题订阅消息，topic:{},session keys:{},message:{}", WEB_SOCKET_TOPIC, unsentSessionKeys, webSocketMessage.getMessage());
-            RedisUtil.publish(WEB_SOCKET_TOPIC, JsonUtil.toJson(broadcastMessage));
+        if (ObjectUtil.isEmpty(unsentSessionKeys)) {
+            return;
         }
+        PresenceRegistry presence = WebSocketSessionHolder.getPresence();
+        if (Objects.isNull(presence)) {
+            publish(WEB_SOCKET_TOPIC, unsentSessionKeys, webSocketMessage.getMessage());
+            return;
+        }
+        // 按所在节点分组，每个节点只发布一条消息到其通道
+        Map<String, List<String>> nodes = presence.locate(unsentSessionKeys);
+        Set<String> located = new HashSet<>();
+        nodes.values().forEach(located::addAll);
+        // 登记在本节点的 session 在本地发送，不因本地检查与登记之间的时间差丢弃
+        List<String> selfSessionKeys = nodes.remove(presence.getNodeId());
+        if (ObjectUtil.isNotEmpty(selfSessionKeys)) {
+            WebSocketUtil.sendMessage(selfSessionKeys, webSocketMessage.getMessage());
+        }
+        nodes.forEach((nodeId, sessionKeys) -> publish(presence.nodeChannel(nodeId), sessionKeys, webSocketMessage.getMessage()));
+        // 未登记的 session (登记尚未同步、节点未启用在线状态登记) 发布到全局通道兜底
+        List<String> unresolved = unsentSessionKeys.stream().filter(sessionKey -> !located.contains(sessionKey)).toList();
+        if (ObjectUtil.isNotEmpty(unresolved)) {
+            publish(WEB_SOCKET_TOPIC, unresolved, webSocketMessage.getMessage());
+        }
+    }
+
+    private static void publish(String channel, List<String> sessionKeys, String message) {
+        WebSocketMessage broadcastMessage = new WebSocketMessage();
+        broadcastMessage.setMessage(message);
+        broadcastMessage.setSessionKeys(sessionKeys);
+        log.info("[⛓️] WebSocket 发送主题订阅消息，topic:{},session keys:{},message:{}", channel, sessionKeys, message);
+        RedisUtil.publish(channel, JsonUtil.toJson(broadcastMessage));
     }
 
     /**
@@ -84,6 +124,20 @@ public class WebSocketUtil {
         RedisUtil.publish(WEB_SOCKET_TOPIC, JsonUtil.toJson(broadcastMessage));
     }
 
+    /**
+     * 向所有服务内订阅主题的 WebSocket 会话发布订阅的消息
+     *
+     * @param topic   主题
+     * @param message 要发布的消息内容
+     */
+    public static void publishTopic(String topic, String message) {
+        WebSocketMessage broadcastMessage = new WebSocketMessage();
+        broadcastMessage.setTopic(topic);
+        broadcastMessage.setMessage(message);
+        log.info("[⛓️] WebSocket 发送主题订阅消息，topic:{},room:{},message:{}", WEB_SOCKET_TOPIC, topic, message);
+        RedisUtil.publish(WEB_SOCKET_TOPIC, JsonUtil.toJson(broadcastMessage));
+    }
+
     /**
      * 向指定的 WebSocket 会话发送 Pong 消息
      *
@@ -104,31 +158,45 @@ public class WebSocketUtil {
     }
 
     /**
-     * 向指定的 WebSocket 会话发送 WebSocket 消息对象
+     * 向所有当前服务内的 WebSocket 会话发送文本消息，消息只创建一次
+     *
+     * @param message 要发送的文本消息内容
+     */
+    public static void sendMessageAll(String message) {
+        fanout.get().broadcast(new TextMessage(message), WebSocketSessionHolder.getSessionList());
+    }
+
+    /**
+     * 向当前服务内指定的 WebSocket 会话发送文本消息，消息只创建一次
+     *
+     * @param sessionKeys 会话键
+     * @param message     要发送的文本消息内容
+     */
+    public static void sendMessage(Collection<String> sessionKeys, String message) {
+        List<WebSocketSession> sessions = new ArrayList<>(sessionKeys.size());
+        for (String sessionKey : sessionKeys) {
+            sessions.addAll(WebSocketSessionHolder.getSessions(sessionKey));
+        }
+        fanout.get().broadcast(new TextMessage(message), sessions);
+    }
+
+    /**
+     * 向当前服务内订阅主题的 WebSocket 会话发送文本消息，只遍历该主题的订阅者
+     *
+     * @param topic   主题
+     * @param message 要发送的文本消息内容
+     */
+    public static void sendTopicMessage(String topic, String message) {
+        fanout.get().broadcast(new TextMessage(message), WebSocketSessionHolder.getTopicSessions(topic));
+    }
+
+    /**
+     * 向指定的 WebSocket 会话发送 WebSocket 消息对象，由会话所属的发送通道异步发送
      *
      * @param session WebSocket 会话
      * @param message 要发送的 WebSocket 消息对象
      */
-    private static synchronized void sendMessage(WebSocketSession session, org.springframework.web.socket.WebSocketMessage<?> message) {
-        VirtualThreadPools.execute("WebSocket Send", () -> {
-            if (session == null || !session.isOpen()) {
-                log.warn("[⛓️][send] session 会话已经关闭");
-            } else {
-                try {
-                    session.sendMessage(message);
-                } catch (IOException e) {
-                    log.error("[⛓️][send] session({}) 发送消息异常，message:{}", session, message, e);
-                } catch (SessionLimitExceededException ex) {
-                    // 一旦有一条消息发送超时，或者发送数据大于限制，limitExceeded 标志位就会被设置成 true，标志这这个 session 被关闭
-                    // 后面的发送调用都是直接返回不处理，但只是被标记为关闭连接本身可能实际上并没有关闭，这是一个坑需要注意。
-                    try {
-                        session.close();
-                    } catch (IOException e) {
-                        log.error("[⛓️][close] 主动关闭 session ({}) 连接失败", session.getId());
-                    }
-                    log.error("[⛓️][error] session ({}) 发送消息失败", session.getId());
-                }
-            }
-        });
+    private static void sendMessage(WebSocketSession session, org.springframework.web.socket.WebSocketMessage<?> message) {
+        fanout.get().send(session, message);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,292 @@
+package ext.library.websocket.fanout;
+
+import ext.library.websocket.config.properties.WebSocketProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("WebSocket 消息分发压测")
+class WebSocketFanoutLoadTest {
+
+    @Test
+    @DisplayName("测试群发到大量会话")
+    void broadcast() throws InterruptedException {
+        int sessionCount = 20_000;
+        int rounds = 5;
+        WebSocketProperties.FanoutProperties properties = new WebSocketProperties.FanoutProperties();
+        properties.setLanes(8);
+        properties.setSlowSendThreshold(Duration.ofSeconds(1L));
+        CountDownLatch latch = new CountDownLatch(sessionCount * rounds);
+        List<WebSocketSession> sessions = new ArrayList<>(sessionCount);
+        for (int i = 0; i < sessionCount; i++) {
+            sessions.add(new LocalSession("s" + i, 0L, latch));
+        }
+        try (WebSocketFanout fanout = new WebSocketFanout(properties)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                assertEquals(sessionCount, fanout.broadcast(new TextMessage("round-" + i), sessions));
+            }
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+            // 会话分散到所有通道
+            for (WebSocketFanout.LaneMetrics metrics : fanout.getLaneMetrics()) {
+                assertTrue(metrics.getSessions() > 0 && metrics.getSent() > 0, metrics::toString);
+                assertEquals(0, metrics.getFailed(), metrics::toString);
+                // 没有慢会话时全部在通道线程中发送
+                assertEquals(0, metrics.getOffloaded(), metrics::toString);
+            }
+            assertEquals((long) sessionCount * rounds, fanout.getLaneMetrics().stream().mapToLong(WebSocketFanout.LaneMetrics::getSent).sum());
+            // 每个会话按发送顺序收到
+            LocalSession first = (LocalSession) sessions.getFirst();
+            assertEquals(List.of("round-0", "round-1", "round-2", "round-3", "round-4"), first.payloads());
+            // 群发共用同一消息对象
+            assertSame(first.received.getFirst(), ((LocalSession) sessions.getLast()).received.getFirst());
+        }
+    }
+
+    @Test
+    @DisplayName("测试慢客户端不阻塞同一通道的其他会话")
+    void slowConsumerIsolation() throws InterruptedException {
+        int fastCount = 1_000;
+        int rounds = 5;
+        WebSocketProperties.FanoutProperties properties = new WebSocketProperties.FanoutProperties();
+        properties.setLanes(1);
+        CountDownLatch latch = new CountDownLatch(fastCount * rounds);
+        LocalSession slow = new LocalSession("slow", 2_000L, null);
+        List<WebSocketSession> sessions = new ArrayList<>(fastCount + 1);
+        sessions.add(slow);
+        for (int i = 0; i < fastCount; i++) {
+            sessions.add(new LocalSession("fast" + i, 0L, latch));
+        }
+        try (WebSocketFanout fanout = new WebSocketFanout(properties)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                assertEquals(fastCount + 1, fanout.broadcast(new TextMessage("round-" + i), sessions));
+            }
+            // 慢客户端的一次发送未完成时，其他会话已收到全部消息
+            assertTrue(latch.await(1, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+            assertTrue(slow.payloads().isEmpty());
+            assertEquals(List.of("round-0", "round-1", "round-2", "round-3", "round-4"), ((LocalSession) sessions.getLast()).payloads());
+            assertEquals(rounds - 1, fanout.getSessionMetrics("slow").getQueueDepth());
+            // 通道线程卡在慢会话上时换了一个线程
+            assertEquals(1, fanout.getLaneMetrics().getFirst().getDetached());
+        }
+    }
+
+    @Test
+    @DisplayName("测试慢客户端丢弃最早消息")
+    void dropOldest() {
+        WebSocketProperties.FanoutProperties properties = new WebSocketProperties.FanoutProperties();
+        properties.setLanes(1);
+        properties.setQueueCapacity(4);
+        properties.setDrainBatch(1);
+        LocalSession slow = new LocalSession("slow", 50L, null);
+        try (WebSocketFanout fanout = new WebSocketFanout(properties)) {
+            for (int i = 0; i < 20; i++) {
+                assertTrue(fanout.send(slow, new TextMessage(String.valueOf(i))));
+            }
+            WebSocketFanout.SessionMetrics metrics = fanout.getSessionMetrics("slow");
+            assertTrue(await(() -> metrics.getSent() + metrics.getDropped() == 20), metrics::toString);
+            assertTrue(metrics.getDropped() > 0);
+            assertEquals(metrics.getSent(), slow.payloads().size());
+            // 保留最新的消息
+            assertEquals("19", slow.payloads().getLast());
+        }
+    }
+
+    @Test
+    @DisplayName("测试慢客户端关闭连接")
+    void closeSlowConsumer() {
+        WebSocketProperties.FanoutProperties properties = new WebSocketProperties.FanoutProperties();
+        properties.setLanes(1);
+        properties.setQueueCapacity(2);
+        properties.setSlowConsumerPolicy(SlowConsumerPolicy.CLOSE);
+        LocalSession slow = new LocalSession("slow", 200L, null);
+        try (WebSocketFanout fanout = new WebSocketFanout(properties)) {
+            int accepted = 0;
+            for (int i = 0; i < 10; i++) {
+                if (fanout.send(slow, new TextMessage(String.valueOf(i)))) {
+                    accepted++;
+                }
+            }
+            assertTrue(accepted < 10);
+            assertFalse(slow.isOpen());
+            assertEquals(CloseStatus.SESSION_NOT_RELIABLE, slow.closeStatus);
+        }
+    }
+
+    private static boolean await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return condition.getAsBoolean();
+    }
+
+    /**
+     * 进程内客户端，记录收到的消息，可模拟慢消费
+     */
+    private static final class LocalSession implements WebSocketSession {
+        private final String id;
+
+        private final long delayMillis;
+
+        private final CountDownLatch latch;
+
+        private final List<WebSocketMessage<?>> received = new ArrayList<>();
+
+        private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+        private final AtomicInteger concurrentSends = new AtomicInteger();
+
+        private volatile boolean open = true;
+
+        private volatile CloseStatus closeStatus;
+
+        LocalSession(String id, long delayMillis, CountDownLatch latch) {
+            this.id = id;
+            this.delayMillis = delayMillis;
+            this.latch = latch;
+        }
+
+        List<String> payloads() {
+            synchronized (received) {
+                return received.stream().map(message -> String.valueOf(message.getPayload())).toList();
+            }
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            // 同一会话只由所属通道发送
+            if (concurrentSends.incrementAndGet() > 1) {
+                throw new IllegalStateException("concurrent send on session " + id);
+            }
+            try {
+                if (delayMillis > 0) {
+                    Thread.sleep(delayMillis);
+                }
+                synchronized (received) {
+                    received.add(message);
+                }
+                if (latch != null) {
+                    latch.countDown();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrentSends.decrementAndGet();
+            }
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public URI getUri() {
+            return URI.create("ws://localhost/websocket");
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return new HttpHeaders();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return null;
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            close(CloseStatus.NORMAL);
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+            open = false;
+            closeStatus = status;
+        }
+    }
+}
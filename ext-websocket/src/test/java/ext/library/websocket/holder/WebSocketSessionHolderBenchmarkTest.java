@@ -0,0 +1,119 @@
+package ext.library.websocket.holder;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("WebSocket 会话登记压测")
+class WebSocketSessionHolderBenchmarkTest {
+
+    @Test
+    @DisplayName("测试同一用户多个会话")
+    void multiSession() {
+        WebSocketSession tab1 = session("multi-1");
+        WebSocketSession tab2 = session("multi-2");
+        WebSocketSessionHolder.addSession("multi", tab1);
+        WebSocketSessionHolder.addSession("multi", tab2);
+        WebSocketSessionHolder.subscribe("multi-room", tab1);
+        assertEquals(2, WebSocketSessionHolder.getSessions("multi").size());
+
+        // 关闭一个标签页，另一个保留
+        WebSocketSessionHolder.removeSession("multi", tab1);
+        assertEquals(List.of(tab2), WebSocketSessionHolder.getSessions("multi"));
+        assertTrue(WebSocketSessionHolder.getTopicSessions("multi-room").isEmpty());
+        assertFalse(WebSocketSessionHolder.getTopicsAll().contains("multi-room"));
+
+        WebSocketSessionHolder.removeSession("multi");
+        assertFalse(WebSocketSessionHolder.existSession("multi"));
+    }
+
+    @Test
+    @DisplayName("测试大量会话按主题发送")
+    void topics() throws Exception {
+        int users = 50_000;
+        int sessionsPerUser = 2;
+        int rooms = 1_000;
+        List<WebSocketSession> sessions = new ArrayList<>(users * sessionsPerUser);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < users; i++) {
+            for (int j = 0; j < sessionsPerUser; j++) {
+                WebSocketSession session = session("bench-" + i + "-" + j);
+                sessions.add(session);
+                WebSocketSessionHolder.addSession("bench-" + i, session);
+                WebSocketSessionHolder.subscribe("room-" + (i % rooms), session);
+            }
+        }
+        long registered = System.nanoTime();
+        assertTrue(registered - start < TimeUnit.SECONDS.toNanos(10), "登记 " + sessions.size() + " 个会话耗时过长");
+
+        // 一个房间的成员数与会话总数无关
+        int members = users * sessionsPerUser / rooms;
+        long lookups = 0;
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < rooms; i++) {
+                lookups += WebSocketSessionHolder.getTopicSessions("room-" + i).size();
+            }
+        }
+        long looked = System.nanoTime();
+        assertEquals(10L * rooms * members, lookups);
+        // 快照读取不应随会话总数增长
+        assertTrue(looked - registered < TimeUnit.SECONDS.toNanos(2), "读取 " + 10 * rooms + " 个房间快照耗时过长");
+
+        // 发送期间并发加入、退出，遍历快照不受影响
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<WebSocketSession> room0 = WebSocketSessionHolder.getTopicSessions("room-0");
+        try {
+            Future<?> churn = executor.submit(() -> {
+                ready.countDown();
+                for (int i = 0; i < 20_000; i++) {
+                    WebSocketSession session = room0.get(i % room0.size());
+                    WebSocketSessionHolder.unsubscribe("room-0", session);
+                    WebSocketSessionHolder.subscribe("room-0", session);
+                }
+            });
+            assertTrue(ready.await(5, TimeUnit.SECONDS));
+            while (!churn.isDone()) {
+                for (WebSocketSession session : WebSocketSessionHolder.getTopicSessions("room-0")) {
+                    assertTrue(session.getId().startsWith("bench-"));
+                }
+            }
+            churn.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(members, WebSocketSessionHolder.getTopicSessions("room-0").size());
+
+        for (int i = 0; i < users; i++) {
+            WebSocketSessionHolder.removeSession("bench-" + i);
+        }
+        assertTrue(System.nanoTime() - looked < TimeUnit.SECONDS.toNanos(10), "移除 " + sessions.size() + " 个会话耗时过长");
+        assertTrue(WebSocketSessionHolder.getTopicsAll().stream().noneMatch(topic -> topic.startsWith("room-")));
+        assertTrue(WebSocketSessionHolder.getSessionList().stream().noneMatch(session -> session.getId().startsWith("bench-")));
+    }
+
+    private static WebSocketSession session(String id) {
+        return (WebSocketSession) Proxy.newProxyInstance(WebSocketSession.class.getClassLoader(), new Class<?>[]{WebSocketSession.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getId", "toString" -> id;
+                    case "hashCode" -> id.hashCode();
+                    case "equals" -> proxy == args[0];
+                    case "isOpen" -> true;
+                    default -> null;
+                });
+    }
+}